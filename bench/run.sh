@@ -0,0 +1,14 @@
+#!/bin/sh
+# Ejecuta los benchmarks con el DSN de SQLite y el profiler de GC (asignaciones
+# por operación). Los argumentos se pasan a JMH, por ejemplo:
+#
+#   bench/run.sh QueryBenchmark -p table=bench_wide
+#
+# libodbc_bridge.so se busca en el directorio raíz del proyecto.
+set -e
+BENCH_DIR=$(cd "$(dirname "$0")" && pwd)
+. "$BENCH_DIR/sqlite-dsn.sh"
+exec java -Djava.library.path="$BENCH_DIR/.." \
+    -jar "$BENCH_DIR/target/benchmarks.jar" \
+    -jvmArgsAppend "-Djava.library.path=$BENCH_DIR/.." \
+    -prof gc -rf json -rff "$BENCH_DIR/target/results.json" "$@"
@@ -0,0 +1,45 @@
+#!/bin/sh
+# Prepara un DSN de SQLite en archivo para los benchmarks (Linux + unixODBC).
+#
+#   apt install unixodbc libsqliteodbc    (o el equivalente de la distribución)
+#   . bench/sqlite-dsn.sh
+#
+# Escribe odbcinst.ini y odbc.ini en bench/target/odbc y exporta ODBCSYSINI /
+# ODBCINI para que unixODBC los use en lugar de los del sistema.
+
+BENCH_DIR=$(cd "$(dirname "$0")" 2>/dev/null && pwd)
+[ -f "$BENCH_DIR/pom.xml" ] || BENCH_DIR=$(pwd)/bench
+ODBC_DIR="$BENCH_DIR/target/odbc"
+mkdir -p "$ODBC_DIR"
+
+# Driver de SQLite3: se busca en las rutas habituales si no se indica
+if [ -z "$SQLITE_ODBC_DRIVER" ]; then
+    for lib in /usr/lib/x86_64-linux-gnu/odbc/libsqlite3odbc.so \
+               /usr/lib/aarch64-linux-gnu/odbc/libsqlite3odbc.so \
+               /usr/lib64/libsqlite3odbc.so \
+               /usr/local/lib/libsqlite3odbc.so \
+               /opt/homebrew/lib/libsqlite3odbc.dylib; do
+        if [ -f "$lib" ]; then SQLITE_ODBC_DRIVER=$lib; break; fi
+    done
+fi
+if [ -z "$SQLITE_ODBC_DRIVER" ]; then
+    echo "No se encontró libsqlite3odbc; indique la ruta en SQLITE_ODBC_DRIVER" >&2
+    return 1 2>/dev/null || exit 1
+fi
+
+cat > "$ODBC_DIR/odbcinst.ini" <<INI
+[SQLite3]
+Description = SQLite3 ODBC Driver
+Driver = $SQLITE_ODBC_DRIVER
+INI
+
+cat > "$ODBC_DIR/odbc.ini" <<INI
+[ODBCBridgeBench]
+Driver = SQLite3
+Database = $ODBC_DIR/bench.db
+Timeout = 2000
+INI
+
+export ODBCSYSINI="$ODBC_DIR"
+export ODBCINI="$ODBC_DIR/odbc.ini"
+echo "DSN ODBCBridgeBench -> $ODBC_DIR/bench.db"
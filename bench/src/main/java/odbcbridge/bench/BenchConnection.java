@@ -0,0 +1,24 @@
+package odbcbridge.bench;
+
+import odbcbridge.ODBCConnection;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** Conexión abierta por cada hilo de benchmark sobre {@link BenchDatabase}. */
+@State(Scope.Thread)
+public class BenchConnection {
+    public ODBCConnection connection;
+
+    @Setup(Level.Trial)
+    public void open(BenchDatabase database) throws Exception {
+        connection = database.dataSource.getConnection();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws Exception {
+        connection.close();
+    }
+}
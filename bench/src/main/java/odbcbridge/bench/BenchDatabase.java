@@ -0,0 +1,60 @@
+package odbcbridge.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import odbcbridge.ODBCConnection;
+import odbcbridge.ODBCDataSource;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Base de datos de los benchmarks: crea una vez por ejecución las tablas
+ * {@code bench_narrow} (3 columnas) y {@code bench_wide} (20 columnas) con
+ * {@link #ROWS} filas en el DSN indicado por {@code -Dodbc.dsn}
+ * (por defecto {@code ODBCBridgeBench}, el que prepara sqlite-dsn.sh).
+ */
+@State(Scope.Benchmark)
+public class BenchDatabase {
+    /** Filas de cada tabla. */
+    public static final int ROWS = 10_000;
+    /** Columnas de bench_wide además de id. */
+    public static final int WIDE_COLUMNS = 19;
+
+    public ODBCDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void create() throws Exception {
+        dataSource = new ODBCDataSource().setDsn(System.getProperty("odbc.dsn", "ODBCBridgeBench"));
+        try (ODBCConnection connection = dataSource.getConnection()) {
+            connection.execute("DROP TABLE IF EXISTS bench_narrow");
+            connection.execute("DROP TABLE IF EXISTS bench_wide");
+            connection.execute("DROP TABLE IF EXISTS bench_insert");
+            connection.execute("CREATE TABLE bench_narrow (id INTEGER PRIMARY KEY, value INTEGER, name VARCHAR(32))");
+            connection.execute("CREATE TABLE bench_insert (id INTEGER, value INTEGER, name VARCHAR(32))");
+
+            StringBuilder ddl = new StringBuilder("CREATE TABLE bench_wide (id INTEGER PRIMARY KEY");
+            StringBuilder insert = new StringBuilder("INSERT INTO bench_wide VALUES (?");
+            for (int c = 1; c <= WIDE_COLUMNS; c++) {
+                ddl.append(", c").append(c).append(c % 3 == 0 ? " DOUBLE" : c % 3 == 1 ? " INTEGER" : " VARCHAR(40)");
+                insert.append(", ?");
+            }
+            connection.execute(ddl.append(")").toString());
+
+            List<Object[]> narrow = new ArrayList<>(ROWS);
+            List<Object[]> wide = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                narrow.add(new Object[] { i, i * 7, "name-" + i });
+                Object[] row = new Object[WIDE_COLUMNS + 1];
+                row[0] = i;
+                for (int c = 1; c <= WIDE_COLUMNS; c++) {
+                    row[c] = c % 3 == 0 ? i * 0.5 + c : c % 3 == 1 ? (Object) (i + c) : "value-" + c + "-" + i;
+                }
+                wide.add(row);
+            }
+            connection.executeBatch("INSERT INTO bench_narrow (id, value, name) VALUES (?, ?, ?)", narrow);
+            connection.executeBatch(insert.append(")").toString(), wide);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package odbcbridge.bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import odbcbridge.ODBCConnection;
+import odbcbridge.ODBCField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Abrir y cerrar conexiones, y llamadas de catálogo sobre una conexión abierta. */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionBenchmark {
+
+    @Benchmark
+    public void connectClose(BenchDatabase database) throws Exception {
+        ODBCConnection connection = database.dataSource.getConnection();
+        connection.close();
+    }
+
+    @Benchmark
+    public String[] listTables(BenchConnection conn) throws Exception {
+        return conn.connection.listTables();
+    }
+
+    @Benchmark
+    public ODBCField[] listColumns(BenchConnection conn) throws Exception {
+        return conn.connection.listColumns("bench_wide");
+    }
+
+    // Una sola llamada a SQLColumns para todas las tablas
+    @Benchmark
+    public Map<String, ODBCField[]> listAllColumns(BenchConnection conn) throws Exception {
+        return conn.connection.listAllColumns();
+    }
+}
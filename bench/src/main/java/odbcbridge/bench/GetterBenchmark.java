@@ -0,0 +1,51 @@
+package odbcbridge.bench;
+
+import java.util.concurrent.TimeUnit;
+import odbcbridge.ODBCResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Versión JMH de test/GetterBenchmark: sumar una columna numérica con
+ * {@code get()} y un cast (un objeto por valor) frente a {@code getLong()},
+ * que lee del bloque columnar. Con {@code -prof gc} se ve la diferencia de
+ * asignaciones por fila.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetterBenchmark {
+    private static final String SQL = "SELECT value FROM bench_narrow";
+
+    @Benchmark
+    public long boxed(BenchConnection conn, RowCounter counter) throws Exception {
+        long total = 0;
+        try (ODBCResultSet rs = conn.connection.query(SQL)) {
+            while (rs.next()) {
+                Number value = (Number) rs.get(1);
+                if (value != null) total += value.longValue();
+                counter.rows++;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long primitive(BenchConnection conn, RowCounter counter) throws Exception {
+        long total = 0;
+        try (ODBCResultSet rs = conn.connection.query(SQL)) {
+            while (rs.next()) {
+                total += rs.getLong(1);
+                counter.rows++;
+            }
+        }
+        return total;
+    }
+}
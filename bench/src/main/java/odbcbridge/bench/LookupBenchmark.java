@@ -0,0 +1,77 @@
+package odbcbridge.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import odbcbridge.ODBCConnection;
+import odbcbridge.ODBCPreparedStatement;
+import odbcbridge.ODBCResultCache;
+import odbcbridge.ODBCResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Búsquedas por clave con parámetros: {@code query} con la caché de
+ * sentencias de la conexión frente a un {@link ODBCPreparedStatement}
+ * explícito y frente a una conexión con {@link ODBCResultCache}, que tras el
+ * calentamiento responde sin ir al driver.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+    private static final String SQL = "SELECT id, value, name FROM bench_narrow WHERE id = ?";
+
+    private ODBCPreparedStatement statement;
+    private ODBCConnection cachedConnection;
+
+    @Setup(Level.Trial)
+    public void prepare(BenchDatabase database, BenchConnection conn) throws Exception {
+        statement = conn.connection.prepare(SQL);
+        cachedConnection = database.dataSource.getConnection()
+                .setResultCache(new ODBCResultCache(ODBCResultCache.DEFAULT_MAX_BYTES, 0, TimeUnit.SECONDS));
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws Exception {
+        statement.close();
+        cachedConnection.close();
+    }
+
+    @Benchmark
+    public Object query(BenchConnection conn) throws Exception {
+        try (ODBCResultSet rs = conn.connection.query(SQL, new Object[] { nextId() })) {
+            return rs.next() ? rs.getValues() : null;
+        }
+    }
+
+    @Benchmark
+    public Object prepared() throws Exception {
+        try (ODBCResultSet rs = statement.executeQuery(nextId())) {
+            return rs.next() ? rs.getValues() : null;
+        }
+    }
+
+    @Benchmark
+    public Object cached() throws Exception {
+        try (ODBCResultSet rs = cachedConnection.query(SQL, new Object[] { nextId() })) {
+            return rs.next() ? rs.getValues() : null;
+        }
+    }
+
+    private static int nextId() {
+        return ThreadLocalRandom.current().nextInt(BenchDatabase.ROWS);
+    }
+}
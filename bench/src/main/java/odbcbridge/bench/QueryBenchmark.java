@@ -0,0 +1,82 @@
+package odbcbridge.bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import odbcbridge.ODBCResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Lectura completa de una tabla estrecha y una ancha: fila a fila con
+ * fetchArray (fetchSize 1), por bloques columnares, y con los accesos por
+ * nombre {@code toMap()} / {@code get(String)}. {@code rows} da filas/s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Param({ "bench_narrow", "bench_wide" })
+    public String table;
+
+    private String sql;
+
+    @Setup
+    public void prepare() {
+        sql = "SELECT * FROM " + table;
+    }
+
+    @Benchmark
+    public void fetchArray(BenchConnection conn, RowCounter counter, Blackhole bh) throws Exception {
+        try (ODBCResultSet rs = conn.connection.query(sql, null, 1)) {
+            while (rs.next()) {
+                bh.consume(rs.getValues());
+                counter.rows++;
+            }
+        }
+    }
+
+    @Benchmark
+    public void fetchBlock(BenchConnection conn, RowCounter counter, Blackhole bh) throws Exception {
+        try (ODBCResultSet rs = conn.connection.query(sql)) {
+            while (rs.next()) {
+                bh.consume(rs.getValues());
+                counter.rows++;
+            }
+        }
+    }
+
+    @Benchmark
+    public void toMap(BenchConnection conn, RowCounter counter, Blackhole bh) throws Exception {
+        try (ODBCResultSet rs = conn.connection.query(sql)) {
+            while (rs.next()) {
+                Map<String, Object> row = rs.toMap();
+                bh.consume(row);
+                counter.rows++;
+            }
+        }
+    }
+
+    @Benchmark
+    public void getByName(BenchConnection conn, RowCounter counter, Blackhole bh) throws Exception {
+        try (ODBCResultSet rs = conn.connection.query(sql)) {
+            while (rs.next()) {
+                bh.consume(rs.get("id"));
+                counter.rows++;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package odbcbridge.bench;
+
+import java.util.concurrent.TimeUnit;
+import odbcbridge.ODBCConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@value #ROWS} {@code execute} de un INSERT de una fila: en modo
+ * autocommit, donde cada sentencia se confirma por separado, frente a una
+ * sola transacción confirmada al final. Los tiempos son por fila.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionBenchmark {
+    private static final int ROWS = 1_000;
+    private static final String SQL = "INSERT INTO bench_insert (id, value, name) VALUES (?, ?, ?)";
+
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void truncate(BenchConnection conn) throws Exception {
+        conn.connection.execute("DELETE FROM bench_insert");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void autoCommit(BenchConnection conn) throws Exception {
+        insertRows(conn.connection);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void transaction(BenchConnection conn) throws Exception {
+        conn.connection.inTransaction(connection -> {
+            insertRows(connection);
+            return null;
+        });
+    }
+
+    private void insertRows(ODBCConnection connection) throws Exception {
+        for (int i = 0; i < ROWS; i++) {
+            int id = next++;
+            connection.execute(SQL, new Object[] { id, id * 7, "name-" + id });
+        }
+    }
+}
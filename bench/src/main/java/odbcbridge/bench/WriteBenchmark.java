@@ -0,0 +1,37 @@
+package odbcbridge.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** {@code execute} de un INSERT con parámetros por operación. */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void truncate(BenchConnection conn) throws Exception {
+        conn.connection.execute("DELETE FROM bench_insert");
+    }
+
+    @Benchmark
+    public int insert(BenchConnection conn) throws Exception {
+        int id = next++;
+        return conn.connection.execute("INSERT INTO bench_insert (id, value, name) VALUES (?, ?, ?)",
+                new Object[] { id, id * 7, "name-" + id });
+    }
+}
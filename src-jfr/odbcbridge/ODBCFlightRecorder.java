@@ -0,0 +1,57 @@
+package odbcbridge;
+
+import java.time.Duration;
+import jdk.jfr.Recording;
+
+/**
+ * Eventos de Java Flight Recorder que emiten las conexiones y resultados:
+ *
+ * <ul>
+ *   <li>{@value #CONNECT}: apertura de una conexión</li>
+ *   <li>{@value #EXECUTE}: ejecución de una consulta o sentencia</li>
+ *   <li>{@value #FETCH_BLOCK}: lectura de un bloque de filas</li>
+ *   <li>{@value #STATEMENT_CLOSE}: cierre de un resultado, con sus totales de
+ *       filas, bytes y objetos creados</li>
+ * </ul>
+ *
+ * <p>Todos llevan el DSN y la huella de la sentencia (sin literales), y por
+ * defecto solo se graban si duran al menos {@value #DEFAULT_THRESHOLD}. El
+ * umbral se cambia como el de cualquier evento JFR, con un archivo
+ * {@code .jfc} ({@code odbcbridge.ODBCExecute#threshold=50 ms}) o con
+ * {@link #enable(Recording, Duration)}.</p>
+ *
+ * <p>En JVMs sin Flight Recorder los eventos simplemente no se emiten. Esta
+ * clase y los eventos están en {@code src-jfr} y solo se compilan con JDK 11+;
+ * una librería construida con JDK 8 no los incluye y funciona igual.</p>
+ */
+public final class ODBCFlightRecorder {
+    public static final String CONNECT = "odbcbridge.ODBCConnect";
+    public static final String EXECUTE = "odbcbridge.ODBCExecute";
+    public static final String FETCH_BLOCK = "odbcbridge.ODBCFetchBlock";
+    public static final String STATEMENT_CLOSE = "odbcbridge.ODBCStatementClose";
+
+    /** Umbral por defecto de todos los eventos. */
+    public static final String DEFAULT_THRESHOLD = "20 ms";
+
+    private static final String[] EVENTS = { CONNECT, EXECUTE, FETCH_BLOCK, STATEMENT_CLOSE };
+
+    private ODBCFlightRecorder() {
+    }
+
+    /** Indica si la JVM tiene Flight Recorder y se emitirán los eventos. */
+    public static boolean isAvailable() {
+        return ODBCEvents.AVAILABLE;
+    }
+
+    /**
+     * Activa todos los eventos ODBC en una grabación con el umbral indicado.
+     *
+     * @param recording Grabación a configurar
+     * @param threshold Duración mínima de las operaciones grabadas ({@link Duration#ZERO} para todas)
+     */
+    public static void enable(Recording recording, Duration threshold) {
+        for (String event : EVENTS) {
+            recording.enable(event).withThreshold(threshold);
+        }
+    }
+}
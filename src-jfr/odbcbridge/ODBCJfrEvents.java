@@ -0,0 +1,181 @@
+package odbcbridge;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Eventos JFR de la librería. Solo se carga (por reflexión) a través de
+ * {@link ODBCEvents} cuando la JVM tiene Flight Recorder; como importa
+ * {@code jdk.jfr}, vive en {@code src-jfr} y se compila con JDK 11+.
+ *
+ * <p>El evento se crea solo si está activo en alguna grabación, y sus campos
+ * (incluida la huella SQL) solo se rellenan si supera el umbral
+ * ({@code shouldCommit()}).</p>
+ */
+final class ODBCJfrEvents implements ODBCEvents.Sink {
+    private static final EventType CONNECT = EventType.getEventType(Connect.class);
+    private static final EventType EXECUTE = EventType.getEventType(Execute.class);
+    private static final EventType FETCH = EventType.getEventType(FetchBlock.class);
+    private static final EventType STATEMENT = EventType.getEventType(StatementClose.class);
+
+    ODBCJfrEvents() {
+    }
+
+    @Override
+    public Object beginConnect() {
+        if (!CONNECT.isEnabled()) return null;
+        Connect event = new Connect();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitConnect(Object begun, String dataSource, boolean success) {
+        Connect event = (Connect) begun;
+        event.end();
+        if (event.shouldCommit()) {
+            event.dataSource = dataSource;
+            event.success = success;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginExecute() {
+        if (!EXECUTE.isEnabled()) return null;
+        Execute event = new Execute();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitExecute(Object begun, String dataSource, String sql, long rowsAffected, boolean success) {
+        Execute event = (Execute) begun;
+        event.end();
+        if (event.shouldCommit()) {
+            event.dataSource = dataSource;
+            event.sql = ODBCEvents.fingerprint(sql);
+            event.rowsAffected = rowsAffected;
+            event.success = success;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginFetch() {
+        if (!FETCH.isEnabled()) return null;
+        FetchBlock event = new FetchBlock();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitFetch(Object begun, String dataSource, String sql, int rows, long bytes) {
+        FetchBlock event = (FetchBlock) begun;
+        event.end();
+        if (event.shouldCommit()) {
+            event.dataSource = dataSource;
+            event.sql = ODBCEvents.fingerprint(sql);
+            event.rows = rows;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginStatement() {
+        if (!STATEMENT.isEnabled()) return null;
+        StatementClose event = new StatementClose();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitStatement(Object begun, String dataSource, String sql, long rows, long bytes, long objects) {
+        StatementClose event = (StatementClose) begun;
+        event.end();
+        if (event.shouldCommit()) {
+            event.dataSource = dataSource;
+            event.sql = ODBCEvents.fingerprint(sql);
+            event.rows = rows;
+            event.bytes = bytes;
+            event.objectsCreated = objects;
+            event.commit();
+        }
+    }
+
+    @Name(ODBCFlightRecorder.CONNECT)
+    @Label("ODBC Connect")
+    @Description("Apertura de una conexión ODBC (SQLDriverConnect)")
+    @Category({ "ODBC" })
+    @Threshold(ODBCFlightRecorder.DEFAULT_THRESHOLD)
+    @StackTrace(false)
+    static final class Connect extends Event {
+        @Label("Data Source")
+        String dataSource;
+        @Label("Success")
+        boolean success;
+    }
+
+    @Name(ODBCFlightRecorder.EXECUTE)
+    @Label("ODBC Execute")
+    @Description("Ejecución de una consulta o sentencia hasta tener el resultado")
+    @Category({ "ODBC" })
+    @Threshold(ODBCFlightRecorder.DEFAULT_THRESHOLD)
+    static final class Execute extends Event {
+        @Label("Data Source")
+        String dataSource;
+        @Label("SQL")
+        @Description("Texto SQL con los literales sustituidos por ?")
+        String sql;
+        @Label("Rows Affected")
+        @Description("Filas afectadas, o -1 para consultas")
+        long rowsAffected;
+        @Label("Success")
+        boolean success;
+    }
+
+    @Name(ODBCFlightRecorder.FETCH_BLOCK)
+    @Label("ODBC Fetch Block")
+    @Description("Lectura de un bloque de filas del driver y su copia a Java")
+    @Category({ "ODBC" })
+    @Threshold(ODBCFlightRecorder.DEFAULT_THRESHOLD)
+    static final class FetchBlock extends Event {
+        @Label("Data Source")
+        String dataSource;
+        @Label("SQL")
+        String sql;
+        @Label("Rows")
+        int rows;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name(ODBCFlightRecorder.STATEMENT_CLOSE)
+    @Label("ODBC Statement Close")
+    @Description("Cierre de un resultado; la duración va desde la ejecución hasta el cierre")
+    @Category({ "ODBC" })
+    @Threshold(ODBCFlightRecorder.DEFAULT_THRESHOLD)
+    @StackTrace(false)
+    static final class StatementClose extends Event {
+        @Label("Data Source")
+        String dataSource;
+        @Label("SQL")
+        String sql;
+        @Label("Rows")
+        long rows;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+        @Label("Objects Created")
+        long objectsCreated;
+    }
+}
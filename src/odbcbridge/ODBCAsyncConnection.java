@@ -0,0 +1,267 @@
+package odbcbridge;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fachada asíncrona sobre una {@link ODBCConnection}: cada operación devuelve
+ * un {@link CompletableFuture} y nunca bloquea al llamador.
+ *
+ * <p>Las operaciones de una misma conexión se ejecutan en orden, una detrás
+ * de otra (ODBC no admite llamadas concurrentes sobre una conexión). Si el
+ * driver soporta ejecución asíncrona por sentencia ({@code SQL_AM_STATEMENT})
+ * las consultas se lanzan con {@code SQL_ATTR_ASYNC_ENABLE} y se sondean sin
+ * ocupar un hilo; si no, se ejecutan en el pool de {@link ODBCAsyncExecutor}.</p>
+ *
+ * <pre>
+ * try (ODBCAsyncConnection async = new ODBCAsyncConnection(conn)) {
+ *     async.query("SELECT * FROM users WHERE age &gt; ?", new Object[]{ 18 })
+ *          .thenCompose(rs -&gt; rs.fetch(100))
+ *          .thenAccept(rows -&gt; ...);
+ * }
+ * </pre>
+ */
+public class ODBCAsyncConnection implements AutoCloseable {
+    /** Operaciones pendientes por conexión antes de rechazar nuevas. */
+    public static final int DEFAULT_MAX_PENDING = 64;
+
+    private static final int SQL_AM_STATEMENT = 2;
+
+    private final ODBCBridge nativeBridge = ODBCBridge.INSTANCE;
+    private final ODBCConnection connection;
+    private final ODBCAsyncExecutor executor;
+    private final boolean driverAsync;
+    private final AtomicInteger pending = new AtomicInteger();
+    private int maxPending = DEFAULT_MAX_PENDING;
+    private volatile long activeCall;
+    private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+
+    public ODBCAsyncConnection(ODBCConnection connection) throws SQLException {
+        this(connection, ODBCAsyncExecutor.getDefault());
+    }
+
+    public ODBCAsyncConnection(ODBCConnection connection, ODBCAsyncExecutor executor) throws SQLException {
+        this.connection = connection;
+        this.executor = executor;
+        this.driverAsync = nativeBridge.getAsyncMode(connection.handle()) == SQL_AM_STATEMENT;
+    }
+
+    /** Conexión síncrona subyacente. */
+    public ODBCConnection getConnection() {
+        return connection;
+    }
+
+    /** true si las sentencias se ejecutan con {@code SQL_ATTR_ASYNC_ENABLE}. */
+    public boolean isDriverAsync() {
+        return driverAsync;
+    }
+
+    /** Devuelve el máximo de operaciones pendientes en esta conexión. */
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    /**
+     * Operaciones que pueden quedar encoladas en esta conexión; a partir de
+     * ahí el futuro devuelto falla con {@link RejectedExecutionException}.
+     */
+    public ODBCAsyncConnection setMaxPending(int maxPending) {
+        if (maxPending < 1) throw new IllegalArgumentException("maxPending debe ser mayor que 0: " + maxPending);
+        this.maxPending = maxPending;
+        return this;
+    }
+
+    /** Ejecuta una consulta; el resultado se lee con {@link ODBCAsyncResultSet#fetch}. */
+    public CompletableFuture<ODBCAsyncResultSet> query(String sql, Object[] params) {
+        return query(sql, params, null);
+    }
+
+    public CompletableFuture<ODBCAsyncResultSet> query(String sql) {
+        return query(sql, null);
+    }
+
+    /**
+     * Ejecuta una consulta con opciones propias (timeout, filas por bloque,
+     * cursor...), como {@link ODBCConnection#query(String, Object[], ODBCQueryOptions)}.
+     * Con caché de resultados en la conexión la consulta no usa el modo
+     * asíncrono del driver: se ejecuta en el pool a través de la caché.
+     */
+    public CompletableFuture<ODBCAsyncResultSet> query(String sql, Object[] params, ODBCQueryOptions options) {
+        final int fetchSize = options != null && options.getFetchSize() > 0
+                ? options.getFetchSize() : connection.getFetchSize();
+        return enqueue(() -> {
+            if (!driverAsync || connection.getResultCache() != null) {
+                return executor.submit(() -> new ODBCAsyncResultSet(this, options == null
+                        ? connection.query(sql, params, fetchSize)
+                        : connection.query(sql, params, options)));
+            }
+            return executeAsync(sql, params, options, false, ptr -> {
+                ODBCResultSet rs = wrap(ptr, fetchSize, sql);
+                return new ODBCAsyncResultSet(this, options == null ? rs : connection.detach(rs, options));
+            });
+        });
+    }
+
+    /** Ejecuta una sentencia DML/DDL y devuelve las filas afectadas. */
+    public CompletableFuture<Integer> execute(String sql, Object[] params) {
+        return execute(sql, params, null);
+    }
+
+    public CompletableFuture<Integer> execute(String sql) {
+        return execute(sql, null);
+    }
+
+    /**
+     * Ejecuta una sentencia DML/DDL con opciones propias, como
+     * {@link ODBCConnection#execute(String, Object[], ODBCQueryOptions)}.
+     */
+    public CompletableFuture<Integer> execute(String sql, Object[] params, ODBCQueryOptions options) {
+        if (driverAsync) {
+            return enqueue(() -> executeAsync(sql, params, options, true, rows -> (int) rows));
+        }
+        return enqueue(() -> executor.submit(() -> options == null
+                ? connection.execute(sql, params)
+                : connection.execute(sql, params, options)));
+    }
+
+    /** Ejecuta un lote con {@link ODBCConnection#executeBatch(String, List)} en el pool. */
+    public CompletableFuture<int[]> executeBatch(String sql, List<Object[]> rows) {
+        return enqueue(() -> executor.submit(() -> connection.executeBatch(sql, rows)));
+    }
+
+    /**
+     * Cancela con {@code SQLCancel} la sentencia en ejecución; su futuro se
+     * completa con {@link java.sql.SQLTimeoutException}.
+     */
+    public boolean cancel() {
+        long call = activeCall;
+        if (call != 0 && executor.cancel(call)) {
+            return true;
+        }
+        return connection.cancel();
+    }
+
+    /** Encola una llamada bloqueante cualquiera sobre esta conexión. */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        return enqueue(() -> executor.submit(task));
+    }
+
+    // Sondea la llamada recordándola para cancel()
+    private <T> CompletableFuture<T> poll(long call, ODBCAsyncExecutor.Finisher<T> finisher) {
+        activeCall = call;
+        return executor.poll(call, finisher).whenComplete((value, error) -> activeCall = 0);
+    }
+
+    // Lanza 'sql' con SQL_ATTR_ASYNC_ENABLE y la sondea sin ocupar un hilo. El
+    // final (métricas, eventos, opciones, caché y 'completion') vuelve al pool:
+    // el estado de la conexión no se toca desde el hilo de sondeo
+    private <T> CompletableFuture<T> executeAsync(String sql, Object[] params, ODBCQueryOptions options,
+                                                  boolean update, Completion<T> completion) {
+        long start = connection.startTimer();
+        Object event = ODBCEvents.beginExecute();
+        AtomicBoolean overridden = new AtomicBoolean();
+        return executor.submit(() -> {
+                    if (options != null) overridden.set(connection.overrideOptions(options));
+                    return nativeBridge.executeAsync(connection.handle(), sql, params);
+                })
+                .thenCompose(call -> poll(call, done -> update
+                        ? nativeBridge.finishUpdate(done) : nativeBridge.finishQuery(done)))
+                .handle((value, error) -> submitOrRun(() -> {
+                    try {
+                        if (error != null) {
+                            if (update) connection.recordUpdate(start, event, sql, -1);
+                            else connection.recordExecute(start, event, sql, false);
+                            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                    ? error.getCause() : error;
+                            if (cause instanceof Error) throw (Error) cause;
+                            throw cause instanceof Exception ? (Exception) cause : new CompletionException(cause);
+                        }
+                        if (update) connection.recordUpdate(start, event, sql, (int) (long) value);
+                        else connection.recordExecute(start, event, sql, true);
+                        return completion.complete(value);
+                    } finally {
+                        try {
+                            if (overridden.get()) connection.restoreOptions();
+                        } finally {
+                            if (update) connection.invalidateResults(sql);
+                        }
+                    }
+                }))
+                .thenCompose(result -> result);
+    }
+
+    // Ejecuta 'task' en el pool o, si está saturado, en este mismo hilo: el final
+    // de una sentencia sondeada no puede perderse sin liberar su resultado nativo
+    private <T> CompletableFuture<T> submitOrRun(Callable<T> task) {
+        AtomicBoolean started = new AtomicBoolean();
+        CompletableFuture<T> future = executor.submit(() -> {
+            started.set(true);
+            return task.call();
+        });
+        if (started.get() || !future.isCompletedExceptionally()) {
+            return future;
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            result.complete(task.call());
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    // Resultado nativo de finishQuery; si falla la envoltura se libera el puntero
+    private ODBCResultSet wrap(long ptr, int fetchSize, String sql) throws Exception {
+        try {
+            return connection.wrap(ptr, fetchSize, sql);
+        } catch (Exception e) {
+            nativeBridge.free(ptr);
+            throw e;
+        }
+    }
+
+    // Encadena la operación detrás de la anterior de esta conexión
+    synchronized <T> CompletableFuture<T> enqueue(Supplier<CompletableFuture<T>> operation) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new RejectedExecutionException(
+                    "Demasiadas operaciones pendientes en la conexión: " + maxPending));
+            return rejected;
+        }
+        CompletableFuture<T> result = tail.handle((value, error) -> null)
+                .thenCompose(ignored -> operation.get())
+                .whenComplete((value, error) -> pending.decrementAndGet());
+        tail = result;
+        return result;
+    }
+
+    // Termina una ejecución sondeada con el valor de finishQuery o finishUpdate
+    private interface Completion<T> {
+        T complete(long value) throws Exception;
+    }
+
+    /**
+     * Espera a que terminen las operaciones encoladas y cierra la conexión
+     * subyacente. El ejecutor compartido no se cierra.
+     */
+    @Override
+    public void close() throws Exception {
+        CompletableFuture<?> last;
+        synchronized (this) {
+            last = tail;
+        }
+        try {
+            last.handle((value, error) -> null).join();
+        } finally {
+            connection.close();
+        }
+    }
+}
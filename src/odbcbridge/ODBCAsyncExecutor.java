@@ -0,0 +1,203 @@
+package odbcbridge;
+
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ejecutor de las llamadas nativas de {@link ODBCAsyncConnection}.
+ *
+ * <p>Las llamadas JNI bloquean el hilo que las hace, así que se ejecutan en
+ * un pool acotado de hilos de plataforma y nunca en el hilo del llamador (ni
+ * en hilos virtuales, que quedarían fijados a su portador). Si el pool y su
+ * cola están llenos, el futuro se completa con
+ * {@link RejectedExecutionException} en lugar de bloquear al llamador.</p>
+ *
+ * <p>Las sentencias iniciadas en modo asíncrono de ODBC
+ * ({@code SQL_ATTR_ASYNC_ENABLE}) no ocupan un hilo del pool mientras se
+ * ejecutan: un único hilo las sondea todas con {@link ODBCBridge#pollAsync}.</p>
+ */
+public class ODBCAsyncExecutor implements AutoCloseable {
+    /** Cola por defecto de tareas pendientes antes de rechazar. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    // Pausa entre rondas de sondeo mientras hay sentencias en ejecución
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private static volatile ODBCAsyncExecutor defaultExecutor;
+
+    private final ODBCBridge nativeBridge = ODBCBridge.INSTANCE;
+    private final ThreadPoolExecutor pool;
+    private final ConcurrentLinkedQueue<Pending<?>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Thread poller;
+    private volatile boolean closed;
+
+    /**
+     * Crea un ejecutor con {@code threads} hilos de plataforma y una cola de
+     * {@code queueCapacity} tareas.
+     */
+    public ODBCAsyncExecutor(int threads, int queueCapacity) {
+        if (threads < 1) throw new IllegalArgumentException("threads debe ser mayor que 0: " + threads);
+        if (queueCapacity < 1) throw new IllegalArgumentException("queueCapacity debe ser mayor que 0: " + queueCapacity);
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "ODBCAsyncExecutor-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.poller = new Thread(this::pollLoop, "ODBCAsyncExecutor-poller");
+        this.poller.setDaemon(true);
+        this.poller.start();
+    }
+
+    /**
+     * Ejecutor compartido por defecto: dos hilos por procesador (mínimo 4),
+     * ya que casi todo su tiempo lo pasan bloqueados en el driver.
+     */
+    public static ODBCAsyncExecutor getDefault() {
+        ODBCAsyncExecutor executor = defaultExecutor;
+        if (executor == null) {
+            synchronized (ODBCAsyncExecutor.class) {
+                executor = defaultExecutor;
+                if (executor == null) {
+                    int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+                    executor = defaultExecutor = new ODBCAsyncExecutor(threads, DEFAULT_QUEUE_CAPACITY);
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Ejecuta una llamada bloqueante en el pool.
+     *
+     * @return Futuro con el resultado; se completa con
+     *         {@link RejectedExecutionException} si el pool está saturado
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            pool.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Sondea una llamada iniciada con {@link ODBCBridge#executeAsync} hasta que
+     * termine y la completa con {@code finisher} en el hilo de sondeo.
+     */
+    <T> CompletableFuture<T> poll(long callPtr, Finisher<T> finisher) {
+        Pending<T> call = new Pending<>(callPtr, finisher);
+        pendingCount.incrementAndGet();
+        pending.add(call);
+        LockSupport.unpark(poller);
+        return call.future;
+    }
+
+    /** Cancela con {@code SQLCancel} una llamada que se está sondeando. */
+    boolean cancel(long callPtr) {
+        for (Pending<?> call : pending) {
+            if (call.callPtr == callPtr) {
+                // El poller libera la llamada al terminarla: no se cancela una ya terminada
+                synchronized (call) {
+                    return !call.done && nativeBridge.cancelAsync(callPtr);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void pollLoop() {
+        while (!closed || pendingCount.get() > 0) {
+            if (pending.isEmpty()) {
+                LockSupport.park(this);
+                continue;
+            }
+            for (Iterator<Pending<?>> it = pending.iterator(); it.hasNext(); ) {
+                Pending<?> call = it.next();
+                if (nativeBridge.pollAsync(call.callPtr)) {
+                    it.remove();
+                    pendingCount.decrementAndGet();
+                    synchronized (call) {
+                        call.done = true;
+                    }
+                    call.finish();
+                }
+            }
+            LockSupport.parkNanos(this, POLL_INTERVAL_NANOS);
+        }
+    }
+
+    /** Tareas esperando un hilo del pool. */
+    public int getQueuedTasks() {
+        return pool.getQueue().size();
+    }
+
+    /** Hilos del pool ejecutando una llamada nativa. */
+    public int getActiveThreads() {
+        return pool.getActiveCount();
+    }
+
+    /** Sentencias en modo asíncrono de ODBC que se están sondeando. */
+    public int getPendingPolls() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Deja de aceptar tareas. Las que ya estaban en cola y las sentencias que
+     * se están sondeando terminan normalmente.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        pool.shutdown();
+        LockSupport.unpark(poller);
+        synchronized (ODBCAsyncExecutor.class) {
+            if (defaultExecutor == this) {
+                defaultExecutor = null;
+            }
+        }
+    }
+
+    /** Termina una llamada asíncrona completada (finishQuery, finishUpdate...). */
+    interface Finisher<T> {
+        T finish(long callPtr) throws Exception;
+    }
+
+    private static final class Pending<T> {
+        final long callPtr;
+        final Finisher<T> finisher;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        boolean done;
+
+        Pending(long callPtr, Finisher<T> finisher) {
+            this.callPtr = callPtr;
+            this.finisher = finisher;
+        }
+
+        void finish() {
+            try {
+                future.complete(finisher.finish(callPtr));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package odbcbridge;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resultado de {@link ODBCAsyncConnection#query}: las filas se leen por
+ * tandas con {@link #fetch(int)}, cada una en el pool de la conexión y en
+ * orden con el resto de sus operaciones.
+ */
+public class ODBCAsyncResultSet implements AutoCloseable {
+    private final ODBCAsyncConnection connection;
+    private final ODBCResultSet resultSet;
+    private volatile boolean exhausted;
+
+    ODBCAsyncResultSet(ODBCAsyncConnection connection, ODBCResultSet resultSet) {
+        this.connection = connection;
+        this.resultSet = resultSet;
+    }
+
+    /** Devuelve metadata de columnas. */
+    public ODBCField[] getFields() {
+        return resultSet.getFields();
+    }
+
+    /** true cuando un {@link #fetch} ya ha llegado al final del resultado. */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Lee hasta {@code maxRows} filas.
+     *
+     * @return Futuro con las filas leídas; lista vacía al final del resultado
+     */
+    public CompletableFuture<List<Object[]>> fetch(int maxRows) {
+        if (maxRows < 1) throw new IllegalArgumentException("maxRows debe ser mayor que 0: " + maxRows);
+        return connection.submit(() -> {
+            if (exhausted) return Collections.<Object[]>emptyList();
+            List<Object[]> rows = new ArrayList<>(Math.min(maxRows, resultSet.getFetchSize()));
+            while (rows.size() < maxRows) {
+                if (!resultSet.next()) {
+                    exhausted = true;
+                    break;
+                }
+                rows.add(resultSet.getValues());
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * Cancela con {@code SQLCancel} la lectura en curso; el {@link #fetch}
+     * pendiente falla con {@link java.sql.SQLTimeoutException}.
+     */
+    public boolean cancel() {
+        return resultSet.cancel();
+    }
+
+    /** Cierra el resultado detrás de las operaciones ya encoladas. */
+    public CompletableFuture<Void> closeAsync() {
+        return connection.submit(() -> {
+            resultSet.close();
+            return null;
+        });
+    }
+
+    /** Cierra el resultado esperando a las operaciones ya encoladas. */
+    @Override
+    public void close() throws Exception {
+        closeAsync().join();
+    }
+}
@@ -0,0 +1,110 @@
+package odbcbridge;
+
+import java.math.BigDecimal;
+import java.sql.BatchUpdateException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Divide un lote de filas en bloques que se envían con un solo
+ * {@code SQLExecute} cada uno ({@link ODBCBridge#executeBatch}).
+ *
+ * <p>Un bloque se cierra al llegar a {@code batchSize} filas o cuando los
+ * buffers nativos, enlazados por columnas (ancho máximo de cada columna por
+ * número de filas), superarían el presupuesto de memoria.</p>
+ */
+final class ODBCBatch {
+    // Bytes del indicador de longitud (SQLLEN) de cada valor
+    private static final int INDICATOR_SIZE = 8;
+    // Bytes de los tipos de ancho fijo (el mayor es TIMESTAMP_STRUCT)
+    private static final int FIXED_SIZE = 16;
+
+    private final ODBCBridge nativeBridge;
+    private final long connectionPtr;
+    private final String sql;
+    private final long memoryBudget;
+    private final Object[][] chunk;
+    private int size;
+    private int[] widths;
+
+    private int[] counts = new int[64];
+    private int total;
+
+    ODBCBatch(ODBCBridge nativeBridge, long connectionPtr, String sql, int batchSize, long memoryBudget) {
+        this.nativeBridge = nativeBridge;
+        this.connectionPtr = connectionPtr;
+        this.sql = sql;
+        this.memoryBudget = memoryBudget;
+        this.chunk = new Object[batchSize][];
+    }
+
+    /** Ejecuta todas las filas y devuelve el estado de cada una. */
+    int[] execute(Iterator<Object[]> rows) throws Exception {
+        while (rows.hasNext()) {
+            add(rows.next());
+        }
+        flush();
+        return Arrays.copyOf(counts, total);
+    }
+
+    private void add(Object[] row) throws Exception {
+        if (widths == null) {
+            widths = new int[row.length];
+        }
+        if (size > 0 && (size + 1) * rowBytes(row) > memoryBudget) {
+            flush();
+        }
+        for (int i = 0; i < Math.min(row.length, widths.length); i++) {
+            widths[i] = Math.max(widths[i], estimate(row[i]));
+        }
+        chunk[size++] = row;
+        if (size == chunk.length) {
+            flush();
+        }
+    }
+
+    // Bytes por fila del bloque si se le añade 'row'
+    private long rowBytes(Object[] row) {
+        long bytes = 0;
+        for (int i = 0; i < widths.length; i++) {
+            int width = i < row.length ? estimate(row[i]) : 0;
+            bytes += Math.max(widths[i], width) + INDICATOR_SIZE;
+        }
+        return bytes;
+    }
+
+    private static int estimate(Object value) {
+        if (value == null) return 1;
+        if (value instanceof String) return ((String) value).length() * 3 + 1;
+        if (value instanceof byte[]) return ((byte[]) value).length;
+        if (value instanceof BigDecimal) return ((BigDecimal) value).precision() + 3;
+        if (value instanceof Number || value instanceof Boolean || value instanceof java.util.Date
+                || value instanceof java.time.temporal.Temporal) return FIXED_SIZE;
+        return value.toString().length() * 3 + 1;
+    }
+
+    private void flush() throws Exception {
+        if (size == 0) return;
+        try {
+            append(nativeBridge.executeBatch(connectionPtr, sql, chunk, size));
+        } catch (BatchUpdateException e) {
+            // El estado incluye las filas de los bloques anteriores
+            append(e.getUpdateCounts());
+            throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(),
+                    Arrays.copyOf(counts, total), e);
+        } finally {
+            Arrays.fill(chunk, 0, size, null);
+            size = 0;
+            if (widths != null) Arrays.fill(widths, 0);
+        }
+    }
+
+    private void append(int[] chunkCounts) {
+        if (chunkCounts == null) return;
+        if (total + chunkCounts.length > counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(counts.length * 2, total + chunkCounts.length));
+        }
+        System.arraycopy(chunkCounts, 0, counts, total, chunkCounts.length);
+        total += chunkCounts.length;
+    }
+}
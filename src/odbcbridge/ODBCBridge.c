@@ -1,44 +1,351 @@
 // ODBCBridge.c
 #include "ODBCBridge.h"
+#ifdef _WIN32
 #include <windows.h>
+#else
+// Linux/macOS con unixODBC: equivalentes POSIX de las primitivas de Windows
+#include <pthread.h>
+typedef pthread_mutex_t SRWLOCK;
+#define SRWLOCK_INIT                  PTHREAD_MUTEX_INITIALIZER
+#define InitializeSRWLock(lock)       pthread_mutex_init((lock), NULL)
+#define AcquireSRWLockExclusive(lock) pthread_mutex_lock(lock)
+#define ReleaseSRWLockExclusive(lock) pthread_mutex_unlock(lock)
+#define InterlockedIncrement(value)   __atomic_add_fetch((value), 1, __ATOMIC_SEQ_CST)
+#define InterlockedDecrement(value)   __atomic_sub_fetch((value), 1, __ATOMIC_SEQ_CST)
+#endif
 #include <sql.h>
 #include <sqlext.h>
-#include <time.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+
+// El texto UTF-16 se pasa tal cual entre SQLWCHAR y jchar: con iODBC (wchar_t
+// de 4 bytes) no funcionaría, hay que compilar contra unixODBC
+typedef char sqlwchar_is_utf16[sizeof(SQLWCHAR) == sizeof(jchar) ? 1 : -1];
+
+// Tamaño por defecto de la caché de sentencias preparadas de cada conexión
+#define DEFAULT_STATEMENT_CACHE_SIZE 32
+
+// Origen de una sentencia, que decide qué se hace con ella al liberarla
+#define STMT_TRANSIENT 0  // SQLExecDirect sin caché: se libera al terminar
+#define STMT_CACHED    1  // Preparada en la caché LRU de la conexión: se reinicia y se conserva
+#define STMT_PREPARED  2  // Preparada desde Java (ODBCPreparedStatement): se reinicia
+
+typedef struct StatementState StatementState;
+
+// Buffer de un parámetro enlazado con SQLBindParameter. Pertenece a la sentencia
+// y sigue vivo hasta la siguiente ejecución, así el driver nunca lee memoria liberada.
+typedef struct {
+    union {
+        SQLINTEGER         integer;
+        SQLBIGINT          bigint;
+        SQLDOUBLE          real;
+        SQLCHAR            bit;
+        SQL_NUMERIC_STRUCT numeric;
+        DATE_STRUCT        date;
+        TIME_STRUCT        time;
+        TIMESTAMP_STRUCT   timestamp;
+    } value;                // Valores de tamaño fijo
+    char  *data;            // Texto o bytes (crece según haga falta)
+    size_t dataCapacity;
+    SQLLEN indicator;       // Longitud o SQL_NULL_DATA
+} ParamBuffer;
 
 // Estructura para almacenar el estado de la conexión
+// (el entorno SQLHENV es compartido por todo el proceso)
 typedef struct {
-    SQLHENV hEnv;
     SQLHDBC hDbc;
+    int wideChars;          // Texto SQL, parámetros y columnas de texto en UTF-16 (SQL_C_WCHAR)
+    int queryTimeout;       // SQL_ATTR_QUERY_TIMEOUT por defecto en segundos (0 = sin límite)
+    int batchSupport;       // SQL_BATCH_SUPPORT del driver (-1 = sin consultar)
+
+    // Atributos con los que se preparan las sentencias nuevas y límite de filas
+    // (SQL_ATTR_MAX_ROWS, 0 = sin límite) de las siguientes ejecuciones
+    int cursorType;         // SQL_ATTR_CURSOR_TYPE
+    int concurrency;        // SQL_ATTR_CONCURRENCY
+    int noScan;             // SQL_ATTR_NOSCAN (1 = sin procesar secuencias de escape)
+    SQLULEN maxRows;
+
+    // Sentencia ejecutándose ahora mismo, para cancelarla desde otro hilo
+    SRWLOCK activeLock;
+    SQLHSTMT activeStmt;
+
+    // Caché LRU de sentencias preparadas por texto SQL (head = usada más recientemente).
+    // Una conexión ODBC no se usa desde dos hilos a la vez, así que no lleva bloqueo.
+    StatementState *cacheHead;
+    StatementState *cacheTail;
+    int cacheSize;
+    int cacheCapacity;
+    jlong cacheHits;
+    jlong cacheMisses;
+    jlong cacheEvictions;
+
+    // Todas las sentencias sin liberar (en caché, preparadas o con un resultado abierto).
+    // Al cerrar la conexión las que siguen en uso se desligan de ella.
+    StatementState *liveHead;
 } ConnectionState;
 
+// Sentencia (SQLHSTMT) reutilizable entre ejecuciones
+struct StatementState {
+    SQLHSTMT hStmt;
+    ConnectionState *connectionState;
+    char *sql;              // Texto SQL (clave de la caché)
+    unsigned long hash;     // Hash del texto SQL para comparar rápido
+    int kind;               // STMT_TRANSIENT, STMT_CACHED o STMT_PREPARED
+    int inUse;              // Ejecutándose o con un resultado abierto
+    int timeout;            // Timeout propio en segundos (-1 = el de la conexión)
+    int appliedTimeout;     // Último SQL_ATTR_QUERY_TIMEOUT aplicado al handle
+    int cursorType;         // Cursor, concurrencia y NOSCAN con los que se preparó
+    int concurrency;
+    int noScan;
+    jlong appliedCursorType;  // Cursor y concurrencia que aplicó el driver (-1 si no los informa)
+    jlong appliedConcurrency;
+    SQLULEN appliedMaxRows; // Último SQL_ATTR_MAX_ROWS aplicado al handle
+    ParamBuffer *params;    // Buffers de los parámetros enlazados
+    int paramCapacity;
+    StatementState *prev;   // Vecinos en la lista LRU
+    StatementState *next;
+    StatementState *livePrev;  // Vecinos en la lista de sentencias vivas de la conexión
+    StatementState *liveNext;
+};
+
+// Entorno ODBC compartido: se crea en la primera conexión y se libera en JNI_OnUnload
+static volatile SQLHENV sharedEnv = SQL_NULL_HENV;
+static volatile long sharedEnvRefs = 0;
+static SRWLOCK sharedEnvLock = SRWLOCK_INIT;
+
+// Pooling del Driver Manager; debe configurarse antes de crear el entorno
+static SQLUINTEGER poolingMode = SQL_CP_OFF;
+static SQLUINTEGER poolingMatch = SQL_CP_RELAXED_MATCH;
+
+// Ancho máximo (en bytes) de una columna para enlazarla con SQLBindCol.
+// Columnas más anchas (LONGVARCHAR, LONGVARBINARY, etc.) se leen fila a fila.
+#define MAX_BOUND_COLUMN_WIDTH 8192
+
+// Descriptor de una columna del resultado y su buffer enlazado por bloques
+typedef struct {
+    SQLCHAR     name[256];  // Nombre de la columna
+    SQLSMALLINT sqlType;    // Tipo SQL reportado por SQLDescribeCol
+    SQLSMALLINT cType;      // Tipo C con el que se lee la columna
+    SQLULEN     size;       // Tamaño de la columna
+    SQLSMALLINT scale;      // Dígitos decimales
+    SQLSMALLINT nullable;   // SQL_NO_NULLS, SQL_NULLABLE o SQL_NULLABLE_UNKNOWN
+    SQLLEN      width;      // Bytes por fila en el buffer enlazado (0 = no enlazable)
+    char       *data;       // Buffer de datos (width * rowArraySize)
+    SQLLEN     *indicators; // Longitud o SQL_NULL_DATA por fila
+} ColumnBuffer;
+
 // Estructura para almacenar el estado de la consulta
 typedef struct {
     SQLHSTMT hStmt;
-    ConnectionState* connectionState;
+    StatementState *statement;  // Sentencia dueña de hStmt (se devuelve al liberar la query)
+    SQLSMALLINT columnCount;
+    ColumnBuffer *columns;  // Descriptores de columna, calculados al ejecutar la consulta
+    SQLULEN rowArraySize;   // Filas por SQLFetch (SQL_ATTR_ROW_ARRAY_SIZE)
+    SQLULEN rowsFetched;    // Filas devueltas por el último SQLFetch
+    int blockMode;          // -1 sin decidir, 1 por bloques, 0 fila a fila
+    char *directBuffer;     // Filas enlazadas en modo directo (expuestas como DirectByteBuffer)
+    char *chunkBuffer;      // Buffer de readChunk (un trozo de un LOB leído por streaming)
+    SQLLEN chunkCapacity;
+    jlong bytesFetched;     // Bytes de datos leídos del driver (getFetchStats)
+    jlong objectsCreated;   // Objetos Java creados para los valores leídos
 } QueryState;
 
+// Clases y métodos Java resueltos una sola vez en JNI_OnLoad (referencias globales)
+static struct {
+    jclass objectClass;
+    jclass objectArrayClass;
+    jclass stringClass;
+    jclass sqlExceptionClass;
+    jclass integerClass;      jmethodID integerValueOf;
+    jclass longClass;         jmethodID longValueOf;
+    jclass floatClass;        jmethodID floatValueOf;
+    jclass doubleClass;       jmethodID doubleValueOf;
+    jclass bigDecimalClass;   jmethodID bigDecimalInit;
+    jclass dateClass;         jmethodID dateInit;       // Date(año, mes, día) en la zona de la JVM
+    jclass timeClass;         jmethodID timeInit;       // Time(hora, minuto, segundo)
+    jclass timestampClass;    jmethodID timestampInit;  // Timestamp(año, mes, día, h, m, s, nanos)
+    jclass fieldClass;        jmethodID fieldInit;
+    jclass columnClass;       jmethodID columnInit;     // ODBCColumn(name, type, size, schema, table)
+    jclass infoClass;         jmethodID infoInit;
+
+    // Conversión de parámetros
+    jclass numberClass;       jmethodID numberIntValue, numberLongValue, numberDoubleValue;
+    jclass shortClass;
+    jclass byteClass;
+    jclass booleanClass;      jmethodID booleanValue, booleanValueOf;
+    jclass byteArrayClass;
+    jmethodID bigDecimalScale, bigDecimalPrecision, bigDecimalSignum, bigDecimalUnscaledValue, bigDecimalToPlainString;
+    jclass bigIntegerClass;   jmethodID bigIntegerAbs, bigIntegerToByteArray;
+    jmethodID dateToLocalDate, timeToLocalTime, timestampToLocalDateTime;
+    jclass localDateClass;    jmethodID localDateGetYear, localDateGetMonthValue, localDateGetDayOfMonth;
+    jclass localTimeClass;    jmethodID localTimeGetHour, localTimeGetMinute, localTimeGetSecond, localTimeGetNano;
+    jclass localDateTimeClass; jmethodID localDateTimeToLocalDate, localDateTimeToLocalTime;
+    jmethodID objectToString;
+    jclass batchUpdateExceptionClass; jmethodID batchUpdateExceptionInit;
+    jclass sqlTimeoutExceptionClass; jmethodID sqlTimeoutExceptionInit;
+} jcache;
+
+// Resuelve una clase y la convierte en referencia global
+static jclass global_class(JNIEnv *env, const char *name) {
+    jclass local = (*env)->FindClass(env, name);
+    if (local == NULL) return NULL;
+    jclass global = (jclass)(*env)->NewGlobalRef(env, local);
+    (*env)->DeleteLocalRef(env, local);
+    return global;
+}
+
+JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved) {
+    JNIEnv *env;
+    if ((*vm)->GetEnv(vm, (void **)&env, JNI_VERSION_1_6) != JNI_OK) {
+        return JNI_ERR;
+    }
+
+    if ((jcache.objectClass       = global_class(env, "java/lang/Object")) == NULL) return JNI_ERR;
+    if ((jcache.objectArrayClass  = global_class(env, "[Ljava/lang/Object;")) == NULL) return JNI_ERR;
+    if ((jcache.stringClass       = global_class(env, "java/lang/String")) == NULL) return JNI_ERR;
+    if ((jcache.sqlExceptionClass = global_class(env, "java/sql/SQLException")) == NULL) return JNI_ERR;
+    if ((jcache.integerClass      = global_class(env, "java/lang/Integer")) == NULL) return JNI_ERR;
+    if ((jcache.longClass         = global_class(env, "java/lang/Long")) == NULL) return JNI_ERR;
+    if ((jcache.floatClass        = global_class(env, "java/lang/Float")) == NULL) return JNI_ERR;
+    if ((jcache.doubleClass       = global_class(env, "java/lang/Double")) == NULL) return JNI_ERR;
+    if ((jcache.bigDecimalClass   = global_class(env, "java/math/BigDecimal")) == NULL) return JNI_ERR;
+    if ((jcache.dateClass         = global_class(env, "java/sql/Date")) == NULL) return JNI_ERR;
+    if ((jcache.timeClass         = global_class(env, "java/sql/Time")) == NULL) return JNI_ERR;
+    if ((jcache.timestampClass    = global_class(env, "java/sql/Timestamp")) == NULL) return JNI_ERR;
+    if ((jcache.fieldClass        = global_class(env, "odbcbridge/ODBCField")) == NULL) return JNI_ERR;
+    if ((jcache.columnClass       = global_class(env, "odbcbridge/ODBCColumn")) == NULL) return JNI_ERR;
+    if ((jcache.infoClass         = global_class(env, "odbcbridge/ODBCInfo")) == NULL) return JNI_ERR;
+    if ((jcache.numberClass       = global_class(env, "java/lang/Number")) == NULL) return JNI_ERR;
+    if ((jcache.shortClass        = global_class(env, "java/lang/Short")) == NULL) return JNI_ERR;
+    if ((jcache.byteClass         = global_class(env, "java/lang/Byte")) == NULL) return JNI_ERR;
+    if ((jcache.booleanClass      = global_class(env, "java/lang/Boolean")) == NULL) return JNI_ERR;
+    if ((jcache.byteArrayClass    = global_class(env, "[B")) == NULL) return JNI_ERR;
+    if ((jcache.bigIntegerClass   = global_class(env, "java/math/BigInteger")) == NULL) return JNI_ERR;
+    if ((jcache.localDateClass    = global_class(env, "java/time/LocalDate")) == NULL) return JNI_ERR;
+    if ((jcache.localTimeClass    = global_class(env, "java/time/LocalTime")) == NULL) return JNI_ERR;
+    if ((jcache.localDateTimeClass = global_class(env, "java/time/LocalDateTime")) == NULL) return JNI_ERR;
+    if ((jcache.batchUpdateExceptionClass = global_class(env, "java/sql/BatchUpdateException")) == NULL) return JNI_ERR;
+    if ((jcache.sqlTimeoutExceptionClass = global_class(env, "java/sql/SQLTimeoutException")) == NULL) return JNI_ERR;
+
+    // valueOf reutiliza las instancias cacheadas por la JVM (p. ej. Integer -128..127)
+    jcache.integerValueOf = (*env)->GetStaticMethodID(env, jcache.integerClass, "valueOf", "(I)Ljava/lang/Integer;");
+    jcache.longValueOf    = (*env)->GetStaticMethodID(env, jcache.longClass, "valueOf", "(J)Ljava/lang/Long;");
+    jcache.floatValueOf   = (*env)->GetStaticMethodID(env, jcache.floatClass, "valueOf", "(F)Ljava/lang/Float;");
+    jcache.doubleValueOf  = (*env)->GetStaticMethodID(env, jcache.doubleClass, "valueOf", "(D)Ljava/lang/Double;");
+    jcache.bigDecimalInit = (*env)->GetMethodID(env, jcache.bigDecimalClass, "<init>", "(Ljava/lang/String;)V");
+    // Constructores por campos: interpretan la fecha en la zona horaria de la JVM,
+    // igual que toLocalDate()/toLocalDateTime() al enlazar parámetros
+    jcache.dateInit       = (*env)->GetMethodID(env, jcache.dateClass, "<init>", "(III)V");
+    jcache.timeInit       = (*env)->GetMethodID(env, jcache.timeClass, "<init>", "(III)V");
+    jcache.timestampInit  = (*env)->GetMethodID(env, jcache.timestampClass, "<init>", "(IIIIIII)V");
+    jcache.fieldInit      = (*env)->GetMethodID(env, jcache.fieldClass, "<init>", "(Ljava/lang/String;II)V");
+    jcache.columnInit     = (*env)->GetMethodID(env, jcache.columnClass, "<init>",
+        "(Ljava/lang/String;IILjava/lang/String;Ljava/lang/String;)V");
+    jcache.infoInit       = (*env)->GetMethodID(env, jcache.infoClass, "<init>",
+        "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V");
+
+    jcache.numberIntValue          = (*env)->GetMethodID(env, jcache.numberClass, "intValue", "()I");
+    jcache.numberLongValue         = (*env)->GetMethodID(env, jcache.numberClass, "longValue", "()J");
+    jcache.numberDoubleValue       = (*env)->GetMethodID(env, jcache.numberClass, "doubleValue", "()D");
+    jcache.booleanValue            = (*env)->GetMethodID(env, jcache.booleanClass, "booleanValue", "()Z");
+    jcache.booleanValueOf          = (*env)->GetStaticMethodID(env, jcache.booleanClass, "valueOf", "(Z)Ljava/lang/Boolean;");
+    jcache.bigDecimalScale         = (*env)->GetMethodID(env, jcache.bigDecimalClass, "scale", "()I");
+    jcache.bigDecimalPrecision     = (*env)->GetMethodID(env, jcache.bigDecimalClass, "precision", "()I");
+    jcache.bigDecimalSignum        = (*env)->GetMethodID(env, jcache.bigDecimalClass, "signum", "()I");
+    jcache.bigDecimalUnscaledValue = (*env)->GetMethodID(env, jcache.bigDecimalClass, "unscaledValue", "()Ljava/math/BigInteger;");
+    jcache.bigDecimalToPlainString = (*env)->GetMethodID(env, jcache.bigDecimalClass, "toPlainString", "()Ljava/lang/String;");
+    jcache.bigIntegerAbs           = (*env)->GetMethodID(env, jcache.bigIntegerClass, "abs", "()Ljava/math/BigInteger;");
+    jcache.bigIntegerToByteArray   = (*env)->GetMethodID(env, jcache.bigIntegerClass, "toByteArray", "()[B");
+    jcache.dateToLocalDate         = (*env)->GetMethodID(env, jcache.dateClass, "toLocalDate", "()Ljava/time/LocalDate;");
+    jcache.timeToLocalTime         = (*env)->GetMethodID(env, jcache.timeClass, "toLocalTime", "()Ljava/time/LocalTime;");
+    jcache.timestampToLocalDateTime = (*env)->GetMethodID(env, jcache.timestampClass, "toLocalDateTime", "()Ljava/time/LocalDateTime;");
+    jcache.localDateGetYear        = (*env)->GetMethodID(env, jcache.localDateClass, "getYear", "()I");
+    jcache.localDateGetMonthValue  = (*env)->GetMethodID(env, jcache.localDateClass, "getMonthValue", "()I");
+    jcache.localDateGetDayOfMonth  = (*env)->GetMethodID(env, jcache.localDateClass, "getDayOfMonth", "()I");
+    jcache.localTimeGetHour        = (*env)->GetMethodID(env, jcache.localTimeClass, "getHour", "()I");
+    jcache.localTimeGetMinute      = (*env)->GetMethodID(env, jcache.localTimeClass, "getMinute", "()I");
+    jcache.localTimeGetSecond      = (*env)->GetMethodID(env, jcache.localTimeClass, "getSecond", "()I");
+    jcache.localTimeGetNano        = (*env)->GetMethodID(env, jcache.localTimeClass, "getNano", "()I");
+    jcache.localDateTimeToLocalDate = (*env)->GetMethodID(env, jcache.localDateTimeClass, "toLocalDate", "()Ljava/time/LocalDate;");
+    jcache.localDateTimeToLocalTime = (*env)->GetMethodID(env, jcache.localDateTimeClass, "toLocalTime", "()Ljava/time/LocalTime;");
+    jcache.objectToString          = (*env)->GetMethodID(env, jcache.objectClass, "toString", "()Ljava/lang/String;");
+    jcache.batchUpdateExceptionInit = (*env)->GetMethodID(env, jcache.batchUpdateExceptionClass, "<init>", "(Ljava/lang/String;Ljava/lang/String;I[I)V");
+    jcache.sqlTimeoutExceptionInit = (*env)->GetMethodID(env, jcache.sqlTimeoutExceptionClass, "<init>", "(Ljava/lang/String;Ljava/lang/String;I)V");
+    if ((*env)->ExceptionCheck(env)) return JNI_ERR;
+
+    return JNI_VERSION_1_6;
+}
+
+JNIEXPORT void JNICALL JNI_OnUnload(JavaVM *vm, void *reserved) {
+    // Liberar el entorno compartido si ya no quedan conexiones abiertas
+    AcquireSRWLockExclusive(&sharedEnvLock);
+    if (sharedEnv != SQL_NULL_HENV && sharedEnvRefs == 0) {
+        SQLFreeHandle(SQL_HANDLE_ENV, sharedEnv);
+        sharedEnv = SQL_NULL_HENV;
+    }
+    ReleaseSRWLockExclusive(&sharedEnvLock);
+
+    JNIEnv *env;
+    if ((*vm)->GetEnv(vm, (void **)&env, JNI_VERSION_1_6) != JNI_OK) {
+        return;
+    }
+    jclass *classes[] = {
+        &jcache.objectClass, &jcache.objectArrayClass, &jcache.stringClass, &jcache.sqlExceptionClass,
+        &jcache.integerClass, &jcache.longClass, &jcache.floatClass, &jcache.doubleClass,
+        &jcache.bigDecimalClass, &jcache.dateClass, &jcache.timeClass, &jcache.timestampClass,
+        &jcache.fieldClass, &jcache.columnClass, &jcache.infoClass,
+        &jcache.numberClass, &jcache.shortClass, &jcache.byteClass, &jcache.booleanClass,
+        &jcache.byteArrayClass, &jcache.bigIntegerClass,
+        &jcache.localDateClass, &jcache.localTimeClass, &jcache.localDateTimeClass,
+        &jcache.batchUpdateExceptionClass, &jcache.sqlTimeoutExceptionClass
+    };
+    for (size_t i = 0; i < sizeof(classes) / sizeof(classes[0]); i++) {
+        if (*classes[i] != NULL) {
+            (*env)->DeleteGlobalRef(env, *classes[i]);
+            *classes[i] = NULL;
+        }
+    }
+}
+
 // Función auxiliar para manejar errores de ODBC
+// Lanza la excepción de un diagnóstico ODBC: SQLTimeoutException si el driver
+// informa de timeout (HYT00, HYT01) o de cancelación (HY008), SQLException si no
+static void throw_sql_exception(JNIEnv *env, const SQLCHAR *sqlState, SQLINTEGER nativeError, const char *message) {
+    const char *state = (const char *)sqlState;
+    if (strcmp(state, "HYT00") == 0 || strcmp(state, "HYT01") == 0 || strcmp(state, "HY008") == 0) {
+        jstring reason = (*env)->NewStringUTF(env, message);
+        jstring stateString = (*env)->NewStringUTF(env, state);
+        jobject exception = (*env)->NewObject(env, jcache.sqlTimeoutExceptionClass,
+            jcache.sqlTimeoutExceptionInit, reason, stateString, (jint)nativeError);
+        if (exception != NULL) {
+            (*env)->Throw(env, (jthrowable)exception);
+        }
+        return;
+    }
+    (*env)->ThrowNew(env, jcache.sqlExceptionClass, message);
+}
+
 void check_error(JNIEnv *env, SQLRETURN ret, SQLSMALLINT handleType, SQLHANDLE handle, const char* message) {
     if (ret != SQL_SUCCESS && ret != SQL_SUCCESS_WITH_INFO) {
-        SQLCHAR sqlState[6], errMsg[256];
-        SQLINTEGER nativeError;
+        SQLCHAR sqlState[6] = "", errMsg[256] = "";
+        SQLINTEGER nativeError = 0;
         SQLSMALLINT textLength;
         SQLGetDiagRec(handleType, handle, 1, sqlState, &nativeError, errMsg, sizeof(errMsg), &textLength);
         fprintf(stderr, "Error: %s, SQLState: %s, Message: %s\n", message, sqlState, errMsg);
-        jclass exClass = (*env)->FindClass(env, "java/sql/SQLException");
-        if (exClass != NULL) {
-            (*env)->ThrowNew(env, exClass, (const char*)errMsg);
-        }
+        throw_sql_exception(env, sqlState, nativeError, (const char*)errMsg);
     }
 }
 
 // Función para establecer el entorno ODBC
 SQLHENV setup_environment(JNIEnv *env) {
-    SQLHENV hEnv;
+    SQLHENV hEnv = SQL_NULL_HENV;
     SQLRETURN ret;
 
     ret = SQLAllocHandle(SQL_HANDLE_ENV, SQL_NULL_HANDLE, &hEnv);
     check_error(env, ret, SQL_HANDLE_ENV, hEnv, "Failed to allocate ODBC environment handle");
+    if (!SQL_SUCCEEDED(ret)) return SQL_NULL_HENV;
 
     ret = SQLSetEnvAttr(hEnv, SQL_ATTR_ODBC_VERSION, (SQLPOINTER)SQL_OV_ODBC3, 0);
     check_error(env, ret, SQL_HANDLE_ENV, hEnv, "Failed to set ODBC version");
@@ -46,80 +353,432 @@ SQLHENV setup_environment(JNIEnv *env) {
     return hEnv;
 }
 
+// Obtiene el entorno compartido, creándolo la primera vez, y suma una referencia
+static SQLHENV acquire_environment(JNIEnv *env) {
+    if (sharedEnv == SQL_NULL_HENV) {
+        AcquireSRWLockExclusive(&sharedEnvLock);
+        if (sharedEnv == SQL_NULL_HENV) {
+            if (poolingMode != SQL_CP_OFF) {
+                // El pooling se activa a nivel de proceso, antes de crear el entorno
+                SQLSetEnvAttr(SQL_NULL_HENV, SQL_ATTR_CONNECTION_POOLING, (SQLPOINTER)(uintptr_t)poolingMode, SQL_IS_UINTEGER);
+            }
+            SQLHENV hEnv = setup_environment(env);
+            if (hEnv != SQL_NULL_HENV && poolingMode != SQL_CP_OFF) {
+                SQLSetEnvAttr(hEnv, SQL_ATTR_CP_MATCH, (SQLPOINTER)(uintptr_t)poolingMatch, SQL_IS_UINTEGER);
+            }
+            sharedEnv = hEnv;
+        }
+        ReleaseSRWLockExclusive(&sharedEnvLock);
+        if (sharedEnv == SQL_NULL_HENV) return SQL_NULL_HENV;
+    }
+    InterlockedIncrement(&sharedEnvRefs);
+    return sharedEnv;
+}
+
+// Resta una referencia al entorno compartido (se libera en JNI_OnUnload)
+static void release_environment(void) {
+    InterlockedDecrement(&sharedEnvRefs);
+}
+
+// Libera una conexión que no llegó a completarse
+static void abort_connection(SQLHDBC hDbc) {
+    if (hDbc != SQL_NULL_HDBC) {
+        SQLFreeHandle(SQL_HANDLE_DBC, hDbc);
+    }
+    release_environment();
+}
+
 // Función para establecer la conexión ODBC con timeout
 SQLHDBC connect_to_dsn(JNIEnv *env, SQLHENV hEnv, const char *dsn) {
-    SQLHDBC hDbc;
+    SQLHDBC hDbc = SQL_NULL_HDBC;
     SQLRETURN ret;
 
     ret = SQLAllocHandle(SQL_HANDLE_DBC, hEnv, &hDbc);
-    check_error(env, ret, SQL_HANDLE_DBC, hDbc, "Failed to allocate ODBC connection handle");
+    check_error(env, ret, SQL_HANDLE_ENV, hEnv, "Failed to allocate ODBC connection handle");
+    if (!SQL_SUCCEEDED(ret)) return SQL_NULL_HDBC;
 
     // Set connection timeout
     SQLSetConnectAttr(hDbc, SQL_ATTR_LOGIN_TIMEOUT, (SQLPOINTER)5, 0); // 5 seconds timeout
 
     ret = SQLConnect(hDbc, (SQLCHAR *)dsn, SQL_NTS, NULL, 0, NULL, 0);
     check_error(env, ret, SQL_HANDLE_DBC, hDbc, "Failed to connect to DSN");
+    if (!SQL_SUCCEEDED(ret)) {
+        SQLFreeHandle(SQL_HANDLE_DBC, hDbc);
+        return SQL_NULL_HDBC;
+    }
 
     return hDbc;
 }
 
 // Función para inicializar una consulta ODBC
 SQLHSTMT init_statement(JNIEnv *env, SQLHDBC hDbc) {
-    SQLHSTMT hStmt;
+    SQLHSTMT hStmt = SQL_NULL_HSTMT;
     SQLRETURN ret;
 
     ret = SQLAllocHandle(SQL_HANDLE_STMT, hDbc, &hStmt);
-    check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to allocate ODBC statement handle");
-
-    // Set query timeout
-    //SQLSetStmtAttr(hStmt, SQL_ATTR_QUERY_TIMEOUT, (SQLPOINTER)5, 0); // 5 seconds timeout
-    
-    // Sin límite de tiempo en la ejecución de la consulta
-    //SQLSetStmtAttr(hStmt, SQL_ATTR_QUERY_TIMEOUT, (SQLPOINTER)0, 0);
+    check_error(env, ret, SQL_HANDLE_DBC, hDbc, "Failed to allocate ODBC statement handle");
+    if (!SQL_SUCCEEDED(ret)) return SQL_NULL_HSTMT;
 
+    // SQL_ATTR_QUERY_TIMEOUT se aplica antes de cada ejecución (apply_query_timeout)
     return hStmt;
 }
 
+// Crea el estado de una conexión recién abierta; si no hay memoria la cierra y devuelve NULL
+static ConnectionState *new_connection_state(JNIEnv *env, SQLHDBC hDbc) {
+    ConnectionState *connectionState = (ConnectionState *)calloc(1, sizeof(ConnectionState));
+    if (connectionState == NULL) {
+        SQLDisconnect(hDbc);
+        abort_connection(hDbc);
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory opening connection");
+        return NULL;
+    }
+    connectionState->hDbc = hDbc;
+    connectionState->cacheCapacity = DEFAULT_STATEMENT_CACHE_SIZE;
+    connectionState->cursorType = SQL_CURSOR_FORWARD_ONLY;
+    connectionState->concurrency = SQL_CONCUR_READ_ONLY;
+    connectionState->batchSupport = -1;
+    InitializeSRWLock(&connectionState->activeLock);
+    return connectionState;
+}
+
+// Hash FNV-1a del texto SQL
+static unsigned long hash_sql(const char *sql) {
+    unsigned long hash = 2166136261UL;
+    for (const unsigned char *p = (const unsigned char *)sql; *p; p++) {
+        hash = (hash ^ *p) * 16777619UL;
+    }
+    return hash;
+}
+
+static void cache_unlink(ConnectionState *connectionState, StatementState *statement) {
+    if (statement->prev != NULL) statement->prev->next = statement->next;
+    else connectionState->cacheHead = statement->next;
+    if (statement->next != NULL) statement->next->prev = statement->prev;
+    else connectionState->cacheTail = statement->prev;
+    statement->prev = statement->next = NULL;
+    connectionState->cacheSize--;
+}
+
+static void cache_push_front(ConnectionState *connectionState, StatementState *statement) {
+    statement->prev = NULL;
+    statement->next = connectionState->cacheHead;
+    if (connectionState->cacheHead != NULL) connectionState->cacheHead->prev = statement;
+    else connectionState->cacheTail = statement;
+    connectionState->cacheHead = statement;
+    connectionState->cacheSize++;
+}
+
+static void live_unlink(StatementState *statement) {
+    ConnectionState *connectionState = statement->connectionState;
+    if (connectionState == NULL) return;
+    if (statement->livePrev != NULL) statement->livePrev->liveNext = statement->liveNext;
+    else connectionState->liveHead = statement->liveNext;
+    if (statement->liveNext != NULL) statement->liveNext->livePrev = statement->livePrev;
+    statement->livePrev = statement->liveNext = NULL;
+}
+
+static void free_statement(StatementState *statement) {
+    live_unlink(statement);
+    if (statement->hStmt != SQL_NULL_HSTMT) {
+        SQLFreeHandle(SQL_HANDLE_STMT, statement->hStmt);
+    }
+    for (int i = 0; i < statement->paramCapacity; i++) {
+        free(statement->params[i].data);
+    }
+    free(statement->params);
+    free(statement->sql);
+    free(statement);
+}
+
+// Expulsa las sentencias menos usadas (y libres) mientras la caché supere su capacidad
+static void cache_trim(ConnectionState *connectionState) {
+    StatementState *statement = connectionState->cacheTail;
+    while (connectionState->cacheSize > connectionState->cacheCapacity && statement != NULL) {
+        StatementState *prev = statement->prev;
+        if (!statement->inUse) {
+            cache_unlink(connectionState, statement);
+            free_statement(statement);
+            connectionState->cacheEvictions++;
+        }
+        statement = prev;
+    }
+}
+
+// Convierte el UTF-8 modificado de JNI a UTF-16. JNI codifica cada unidad UTF-16
+// (también cada mitad de un par suplente) en 1 a 3 bytes, así que basta con
+// decodificar cada secuencia a un SQLWCHAR.
+static SQLWCHAR *to_wide_text(const char *text) {
+    size_t length = strlen(text);
+    SQLWCHAR *wide = (SQLWCHAR *)malloc((length + 1) * sizeof(SQLWCHAR));
+    if (wide == NULL) return NULL;
+
+    size_t count = 0;
+    const unsigned char *p = (const unsigned char *)text;
+    while (*p) {
+        if (*p < 0x80) {
+            wide[count++] = *p++;
+        } else if ((*p & 0xE0) == 0xC0 && p[1]) {
+            wide[count++] = (SQLWCHAR)(((p[0] & 0x1F) << 6) | (p[1] & 0x3F));
+            p += 2;
+        } else if ((*p & 0xF0) == 0xE0 && p[1] && p[2]) {
+            wide[count++] = (SQLWCHAR)(((p[0] & 0x0F) << 12) | ((p[1] & 0x3F) << 6) | (p[2] & 0x3F));
+            p += 3;
+        } else {
+            wide[count++] = '?';
+            p++;
+        }
+    }
+    wide[count] = 0;
+    return wide;
+}
+
+// SQLPrepare o SQLExecDirect con el texto SQL; en modo UTF-16 se usan las variantes W
+static SQLRETURN submit_sql(ConnectionState *connectionState, SQLHSTMT hStmt, const char *sql, int prepare) {
+    if (!connectionState->wideChars) {
+        return prepare ? SQLPrepare(hStmt, (SQLCHAR *)sql, SQL_NTS)
+                       : SQLExecDirect(hStmt, (SQLCHAR *)sql, SQL_NTS);
+    }
+    SQLWCHAR *wide = to_wide_text(sql);
+    if (wide == NULL) return SQL_ERROR;
+    SQLRETURN ret = prepare ? SQLPrepareW(hStmt, wide, SQL_NTS)
+                            : SQLExecDirectW(hStmt, wide, SQL_NTS);
+    free(wide);
+    return ret;
+}
+
+// Lee un atributo numérico de la sentencia; -1 si el driver no lo informa
+static jlong get_statement_attr(SQLHSTMT hStmt, SQLINTEGER attribute) {
+    SQLULEN value = 0;
+    if (!SQL_SUCCEEDED(SQLGetStmtAttr(hStmt, attribute, &value, SQL_IS_UINTEGER, NULL))) return -1;
+    return (jlong)value;
+}
+
+// Fija el cursor o la concurrencia y devuelve el valor que quedó en la sentencia:
+// el pedido, el sustituto si el driver avisó con 01S02, o el suyo si lo rechazó
+static jlong set_cursor_attr(SQLHSTMT hStmt, SQLINTEGER attribute, int requested) {
+    SQLRETURN ret = SQLSetStmtAttr(hStmt, attribute, (SQLPOINTER)(intptr_t)requested, 0);
+    if (ret == SQL_SUCCESS) return requested;
+    return get_statement_attr(hStmt, attribute);
+}
+
+// Reserva una sentencia; salvo las STMT_TRANSIENT, se preparan con SQLPrepare
+static StatementState *new_statement(JNIEnv *env, ConnectionState *connectionState, const char *sql, int kind) {
+    SQLHSTMT hStmt = init_statement(env, connectionState->hDbc);
+    if (hStmt == SQL_NULL_HSTMT) return NULL;
+
+    // Cursor y concurrencia se fijan siempre en lugar de aceptar los del driver (algunos
+    // abren cursores keyset o estáticos que materializan el resultado en el servidor).
+    // No pueden cambiarse tras preparar; si el driver no los admite se sigue con los suyos
+    // y se guardan los que aplicó para getStatementSettings.
+    jlong appliedCursorType = set_cursor_attr(hStmt, SQL_ATTR_CURSOR_TYPE, connectionState->cursorType);
+    jlong appliedConcurrency = set_cursor_attr(hStmt, SQL_ATTR_CONCURRENCY, connectionState->concurrency);
+    if (connectionState->noScan) {
+        SQLSetStmtAttr(hStmt, SQL_ATTR_NOSCAN, (SQLPOINTER)SQL_NOSCAN_ON, 0);
+    }
+
+    if (kind != STMT_TRANSIENT) {
+        SQLRETURN ret = submit_sql(connectionState, hStmt, sql, 1);
+        check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to prepare SQL statement");
+        if (!SQL_SUCCEEDED(ret)) {
+            SQLFreeHandle(SQL_HANDLE_STMT, hStmt);
+            return NULL;
+        }
+    }
+
+    size_t length = strlen(sql);
+    StatementState *statement = (StatementState *)calloc(1, sizeof(StatementState));
+    char *copy = (char *)malloc(length + 1);
+    if (statement == NULL || copy == NULL) {
+        free(statement);
+        free(copy);
+        SQLFreeHandle(SQL_HANDLE_STMT, hStmt);
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory allocating statement");
+        return NULL;
+    }
+    statement->hStmt = hStmt;
+    statement->connectionState = connectionState;
+    statement->sql = copy;
+    memcpy(statement->sql, sql, length + 1);
+    statement->hash = hash_sql(sql);
+    statement->kind = kind;
+    statement->timeout = -1;
+    statement->cursorType = connectionState->cursorType;
+    statement->concurrency = connectionState->concurrency;
+    statement->appliedCursorType = appliedCursorType;
+    statement->appliedConcurrency = appliedConcurrency;
+    statement->liveNext = connectionState->liveHead;
+    if (connectionState->liveHead != NULL) connectionState->liveHead->livePrev = statement;
+    connectionState->liveHead = statement;
+    statement->noScan = connectionState->noScan;
+    return statement;
+}
+
+// Indica si la sentencia se preparó con los atributos actuales de la conexión
+static int has_connection_options(StatementState *statement) {
+    ConnectionState *connectionState = statement->connectionState;
+    return statement->cursorType == connectionState->cursorType
+        && statement->concurrency == connectionState->concurrency
+        && statement->noScan == connectionState->noScan;
+}
+
+// Obtiene una sentencia para 'sql': de la caché de la conexión si ya está
+// preparada y libre, o preparándola y añadiéndola a la caché si no. Las
+// preparadas con otros atributos no se reutilizan y acaban saliendo por LRU.
+static StatementState *acquire_statement(JNIEnv *env, ConnectionState *connectionState, const char *sql) {
+    if (connectionState->cacheCapacity <= 0) {
+        // Sin caché: una sola ida y vuelta con SQLExecDirect
+        return new_statement(env, connectionState, sql, STMT_TRANSIENT);
+    }
+
+    unsigned long hash = hash_sql(sql);
+    for (StatementState *statement = connectionState->cacheHead; statement != NULL; statement = statement->next) {
+        if (!statement->inUse && statement->hash == hash && strcmp(statement->sql, sql) == 0
+                && has_connection_options(statement)) {
+            cache_unlink(connectionState, statement);
+            cache_push_front(connectionState, statement);
+            statement->inUse = 1;
+            connectionState->cacheHits++;
+            return statement;
+        }
+    }
+
+    connectionState->cacheMisses++;
+    StatementState *statement = new_statement(env, connectionState, sql, STMT_CACHED);
+    if (statement == NULL) return NULL;
+    statement->inUse = 1;
+    cache_push_front(connectionState, statement);
+    cache_trim(connectionState);
+    return statement;
+}
+
+// Registra (o borra, con NULL) la sentencia en ejecución de la conexión
+static void set_active_statement(ConnectionState *connectionState, StatementState *statement) {
+    if (connectionState == NULL) return;
+    AcquireSRWLockExclusive(&connectionState->activeLock);
+    connectionState->activeStmt = statement != NULL ? statement->hStmt : SQL_NULL_HSTMT;
+    ReleaseSRWLockExclusive(&connectionState->activeLock);
+}
+
+// Deja de registrar la sentencia como la activa de la conexión, si lo era.
+// Bajo el cerrojo: cancelConnection no puede llamar a SQLCancel sobre un handle liberado.
+static void clear_active_statement(StatementState *statement) {
+    ConnectionState *connectionState = statement->connectionState;
+    if (connectionState == NULL) return;
+    AcquireSRWLockExclusive(&connectionState->activeLock);
+    if (connectionState->activeStmt == statement->hStmt) {
+        connectionState->activeStmt = SQL_NULL_HSTMT;
+    }
+    ReleaseSRWLockExclusive(&connectionState->activeLock);
+}
+
+// Devuelve una sentencia tras usarla: cierra el cursor y quita enlaces de
+// columnas y parámetros para que quede lista para la siguiente ejecución.
+static void release_statement(StatementState *statement) {
+    clear_active_statement(statement);
+    if (statement->kind == STMT_TRANSIENT) {
+        free_statement(statement);
+        return;
+    }
+    if (statement->connectionState == NULL) {
+        // Preparada de una conexión ya cerrada: sin handle; la libera closeStatement
+        statement->inUse = 0;
+        return;
+    }
+    SQLFreeStmt(statement->hStmt, SQL_CLOSE);
+    SQLFreeStmt(statement->hStmt, SQL_UNBIND);
+    SQLFreeStmt(statement->hStmt, SQL_RESET_PARAMS);
+    SQLSetStmtAttr(statement->hStmt, SQL_ATTR_ROW_BIND_TYPE, (SQLPOINTER)SQL_BIND_BY_COLUMN, 0);
+    SQLSetStmtAttr(statement->hStmt, SQL_ATTR_ROW_ARRAY_SIZE, (SQLPOINTER)1, 0);
+    SQLSetStmtAttr(statement->hStmt, SQL_ATTR_ROWS_FETCHED_PTR, NULL, 0);
+    statement->inUse = 0;
+    if (statement->kind == STMT_CACHED) {
+        cache_trim(statement->connectionState);
+    }
+}
+
+// Libera las sentencias de la caché; las que siguen en uso pasan a liberarse al soltarlas
+static void clear_statement_cache(ConnectionState *connectionState) {
+    StatementState *statement = connectionState->cacheHead;
+    while (statement != NULL) {
+        StatementState *next = statement->next;
+        cache_unlink(connectionState, statement);
+        if (statement->inUse) {
+            statement->kind = STMT_TRANSIENT;
+        } else {
+            free_statement(statement);
+        }
+        statement = next;
+    }
+}
+
+// Desliga de la conexión las sentencias que siguen vivas tras vaciar la caché (preparadas
+// o transitorias con un resultado abierto): su handle se libera ya, antes de SQLDisconnect,
+// y la memoria cuando Java las cierre, sin volver a tocar el ConnectionState liberado.
+static void detach_live_statements(ConnectionState *connectionState) {
+    StatementState *statement = connectionState->liveHead;
+    while (statement != NULL) {
+        StatementState *next = statement->liveNext;
+        if (statement->hStmt != SQL_NULL_HSTMT) {
+            SQLFreeHandle(SQL_HANDLE_STMT, statement->hStmt);
+            statement->hStmt = SQL_NULL_HSTMT;
+        }
+        statement->connectionState = NULL;
+        statement->livePrev = statement->liveNext = NULL;
+        statement = next;
+    }
+    connectionState->liveHead = NULL;
+    connectionState->activeStmt = SQL_NULL_HSTMT;
+}
+
 // Función para conectar
 JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_connect(
     JNIEnv *env, jobject obj, jstring jdsn
 ) {
-    const char *dsn = (*env)->GetStringUTFChars(env, jdsn, 0);
+    SQLHENV hEnv = acquire_environment(env);
+    if (hEnv == SQL_NULL_HENV) return 0;
 
-    SQLHENV hEnv = setup_environment(env);
+    const char *dsn = (*env)->GetStringUTFChars(env, jdsn, 0);
     SQLHDBC hDbc = connect_to_dsn(env, hEnv, dsn);
-
-    ConnectionState *connectionState = (ConnectionState *)malloc(sizeof(ConnectionState));
-    connectionState->hEnv = hEnv;
-    connectionState->hDbc = hDbc;
-
     (*env)->ReleaseStringUTFChars(env, jdsn, dsn);
 
-    return (jlong)(intptr_t)connectionState;
+    if (hDbc == SQL_NULL_HDBC) {
+        abort_connection(SQL_NULL_HDBC);
+        return 0;
+    }
+
+    return (jlong)(intptr_t)new_connection_state(env, hDbc);
 }
 
-/*
- * Class:     odbcbridge_ODBCBridge
- * Method:    connectWithString
- * Signature: (Ljava/lang/String;)J
- */
-JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_connectWithString(
-    JNIEnv *env, jobject obj,
-    jstring jconnStr
-) {
+// Conecta con SQLDriverConnect; packetSize > 0 pide ese tamaño de paquete de red
+// (SQL_ATTR_PACKET_SIZE solo puede fijarse antes de conectar)
+static jlong driver_connect(JNIEnv *env, jstring jconnStr, SQLUINTEGER packetSize) {
     const char *connStr = (*env)->GetStringUTFChars(env, jconnStr, 0);
 
-    // 1) Setup ODBC environment
-    SQLHENV hEnv = setup_environment(env);
+    // 1) Entorno ODBC compartido
+    SQLHENV hEnv = acquire_environment(env);
+    if (hEnv == SQL_NULL_HENV) {
+        (*env)->ReleaseStringUTFChars(env, jconnStr, connStr);
+        return 0;
+    }
 
     // 2) Alloc handle de conexión y timeout
     SQLHDBC hDbc = SQL_NULL_HDBC;
     SQLRETURN ret = SQLAllocHandle(SQL_HANDLE_DBC, hEnv, &hDbc);
     check_error(env, ret, SQL_HANDLE_ENV, hEnv, "Failed to alloc DBC handle");
+    if (!SQL_SUCCEEDED(ret)) {
+        (*env)->ReleaseStringUTFChars(env, jconnStr, connStr);
+        abort_connection(SQL_NULL_HDBC);
+        return 0;
+    }
 
     // timeout de login opcional
     SQLSetConnectAttr(hDbc, SQL_ATTR_LOGIN_TIMEOUT, (SQLPOINTER)5, 0);
 
+    // tamaño de paquete opcional; el driver puede ajustarlo o ignorarlo
+    if (packetSize > 0) {
+        SQLSetConnectAttr(hDbc, SQL_ATTR_PACKET_SIZE, (SQLPOINTER)(uintptr_t)packetSize, SQL_IS_UINTEGER);
+    }
+
     // 3) Conectar usando cadena completa
     SQLCHAR outConnStr[1024];
     SQLSMALLINT outConnStrLen = 0;
@@ -134,15 +793,42 @@ JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_connectWithString(
 
     (*env)->ReleaseStringUTFChars(env, jconnStr, connStr);
 
+    if (!SQL_SUCCEEDED(ret)) {
+        abort_connection(hDbc);
+        return 0;
+    }
+
     // 4) Guardar estado
-    ConnectionState *state = (ConnectionState*)malloc(sizeof(ConnectionState));
-    state->hEnv = hEnv;
-    state->hDbc = hDbc;
+    ConnectionState *state = new_connection_state(env, hDbc);
 
     // 5) Devolver puntero
     return (jlong)(intptr_t)state;
 }
 
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    connectWithString
+ * Signature: (Ljava/lang/String;)J
+ */
+JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_connectWithString(
+    JNIEnv *env, jobject obj,
+    jstring jconnStr
+) {
+    return driver_connect(env, jconnStr, 0);
+}
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    connectWithPacketSize
+ * Signature: (Ljava/lang/String;I)J
+ */
+JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_connectWithPacketSize(
+    JNIEnv *env, jobject obj,
+    jstring jconnStr, jint packetSize
+) {
+    return driver_connect(env, jconnStr, packetSize > 0 ? (SQLUINTEGER)packetSize : 0);
+}
+
 // Función para cerrar la conexión y liberar recursos
 JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_close(
     JNIEnv *env, jobject obj, jlong connectionPtr
@@ -150,17 +836,57 @@ JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_close(
     ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
 
     if (connectionState != NULL) {
+        clear_statement_cache(connectionState);
+        AcquireSRWLockExclusive(&connectionState->activeLock);
+        detach_live_statements(connectionState);
+        ReleaseSRWLockExclusive(&connectionState->activeLock);
         if (connectionState->hDbc != SQL_NULL_HDBC) {
-            SQLDisconnect(connectionState->hDbc);
+            // Con una transacción abierta SQLDisconnect falla (25000): se deshace y se reintenta
+            if (!SQL_SUCCEEDED(SQLDisconnect(connectionState->hDbc))) {
+                SQLEndTran(SQL_HANDLE_DBC, connectionState->hDbc, SQL_ROLLBACK);
+                SQLDisconnect(connectionState->hDbc);
+            }
             SQLFreeHandle(SQL_HANDLE_DBC, connectionState->hDbc);
         }
-        if (connectionState->hEnv != SQL_NULL_HENV) {
-            SQLFreeHandle(SQL_HANDLE_ENV, connectionState->hEnv);
-        }
+        release_environment();
         free(connectionState);
     }
 }
 
+// Activa el pooling de conexiones del Driver Manager (SQL_ATTR_CONNECTION_POOLING).
+// Solo tiene efecto antes de que se cree el entorno compartido.
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_setConnectionPooling(
+    JNIEnv *env, jobject obj, jboolean enabled, jboolean strictMatch
+) {
+    jboolean applied = JNI_FALSE;
+    AcquireSRWLockExclusive(&sharedEnvLock);
+    if (sharedEnv == SQL_NULL_HENV) {
+        poolingMode = enabled ? SQL_CP_ONE_PER_HENV : SQL_CP_OFF;
+        poolingMatch = strictMatch ? SQL_CP_STRICT_MATCH : SQL_CP_RELAXED_MATCH;
+        applied = JNI_TRUE;
+    }
+    ReleaseSRWLockExclusive(&sharedEnvLock);
+    return applied;
+}
+
+// Comprueba si la conexión sigue viva sin ida y vuelta al servidor (SQL_ATTR_CONNECTION_DEAD)
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_isAlive(
+    JNIEnv *env, jobject obj, jlong connectionPtr
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    if (connectionState == NULL || connectionState->hDbc == SQL_NULL_HDBC) {
+        return JNI_FALSE;
+    }
+
+    SQLUINTEGER dead = SQL_CD_FALSE;
+    SQLRETURN ret = SQLGetConnectAttr(connectionState->hDbc, SQL_ATTR_CONNECTION_DEAD, &dead, SQL_IS_UINTEGER, NULL);
+    if (!SQL_SUCCEEDED(ret)) {
+        // El driver no soporta el atributo: se asume viva
+        return JNI_TRUE;
+    }
+    return dead == SQL_CD_TRUE ? JNI_FALSE : JNI_TRUE;
+}
+
 // Optiene la información de la base de datos.
 JNIEXPORT jobject JNICALL Java_odbcbridge_ODBCBridge_getDatabaseInfo(
     JNIEnv *env, jobject obj, jlong connectionPtr
@@ -176,10 +902,6 @@ JNIEXPORT jobject JNICALL Java_odbcbridge_ODBCBridge_getDatabaseInfo(
     SQLGetInfo(conn->hDbc, SQL_SERVER_NAME, srvName, sizeof(srvName), NULL);
     SQLGetInfo(conn->hDbc, SQL_USER_NAME, userName, sizeof(userName), NULL);
 
-    jclass cls = (*env)->FindClass(env, "odbcbridge/ODBCInfo");
-    jmethodID constructor = (*env)->GetMethodID(env, cls, "<init>",
-        "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V");
-
     jstring jdbmsName = (*env)->NewStringUTF(env, (char *)dbmsName);
     jstring jdbmsVer  = (*env)->NewStringUTF(env, (char *)dbmsVer);
     jstring jdrvName  = (*env)->NewStringUTF(env, (char *)drvName);
@@ -187,7 +909,7 @@ JNIEXPORT jobject JNICALL Java_odbcbridge_ODBCBridge_getDatabaseInfo(
     jstring jsrvName  = (*env)->NewStringUTF(env, (char *)srvName);
     jstring juser     = (*env)->NewStringUTF(env, (char *)userName);
 
-    return (*env)->NewObject(env, cls, constructor,
+    return (*env)->NewObject(env, jcache.infoClass, jcache.infoInit,
         jdbmsName, jdbmsVer, jdrvName, jdrvVer, jsrvName, juser);
 }
 
@@ -195,7 +917,8 @@ JNIEXPORT jobject JNICALL Java_odbcbridge_ODBCBridge_getDatabaseInfo(
 JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_listDatabases
   (JNIEnv *env, jobject obj) {
 
-    SQLHENV hEnv = setup_environment(env);
+    SQLHENV hEnv = acquire_environment(env);
+    if (hEnv == SQL_NULL_HENV) return NULL;
     SQLCHAR dsnName[256];
     SQLCHAR description[256];
     SQLSMALLINT dsnNameLen, descriptionLen;
@@ -211,7 +934,7 @@ JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_listDatabases
         }
     }
 
-    result = (*env)->NewObjectArray(env, rowCount, (*env)->FindClass(env, "java/lang/String"), NULL);
+    result = (*env)->NewObjectArray(env, rowCount, jcache.stringClass, NULL);
 
     // Obtener los nombres de DSN
     ret = SQLDataSources(hEnv, SQL_FETCH_FIRST, dsnName, sizeof(dsnName), &dsnNameLen, description, sizeof(description), &descriptionLen);
@@ -224,8 +947,120 @@ JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_listDatabases
         }
     }
 
-    SQLFreeHandle(SQL_HANDLE_ENV, hEnv);
+    release_environment();
+
+    return result;
+}
+
+// Texto ausente (NULL) en una fila de catálogo
+#define CATALOG_NO_TEXT ((size_t)-1)
+
+// Fila de una llamada de catálogo: desplazamientos de sus textos en CatalogBuffer.text
+typedef struct {
+    size_t schema;
+    size_t table;
+    size_t name;
+    SQLSMALLINT type;
+    SQLINTEGER size;
+} CatalogRow;
+
+// Filas de una llamada de catálogo leídas en una sola pasada: los textos se
+// acumulan terminados en NUL en 'text' y ambos buffers crecen duplicándose
+typedef struct {
+    char *text;
+    size_t textLength, textCapacity;
+    CatalogRow *rows;
+    size_t rowCount, rowCapacity;
+} CatalogBuffer;
+
+static void catalog_free(CatalogBuffer *buffer) {
+    free(buffer->text);
+    free(buffer->rows);
+}
+
+// Copia un texto al buffer y devuelve su desplazamiento (CATALOG_NO_TEXT si es NULL o falta memoria)
+static size_t catalog_text(CatalogBuffer *buffer, const SQLCHAR *value, SQLLEN indicator) {
+    if (indicator == SQL_NULL_DATA) return CATALOG_NO_TEXT;
+    size_t length = strlen((const char *)value);
+    if (buffer->textLength + length + 1 > buffer->textCapacity) {
+        size_t capacity = buffer->textCapacity ? buffer->textCapacity * 2 : 4096;
+        while (capacity < buffer->textLength + length + 1) capacity *= 2;
+        char *grown = (char *)realloc(buffer->text, capacity);
+        if (grown == NULL) return CATALOG_NO_TEXT;
+        buffer->text = grown;
+        buffer->textCapacity = capacity;
+    }
+    size_t offset = buffer->textLength;
+    memcpy(buffer->text + offset, value, length + 1);
+    buffer->textLength += length + 1;
+    return offset;
+}
+
+static CatalogRow *catalog_add_row(CatalogBuffer *buffer) {
+    if (buffer->rowCount == buffer->rowCapacity) {
+        size_t capacity = buffer->rowCapacity ? buffer->rowCapacity * 2 : 64;
+        CatalogRow *grown = (CatalogRow *)realloc(buffer->rows, capacity * sizeof(CatalogRow));
+        if (grown == NULL) return NULL;
+        buffer->rows = grown;
+        buffer->rowCapacity = capacity;
+    }
+    return &buffer->rows[buffer->rowCount++];
+}
+
+static jstring catalog_string(JNIEnv *env, const CatalogBuffer *buffer, size_t offset) {
+    return offset == CATALOG_NO_TEXT ? NULL : (*env)->NewStringUTF(env, buffer->text + offset);
+}
+
+/*
+ * Lee en una sola pasada el resultado de SQLTables, SQLColumns o
+ * SQLPrimaryKeys ya ejecutado en 'hStmt'. Siempre se enlazan TABLE_SCHEM (2) y
+ * TABLE_NAME (3); 'nameColumn' (4 para COLUMN_NAME, 0 ninguna) y, con 'typed',
+ * DATA_TYPE (5) y COLUMN_SIZE (7). Devuelve 0 si lanzó una excepción.
+ */
+static int catalog_fetch(JNIEnv *env, SQLHSTMT hStmt, SQLUSMALLINT nameColumn, int typed, CatalogBuffer *buffer) {
+    SQLCHAR schema[256] = "", table[256] = "", name[256] = "";
+    SQLSMALLINT type = 0;
+    SQLINTEGER size = 0;
+    SQLLEN schemaInd = SQL_NULL_DATA, tableInd = SQL_NULL_DATA, nameInd = SQL_NULL_DATA, typeInd = 0, sizeInd = 0;
+
+    SQLBindCol(hStmt, 2, SQL_C_CHAR, schema, sizeof(schema), &schemaInd);
+    SQLBindCol(hStmt, 3, SQL_C_CHAR, table, sizeof(table), &tableInd);
+    if (nameColumn) SQLBindCol(hStmt, nameColumn, SQL_C_CHAR, name, sizeof(name), &nameInd);
+    if (typed) {
+        SQLBindCol(hStmt, 5, SQL_C_SSHORT, &type, 0, &typeInd);
+        SQLBindCol(hStmt, 7, SQL_C_SLONG, &size, 0, &sizeInd);
+    }
+
+    SQLRETURN ret;
+    while ((ret = SQLFetch(hStmt)) != SQL_NO_DATA) {
+        if (!SQL_SUCCEEDED(ret)) {
+            check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to read catalog");
+            return 0;
+        }
+        CatalogRow *row = catalog_add_row(buffer);
+        if (row == NULL) {
+            (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory reading catalog");
+            return 0;
+        }
+        row->schema = catalog_text(buffer, schema, schemaInd);
+        row->table = catalog_text(buffer, table, tableInd);
+        row->name = nameColumn ? catalog_text(buffer, name, nameInd) : CATALOG_NO_TEXT;
+        row->type = (typed && typeInd != SQL_NULL_DATA) ? type : 0;
+        row->size = (typed && sizeInd != SQL_NULL_DATA) ? size : 0;
+    }
+    return 1;
+}
 
+// Crea un String[] con el texto 'table' o 'name' de cada fila del catálogo
+static jobjectArray catalog_names(JNIEnv *env, const CatalogBuffer *buffer, int useName) {
+    jobjectArray result = (*env)->NewObjectArray(env, (jsize)buffer->rowCount, jcache.stringClass, NULL);
+    if (result == NULL) return NULL;
+    for (size_t i = 0; i < buffer->rowCount; i++) {
+        const CatalogRow *row = &buffer->rows[i];
+        jstring value = catalog_string(env, buffer, useName ? row->name : row->table);
+        (*env)->SetObjectArrayElement(env, result, (jsize)i, value);
+        if (value != NULL) (*env)->DeleteLocalRef(env, value);
+    }
     return result;
 }
 
@@ -235,472 +1070,2528 @@ JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_listTables(
 ) {
     ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
     SQLHSTMT hStmt = init_statement(env, connectionState->hDbc);
+    if (hStmt == SQL_NULL_HSTMT) return NULL;
 
+    CatalogBuffer buffer = { 0 };
+    jobjectArray result = NULL;
     SQLRETURN ret = SQLTables(hStmt, NULL, 0, NULL, 0, NULL, 0, (SQLCHAR *)"TABLE", SQL_NTS);
     check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to execute SQLTables");
-
-    SQLCHAR tableName[256];
-    SQLLEN nameLength;
-    jobjectArray result;
-    int rowCount = 0;
-
-    while ((ret = SQLFetch(hStmt)) != SQL_NO_DATA) {
-        rowCount++;
+    if (SQL_SUCCEEDED(ret) && catalog_fetch(env, hStmt, 0, 0, &buffer)) {
+        result = catalog_names(env, &buffer, 0);
     }
 
-    result = (*env)->NewObjectArray(env, rowCount, (*env)->FindClass(env, "java/lang/String"), NULL);
+    catalog_free(&buffer);
+    SQLFreeHandle(SQL_HANDLE_STMT, hStmt);
+    return result;
+}
 
-    SQLCloseCursor(hStmt);
-    SQLTables(hStmt, NULL, 0, NULL, 0, NULL, 0, (SQLCHAR *)"TABLE", SQL_NTS);
+// Lista las columnas de una tabla, o de todas si 'jtableName' es null, con una sola llamada a SQLColumns
+JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_listColumns(
+    JNIEnv *env, jobject obj, jlong connectionPtr, jstring jtableName
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    SQLHSTMT hStmt = init_statement(env, connectionState->hDbc);
+    if (hStmt == SQL_NULL_HSTMT) return NULL;
 
-    int i = 0;
-    while ((ret = SQLFetch(hStmt)) != SQL_NO_DATA) {
-        ret = SQLGetData(hStmt, 3, SQL_C_CHAR, tableName, sizeof(tableName), &nameLength);
-        check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to get table name");
+    const char *tableName = jtableName != NULL ? (*env)->GetStringUTFChars(env, jtableName, 0) : NULL;
+    CatalogBuffer buffer = { 0 };
+    jobjectArray result = NULL;
+    SQLRETURN ret = SQLColumns(hStmt, NULL, 0, NULL, 0, (SQLCHAR *)tableName, tableName ? SQL_NTS : 0, NULL, 0);
+    check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to retrieve columns");
 
-        (*env)->SetObjectArrayElement(env, result, i, (*env)->NewStringUTF(env, (char *)tableName));
-        i++;
+    if (SQL_SUCCEEDED(ret) && catalog_fetch(env, hStmt, 4, 1, &buffer)) {
+        result = (*env)->NewObjectArray(env, (jsize)buffer.rowCount, jcache.columnClass, NULL);
+        for (size_t i = 0; result != NULL && i < buffer.rowCount; i++) {
+            const CatalogRow *row = &buffer.rows[i];
+            jstring jschema = catalog_string(env, &buffer, row->schema);
+            jstring jtable = catalog_string(env, &buffer, row->table);
+            jstring jname = catalog_string(env, &buffer, row->name);
+            jobject column = (*env)->NewObject(env, jcache.columnClass, jcache.columnInit,
+                jname, (jint)row->type, (jint)row->size, jschema, jtable);
+            if (column == NULL) {
+                result = NULL;
+                break;
+            }
+            (*env)->SetObjectArrayElement(env, result, (jsize)i, column);
+            (*env)->DeleteLocalRef(env, column);
+            if (jname != NULL) (*env)->DeleteLocalRef(env, jname);
+            if (jtable != NULL) (*env)->DeleteLocalRef(env, jtable);
+            if (jschema != NULL) (*env)->DeleteLocalRef(env, jschema);
+        }
     }
 
+    catalog_free(&buffer);
     SQLFreeHandle(SQL_HANDLE_STMT, hStmt);
-
+    if (tableName != NULL) (*env)->ReleaseStringUTFChars(env, jtableName, tableName);
     return result;
 }
 
-// Funcion par alistar los comapos de una tabla
-JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_listColumns(
+// Lista las columnas de la clave primaria de una tabla en orden (KEY_SEQ)
+JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_listPrimaryKeys(
     JNIEnv *env, jobject obj, jlong connectionPtr, jstring jtableName
 ) {
     ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
-    const char *tableName = (*env)->GetStringUTFChars(env, jtableName, 0);
-
     SQLHSTMT hStmt = init_statement(env, connectionState->hDbc);
-    SQLRETURN ret = SQLColumns(hStmt, NULL, 0, NULL, 0, (SQLCHAR *)tableName, SQL_NTS, NULL, 0);
-    check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to retrieve columns");
+    if (hStmt == SQL_NULL_HSTMT) return NULL;
 
-    // Contar número de columnas
-    int rowCount = 0;
-    while ((ret = SQLFetch(hStmt)) != SQL_NO_DATA) {
-        rowCount++;
+    const char *tableName = (*env)->GetStringUTFChars(env, jtableName, 0);
+    CatalogBuffer buffer = { 0 };
+    jobjectArray result = NULL;
+    SQLRETURN ret = SQLPrimaryKeys(hStmt, NULL, 0, NULL, 0, (SQLCHAR *)tableName, SQL_NTS);
+    check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to retrieve primary keys");
+    if (SQL_SUCCEEDED(ret) && catalog_fetch(env, hStmt, 4, 0, &buffer)) {
+        result = catalog_names(env, &buffer, 1);
     }
 
-    // Preparar clase Java: odbcbridge.ODBCField
-    jclass clsODBCField = (*env)->FindClass(env, "odbcbridge/ODBCField");
-    if (clsODBCField == NULL) return NULL;
-
-    jmethodID constructor = (*env)->GetMethodID(env, clsODBCField, "<init>", "(Ljava/lang/String;II)V");
-    if (constructor == NULL) return NULL;
+    catalog_free(&buffer);
+    SQLFreeHandle(SQL_HANDLE_STMT, hStmt);
+    (*env)->ReleaseStringUTFChars(env, jtableName, tableName);
+    return result;
+}
 
-    jobjectArray result = (*env)->NewObjectArray(env, rowCount, clsODBCField, NULL);
+// Tipo C con el que se lee un tipo SQL. Los tipos sin conversión propia
+// (GUID, intervalos, tipos del driver) se leen como texto en SQL_C_CHAR.
+// Con 'wide' el texto se lee en UTF-16 (SQL_C_WCHAR).
+static SQLSMALLINT c_type_for(SQLSMALLINT sqlType, int wide) {
+    switch (sqlType) {
+        case SQL_INTEGER:
+        case SQL_SMALLINT:
+        case SQL_TINYINT:        return SQL_C_SLONG;
+        case SQL_BIT:            return SQL_C_BIT;
+        case SQL_BIGINT:         return SQL_C_SBIGINT;
+        case SQL_REAL:
+        case SQL_FLOAT:          return SQL_C_FLOAT;
+        case SQL_DOUBLE:         return SQL_C_DOUBLE;
+        case SQL_NUMERIC:
+        case SQL_DECIMAL:        return SQL_C_CHAR;
+        case SQL_BINARY:
+        case SQL_VARBINARY:
+        case SQL_LONGVARBINARY:  return SQL_C_BINARY;
+        case SQL_CHAR:
+        case SQL_VARCHAR:
+        case SQL_LONGVARCHAR:
+        case SQL_WCHAR:
+        case SQL_WVARCHAR:
+        case SQL_WLONGVARCHAR:   return wide ? SQL_C_WCHAR : SQL_C_CHAR;
+        case SQL_DATE:
+        case SQL_TYPE_DATE:      return SQL_C_TYPE_DATE;
+        case SQL_TIME:
+        case SQL_TYPE_TIME:      return SQL_C_TYPE_TIME;
+        case SQL_TIMESTAMP:
+        case SQL_TYPE_TIMESTAMP: return SQL_C_TYPE_TIMESTAMP;
+        default:                 return SQL_C_CHAR;
+    }
+}
 
-    // Reiniciar cursor para leer de nuevo
-    SQLCloseCursor(hStmt);
-    SQLColumns(hStmt, NULL, 0, NULL, 0, (SQLCHAR *)tableName, SQL_NTS, NULL, 0);
+// Bytes por fila necesarios para enlazar una columna, o 0 si no se puede enlazar
+static SQLLEN bound_width(SQLSMALLINT cType, SQLULEN size) {
+    switch (cType) {
+        case SQL_C_SLONG:          return sizeof(SQLINTEGER);
+        case SQL_C_BIT:            return sizeof(SQLCHAR);
+        case SQL_C_SBIGINT:        return sizeof(SQLBIGINT);
+        case SQL_C_FLOAT:          return sizeof(SQLREAL);
+        case SQL_C_DOUBLE:         return sizeof(SQLDOUBLE);
+        case SQL_C_TYPE_DATE:      return sizeof(DATE_STRUCT);
+        case SQL_C_TYPE_TIME:      return sizeof(TIME_STRUCT);
+        case SQL_C_TYPE_TIMESTAMP: return sizeof(TIMESTAMP_STRUCT);
+        default:                   break;
+    }
+    // El límite se compara con size antes de multiplicar: con SQLLEN de 32 bits
+    // un tamaño enorme desbordaría el producto y pasaría la comprobación
+    if (size == 0) return 0;
+    switch (cType) {
+        case SQL_C_BINARY:
+            return size > MAX_BOUND_COLUMN_WIDTH ? 0 : (SQLLEN)size;
+        // Texto: hasta 4 bytes por carácter + terminador; numéricos: signo, punto y terminador
+        case SQL_C_CHAR:
+            return size > (MAX_BOUND_COLUMN_WIDTH - 3) / 4 ? 0 : (SQLLEN)size * 4 + 3;
+        // UTF-16: una unidad por carácter (SQL_WCHAR cuenta unidades) + terminador
+        case SQL_C_WCHAR:
+            return size > MAX_BOUND_COLUMN_WIDTH / sizeof(SQLWCHAR) - 1
+                ? 0 : ((SQLLEN)size + 1) * sizeof(SQLWCHAR);
+        default:
+            return 0;
+    }
+}
 
-    SQLCHAR colName[256];
-    SQLSMALLINT dataType;
-    SQLINTEGER colSize;
-    SQLLEN indName, indType, indSize;
+// Describe una sola vez las columnas del resultado: tipo, tamaño, escala,
+// nulabilidad y el tipo C con el que se leerán
+static void describe_columns(JNIEnv *env, QueryState *queryState) {
+    SQLHSTMT hStmt = queryState->hStmt;
+    SQLSMALLINT columnCount = 0;
 
-    int i = 0;
-    while ((ret = SQLFetch(hStmt)) != SQL_NO_DATA) {
-        SQLGetData(hStmt, 4, SQL_C_CHAR, colName, sizeof(colName), &indName);   // COLUMN_NAME
-        SQLGetData(hStmt, 5, SQL_C_SSHORT, &dataType, 0, &indType);             // DATA_TYPE
-        SQLGetData(hStmt, 7, SQL_C_SLONG, &colSize, 0, &indSize);               // COLUMN_SIZE
+    SQLRETURN ret = SQLNumResultCols(hStmt, &columnCount);
+    check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to get column count");
+    if (!SQL_SUCCEEDED(ret) || columnCount <= 0) return;
 
-        jstring jname = (*env)->NewStringUTF(env, (char *)colName);
-        jobject field = (*env)->NewObject(env, clsODBCField, constructor, jname, dataType, colSize);
-        (*env)->SetObjectArrayElement(env, result, i++, field);
+    queryState->columns = (ColumnBuffer *)calloc(columnCount, sizeof(ColumnBuffer));
+    if (queryState->columns == NULL) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory describing columns");
+        return;
+    }
+    queryState->columnCount = columnCount;
+    ConnectionState *connectionState = queryState->statement->connectionState;
+    int wide = connectionState != NULL && connectionState->wideChars;
+
+    for (int i = 0; i < columnCount; i++) {
+        ColumnBuffer *column = &queryState->columns[i];
+        ret = SQLDescribeCol(hStmt, i + 1, column->name, sizeof(column->name), NULL,
+                             &column->sqlType, &column->size, &column->scale, &column->nullable);
+        check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to describe column");
+        column->cType = c_type_for(column->sqlType, wide);
+        column->width = bound_width(column->cType, column->size);
     }
+}
 
-    SQLFreeHandle(SQL_HANDLE_STMT, hStmt);
-    (*env)->ReleaseStringUTFChars(env, jtableName, tableName);
-    return result;
+// Asegura que la sentencia tenga buffers para 'count' parámetros
+static int reserve_params(StatementState *statement, int count) {
+    if (count <= statement->paramCapacity) return 1;
+    ParamBuffer *params = (ParamBuffer *)realloc(statement->params, count * sizeof(ParamBuffer));
+    if (params == NULL) return 0;
+    memset(params + statement->paramCapacity, 0, (count - statement->paramCapacity) * sizeof(ParamBuffer));
+    statement->params = params;
+    statement->paramCapacity = count;
+    return 1;
 }
 
-// Función para inicializar una consulta SQL
-JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_query
-  (JNIEnv *env, jobject obj,
-   jlong connectionPtr,
-   jstring jsql,
-   jobjectArray paramsArr)
-{
-    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
-    const char *sql = (*env)->GetStringUTFChars(env, jsql, 0);
+// Asegura 'size' bytes en el buffer de texto/binario del parámetro
+static int reserve_param_data(ParamBuffer *buffer, size_t size) {
+    if (size <= buffer->dataCapacity) return 1;
+    char *data = (char *)realloc(buffer->data, size);
+    if (data == NULL) return 0;
+    buffer->data = data;
+    buffer->dataCapacity = size;
+    return 1;
+}
 
-    // 1) Inicializa el statement
-    SQLHSTMT hStmt = init_statement(env, connectionState->hDbc);
-    if (hStmt == SQL_NULL_HSTMT) {
-        (*env)->ReleaseStringUTFChars(env, jsql, sql);
-        return 0;
+// Codifica UTF-16 en UTF-8 estándar, como String.getBytes(UTF_8): los pares
+// suplentes van en 4 bytes, U+0000 en uno y un suplente suelto como '?'. JNI
+// solo ofrece UTF-8 modificado, que el driver guardaría corrupto. Con out NULL
+// solo cuenta los bytes.
+static size_t encode_utf8(const jchar *chars, jsize count, char *out) {
+    size_t n = 0;
+    for (jsize i = 0; i < count; i++) {
+        unsigned int c = chars[i];
+        if (c < 0x80) {
+            if (out) out[n] = (char)c;
+            n += 1;
+        } else if (c < 0x800) {
+            if (out) {
+                out[n]     = (char)(0xC0 | (c >> 6));
+                out[n + 1] = (char)(0x80 | (c & 0x3F));
+            }
+            n += 2;
+        } else if (c >= 0xD800 && c <= 0xDBFF && i + 1 < count
+                   && chars[i + 1] >= 0xDC00 && chars[i + 1] <= 0xDFFF) {
+            c = 0x10000 + ((c - 0xD800) << 10) + (chars[++i] - 0xDC00);
+            if (out) {
+                out[n]     = (char)(0xF0 | (c >> 18));
+                out[n + 1] = (char)(0x80 | ((c >> 12) & 0x3F));
+                out[n + 2] = (char)(0x80 | ((c >> 6) & 0x3F));
+                out[n + 3] = (char)(0x80 | (c & 0x3F));
+            }
+            n += 4;
+        } else if (c >= 0xD800 && c <= 0xDFFF) {
+            if (out) out[n] = '?';
+            n += 1;
+        } else {
+            if (out) {
+                out[n]     = (char)(0xE0 | (c >> 12));
+                out[n + 1] = (char)(0x80 | ((c >> 6) & 0x3F));
+                out[n + 2] = (char)(0x80 | (c & 0x3F));
+            }
+            n += 3;
+        }
+    }
+    return n;
+}
+
+// Bytes de un String en UTF-8 estándar; -1 si la JVM no pudo dar sus caracteres
+static SQLLEN string_utf8_length(JNIEnv *env, jstring value) {
+    jsize count = (*env)->GetStringLength(env, value);
+    const jchar *chars = (*env)->GetStringCritical(env, value, NULL);
+    if (chars == NULL) return -1;
+    size_t bytes = encode_utf8(chars, count, NULL);
+    (*env)->ReleaseStringCritical(env, value, chars);
+    return (SQLLEN)bytes;
+}
+
+// Copia un String en UTF-8 estándar a 'out' (con sitio para 'bytes' + 1), terminado en NUL
+static int copy_utf8(JNIEnv *env, jstring value, char *out, SQLLEN bytes) {
+    jsize count = (*env)->GetStringLength(env, value);
+    const jchar *chars = (*env)->GetStringCritical(env, value, NULL);
+    if (chars == NULL) return 0;
+    encode_utf8(chars, count, out);
+    (*env)->ReleaseStringCritical(env, value, chars);
+    out[bytes] = '\0';
+    return 1;
+}
+
+// Copia un String como UTF-16 (SQL_C_WCHAR) terminado en 0
+static int copy_wide_param(JNIEnv *env, ParamBuffer *buffer, jstring value) {
+    jsize chars = (*env)->GetStringLength(env, value);
+    if (!reserve_param_data(buffer, ((size_t)chars + 1) * sizeof(SQLWCHAR))) return 0;
+    (*env)->GetStringRegion(env, value, 0, chars, (jchar *)buffer->data);
+    ((SQLWCHAR *)buffer->data)[chars] = 0;
+    buffer->indicator = chars * sizeof(SQLWCHAR);
+    return 1;
+}
+
+// Copia un String en UTF-8 estándar (SQL_C_CHAR) terminado en NUL
+static int copy_string_param(JNIEnv *env, ParamBuffer *buffer, jstring value) {
+    SQLLEN bytes = string_utf8_length(env, value);
+    if (bytes < 0 || !reserve_param_data(buffer, (size_t)bytes + 1)) return 0;
+    if (!copy_utf8(env, value, buffer->data, bytes)) return 0;
+    buffer->indicator = bytes;
+    return 1;
+}
+
+// Convierte un BigDecimal a SQL_NUMERIC_STRUCT (magnitud little-endian de 16 bytes).
+// Devuelve 0 si no cabe: escala negativa o más de 38 dígitos.
+static int to_numeric(JNIEnv *env, jobject decimal, SQL_NUMERIC_STRUCT *numeric) {
+    jint scale = (*env)->CallIntMethod(env, decimal, jcache.bigDecimalScale);
+    jint precision = (*env)->CallIntMethod(env, decimal, jcache.bigDecimalPrecision);
+    if (scale < 0 || scale > 38 || precision > 38) return 0;
+
+    jint signum = (*env)->CallIntMethod(env, decimal, jcache.bigDecimalSignum);
+    jobject unscaled = (*env)->CallObjectMethod(env, decimal, jcache.bigDecimalUnscaledValue);
+    jobject magnitude = (*env)->CallObjectMethod(env, unscaled, jcache.bigIntegerAbs);
+    jbyteArray bytes = (jbyteArray)(*env)->CallObjectMethod(env, magnitude, jcache.bigIntegerToByteArray);
+    (*env)->DeleteLocalRef(env, unscaled);
+    (*env)->DeleteLocalRef(env, magnitude);
+    if (bytes == NULL) return 0;
+
+    // toByteArray es big-endian y puede llevar un byte de signo a cero
+    jbyte bigEndian[17];
+    jsize length = (*env)->GetArrayLength(env, bytes);
+    int fits = length <= (jsize)sizeof(bigEndian);
+    if (fits) {
+        (*env)->GetByteArrayRegion(env, bytes, 0, length, bigEndian);
+    }
+    (*env)->DeleteLocalRef(env, bytes);
+
+    memset(numeric, 0, sizeof(*numeric));
+    for (jsize i = 0; fits && i < length; i++) {
+        jsize position = length - 1 - i;
+        if (position < SQL_MAX_NUMERIC_LEN) {
+            numeric->val[position] = (SQLCHAR)bigEndian[i];
+        } else if (bigEndian[i] != 0) {
+            fits = 0;
+        }
+    }
+    numeric->precision = (SQLCHAR)(precision < scale ? scale : precision);
+    numeric->scale = (SQLSCHAR)scale;
+    numeric->sign = signum < 0 ? 0 : 1;
+    return fits;
+}
+
+static void read_local_date(JNIEnv *env, jobject localDate, DATE_STRUCT *date) {
+    date->year  = (SQLSMALLINT)(*env)->CallIntMethod(env, localDate, jcache.localDateGetYear);
+    date->month = (SQLUSMALLINT)(*env)->CallIntMethod(env, localDate, jcache.localDateGetMonthValue);
+    date->day   = (SQLUSMALLINT)(*env)->CallIntMethod(env, localDate, jcache.localDateGetDayOfMonth);
+}
+
+// Lee hora/minuto/segundo y devuelve los nanosegundos
+static jint read_local_time(JNIEnv *env, jobject localTime, TIME_STRUCT *time) {
+    time->hour   = (SQLUSMALLINT)(*env)->CallIntMethod(env, localTime, jcache.localTimeGetHour);
+    time->minute = (SQLUSMALLINT)(*env)->CallIntMethod(env, localTime, jcache.localTimeGetMinute);
+    time->second = (SQLUSMALLINT)(*env)->CallIntMethod(env, localTime, jcache.localTimeGetSecond);
+    return (*env)->CallIntMethod(env, localTime, jcache.localTimeGetNano);
+}
+
+static void read_local_date_time(JNIEnv *env, jobject localDateTime, TIMESTAMP_STRUCT *timestamp) {
+    DATE_STRUCT date;
+    TIME_STRUCT time;
+    jobject localDate = (*env)->CallObjectMethod(env, localDateTime, jcache.localDateTimeToLocalDate);
+    jobject localTime = (*env)->CallObjectMethod(env, localDateTime, jcache.localDateTimeToLocalTime);
+    read_local_date(env, localDate, &date);
+    jint nanos = read_local_time(env, localTime, &time);
+    (*env)->DeleteLocalRef(env, localDate);
+    (*env)->DeleteLocalRef(env, localTime);
+
+    timestamp->year = date.year;
+    timestamp->month = date.month;
+    timestamp->day = date.day;
+    timestamp->hour = time.hour;
+    timestamp->minute = time.minute;
+    timestamp->second = time.second;
+    timestamp->fraction = (SQLUINTEGER)nanos;
+}
+
+// Dígitos de fracción que necesita un timestamp (0, 3, 6 o 9); algunos drivers
+// rechazan fracciones con más dígitos de los declarados
+static SQLSMALLINT fraction_digits(SQLUINTEGER nanos) {
+    if (nanos == 0) return 0;
+    if (nanos % 1000000 == 0) return 3;
+    if (nanos % 1000 == 0) return 6;
+    return 9;
+}
+
+// Tipo de un parámetro Java, que decide el tipo C/SQL con el que se enlaza
+typedef enum {
+    PARAM_NULL, PARAM_TEXT, PARAM_INTEGER, PARAM_BIGINT, PARAM_DOUBLE, PARAM_BIT,
+    PARAM_DECIMAL, PARAM_BINARY, PARAM_TIMESTAMP, PARAM_DATE, PARAM_TIME
+} ParamKind;
+
+static ParamKind param_kind(JNIEnv *env, jobject param) {
+    if (param == NULL) return PARAM_NULL;
+    if ((*env)->IsInstanceOf(env, param, jcache.stringClass)) return PARAM_TEXT;
+    if ((*env)->IsInstanceOf(env, param, jcache.integerClass)
+            || (*env)->IsInstanceOf(env, param, jcache.shortClass)
+            || (*env)->IsInstanceOf(env, param, jcache.byteClass)) return PARAM_INTEGER;
+    if ((*env)->IsInstanceOf(env, param, jcache.longClass)) return PARAM_BIGINT;
+    if ((*env)->IsInstanceOf(env, param, jcache.doubleClass)
+            || (*env)->IsInstanceOf(env, param, jcache.floatClass)) return PARAM_DOUBLE;
+    if ((*env)->IsInstanceOf(env, param, jcache.booleanClass)) return PARAM_BIT;
+    if ((*env)->IsInstanceOf(env, param, jcache.bigDecimalClass)) return PARAM_DECIMAL;
+    if ((*env)->IsInstanceOf(env, param, jcache.byteArrayClass)) return PARAM_BINARY;
+    if ((*env)->IsInstanceOf(env, param, jcache.timestampClass)
+            || (*env)->IsInstanceOf(env, param, jcache.localDateTimeClass)) return PARAM_TIMESTAMP;
+    if ((*env)->IsInstanceOf(env, param, jcache.dateClass)
+            || (*env)->IsInstanceOf(env, param, jcache.localDateClass)) return PARAM_DATE;
+    if ((*env)->IsInstanceOf(env, param, jcache.timeClass)
+            || (*env)->IsInstanceOf(env, param, jcache.localTimeClass)) return PARAM_TIME;
+    // Cualquier otro tipo se envía como texto con toString()
+    return PARAM_TEXT;
+}
+
+// Texto con el que se envía un parámetro: el propio String, toPlainString() o toString()
+static jstring param_text(JNIEnv *env, jobject param) {
+    if ((*env)->IsInstanceOf(env, param, jcache.stringClass)) {
+        return (jstring)(*env)->NewLocalRef(env, param);
+    }
+    if ((*env)->IsInstanceOf(env, param, jcache.bigDecimalClass)) {
+        return (jstring)(*env)->CallObjectMethod(env, param, jcache.bigDecimalToPlainString);
+    }
+    return (jstring)(*env)->CallObjectMethod(env, param, jcache.objectToString);
+}
+
+// Lee un PARAM_TIMESTAMP (java.sql.Timestamp o LocalDateTime)
+static void read_timestamp_param(JNIEnv *env, jobject param, TIMESTAMP_STRUCT *timestamp) {
+    jobject localDateTime = (*env)->IsInstanceOf(env, param, jcache.timestampClass)
+        ? (*env)->CallObjectMethod(env, param, jcache.timestampToLocalDateTime)
+        : (*env)->NewLocalRef(env, param);
+    read_local_date_time(env, localDateTime, timestamp);
+    (*env)->DeleteLocalRef(env, localDateTime);
+}
+
+// Lee un PARAM_DATE (java.sql.Date o LocalDate)
+static void read_date_param(JNIEnv *env, jobject param, DATE_STRUCT *date) {
+    jobject localDate = (*env)->IsInstanceOf(env, param, jcache.dateClass)
+        ? (*env)->CallObjectMethod(env, param, jcache.dateToLocalDate)
+        : (*env)->NewLocalRef(env, param);
+    read_local_date(env, localDate, date);
+    (*env)->DeleteLocalRef(env, localDate);
+}
+
+// Lee un PARAM_TIME (java.sql.Time o LocalTime)
+static void read_time_param(JNIEnv *env, jobject param, TIME_STRUCT *time) {
+    jobject localTime = (*env)->IsInstanceOf(env, param, jcache.timeClass)
+        ? (*env)->CallObjectMethod(env, param, jcache.timeToLocalTime)
+        : (*env)->NewLocalRef(env, param);
+    read_local_time(env, localTime, time);
+    (*env)->DeleteLocalRef(env, localTime);
+}
+
+// Tipo C, tipo SQL y tamaño de columna de cada ParamKind (los de ancho variable se ajustan después)
+static void param_sql_types(ParamKind kind, SQLSMALLINT *cType, SQLSMALLINT *sqlType, SQLULEN *columnSize) {
+    switch (kind) {
+        case PARAM_INTEGER:   *cType = SQL_C_SLONG;          *sqlType = SQL_INTEGER;        *columnSize = 10; break;
+        case PARAM_BIGINT:    *cType = SQL_C_SBIGINT;        *sqlType = SQL_BIGINT;         *columnSize = 19; break;
+        case PARAM_DOUBLE:    *cType = SQL_C_DOUBLE;         *sqlType = SQL_DOUBLE;         *columnSize = 15; break;
+        case PARAM_BIT:       *cType = SQL_C_BIT;            *sqlType = SQL_BIT;            *columnSize = 1;  break;
+        case PARAM_DECIMAL:   *cType = SQL_C_NUMERIC;        *sqlType = SQL_NUMERIC;        *columnSize = 38; break;
+        case PARAM_BINARY:    *cType = SQL_C_BINARY;         *sqlType = SQL_VARBINARY;      *columnSize = 1;  break;
+        case PARAM_TIMESTAMP: *cType = SQL_C_TYPE_TIMESTAMP; *sqlType = SQL_TYPE_TIMESTAMP; *columnSize = 19; break;
+        case PARAM_DATE:      *cType = SQL_C_TYPE_DATE;      *sqlType = SQL_TYPE_DATE;      *columnSize = 10; break;
+        case PARAM_TIME:      *cType = SQL_C_TYPE_TIME;      *sqlType = SQL_TYPE_TIME;      *columnSize = 8;  break;
+        default:              *cType = SQL_C_CHAR;           *sqlType = SQL_VARCHAR;        *columnSize = 1;  break;
     }
+}
+
+// Fija precisión y escala de un parámetro SQL_C_NUMERIC en el descriptor (APD);
+// al cambiarlas el driver exige volver a asignar el puntero a los datos
+static void set_numeric_descriptor(SQLHSTMT hStmt, SQLUSMALLINT index, SQLCHAR precision, SQLSCHAR scale, SQLPOINTER data) {
+    SQLHDESC hDesc = SQL_NULL_HDESC;
+    SQLGetStmtAttr(hStmt, SQL_ATTR_APP_PARAM_DESC, &hDesc, 0, NULL);
+    SQLSetDescField(hDesc, index, SQL_DESC_TYPE, (SQLPOINTER)SQL_C_NUMERIC, 0);
+    SQLSetDescField(hDesc, index, SQL_DESC_PRECISION, (SQLPOINTER)(intptr_t)precision, 0);
+    SQLSetDescField(hDesc, index, SQL_DESC_SCALE, (SQLPOINTER)(intptr_t)scale, 0);
+    SQLSetDescField(hDesc, index, SQL_DESC_DATA_PTR, data, 0);
+}
 
-    // 2) Bind de parámetros (si los hay)
-    if (paramsArr != NULL) {
-        jsize count = (*env)->GetArrayLength(env, paramsArr);
-        for (SQLUSMALLINT i = 0; i < (SQLUSMALLINT)count; i++) {
-            jobject param = (*env)->GetObjectArrayElement(env, paramsArr, i);
-            if (param != NULL) {
-                // Por simplicidad, aquí tratamos todos como String
-                const char *s = (*env)->GetStringUTFChars(env, (jstring)param, NULL);
-                SQLBindParameter(
-                    hStmt,
-                    (SQLUSMALLINT)(i+1),
-                    SQL_PARAM_INPUT,
-                    SQL_C_CHAR,
-                    SQL_VARCHAR,
-                    0, 0,
-                    (SQLPOINTER)s,
-                    0,
-                    NULL
-                );
-                (*env)->ReleaseStringUTFChars(env, (jstring)param, s);
+// Enlaza un parámetro según su tipo Java, copiando el valor al buffer de la sentencia
+static SQLRETURN bind_parameter(JNIEnv *env, SQLHSTMT hStmt, SQLUSMALLINT index, ParamBuffer *buffer,
+                                jobject param, int wide) {
+    ParamKind kind = param_kind(env, param);
+    SQLSMALLINT cType, sqlType;
+    SQLULEN columnSize;
+    SQLSMALLINT digits = 0;
+    SQLPOINTER value = &buffer->value;
+    SQLLEN bufferLength = 0;
+
+    param_sql_types(kind, &cType, &sqlType, &columnSize);
+    buffer->indicator = 0;
+
+    switch (kind) {
+        case PARAM_NULL:
+            value = NULL;
+            buffer->indicator = SQL_NULL_DATA;
+            break;
+        case PARAM_INTEGER:
+            buffer->value.integer = (SQLINTEGER)(*env)->CallIntMethod(env, param, jcache.numberIntValue);
+            break;
+        case PARAM_BIGINT:
+            buffer->value.bigint = (SQLBIGINT)(*env)->CallLongMethod(env, param, jcache.numberLongValue);
+            break;
+        case PARAM_DOUBLE:
+            buffer->value.real = (SQLDOUBLE)(*env)->CallDoubleMethod(env, param, jcache.numberDoubleValue);
+            break;
+        case PARAM_BIT:
+            buffer->value.bit = (*env)->CallBooleanMethod(env, param, jcache.booleanValue) ? 1 : 0;
+            break;
+        case PARAM_DECIMAL:
+            if (to_numeric(env, param, &buffer->value.numeric)) {
+                columnSize = buffer->value.numeric.precision;
+                digits = buffer->value.numeric.scale;
+                buffer->indicator = sizeof(SQL_NUMERIC_STRUCT);
+            } else {
+                // Fuera del rango de SQL_NUMERIC: se envía como texto
+                kind = PARAM_TEXT;
+                param_sql_types(kind, &cType, &sqlType, &columnSize);
             }
+            break;
+        case PARAM_BINARY: {
+            jsize length = (*env)->GetArrayLength(env, (jbyteArray)param);
+            if (!reserve_param_data(buffer, length > 0 ? (size_t)length : 1)) goto out_of_memory;
+            (*env)->GetByteArrayRegion(env, (jbyteArray)param, 0, length, (jbyte *)buffer->data);
+            buffer->indicator = length;
+            columnSize = length > 0 ? (SQLULEN)length : 1;
+            value = buffer->data;
+            bufferLength = length;
+            break;
         }
+        case PARAM_TIMESTAMP:
+            read_timestamp_param(env, param, &buffer->value.timestamp);
+            digits = fraction_digits(buffer->value.timestamp.fraction);
+            columnSize = digits > 0 ? 20 + digits : 19;
+            break;
+        case PARAM_DATE:
+            read_date_param(env, param, &buffer->value.date);
+            break;
+        case PARAM_TIME:
+            read_time_param(env, param, &buffer->value.time);
+            break;
+        default:
+            break;
     }
 
-    // 3) Ejecuta la consulta
-    SQLRETURN ret = SQLExecDirect(hStmt, (SQLCHAR *)sql, SQL_NTS);
-    check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to execute SQL query");
+    if (kind == PARAM_TEXT && !(*env)->ExceptionCheck(env)) {
+        jstring text = param_text(env, param);
+        int copied = text != NULL && (wide ? copy_wide_param(env, buffer, text) : copy_string_param(env, buffer, text));
+        if (text != NULL) (*env)->DeleteLocalRef(env, text);
+        if (!copied) goto out_of_memory;
+        value = buffer->data;
+        if (wide) {
+            cType = SQL_C_WCHAR;
+            sqlType = SQL_WVARCHAR;
+            columnSize = buffer->indicator > 0 ? (SQLULEN)(buffer->indicator / sizeof(SQLWCHAR)) : 1;
+            bufferLength = buffer->indicator + sizeof(SQLWCHAR);
+        } else {
+            columnSize = buffer->indicator > 0 ? (SQLULEN)buffer->indicator : 1;
+            bufferLength = buffer->indicator + 1;
+        }
+    }
+    if ((*env)->ExceptionCheck(env)) return SQL_ERROR;
 
-    // 4) Prepara el estado de la query para devolverlo a Java
-    QueryState *queryState = (QueryState *)malloc(sizeof(QueryState));
-    queryState->hStmt = hStmt;
-    queryState->connectionState = connectionState;
+    SQLRETURN ret = SQLBindParameter(hStmt, index, SQL_PARAM_INPUT, cType, sqlType,
+                                     columnSize, digits, value, bufferLength, &buffer->indicator);
+    check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to bind parameter");
 
-    (*env)->ReleaseStringUTFChars(env, jsql, sql);
-    return (jlong)(intptr_t)queryState;
+    if (SQL_SUCCEEDED(ret) && cType == SQL_C_NUMERIC) {
+        set_numeric_descriptor(hStmt, index, buffer->value.numeric.precision, buffer->value.numeric.scale, value);
+    }
+    return ret;
+
+out_of_memory:
+    if (!(*env)->ExceptionCheck(env)) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory binding parameter");
+    }
+    return SQL_ERROR;
 }
 
+// Enlaza los parámetros de la sentencia (si los hay)
+static SQLRETURN bind_parameters(JNIEnv *env, StatementState *statement, jobjectArray paramsArr) {
+    if (paramsArr == NULL) return SQL_SUCCESS;
 
-// Función para obtener datos de una fila de resultados
-JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_fetchArray(
-    JNIEnv *env, jobject obj, jlong queryPtr
-) {
-    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
-    
-    SQLSMALLINT columnCount;
-    SQLSMALLINT dataType;
-    SQLLEN     indicator;
-
-    // 1) Número de columnas
-    SQLRETURN rc = SQLNumResultCols(queryState->hStmt, &columnCount);
-    if (!SQL_SUCCEEDED(rc)) {
-        // Lanza SQLException
-        jclass exClass = (*env)->FindClass(env, "java/sql/SQLException");
-        (*env)->ThrowNew(env, exClass,
-            "Error en SQLNumResultCols al obtener número de columnas");
-        return NULL;
+    jsize count = (*env)->GetArrayLength(env, paramsArr);
+    if (!reserve_params(statement, count)) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory binding parameters");
+        return SQL_ERROR;
+    }
+    for (jsize i = 0; i < count; i++) {
+        jobject param = (*env)->GetObjectArrayElement(env, paramsArr, i);
+        SQLRETURN ret = bind_parameter(env, statement->hStmt, (SQLUSMALLINT)(i + 1), &statement->params[i],
+                                       param, statement->connectionState->wideChars);
+        if (param != NULL) (*env)->DeleteLocalRef(env, param);
+        if (!SQL_SUCCEEDED(ret)) return ret;
     }
+    return SQL_SUCCESS;
+}
 
-    // 2) Fetch
-    SQLRETURN ret = SQLFetch(queryState->hStmt);
-    if (ret == SQL_NO_DATA) {
-        // no hay más filas: retorna NULL (fin de cursor)
-        return NULL;
+// Aplica el timeout de la sentencia (o el de la conexión) si cambió desde la última ejecución
+static void apply_query_timeout(StatementState *statement) {
+    int timeout = statement->timeout >= 0 ? statement->timeout : statement->connectionState->queryTimeout;
+    if (timeout != statement->appliedTimeout) {
+        // Drivers sin soporte responden HYC00; se ejecuta igualmente sin límite
+        SQLSetStmtAttr(statement->hStmt, SQL_ATTR_QUERY_TIMEOUT, (SQLPOINTER)(intptr_t)timeout, 0);
+        statement->appliedTimeout = timeout;
     }
-    if (!SQL_SUCCEEDED(ret)) {
-        // Extrae diagnóstico ODBC
-        SQLCHAR sqlState[6], msg[SQL_MAX_MESSAGE_LENGTH];
-        SQLINTEGER nativeErr;
-        SQLSMALLINT textLen;
-        SQLGetDiagRec(
-            SQL_HANDLE_STMT,
-            queryState->hStmt,
-            1,
-            sqlState,
-            &nativeErr,
-            msg,
-            sizeof(msg),
-            &textLen
-        );
-        // Prepara mensaje: "[SQLState] Mensaje"
-        char buf[1024];
-        snprintf(buf, sizeof(buf), "SQLFetch fallo [%s]: %.*s",
-                 sqlState, textLen, msg);
-
-        // Lanza SQLException con el mensaje ODBC
-        jclass exClass = (*env)->FindClass(env, "java/sql/SQLException");
-        (*env)->ThrowNew(env, exClass, buf);
-        return NULL;
+}
+
+// Aplica el límite de filas de la conexión si cambió desde la última ejecución
+static void apply_max_rows(StatementState *statement) {
+    SQLULEN maxRows = statement->connectionState->maxRows;
+    if (maxRows != statement->appliedMaxRows) {
+        SQLSetStmtAttr(statement->hStmt, SQL_ATTR_MAX_ROWS, (SQLPOINTER)maxRows, 0);
+        statement->appliedMaxRows = maxRows;
     }
+}
 
-    // 3) Crea el array Java de Objects
-    jclass objClass = (*env)->FindClass(env, "java/lang/Object");
-    jobjectArray rowArray = (*env)->NewObjectArray(env, columnCount, objClass, NULL);
-    if (rowArray == NULL) return NULL;
+// SQLExecute si está preparada, SQLExecDirect si no; cancelable desde otro hilo
+static SQLRETURN run_statement(StatementState *statement) {
+    SQLRETURN ret;
+    apply_query_timeout(statement);
+    apply_max_rows(statement);
+    set_active_statement(statement->connectionState, statement);
+    if (statement->kind == STMT_TRANSIENT) {
+        ret = submit_sql(statement->connectionState, statement->hStmt, statement->sql, 0);
+    } else {
+        ret = SQLExecute(statement->hStmt);
+    }
+    set_active_statement(statement->connectionState, NULL);
+    return ret;
+}
 
-    // 4) Recolecta cada columna 
-    for (int i = 1; i <= columnCount; i++) {
-        SQLDescribeCol(queryState->hStmt, i, NULL, 0, NULL, &dataType, NULL, NULL, NULL);
-        jobject value = NULL;
-
-        switch (dataType) {
-
-            // Integer Types
-            case SQL_INTEGER:
-            case SQL_SMALLINT:
-            case SQL_TINYINT: {
-                SQLINTEGER intValue;
-                ret = SQLGetData(queryState->hStmt, i, SQL_C_SLONG, &intValue, sizeof(intValue), &indicator);
-                if (ret == SQL_SUCCESS && indicator != SQL_NULL_DATA) {
-                    value = (*env)->NewObject(env, (*env)->FindClass(env, "java/lang/Integer"), (*env)->GetMethodID(env, (*env)->FindClass(env, "java/lang/Integer"), "<init>", "(I)V"), intValue);
-                }
-                break;
-            }
+// Enlaza los parámetros y ejecuta la sentencia
+static SQLRETURN execute_statement(JNIEnv *env, StatementState *statement, jobjectArray paramsArr) {
+    SQLRETURN ret = bind_parameters(env, statement, paramsArr);
+    if (!SQL_SUCCEEDED(ret)) return ret;
+    return run_statement(statement);
+}
 
-            case SQL_BIGINT: {
-                SQLBIGINT bigIntValue;
-                ret = SQLGetData(queryState->hStmt, i, SQL_C_SBIGINT, &bigIntValue, sizeof(bigIntValue), &indicator);
-                if (ret == SQL_SUCCESS && indicator != SQL_NULL_DATA) {
-                    value = (*env)->NewObject(env, (*env)->FindClass(env, "java/lang/Long"), (*env)->GetMethodID(env, (*env)->FindClass(env, "java/lang/Long"), "<init>", "(J)V"), bigIntValue);
-                }
-                break;
-            }
+// Crea el QueryState de una consulta ya ejecutada con resultado 'ret' (0 si falló)
+static jlong open_query(JNIEnv *env, StatementState *statement, SQLRETURN ret) {
+    if (!SQL_SUCCEEDED(ret) && ret != SQL_NO_DATA) {
+        // Si el enlace de parámetros ya lanzó la excepción no se consulta el diagnóstico
+        if (!(*env)->ExceptionCheck(env)) {
+            check_error(env, ret, SQL_HANDLE_STMT, statement->hStmt, "Failed to execute SQL query");
+        }
+        release_statement(statement);
+        return 0;
+    }
 
-            // Floating Point Types
-            case SQL_REAL:
-            case SQL_FLOAT: {
-                SQLREAL floatValue;
-                ret = SQLGetData(queryState->hStmt, i, SQL_C_FLOAT, &floatValue, sizeof(floatValue), &indicator);
-                if (ret == SQL_SUCCESS && indicator != SQL_NULL_DATA) {
-                    value = (*env)->NewObject(env, (*env)->FindClass(env, "java/lang/Float"), (*env)->GetMethodID(env, (*env)->FindClass(env, "java/lang/Float"), "<init>", "(F)V"), floatValue);
-                }
-                break;
-            }
+    // Prepara el estado de la query para devolverlo a Java
+    QueryState *queryState = (QueryState *)calloc(1, sizeof(QueryState));
+    if (queryState == NULL) {
+        release_statement(statement);
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory opening result");
+        return 0;
+    }
+    queryState->hStmt = statement->hStmt;
+    queryState->statement = statement;
+    queryState->blockMode = -1;
+
+    // Las columnas se describen una sola vez por ejecución
+    if (SQL_SUCCEEDED(ret)) {
+        describe_columns(env, queryState);
+        if ((*env)->ExceptionCheck(env)) {
+            // Java no recibe el puntero: la sentencia y el estado se liberan aquí
+            release_statement(statement);
+            free(queryState->columns);
+            free(queryState);
+            return 0;
+        }
+        // La lectura del resultado sigue siendo cancelable con cancelConnection
+        // hasta que se libera (release_statement deja de registrarla)
+        if (queryState->columnCount > 0) {
+            set_active_statement(statement->connectionState, statement);
+        }
+    }
 
-            case SQL_DOUBLE: {
-                SQLDOUBLE doubleValue;
-                ret = SQLGetData(queryState->hStmt, i, SQL_C_DOUBLE, &doubleValue, sizeof(doubleValue), &indicator);
-                if (ret == SQL_SUCCESS && indicator != SQL_NULL_DATA) {
-                    value = (*env)->NewObject(env, (*env)->FindClass(env, "java/lang/Double"), (*env)->GetMethodID(env, (*env)->FindClass(env, "java/lang/Double"), "<init>", "(D)V"), doubleValue);
-                }
-                break;
-            }
+    return (jlong)(intptr_t)queryState;
+}
 
-            // Decimal and Numeric Types
-            case SQL_NUMERIC:
-            case SQL_DECIMAL: {
-                SQLCHAR buffer[256];
-                ret = SQLGetData(queryState->hStmt, i, SQL_C_CHAR, buffer, sizeof(buffer), &indicator);
-                if (ret == SQL_SUCCESS && indicator != SQL_NULL_DATA) {
-                    jclass bigDecimalClass = (*env)->FindClass(env, "java/math/BigDecimal");
-                    jmethodID constructor = (*env)->GetMethodID(env, bigDecimalClass, "<init>", "(Ljava/lang/String;)V");
-                    jstring valueStr = (*env)->NewStringUTF(env, (char *)buffer);
-                    value = (*env)->NewObject(env, bigDecimalClass, constructor, valueStr);
-                }
-                break;
-            }
+// Ejecuta una consulta sobre 'statement' y devuelve su QueryState (0 si falla)
+static jlong start_query(JNIEnv *env, StatementState *statement, jobjectArray paramsArr) {
+    return open_query(env, statement, execute_statement(env, statement, paramsArr));
+}
 
-            // Binary Data Types
-            case SQL_BINARY:
-            case SQL_VARBINARY:
-            case SQL_LONGVARBINARY: {
-                SQLLEN length = 0;
-                SQLGetData(queryState->hStmt, i, SQL_C_BINARY, NULL, 0, &length);
-
-                if (length > 0) {
-                    jbyteArray byteArray = (*env)->NewByteArray(env, length);
-                    if (byteArray != NULL) {
-                        char *buffer = (char *)malloc(length);
-                        SQLGetData(queryState->hStmt, i, SQL_C_BINARY, buffer, length, &indicator);
-                        (*env)->SetByteArrayRegion(env, byteArray, 0, length, (jbyte *)buffer);
-                        free(buffer);
-                        value = byteArray;
-                    }
-                }
-                break;
-            }
+// Termina una sentencia DML/DDL ya ejecutada con resultado 'ret' y la devuelve;
+// retorna las filas afectadas
+static jint finish_update(JNIEnv *env, StatementState *statement, SQLRETURN ret) {
+    SQLLEN rowCount = 0;
+    if (SQL_SUCCEEDED(ret)) {
+        SQLRowCount(statement->hStmt, &rowCount);
+    } else if (ret != SQL_NO_DATA && !(*env)->ExceptionCheck(env)) {
+        // SQL_NO_DATA: UPDATE/DELETE que no afectó a ninguna fila
+        check_error(env, ret, SQL_HANDLE_STMT, statement->hStmt, "Failed to execute SQL statement");
+    }
+    release_statement(statement);
+    return (jint)rowCount;
+}
 
-            // String Types
-            case SQL_CHAR:
-            case SQL_VARCHAR:
-            case SQL_LONGVARCHAR:
-            case SQL_WCHAR:
-            case SQL_WVARCHAR:
-            case SQL_WLONGVARCHAR: {
-                SQLCHAR buffer[256];
-                ret = SQLGetData(queryState->hStmt, i, SQL_C_CHAR, buffer, sizeof(buffer), &indicator);
-                if (ret == SQL_SUCCESS && indicator != SQL_NULL_DATA) {
-                    value = (*env)->NewStringUTF(env, (char *)buffer);
-                }
-                break;
-            }
+// Ejecuta una sentencia DML/DDL sobre 'statement' y la devuelve; retorna las filas afectadas
+static jint execute_update(JNIEnv *env, StatementState *statement, jobjectArray paramsArr) {
+    return finish_update(env, statement, execute_statement(env, statement, paramsArr));
+}
 
-            // Date/Time Types
-            case SQL_DATE:
-            case SQL_TYPE_DATE: {
-                DATE_STRUCT dateStruct;
-                ret = SQLGetData(queryState->hStmt, i, SQL_C_TYPE_DATE, &dateStruct, sizeof(dateStruct), &indicator);
+// Función para inicializar una consulta SQL (reutiliza la caché de sentencias)
+JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_query
+  (JNIEnv *env, jobject obj,
+   jlong connectionPtr,
+   jstring jsql,
+   jobjectArray paramsArr)
+{
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    const char *sql = (*env)->GetStringUTFChars(env, jsql, 0);
+    StatementState *statement = acquire_statement(env, connectionState, sql);
+    (*env)->ReleaseStringUTFChars(env, jsql, sql);
 
-                if (ret == SQL_SUCCESS && indicator != SQL_NULL_DATA) {
-                    jclass dateClass = (*env)->FindClass(env, "java/sql/Date");
-                    jmethodID dateConstructor = (*env)->GetMethodID(env, dateClass, "<init>", "(J)V");
+    if (statement == NULL) return 0;
+    return start_query(env, statement, paramsArr);
+}
 
-                    // Crear el `java.sql.Date` utilizando `java.util.Calendar`
-                    struct tm tmDate = { 0 };
-                    tmDate.tm_year = dateStruct.year - 1900;
-                    tmDate.tm_mon = dateStruct.month - 1;
-                    tmDate.tm_mday = dateStruct.day;
 
-                    time_t timeInSeconds = mktime(&tmDate);
-                    jlong timeInMillis = (jlong)timeInSeconds * 1000;
+// Convierte un valor leído de ODBC (buffer enlazado o SQLGetData) en un objeto Java
+static jobject to_java_value(JNIEnv *env, SQLSMALLINT dataType, const void *data, SQLLEN length) {
+    switch (dataType) {
 
-                    value = (*env)->NewObject(env, dateClass, dateConstructor, timeInMillis);
-                }
-                break;
-            }
+        // Integer Types
+        case SQL_INTEGER:
+        case SQL_SMALLINT:
+        case SQL_TINYINT:
+            return (*env)->CallStaticObjectMethod(env, jcache.integerClass, jcache.integerValueOf, (jint)*(const SQLINTEGER *)data);
 
-            case SQL_TIME:
-            case SQL_TYPE_TIME: {
-                TIME_STRUCT timeStruct;
-                ret = SQLGetData(queryState->hStmt, i, SQL_C_TYPE_TIME, &timeStruct, sizeof(timeStruct), &indicator);
-                if (ret == SQL_SUCCESS && indicator != SQL_NULL_DATA) {
-                    jclass timeClass = (*env)->FindClass(env, "java/sql/Time");
-                    jmethodID timeConstructor = (*env)->GetMethodID(env, timeClass, "<init>", "(J)V");
+        case SQL_BIT:
+            return (*env)->CallStaticObjectMethod(env, jcache.booleanClass, jcache.booleanValueOf,
+                (jboolean)(*(const SQLCHAR *)data != 0));
 
-                    long timeInMillis = (timeStruct.hour * 3600 + timeStruct.minute * 60 + timeStruct.second) * 1000;
-                    value = (*env)->NewObject(env, timeClass, timeConstructor, timeInMillis);
-                }
-                break;
+        case SQL_BIGINT:
+            return (*env)->CallStaticObjectMethod(env, jcache.longClass, jcache.longValueOf, (jlong)*(const SQLBIGINT *)data);
+
+        // Floating Point Types
+        case SQL_REAL:
+        case SQL_FLOAT:
+            return (*env)->CallStaticObjectMethod(env, jcache.floatClass, jcache.floatValueOf, (jfloat)*(const SQLREAL *)data);
+
+        case SQL_DOUBLE:
+            return (*env)->CallStaticObjectMethod(env, jcache.doubleClass, jcache.doubleValueOf, (jdouble)*(const SQLDOUBLE *)data);
+
+        // Decimal and Numeric Types
+        case SQL_NUMERIC:
+        case SQL_DECIMAL: {
+            jstring valueStr = (*env)->NewStringUTF(env, (const char *)data);
+            jobject value = (*env)->NewObject(env, jcache.bigDecimalClass, jcache.bigDecimalInit, valueStr);
+            (*env)->DeleteLocalRef(env, valueStr);
+            return value;
+        }
+
+        // Binary Data Types
+        case SQL_BINARY:
+        case SQL_VARBINARY:
+        case SQL_LONGVARBINARY: {
+            if (length <= 0) return NULL;
+            jbyteArray byteArray = (*env)->NewByteArray(env, (jsize)length);
+            if (byteArray != NULL) {
+                (*env)->SetByteArrayRegion(env, byteArray, 0, (jsize)length, (const jbyte *)data);
             }
+            return byteArray;
+        }
 
-            case SQL_TIMESTAMP:
-            case SQL_TYPE_TIMESTAMP: {
-                TIMESTAMP_STRUCT timestampStruct;
-                ret = SQLGetData(queryState->hStmt, i, SQL_C_TYPE_TIMESTAMP, &timestampStruct, sizeof(timestampStruct), &indicator);
+        // String Types
+        case SQL_CHAR:
+        case SQL_VARCHAR:
+        case SQL_LONGVARCHAR:
+        case SQL_WCHAR:
+        case SQL_WVARCHAR:
+        case SQL_WLONGVARCHAR:
+            return (*env)->NewStringUTF(env, (const char *)data);
+
+        // Date/Time Types
+        case SQL_DATE:
+        case SQL_TYPE_DATE: {
+            // Sin mktime: dependía de la zona del runtime de C y fijaba tm_isdst = 0
+            const DATE_STRUCT *dateStruct = (const DATE_STRUCT *)data;
+            return (*env)->NewObject(env, jcache.dateClass, jcache.dateInit,
+                (jint)dateStruct->year - 1900, (jint)dateStruct->month - 1, (jint)dateStruct->day);
+        }
 
-                if (ret == SQL_SUCCESS && indicator != SQL_NULL_DATA) {
-                    jclass timestampClass = (*env)->FindClass(env, "java/sql/Timestamp");
-                    jmethodID timestampConstructor = (*env)->GetMethodID(env, timestampClass, "<init>", "(J)V");
+        case SQL_TIME:
+        case SQL_TYPE_TIME: {
+            const TIME_STRUCT *timeStruct = (const TIME_STRUCT *)data;
+            return (*env)->NewObject(env, jcache.timeClass, jcache.timeInit,
+                (jint)timeStruct->hour, (jint)timeStruct->minute, (jint)timeStruct->second);
+        }
 
-                    struct tm tmTimestamp = { 0 };
-                    tmTimestamp.tm_year = timestampStruct.year - 1900;
-                    tmTimestamp.tm_mon = timestampStruct.month - 1;
-                    tmTimestamp.tm_mday = timestampStruct.day;
-                    tmTimestamp.tm_hour = timestampStruct.hour;
-                    tmTimestamp.tm_min = timestampStruct.minute;
-                    tmTimestamp.tm_sec = timestampStruct.second;
+        case SQL_TIMESTAMP:
+        case SQL_TYPE_TIMESTAMP: {
+            // fraction está en nanosegundos y se conserva entera
+            const TIMESTAMP_STRUCT *timestampStruct = (const TIMESTAMP_STRUCT *)data;
+            return (*env)->NewObject(env, jcache.timestampClass, jcache.timestampInit,
+                (jint)timestampStruct->year - 1900, (jint)timestampStruct->month - 1, (jint)timestampStruct->day,
+                (jint)timestampStruct->hour, (jint)timestampStruct->minute, (jint)timestampStruct->second,
+                (jint)timestampStruct->fraction);
+        }
 
-                    time_t timeInSeconds = mktime(&tmTimestamp);
-                    jlong timeInMillis = ((jlong)timeInSeconds * 1000) + (timestampStruct.fraction / 1000000);
+        default:
+            // Resto de tipos (GUID, intervalos, tipos del driver): leídos como texto
+            return (*env)->NewStringUTF(env, (const char *)data);
+    }
+}
 
-                    value = (*env)->NewObject(env, timestampClass, timestampConstructor, timeInMillis);
-                }
-                break;
-            }
+// Convierte el valor de una columna según su tipo C: el texto UTF-16 se pasa
+// directamente a NewString, sin transcodificar
+static jobject column_value(JNIEnv *env, const ColumnBuffer *column, const void *data, SQLLEN length) {
+    if (column->cType == SQL_C_WCHAR) {
+        return (*env)->NewString(env, (const jchar *)data, (jsize)(length / sizeof(SQLWCHAR)));
+    }
+    return to_java_value(env, column->sqlType, data, length);
+}
 
-            default:
-                // Default case para capturar cualquier tipo no manejado explícitamente
-                char typeInfo[128];
-                snprintf(typeInfo, sizeof(typeInfo), "Tipo no manejado: %d", dataType);
+// Longitud de un valor enlazado, recortada al buffer si el driver lo truncó
+static SQLLEN bound_length(const ColumnBuffer *column, SQLLEN indicator) {
+    if (column->cType == SQL_C_BINARY && (indicator == SQL_NO_TOTAL || indicator > column->width)) {
+        return column->width;
+    }
+    if (column->cType == SQL_C_WCHAR && (indicator == SQL_NO_TOTAL || indicator > column->width - (SQLLEN)sizeof(SQLWCHAR))) {
+        return column->width - sizeof(SQLWCHAR);
+    }
+    return indicator;
+}
 
-                // Retornamos el tipo como un String
-                value = (*env)->NewStringUTF(env, typeInfo);
-                break;
+// Lanza SQLException con el diagnóstico de un SQLFetch fallido
+static void throw_fetch_error(JNIEnv *env, SQLHSTMT hStmt) {
+    SQLCHAR sqlState[6] = "", msg[SQL_MAX_MESSAGE_LENGTH] = "";
+    SQLINTEGER nativeErr = 0;
+    SQLSMALLINT textLen = 0;
+    SQLGetDiagRec(SQL_HANDLE_STMT, hStmt, 1, sqlState, &nativeErr, msg, sizeof(msg), &textLen);
+
+    // Prepara mensaje: "[SQLState] Mensaje"
+    char buf[1024];
+    snprintf(buf, sizeof(buf), "SQLFetch fallo [%s]: %.*s", sqlState, textLen, msg);
+
+    throw_sql_exception(env, sqlState, nativeErr, buf);
+}
+
+// Lee con SQLGetData un valor completo de texto o binario. El primer trozo va
+// a 'inlineBuffer'; si no cabe, el resto se lee en un buffer del tamaño exacto
+// que informa el driver (o duplicándolo si responde SQL_NO_TOTAL). Devuelve
+// NULL si el valor es NULL, o si falla la lectura con la SQLException pendiente;
+// el llamador libera el resultado si es distinto de 'inlineBuffer'. 'length' no
+// incluye el terminador del texto.
+static char *get_long_data(JNIEnv *env, SQLHSTMT hStmt, SQLUSMALLINT col, SQLSMALLINT cType,
+                           char *inlineBuffer, size_t inlineSize, SQLLEN *length) {
+    SQLLEN terminator = (cType == SQL_C_CHAR) ? 1 : (cType == SQL_C_WCHAR) ? (SQLLEN)sizeof(SQLWCHAR) : 0;
+    char *data = inlineBuffer;
+    size_t capacity = inlineSize;
+    size_t used = 0;
+
+    for (;;) {
+        SQLLEN room = (SQLLEN)(capacity - used);
+        SQLLEN indicator = 0;
+        SQLRETURN ret = SQLGetData(hStmt, col, cType, data + used, room, &indicator);
+        if (ret == SQL_NO_DATA) break;
+        if (!SQL_SUCCEEDED(ret) || indicator == SQL_NULL_DATA) {
+            if (data != inlineBuffer) free(data);
+            check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to read column data");
+            return NULL;
+        }
+
+        // Último trozo: cabe en el espacio que quedaba
+        if (indicator != SQL_NO_TOTAL && indicator <= room - terminator) {
+            used += (size_t)indicator;
+            break;
+        }
+
+        // Trozo truncado (01004): el buffer está lleno y faltan datos
+        used += (size_t)(room - terminator);
+        size_t needed = (indicator != SQL_NO_TOTAL)
+            ? used + (size_t)(indicator - (room - terminator)) + (size_t)terminator
+            : capacity * 2;
+        if (needed <= capacity) needed = capacity * 2;
+
+        char *grown = (data == inlineBuffer) ? (char *)malloc(needed) : (char *)realloc(data, needed);
+        if (grown == NULL) {
+            if (data != inlineBuffer) free(data);
+            (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory reading column data");
+            return NULL;
         }
+        if (data == inlineBuffer) memcpy(grown, inlineBuffer, used);
+        data = grown;
+        capacity = needed;
+    }
+
+    if (terminator) memset(data + used, 0, (size_t)terminator);
+    *length = (SQLLEN)used;
+    return data;
+}
+
+// Lee con SQLGetData el valor de una columna de la fila actual. Devuelve NULL
+// si es NULL o si falló la lectura (con la SQLException pendiente).
+static jobject get_column_value(JNIEnv *env, QueryState *queryState, SQLUSMALLINT col, const ColumnBuffer *column) {
+    SQLHSTMT hStmt = queryState->hStmt;
+    SQLLEN indicator = 0;
+    SQLRETURN ret;
+
+    // Texto y binarios se leen completos, sin truncar y con el tamaño justo
+    if (column->cType == SQL_C_CHAR || column->cType == SQL_C_WCHAR || column->cType == SQL_C_BINARY) {
+        SQLWCHAR inlineBuffer[128];  // SQLWCHAR para que el texto UTF-16 quede alineado
+        SQLLEN length = 0;
+        char *data = get_long_data(env, hStmt, col, column->cType, (char *)inlineBuffer, sizeof(inlineBuffer), &length);
+        if (data == NULL) return NULL;
+        jobject value = column_value(env, column, data, length);
+        if (data != (char *)inlineBuffer) free(data);
+        queryState->bytesFetched += length;
+        queryState->objectsCreated++;
+        return value;
+    }
 
-        (*env)->SetObjectArrayElement(env, rowArray, i - 1, value);
+    union {
+        SQLCHAR bitValue;
+        SQLINTEGER intValue;
+        SQLBIGINT bigIntValue;
+        SQLREAL floatValue;
+        SQLDOUBLE doubleValue;
+        DATE_STRUCT dateStruct;
+        TIME_STRUCT timeStruct;
+        TIMESTAMP_STRUCT timestampStruct;
+    } buffer;
+
+    ret = SQLGetData(hStmt, col, column->cType, &buffer, sizeof(buffer), &indicator);
+    if (ret == SQL_NO_DATA || indicator == SQL_NULL_DATA) {
+        return NULL;
+    }
+    if (!SQL_SUCCEEDED(ret)) {
+        check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to read column data");
+        return NULL;
     }
+    queryState->bytesFetched += indicator;
+    queryState->objectsCreated++;
+    return to_java_value(env, column->sqlType, &buffer, indicator);
+}
+
+// Construye un Object[] con los valores de la fila actual (lectura con SQLGetData).
+// Solo se leen las 'count' primeras columnas; el resto queda a null.
+static jobjectArray read_current_row(JNIEnv *env, QueryState *queryState, int count) {
+    jobjectArray rowArray = (*env)->NewObjectArray(env, queryState->columnCount, jcache.objectClass, NULL);
+    if (rowArray == NULL) return NULL;
 
+    for (int i = 0; i < count && i < queryState->columnCount; i++) {
+        jobject value = get_column_value(env, queryState, (SQLUSMALLINT)(i + 1), &queryState->columns[i]);
+        if (value == NULL && (*env)->ExceptionCheck(env)) {
+            (*env)->DeleteLocalRef(env, rowArray);
+            return NULL;
+        }
+        (*env)->SetObjectArrayElement(env, rowArray, i, value);
+        if (value != NULL) (*env)->DeleteLocalRef(env, value);
+    }
     return rowArray;
 }
 
-// Función para obtener los nombres de las columnas
-JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_fetchFields(
+// Función para obtener datos de una fila de resultados
+JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_fetchArray(
     JNIEnv *env, jobject obj, jlong queryPtr
 ) {
     QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    if (queryState->directBuffer != NULL) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Result set is bound for direct fetch");
+        return NULL;
+    }
 
-    SQLSMALLINT columnCount;
-    SQLRETURN ret = SQLNumResultCols(queryState->hStmt, &columnCount);
-    check_error(env, ret, SQL_HANDLE_STMT, queryState->hStmt, "Failed to get column count");
+    // 1) Fetch
+    SQLRETURN ret = SQLFetch(queryState->hStmt);
+    if (ret == SQL_NO_DATA) {
+        // no hay más filas: retorna NULL (fin de cursor)
+        return NULL;
+    }
+    if (!SQL_SUCCEEDED(ret)) {
+        throw_fetch_error(env, queryState->hStmt);
+        return NULL;
+    }
 
-    jclass clsODBCField = (*env)->FindClass(env, "odbcbridge/ODBCField");
-    jmethodID constructor = (*env)->GetMethodID(env, clsODBCField, "<init>", 
-                                                "(Ljava/lang/String;II)V");
+    // 2) Recolecta cada columna con los descriptores calculados en query
+    return read_current_row(env, queryState, queryState->columnCount);
+}
+
+// Avanza una fila leyendo solo las 'eagerColumns' primeras columnas; el resto
+// (LOBs y las columnas que los siguen) se leen después con getColumn o readChunk
+JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_fetchRow(
+    JNIEnv *env, jobject obj, jlong queryPtr, jint eagerColumns
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    if (queryState->directBuffer != NULL || queryState->blockMode == 1) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Result set is bound for block fetch");
+        return NULL;
+    }
+    // SQLGetData sobre la fila actual exige leer sin bloques
+    queryState->blockMode = 0;
 
-    jobjectArray fieldArray = (*env)->NewObjectArray(env, columnCount, clsODBCField, NULL);
+    SQLRETURN ret = SQLFetch(queryState->hStmt);
+    if (ret == SQL_NO_DATA) {
+        return NULL;
+    }
+    if (!SQL_SUCCEEDED(ret)) {
+        throw_fetch_error(env, queryState->hStmt);
+        return NULL;
+    }
+    return read_current_row(env, queryState, eagerColumns);
+}
 
-    for (int i = 1; i <= columnCount; i++) {
-        SQLCHAR colName[256];
-        SQLSMALLINT dataType;
-        SQLULEN colSize;
-        SQLSMALLINT nullable;
+// Lee completa una columna de la fila actual (después de fetchRow)
+JNIEXPORT jobject JNICALL Java_odbcbridge_ODBCBridge_getColumn(
+    JNIEnv *env, jobject obj, jlong queryPtr, jint column
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    if (column < 1 || column > queryState->columnCount) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Invalid column index");
+        return NULL;
+    }
+    return get_column_value(env, queryState, (SQLUSMALLINT)column, &queryState->columns[column - 1]);
+}
 
-        ret = SQLDescribeCol(queryState->hStmt, i, colName, sizeof(colName), NULL, &dataType, &colSize, NULL, &nullable);
-        check_error(env, ret, SQL_HANDLE_STMT, queryState->hStmt, "Failed to describe column");
+/*
+ * Lee el siguiente trozo de una columna de la fila actual con SQLGetData.
+ * Devuelve los bytes copiados en 'buffer', -1 si ya no quedan datos o -2 si
+ * el valor es NULL. El texto se lee como SQL_C_CHAR sin el terminador.
+ */
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_readChunk(
+    JNIEnv *env, jobject obj, jlong queryPtr, jint column, jbyteArray buffer, jboolean text
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    if (column < 1 || column > queryState->columnCount) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Invalid column index");
+        return -1;
+    }
 
-        jstring jColName = (*env)->NewStringUTF(env, (char *)colName);
-        jobject odbcField = (*env)->NewObject(env, clsODBCField, constructor, jColName, dataType, colSize);
+    jsize capacity = (*env)->GetArrayLength(env, buffer);
+    SQLLEN terminator = text ? 1 : 0;
+    if (capacity < 1) return 0;
 
-        (*env)->SetObjectArrayElement(env, fieldArray, i - 1, odbcField);
+    // Buffer nativo reutilizado entre trozos (un byte más para el terminador)
+    if (queryState->chunkCapacity < capacity + terminator) {
+        char *chunk = (char *)realloc(queryState->chunkBuffer, capacity + 1);
+        if (chunk == NULL) {
+            (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory reading LOB chunk");
+            return -1;
+        }
+        queryState->chunkBuffer = chunk;
+        queryState->chunkCapacity = capacity + 1;
     }
 
-    return fieldArray;
+    SQLLEN room = capacity + terminator;
+    SQLLEN indicator = 0;
+    SQLRETURN ret = SQLGetData(queryState->hStmt, (SQLUSMALLINT)column, text ? SQL_C_CHAR : SQL_C_BINARY,
+                               queryState->chunkBuffer, room, &indicator);
+    if (ret == SQL_NO_DATA) return -1;
+    if (!SQL_SUCCEEDED(ret)) {
+        check_error(env, ret, SQL_HANDLE_STMT, queryState->hStmt, "Failed to read LOB chunk");
+        return -1;
+    }
+    if (indicator == SQL_NULL_DATA) return -2;
+
+    // Trozo completo si el driver truncó (01004) o no conoce el total
+    jsize count = (indicator == SQL_NO_TOTAL || indicator > room - terminator)
+        ? capacity : (jsize)indicator;
+    (*env)->SetByteArrayRegion(env, buffer, 0, count, (const jbyte *)queryState->chunkBuffer);
+    queryState->bytesFetched += count;
+    return count;
 }
 
-// Función para cerrar la consulta y liberar recursos
-JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_free(
-    JNIEnv *env, jobject obj, jlong queryPtr
+/*
+ * Lee el siguiente trozo de texto de una columna de la fila actual como
+ * SQL_C_WCHAR, copiando las unidades UTF-16 directamente al char[] de Java.
+ * Devuelve los caracteres copiados, -1 si ya no quedan o -2 si el valor es NULL.
+ */
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_readChars(
+    JNIEnv *env, jobject obj, jlong queryPtr, jint column, jcharArray buffer
 ) {
     QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    if (column < 1 || column > queryState->columnCount) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Invalid column index");
+        return -1;
+    }
 
-    if (queryState != NULL) {
-        if (queryState->hStmt != SQL_NULL_HSTMT) {
-            SQLFreeHandle(SQL_HANDLE_STMT, queryState->hStmt);
+    jsize capacity = (*env)->GetArrayLength(env, buffer);
+    if (capacity < 1) return 0;
+    SQLLEN room = ((SQLLEN)capacity + 1) * sizeof(SQLWCHAR);
+    if (queryState->chunkCapacity < room) {
+        char *chunk = (char *)realloc(queryState->chunkBuffer, room);
+        if (chunk == NULL) {
+            (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory reading LOB chunk");
+            return -1;
         }
-        free(queryState);
+        queryState->chunkBuffer = chunk;
+        queryState->chunkCapacity = room;
+    }
+
+    SQLLEN indicator = 0;
+    SQLRETURN ret = SQLGetData(queryState->hStmt, (SQLUSMALLINT)column, SQL_C_WCHAR,
+                               queryState->chunkBuffer, room, &indicator);
+    if (ret == SQL_NO_DATA) return -1;
+    if (!SQL_SUCCEEDED(ret)) {
+        check_error(env, ret, SQL_HANDLE_STMT, queryState->hStmt, "Failed to read LOB chunk");
+        return -1;
+    }
+    if (indicator == SQL_NULL_DATA) return -2;
+
+    jsize count = (indicator == SQL_NO_TOTAL || indicator > room - (SQLLEN)sizeof(SQLWCHAR))
+        ? capacity : (jsize)(indicator / sizeof(SQLWCHAR));
+    (*env)->SetCharArrayRegion(env, buffer, 0, count, (const jchar *)queryState->chunkBuffer);
+    queryState->bytesFetched += (jlong)count * sizeof(SQLWCHAR);
+    return count;
+}
+
+// Libera los buffers enlazados de una consulta (los descriptores se conservan)
+static void free_column_buffers(QueryState *queryState) {
+    if (queryState->columns == NULL) return;
+    for (int i = 0; i < queryState->columnCount; i++) {
+        free(queryState->columns[i].data);
+        free(queryState->columns[i].indicators);
+        queryState->columns[i].data = NULL;
+        queryState->columns[i].indicators = NULL;
     }
 }
 
-JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_execute
-  (JNIEnv *env, jobject self, jlong connPtr, jstring sqlJ, jobjectArray paramsArr)
-{
-    SQLHDBC  hdbc    = (SQLHDBC) connPtr;
-    SQLHSTMT hstmt;
+// Enlaza las columnas con SQLBindCol para leer 'rows' filas por SQLFetch.
+// Devuelve 1 si se activó la lectura por bloques, 0 si hay que leer fila a fila.
+static int bind_block(JNIEnv *env, QueryState *queryState, SQLULEN rows) {
+    SQLHSTMT hStmt = queryState->hStmt;
+    SQLSMALLINT columnCount = queryState->columnCount;
     SQLRETURN ret;
-    SQLLEN   rowCount = 0;
-    const char *sql = (*env)->GetStringUTFChars(env, sqlJ, NULL);
 
-    // 1) Allocar handle de statement
-    ret = SQLAllocHandle(SQL_HANDLE_STMT, hdbc, &hstmt);
-    if (!SQL_SUCCEEDED(ret)) goto cleanup;
-
-    // 2) (Opcional) Bind de parámetros si los hay
-    if (paramsArr != NULL) {
-        jsize n = (*env)->GetArrayLength(env, paramsArr);
-        for (SQLUSMALLINT i = 0; i < (SQLUSMALLINT)n; i++) {
-            jobject obj = (*env)->GetObjectArrayElement(env, paramsArr, i);
-            // Aquí puedes expandir para tipos específicos (String, Integer, etc.)
-            const char *s = (*env)->GetStringUTFChars(env, (jstring)obj, NULL);
-            SQLBindParameter(
-                hstmt, 
-                (SQLUSMALLINT)(i+1),
-                SQL_PARAM_INPUT, 
-                SQL_C_CHAR, 
-                SQL_VARCHAR, 
-                0, 0, 
-                (SQLPOINTER)s, 
-                0, 
-                NULL
-            );
-            (*env)->ReleaseStringUTFChars(env, (jstring)obj, s);
-        }
-    }
-
-    // 3) Ejecutar la sentencia
-    ret = SQLExecDirect(hstmt, (SQLCHAR*)sql, SQL_NTS);
-    if (!SQL_SUCCEEDED(ret)) goto free_stmt;
-
-    // 4) Obtener número de filas afectadas
-    SQLRowCount(hstmt, &rowCount);
-
-free_stmt:
-    SQLFreeHandle(SQL_HANDLE_STMT, hstmt);
-cleanup:
-    (*env)->ReleaseStringUTFChars(env, sqlJ, sql);
+    // 1) Si alguna columna no se puede enlazar se lee fila a fila
+    if (columnCount <= 0) return 0;
+    for (int i = 0; i < columnCount; i++) {
+        if (queryState->columns[i].width == 0) return 0;
+    }
+
+    // 2) Tamaño del bloque; el driver puede ajustarlo (01S02)
+    SQLSetStmtAttr(hStmt, SQL_ATTR_ROW_BIND_TYPE, (SQLPOINTER)SQL_BIND_BY_COLUMN, 0);
+    ret = SQLSetStmtAttr(hStmt, SQL_ATTR_ROW_ARRAY_SIZE, (SQLPOINTER)rows, 0);
+    if (!SQL_SUCCEEDED(ret)) return 0;
+    SQLGetStmtAttr(hStmt, SQL_ATTR_ROW_ARRAY_SIZE, &rows, 0, NULL);
+    SQLSetStmtAttr(hStmt, SQL_ATTR_ROWS_FETCHED_PTR, &queryState->rowsFetched, 0);
+    queryState->rowArraySize = rows;
+
+    // 3) Reservar y enlazar los buffers por columna
+    for (int i = 0; i < columnCount; i++) {
+        ColumnBuffer *column = &queryState->columns[i];
+        column->data = (char *)malloc(column->width * rows);
+        column->indicators = (SQLLEN *)malloc(sizeof(SQLLEN) * rows);
+        ret = SQLBindCol(hStmt, i + 1, column->cType, column->data, column->width, column->indicators);
+        if (!SQL_SUCCEEDED(ret)) {
+            // Volver a la lectura fila a fila
+            SQLFreeStmt(hStmt, SQL_UNBIND);
+            SQLSetStmtAttr(hStmt, SQL_ATTR_ROW_ARRAY_SIZE, (SQLPOINTER)1, 0);
+            SQLSetStmtAttr(hStmt, SQL_ATTR_ROWS_FETCHED_PTR, NULL, 0);
+            free_column_buffers(queryState);
+            return 0;
+        }
+    }
+    return 1;
+}
+
+// Recorta un bloque de filas al número de filas realmente leídas
+static jobjectArray shrink_block(JNIEnv *env, jobjectArray block, jclass rowClass, jsize count) {
+    jobjectArray result = (*env)->NewObjectArray(env, count, rowClass, NULL);
+    for (jsize i = 0; i < count; i++) {
+        jobject row = (*env)->GetObjectArrayElement(env, block, i);
+        (*env)->SetObjectArrayElement(env, result, i, row);
+        (*env)->DeleteLocalRef(env, row);
+    }
+    (*env)->DeleteLocalRef(env, block);
+    return result;
+}
+
+// Función para obtener un bloque de filas con un solo SQLFetch
+JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_fetchBlock(
+    JNIEnv *env, jobject obj, jlong queryPtr, jint maxRows
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    if (maxRows < 1) maxRows = 1;
+    if (queryState->directBuffer != NULL) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Result set is bound for direct fetch");
+        return NULL;
+    }
 
-    // Si algo falló antes de rowCount, devolvemos 0
-    return (jint)(SQL_SUCCEEDED(ret) ? rowCount : 0);
-}
\ No newline at end of file
+    // 1) En la primera llamada se enlazan las columnas
+    if (queryState->blockMode < 0) {
+        queryState->blockMode = bind_block(env, queryState, (SQLULEN)maxRows);
+        if ((*env)->ExceptionCheck(env)) return NULL;
+    }
+
+    jclass rowClass = jcache.objectArrayClass;
+
+    // 2) Sin buffers enlazados: se acumulan hasta maxRows filas leídas con SQLGetData
+    if (queryState->blockMode == 0) {
+        jobjectArray block = (*env)->NewObjectArray(env, maxRows, rowClass, NULL);
+        jsize count = 0;
+        while (count < maxRows) {
+            SQLRETURN ret = SQLFetch(queryState->hStmt);
+            if (ret == SQL_NO_DATA) break;
+            if (!SQL_SUCCEEDED(ret)) {
+                throw_fetch_error(env, queryState->hStmt);
+                return NULL;
+            }
+            jobjectArray row = read_current_row(env, queryState, queryState->columnCount);
+            if (row == NULL) return NULL;
+            (*env)->SetObjectArrayElement(env, block, count++, row);
+            (*env)->DeleteLocalRef(env, row);
+        }
+        if (count == 0) return NULL;
+        return count < maxRows ? shrink_block(env, block, rowClass, count) : block;
+    }
+
+    // 3) Un solo SQLFetch llena los buffers de todas las filas del bloque
+    SQLRETURN ret = SQLFetch(queryState->hStmt);
+    if (ret == SQL_NO_DATA) {
+        return NULL;
+    }
+    if (!SQL_SUCCEEDED(ret)) {
+        throw_fetch_error(env, queryState->hStmt);
+        return NULL;
+    }
+
+    jsize rowCount = (jsize)queryState->rowsFetched;
+    jobjectArray block = (*env)->NewObjectArray(env, rowCount, rowClass, NULL);
+    if (block == NULL) return NULL;
+
+    for (jsize r = 0; r < rowCount; r++) {
+        jobjectArray row = (*env)->NewObjectArray(env, queryState->columnCount, jcache.objectClass, NULL);
+        if (row == NULL) return NULL;
+
+        for (int i = 0; i < queryState->columnCount; i++) {
+            ColumnBuffer *column = &queryState->columns[i];
+            SQLLEN indicator = column->indicators[r];
+            if (indicator == SQL_NULL_DATA) continue;
+
+            SQLLEN length = bound_length(column, indicator);
+            jobject value = column_value(env, column, column->data + r * column->width, length);
+            queryState->bytesFetched += length;
+            queryState->objectsCreated++;
+            (*env)->SetObjectArrayElement(env, row, i, value);
+            if (value != NULL) (*env)->DeleteLocalRef(env, value);
+        }
+
+        (*env)->SetObjectArrayElement(env, block, r, row);
+        (*env)->DeleteLocalRef(env, row);
+    }
+    return block;
+}
+
+// Almacenamiento de cada columna en los bloques columnares (mismos valores que ODBCResultSet)
+#define COLUMN_INT    0   // long[]   (INTEGER, SMALLINT, TINYINT)
+#define COLUMN_LONG   1   // long[]   (BIGINT)
+#define COLUMN_FLOAT  2   // double[] (REAL, FLOAT)
+#define COLUMN_DOUBLE 3   // double[] (DOUBLE)
+#define COLUMN_OBJECT 4   // Object[] (resto de tipos)
+
+static int column_kind(const ColumnBuffer *column) {
+    switch (column->cType) {
+        case SQL_C_SLONG:   return COLUMN_INT;
+        case SQL_C_SBIGINT: return COLUMN_LONG;
+        case SQL_C_FLOAT:   return COLUMN_FLOAT;
+        case SQL_C_DOUBLE:  return COLUMN_DOUBLE;
+        default:            return COLUMN_OBJECT;
+    }
+}
+
+// Devuelve el almacenamiento (COLUMN_*) de cada columna del resultado
+JNIEXPORT jintArray JNICALL Java_odbcbridge_ODBCBridge_getColumnKinds(
+    JNIEnv *env, jobject obj, jlong queryPtr
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    jintArray result = (*env)->NewIntArray(env, queryState->columnCount);
+    if (result == NULL) return NULL;
+    for (int i = 0; i < queryState->columnCount; i++) {
+        jint kind = column_kind(&queryState->columns[i]);
+        (*env)->SetIntArrayRegion(env, result, i, 1, &kind);
+    }
+    return result;
+}
+
+// Comprueba el SQLGetData de una celda; si falló deja la SQLException pendiente
+static int read_cell_succeeded(JNIEnv *env, QueryState *queryState, SQLRETURN ret) {
+    if (SQL_SUCCEEDED(ret) || ret == SQL_NO_DATA) return 1;
+    check_error(env, ret, SQL_HANDLE_STMT, queryState->hStmt, "Failed to read column data");
+    return 0;
+}
+
+// Lee con SQLGetData la columna 'i' de la fila actual en la posición 'row' de su array.
+// Devuelve 0 si falló la lectura, con la SQLException pendiente.
+static int read_cell(JNIEnv *env, QueryState *queryState, int i, jsize row, jobject array, jbooleanArray nulls) {
+    ColumnBuffer *column = &queryState->columns[i];
+    SQLUSMALLINT col = (SQLUSMALLINT)(i + 1);
+    SQLLEN indicator = 0;
+    jboolean isNull;
+
+    switch (column_kind(column)) {
+        case COLUMN_INT:
+        case COLUMN_LONG: {
+            SQLBIGINT value = 0;
+            SQLRETURN ret = SQLGetData(queryState->hStmt, col, SQL_C_SBIGINT, &value, sizeof(value), &indicator);
+            if (!read_cell_succeeded(env, queryState, ret)) return 0;
+            isNull = ret == SQL_NO_DATA || indicator == SQL_NULL_DATA;
+            if (!isNull) queryState->bytesFetched += sizeof(value);
+            jlong out = isNull ? 0 : (jlong)value;
+            (*env)->SetLongArrayRegion(env, (jlongArray)array, row, 1, &out);
+            break;
+        }
+        case COLUMN_FLOAT:
+        case COLUMN_DOUBLE: {
+            SQLDOUBLE value = 0;
+            SQLRETURN ret = SQLGetData(queryState->hStmt, col, SQL_C_DOUBLE, &value, sizeof(value), &indicator);
+            if (!read_cell_succeeded(env, queryState, ret)) return 0;
+            isNull = ret == SQL_NO_DATA || indicator == SQL_NULL_DATA;
+            if (!isNull) queryState->bytesFetched += sizeof(value);
+            jdouble out = isNull ? 0 : (jdouble)value;
+            (*env)->SetDoubleArrayRegion(env, (jdoubleArray)array, row, 1, &out);
+            break;
+        }
+        default: {
+            jobject value = get_column_value(env, queryState, col, column);
+            if (value == NULL && (*env)->ExceptionCheck(env)) return 0;
+            isNull = value == NULL;
+            (*env)->SetObjectArrayElement(env, (jobjectArray)array, row, value);
+            if (value != NULL) (*env)->DeleteLocalRef(env, value);
+            break;
+        }
+    }
+    (*env)->SetBooleanArrayRegion(env, nulls, row, 1, &isNull);
+    return !(*env)->ExceptionCheck(env);
+}
+
+// Copia una columna enlazada del bloque actual a su array Java sin crear objetos
+// para los tipos primitivos
+static void copy_bound_column(JNIEnv *env, QueryState *queryState, int i, jsize rows,
+                              jobject array, jbooleanArray nulls, jboolean *nullFlags) {
+    ColumnBuffer *column = &queryState->columns[i];
+    int kind = column_kind(column);
+
+    for (jsize r = 0; r < rows; r++) {
+        nullFlags[r] = column->indicators[r] == SQL_NULL_DATA;
+        if (!nullFlags[r] && kind != COLUMN_OBJECT) queryState->bytesFetched += column->width;
+    }
+
+    if (kind == COLUMN_OBJECT) {
+        for (jsize r = 0; r < rows; r++) {
+            jobject value = NULL;
+            if (!nullFlags[r]) {
+                SQLLEN indicator = bound_length(column, column->indicators[r]);
+                value = column_value(env, column, column->data + r * column->width, indicator);
+                queryState->bytesFetched += indicator;
+                queryState->objectsCreated++;
+            }
+            // Siempre se escribe para no dejar valores del bloque anterior
+            (*env)->SetObjectArrayElement(env, (jobjectArray)array, r, value);
+            if (value != NULL) (*env)->DeleteLocalRef(env, value);
+        }
+    } else {
+        // Conversión directa del buffer enlazado al array primitivo
+        void *elements = (*env)->GetPrimitiveArrayCritical(env, (jarray)array, NULL);
+        if (elements == NULL) return;
+        for (jsize r = 0; r < rows; r++) {
+            const char *cell = column->data + r * column->width;
+            switch (kind) {
+                case COLUMN_INT:    ((jlong *)elements)[r] = nullFlags[r] ? 0 : (jlong)*(const SQLINTEGER *)cell; break;
+                case COLUMN_LONG:   ((jlong *)elements)[r] = nullFlags[r] ? 0 : (jlong)*(const SQLBIGINT *)cell; break;
+                case COLUMN_FLOAT:  ((jdouble *)elements)[r] = nullFlags[r] ? 0 : (jdouble)*(const SQLREAL *)cell; break;
+                case COLUMN_DOUBLE: ((jdouble *)elements)[r] = nullFlags[r] ? 0 : (jdouble)*(const SQLDOUBLE *)cell; break;
+            }
+        }
+        (*env)->ReleasePrimitiveArrayCritical(env, (jarray)array, elements, 0);
+    }
+    (*env)->SetBooleanArrayRegion(env, nulls, 0, rows, nullFlags);
+}
+
+/*
+ * Lee un bloque de hasta 'maxRows' filas en formato columnar: columns[i] es un
+ * long[], double[] u Object[] según getColumnKinds y nulls[i] un boolean[].
+ * Los arrays los crea Java una vez y se reutilizan en cada bloque.
+ * Devuelve el número de filas leídas (0 al acabar).
+ */
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_fetchColumns(
+    JNIEnv *env, jobject obj, jlong queryPtr, jint maxRows, jobjectArray columns, jobjectArray nulls
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    if (maxRows < 1) maxRows = 1;
+    if (queryState->directBuffer != NULL) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Result set is bound for direct fetch");
+        return 0;
+    }
+
+    // 1) En la primera llamada se enlazan las columnas
+    if (queryState->blockMode < 0) {
+        queryState->blockMode = bind_block(env, queryState, (SQLULEN)maxRows);
+        if ((*env)->ExceptionCheck(env)) return 0;
+    }
+
+    // 2) Sin buffers enlazados: fila a fila con SQLGetData
+    if (queryState->blockMode == 0) {
+        jsize count = 0;
+        while (count < maxRows) {
+            SQLRETURN ret = SQLFetch(queryState->hStmt);
+            if (ret == SQL_NO_DATA) break;
+            if (!SQL_SUCCEEDED(ret)) {
+                throw_fetch_error(env, queryState->hStmt);
+                return 0;
+            }
+            for (int i = 0; i < queryState->columnCount; i++) {
+                jobject array = (*env)->GetObjectArrayElement(env, columns, i);
+                jbooleanArray nullArray = (jbooleanArray)(*env)->GetObjectArrayElement(env, nulls, i);
+                int ok = read_cell(env, queryState, i, count, array, nullArray);
+                (*env)->DeleteLocalRef(env, array);
+                (*env)->DeleteLocalRef(env, nullArray);
+                if (!ok) return 0;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    // 3) Un solo SQLFetch llena los buffers de todas las filas del bloque
+    SQLRETURN ret = SQLFetch(queryState->hStmt);
+    if (ret == SQL_NO_DATA) return 0;
+    if (!SQL_SUCCEEDED(ret)) {
+        throw_fetch_error(env, queryState->hStmt);
+        return 0;
+    }
+
+    jsize rows = (jsize)queryState->rowsFetched;
+    jboolean *nullFlags = (jboolean *)malloc(sizeof(jboolean) * (rows > 0 ? rows : 1));
+    if (nullFlags == NULL) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory reading result block");
+        return 0;
+    }
+    for (int i = 0; i < queryState->columnCount && !(*env)->ExceptionCheck(env); i++) {
+        jobject array = (*env)->GetObjectArrayElement(env, columns, i);
+        jbooleanArray nullArray = (jbooleanArray)(*env)->GetObjectArrayElement(env, nulls, i);
+        copy_bound_column(env, queryState, i, rows, array, nullArray, nullFlags);
+        (*env)->DeleteLocalRef(env, array);
+        (*env)->DeleteLocalRef(env, nullArray);
+    }
+    free(nullFlags);
+    return (*env)->ExceptionCheck(env) ? 0 : rows;
+}
+
+// Tipos de columna del modo directo (los mismos valores que ODBCDirectCursor)
+#define DIRECT_LONG   0
+#define DIRECT_DOUBLE 1
+#define DIRECT_TEXT   2
+
+// Redondea un desplazamiento a 8 bytes para que los valores queden alineados
+#define ALIGN8(n) (((n) + 7) & ~(SQLLEN)7)
+
+// Tipo directo de una columna: enteros (y decimales sin escala) como SQLBIGINT,
+// reales y decimales como SQLDOUBLE y el resto como texto
+static int direct_kind(const ColumnBuffer *column) {
+    switch (column->sqlType) {
+        case SQL_BIT:
+        case SQL_TINYINT:
+        case SQL_SMALLINT:
+        case SQL_INTEGER:
+        case SQL_BIGINT:
+            return DIRECT_LONG;
+        case SQL_NUMERIC:
+        case SQL_DECIMAL:
+            return (column->scale == 0 && column->size > 0 && column->size <= 18) ? DIRECT_LONG : DIRECT_DOUBLE;
+        case SQL_REAL:
+        case SQL_FLOAT:
+        case SQL_DOUBLE:
+            return DIRECT_DOUBLE;
+        default:
+            return DIRECT_TEXT;
+    }
+}
+
+/*
+ * Enlaza las columnas por filas (SQL_ATTR_ROW_BIND_TYPE) en un único buffer nativo
+ * de 'maxRows' filas y lo devuelve como DirectByteBuffer, sin copias a objetos Java.
+ *
+ * 'layout' recibe: [tamaño de fila, bytes del indicador, filas del bloque] y, por
+ * columna, [tipo directo, desplazamiento del valor, desplazamiento del indicador, ancho].
+ */
+JNIEXPORT jobject JNICALL Java_odbcbridge_ODBCBridge_bindDirect(
+    JNIEnv *env, jobject obj, jlong queryPtr, jint maxRows, jintArray layout
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    SQLHSTMT hStmt = queryState->hStmt;
+    SQLSMALLINT columnCount = queryState->columnCount;
+    SQLULEN rows = maxRows > 0 ? (SQLULEN)maxRows : 1;
+
+    if (queryState->blockMode >= 0 || queryState->directBuffer != NULL) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Result set has already been read");
+        return NULL;
+    }
+    if ((*env)->GetArrayLength(env, layout) < 3 + 4 * columnCount) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Layout array is too small");
+        return NULL;
+    }
+
+    // 1) Desplazamientos de cada columna dentro de la fila
+    jint *values = (jint *)calloc(3 + 4 * (columnCount > 0 ? columnCount : 1), sizeof(jint));
+    SQLSMALLINT *cTypes = (SQLSMALLINT *)calloc(columnCount > 0 ? columnCount : 1, sizeof(SQLSMALLINT));
+    if (values == NULL || cTypes == NULL) {
+        free(values);
+        free(cTypes);
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory allocating direct buffer");
+        return NULL;
+    }
+    SQLLEN rowSize = 0;
+    for (int i = 0; i < columnCount; i++) {
+        const ColumnBuffer *column = &queryState->columns[i];
+        int kind = direct_kind(column);
+        SQLLEN width;
+        if (kind == DIRECT_LONG) {
+            cTypes[i] = SQL_C_SBIGINT;
+            width = sizeof(SQLBIGINT);
+        } else if (kind == DIRECT_DOUBLE) {
+            cTypes[i] = SQL_C_DOUBLE;
+            width = sizeof(SQLDOUBLE);
+        } else {
+            cTypes[i] = SQL_C_CHAR;
+            width = bound_width(SQL_C_CHAR, column->size);
+            if (width == 0) {
+                char message[320];
+                snprintf(message, sizeof(message), "Column %s is too wide for direct fetch", (const char *)column->name);
+                (*env)->ThrowNew(env, jcache.sqlExceptionClass, message);
+                free(values);
+                free(cTypes);
+                return NULL;
+            }
+        }
+        jint *entry = values + 3 + 4 * i;
+        entry[0] = kind;
+        entry[1] = (jint)rowSize;
+        entry[2] = (jint)ALIGN8(rowSize + width);
+        entry[3] = (jint)width;
+        rowSize = entry[2] + sizeof(SQLLEN);
+        rowSize = ALIGN8(rowSize);
+    }
+    if (rowSize == 0) rowSize = 8;
+    if ((SQLULEN)rowSize * rows > 0x7FFFFFFF) {
+        // La capacidad de un ByteBuffer es un int
+        rows = 0x7FFFFFFF / (SQLULEN)rowSize;
+    }
+
+    // 2) Tamaño del bloque; el driver puede ajustarlo (01S02)
+    SQLSetStmtAttr(hStmt, SQL_ATTR_ROW_BIND_TYPE, (SQLPOINTER)(uintptr_t)rowSize, 0);
+    SQLRETURN ret = SQLSetStmtAttr(hStmt, SQL_ATTR_ROW_ARRAY_SIZE, (SQLPOINTER)rows, 0);
+    check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to set row array size");
+    if (SQL_SUCCEEDED(ret)) {
+        SQLGetStmtAttr(hStmt, SQL_ATTR_ROW_ARRAY_SIZE, &rows, 0, NULL);
+        SQLSetStmtAttr(hStmt, SQL_ATTR_ROWS_FETCHED_PTR, &queryState->rowsFetched, 0);
+        queryState->directBuffer = (char *)calloc(rows, (size_t)rowSize);
+        if (queryState->directBuffer == NULL) {
+            (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory allocating direct buffer");
+            ret = SQL_ERROR;
+        }
+    }
+
+    // 3) SQLBindCol sobre la primera fila; el driver avanza 'rowSize' bytes por fila
+    for (int i = 0; SQL_SUCCEEDED(ret) && i < columnCount; i++) {
+        jint *entry = values + 3 + 4 * i;
+        ret = SQLBindCol(hStmt, (SQLUSMALLINT)(i + 1), cTypes[i],
+                         queryState->directBuffer + entry[1], entry[3],
+                         (SQLLEN *)(queryState->directBuffer + entry[2]));
+        check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to bind column");
+    }
+
+    jobject buffer = NULL;
+    if (SQL_SUCCEEDED(ret)) {
+        queryState->rowArraySize = rows;
+        queryState->blockMode = 1;
+        values[0] = (jint)rowSize;
+        values[1] = (jint)sizeof(SQLLEN);
+        values[2] = (jint)rows;
+        (*env)->SetIntArrayRegion(env, layout, 0, 3 + 4 * columnCount, values);
+        buffer = (*env)->NewDirectByteBuffer(env, queryState->directBuffer, (jlong)(rowSize * rows));
+    } else {
+        SQLFreeStmt(hStmt, SQL_UNBIND);
+        free(queryState->directBuffer);
+        queryState->directBuffer = NULL;
+    }
+    free(values);
+    free(cTypes);
+    return buffer;
+}
+
+// Lee el siguiente bloque sobre el buffer directo; devuelve las filas leídas (0 al acabar)
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_fetchDirect(
+    JNIEnv *env, jobject obj, jlong queryPtr
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    if (queryState->directBuffer == NULL) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Direct fetch is not bound");
+        return 0;
+    }
+
+    queryState->rowsFetched = 0;
+    SQLRETURN ret = SQLFetch(queryState->hStmt);
+    if (ret == SQL_NO_DATA) return 0;
+    if (!SQL_SUCCEEDED(ret)) {
+        throw_fetch_error(env, queryState->hStmt);
+        return 0;
+    }
+    return (jint)queryState->rowsFetched;
+}
+
+// Función para obtener los nombres de las columnas
+JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_fetchFields(
+    JNIEnv *env, jobject obj, jlong queryPtr
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+
+    jobjectArray fieldArray = (*env)->NewObjectArray(env, queryState->columnCount, jcache.fieldClass, NULL);
+
+    for (int i = 0; i < queryState->columnCount; i++) {
+        const ColumnBuffer *column = &queryState->columns[i];
+
+        jstring jColName = (*env)->NewStringUTF(env, (const char *)column->name);
+        jobject odbcField = (*env)->NewObject(env, jcache.fieldClass, jcache.fieldInit,
+                                              jColName, (jint)column->sqlType, (jint)column->size);
+
+        (*env)->SetObjectArrayElement(env, fieldArray, i, odbcField);
+        (*env)->DeleteLocalRef(env, odbcField);
+        (*env)->DeleteLocalRef(env, jColName);
+    }
+
+    return fieldArray;
+}
+
+// Función para cerrar la consulta y liberar recursos
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_free(
+    JNIEnv *env, jobject obj, jlong queryPtr
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+
+    if (queryState != NULL) {
+        // Las columnas se desenlazan antes de liberar sus buffers
+        if (queryState->statement != NULL) {
+            release_statement(queryState->statement);
+        }
+        free_column_buffers(queryState);
+        free(queryState->directBuffer);
+        free(queryState->chunkBuffer);
+        free(queryState->columns);
+        free(queryState);
+    }
+}
+
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_execute
+  (JNIEnv *env, jobject self, jlong connPtr, jstring sqlJ, jobjectArray paramsArr)
+{
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connPtr;
+    const char *sql = (*env)->GetStringUTFChars(env, sqlJ, NULL);
+    StatementState *statement = acquire_statement(env, connectionState, sql);
+    (*env)->ReleaseStringUTFChars(env, sqlJ, sql);
+
+    if (statement == NULL) return 0;
+    return execute_update(env, statement, paramsArr);
+}
+
+// Prepara una sentencia con SQLPrepare para ejecutarla varias veces (ODBCPreparedStatement)
+JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_prepare(
+    JNIEnv *env, jobject obj, jlong connectionPtr, jstring jsql
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    const char *sql = (*env)->GetStringUTFChars(env, jsql, NULL);
+    StatementState *statement = new_statement(env, connectionState, sql, STMT_PREPARED);
+    (*env)->ReleaseStringUTFChars(env, jsql, sql);
+    return (jlong)(intptr_t)statement;
+}
+
+// Marca una sentencia preparada como ocupada; falla si tiene un resultado abierto
+static int claim_statement(JNIEnv *env, StatementState *statement) {
+    if (statement->connectionState == NULL) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Connection is closed");
+        return 0;
+    }
+    if (statement->inUse) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Prepared statement has an open result set");
+        return 0;
+    }
+    statement->inUse = 1;
+    return 1;
+}
+
+JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_executeQuery(
+    JNIEnv *env, jobject obj, jlong statementPtr, jobjectArray paramsArr
+) {
+    StatementState *statement = (StatementState *)(intptr_t)statementPtr;
+    if (!claim_statement(env, statement)) return 0;
+    return start_query(env, statement, paramsArr);
+}
+
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_executeUpdate(
+    JNIEnv *env, jobject obj, jlong statementPtr, jobjectArray paramsArr
+) {
+    StatementState *statement = (StatementState *)(intptr_t)statementPtr;
+    if (!claim_statement(env, statement)) return 0;
+    return execute_update(env, statement, paramsArr);
+}
+
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_closeStatement(
+    JNIEnv *env, jobject obj, jlong statementPtr
+) {
+    StatementState *statement = (StatementState *)(intptr_t)statementPtr;
+    if (statement != NULL) {
+        clear_active_statement(statement);
+        free_statement(statement);
+    }
+}
+
+// Columna de parámetros de un lote, enlazada por columnas (un valor por fila)
+typedef struct {
+    ParamKind   kind;
+    SQLSMALLINT cType;
+    SQLSMALLINT sqlType;
+    SQLULEN     columnSize;
+    SQLSMALLINT digits;
+    SQLLEN      width;      // Bytes por fila
+    char       *data;       // width * filas
+    SQLLEN     *indicators; // Longitud o SQL_NULL_DATA por fila
+} BatchColumn;
+
+// Tipo común de una columna con valores de distinto tipo (p. ej. Integer y Long)
+static ParamKind merge_param_kind(ParamKind current, ParamKind next) {
+    if (current == PARAM_NULL || current == next) return next;
+    if (next == PARAM_NULL) return current;
+    int currentNumber = current == PARAM_INTEGER || current == PARAM_BIGINT || current == PARAM_DOUBLE;
+    int nextNumber = next == PARAM_INTEGER || next == PARAM_BIGINT || next == PARAM_DOUBLE;
+    if (currentNumber && nextNumber) {
+        return (current == PARAM_DOUBLE || next == PARAM_DOUBLE) ? PARAM_DOUBLE : PARAM_BIGINT;
+    }
+    return PARAM_TEXT;
+}
+
+static void free_batch_columns(BatchColumn *columns, jsize count) {
+    if (columns == NULL) return;
+    for (jsize c = 0; c < count; c++) {
+        free(columns[c].data);
+        free(columns[c].indicators);
+    }
+    free(columns);
+}
+
+// Primera pasada: tipo de cada columna y ancho de las de longitud variable
+static int describe_batch(JNIEnv *env, jobjectArray rows, jint count, BatchColumn *columns, jsize paramCount, int wide) {
+    for (jint r = 0; r < count; r++) {
+        jobjectArray row = (jobjectArray)(*env)->GetObjectArrayElement(env, rows, r);
+        if (row == NULL || (*env)->GetArrayLength(env, row) != paramCount) {
+            if (row != NULL) (*env)->DeleteLocalRef(env, row);
+            (*env)->ThrowNew(env, jcache.sqlExceptionClass, "All batch rows must have the same number of parameters");
+            return 0;
+        }
+        for (jsize c = 0; c < paramCount; c++) {
+            jobject param = (*env)->GetObjectArrayElement(env, row, c);
+            columns[c].kind = merge_param_kind(columns[c].kind, param_kind(env, param));
+            if (param != NULL) (*env)->DeleteLocalRef(env, param);
+        }
+        (*env)->DeleteLocalRef(env, row);
+    }
+
+    // Tipos SQL y ancho por fila; texto y binarios necesitan recorrer los valores
+    for (jsize c = 0; c < paramCount; c++) {
+        BatchColumn *column = &columns[c];
+        param_sql_types(column->kind, &column->cType, &column->sqlType, &column->columnSize);
+        switch (column->kind) {
+            case PARAM_INTEGER:   column->width = sizeof(SQLINTEGER); break;
+            case PARAM_BIGINT:    column->width = sizeof(SQLBIGINT); break;
+            case PARAM_DOUBLE:    column->width = sizeof(SQLDOUBLE); break;
+            case PARAM_BIT:       column->width = sizeof(SQLCHAR); break;
+            case PARAM_TIMESTAMP: column->width = sizeof(TIMESTAMP_STRUCT); break;
+            case PARAM_DATE:      column->width = sizeof(DATE_STRUCT); break;
+            case PARAM_TIME:      column->width = sizeof(TIME_STRUCT); break;
+            case PARAM_DECIMAL:
+                // Los decimales de un lote van como texto: SQL_C_NUMERIC exige
+                // la misma escala para toda la columna
+                column->cType = SQL_C_CHAR;
+                column->width = 1;
+                break;
+            case PARAM_TEXT:
+                if (wide) {
+                    column->cType = SQL_C_WCHAR;
+                    column->sqlType = SQL_WVARCHAR;
+                    column->width = sizeof(SQLWCHAR);
+                    break;
+                }
+                column->width = 1;
+                break;
+            default:              column->width = 1; break;
+        }
+    }
+    for (jint r = 0; r < count; r++) {
+        jobjectArray row = (jobjectArray)(*env)->GetObjectArrayElement(env, rows, r);
+        for (jsize c = 0; c < paramCount; c++) {
+            BatchColumn *column = &columns[c];
+            if (column->kind != PARAM_TEXT && column->kind != PARAM_DECIMAL
+                    && column->kind != PARAM_BINARY && column->kind != PARAM_TIMESTAMP) continue;
+            jobject param = (*env)->GetObjectArrayElement(env, row, c);
+            if (param == NULL) continue;
+            if (column->kind == PARAM_BINARY) {
+                SQLLEN length = (*env)->GetArrayLength(env, (jbyteArray)param);
+                if (length > column->width) column->width = length;
+            } else if (column->kind == PARAM_TIMESTAMP) {
+                TIMESTAMP_STRUCT timestamp;
+                read_timestamp_param(env, param, &timestamp);
+                SQLSMALLINT digits = fraction_digits(timestamp.fraction);
+                if (digits > column->digits) column->digits = digits;
+            } else {
+                if (column->kind == PARAM_DECIMAL) {
+                    jint scale = (*env)->CallIntMethod(env, param, jcache.bigDecimalScale);
+                    if (scale > column->digits) column->digits = (SQLSMALLINT)(scale > 38 ? 38 : scale);
+                }
+                jstring text = param_text(env, param);
+                if (text != NULL) {
+                    SQLLEN length = column->cType == SQL_C_WCHAR
+                        ? ((SQLLEN)(*env)->GetStringLength(env, text) + 1) * sizeof(SQLWCHAR)
+                        : string_utf8_length(env, text) + 1;
+                    if (length > column->width) column->width = length;
+                    (*env)->DeleteLocalRef(env, text);
+                }
+            }
+            (*env)->DeleteLocalRef(env, param);
+            if ((*env)->ExceptionCheck(env)) {
+                (*env)->DeleteLocalRef(env, row);
+                return 0;
+            }
+        }
+        (*env)->DeleteLocalRef(env, row);
+    }
+    return 1;
+}
+
+// Segunda pasada: copia los valores a los arrays de cada columna
+static int fill_batch(JNIEnv *env, jobjectArray rows, jint count, BatchColumn *columns, jsize paramCount) {
+    for (jsize c = 0; c < paramCount; c++) {
+        columns[c].data = (char *)malloc((size_t)columns[c].width * count);
+        columns[c].indicators = (SQLLEN *)malloc(sizeof(SQLLEN) * count);
+        if (columns[c].data == NULL || columns[c].indicators == NULL) {
+            (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory binding batch parameters");
+            return 0;
+        }
+    }
+    for (jint r = 0; r < count; r++) {
+        jobjectArray row = (jobjectArray)(*env)->GetObjectArrayElement(env, rows, r);
+        for (jsize c = 0; c < paramCount; c++) {
+            BatchColumn *column = &columns[c];
+            char *slot = column->data + (size_t)column->width * r;
+            SQLLEN *indicator = &column->indicators[r];
+            jobject param = (*env)->GetObjectArrayElement(env, row, c);
+
+            *indicator = 0;
+            if (param == NULL) {
+                *indicator = SQL_NULL_DATA;
+                continue;
+            }
+            switch (column->kind) {
+                case PARAM_INTEGER:
+                    *(SQLINTEGER *)slot = (SQLINTEGER)(*env)->CallIntMethod(env, param, jcache.numberIntValue);
+                    break;
+                case PARAM_BIGINT:
+                    *(SQLBIGINT *)slot = (SQLBIGINT)(*env)->CallLongMethod(env, param, jcache.numberLongValue);
+                    break;
+                case PARAM_DOUBLE:
+                    *(SQLDOUBLE *)slot = (SQLDOUBLE)(*env)->CallDoubleMethod(env, param, jcache.numberDoubleValue);
+                    break;
+                case PARAM_BIT:
+                    *(SQLCHAR *)slot = (*env)->CallBooleanMethod(env, param, jcache.booleanValue) ? 1 : 0;
+                    break;
+                case PARAM_BINARY: {
+                    jsize length = (*env)->GetArrayLength(env, (jbyteArray)param);
+                    (*env)->GetByteArrayRegion(env, (jbyteArray)param, 0, length, (jbyte *)slot);
+                    *indicator = length;
+                    break;
+                }
+                case PARAM_TIMESTAMP:
+                    read_timestamp_param(env, param, (TIMESTAMP_STRUCT *)slot);
+                    break;
+                case PARAM_DATE:
+                    read_date_param(env, param, (DATE_STRUCT *)slot);
+                    break;
+                case PARAM_TIME:
+                    read_time_param(env, param, (TIME_STRUCT *)slot);
+                    break;
+                default: {
+                    jstring text = param_text(env, param);
+                    if (text != NULL && column->cType == SQL_C_WCHAR) {
+                        jsize chars = (*env)->GetStringLength(env, text);
+                        (*env)->GetStringRegion(env, text, 0, chars, (jchar *)slot);
+                        ((SQLWCHAR *)slot)[chars] = 0;
+                        *indicator = chars * sizeof(SQLWCHAR);
+                        (*env)->DeleteLocalRef(env, text);
+                    } else if (text != NULL) {
+                        // describe_batch midió el ancho con la misma codificación
+                        SQLLEN bytes = string_utf8_length(env, text);
+                        if (bytes >= 0 && copy_utf8(env, text, slot, bytes)) *indicator = bytes;
+                        (*env)->DeleteLocalRef(env, text);
+                    }
+                    break;
+                }
+            }
+            (*env)->DeleteLocalRef(env, param);
+            if ((*env)->ExceptionCheck(env)) {
+                (*env)->DeleteLocalRef(env, row);
+                return 0;
+            }
+        }
+        (*env)->DeleteLocalRef(env, row);
+    }
+    return 1;
+}
+
+// Lanza BatchUpdateException con el diagnóstico de la sentencia y el estado de cada fila
+static void throw_batch_error(JNIEnv *env, SQLHSTMT hStmt, jintArray counts) {
+    SQLCHAR sqlState[6] = "", errMsg[256] = "Batch execution failed";
+    SQLINTEGER nativeError = 0;
+    SQLSMALLINT textLength;
+    SQLGetDiagRec(SQL_HANDLE_STMT, hStmt, 1, sqlState, &nativeError, errMsg, sizeof(errMsg), &textLength);
+
+    jstring reason = (*env)->NewStringUTF(env, (const char *)errMsg);
+    jstring state = (*env)->NewStringUTF(env, (const char *)sqlState);
+    jobject exception = (*env)->NewObject(env, jcache.batchUpdateExceptionClass,
+        jcache.batchUpdateExceptionInit, reason, state, (jint)nativeError, counts);
+    if (exception != NULL) {
+        (*env)->Throw(env, (jthrowable)exception);
+    }
+}
+
+// Ejecuta el lote fila a fila, para drivers sin arrays de parámetros
+static jintArray execute_batch_rows(JNIEnv *env, StatementState *statement, jobjectArray rows, jint count) {
+    jintArray result = (*env)->NewIntArray(env, count);
+    if (result == NULL) return NULL;
+    jint *counts = (*env)->GetIntArrayElements(env, result, NULL);
+
+    int failed = 0;
+    for (jint r = 0; r < count && !failed; r++) {
+        jobjectArray row = (jobjectArray)(*env)->GetObjectArrayElement(env, rows, r);
+        SQLLEN rowCount = 0;
+        SQLRETURN ret = execute_statement(env, statement, row);
+        (*env)->DeleteLocalRef(env, row);
+        if (SQL_SUCCEEDED(ret)) {
+            SQLRowCount(statement->hStmt, &rowCount);
+            counts[r] = (jint)rowCount;
+        } else if (ret == SQL_NO_DATA) {
+            counts[r] = 0;
+        } else {
+            // Las filas no procesadas quedan como EXECUTE_FAILED
+            for (jint i = r; i < count; i++) counts[i] = -3;
+            failed = 1;
+        }
+        SQLFreeStmt(statement->hStmt, SQL_CLOSE);
+    }
+    (*env)->ReleaseIntArrayElements(env, result, counts, 0);
+
+    if (failed && !(*env)->ExceptionCheck(env)) {
+        throw_batch_error(env, statement->hStmt, result);
+    }
+    return result;
+}
+
+// Ejecuta 'count' filas con un solo SQLExecute enlazando los parámetros por columnas
+// (SQL_ATTR_PARAMSET_SIZE). Devuelve el estado de cada fila al estilo JDBC: filas
+// afectadas, SUCCESS_NO_INFO (-2) o EXECUTE_FAILED (-3).
+static jintArray execute_batch(JNIEnv *env, StatementState *statement, jobjectArray rows, jint count) {
+    SQLHSTMT hStmt = statement->hStmt;
+    jobjectArray first = (jobjectArray)(*env)->GetObjectArrayElement(env, rows, 0);
+    jsize paramCount = first != NULL ? (*env)->GetArrayLength(env, first) : 0;
+    if (first != NULL) (*env)->DeleteLocalRef(env, first);
+
+    // Tamaño del lote aceptado por el driver; si no admite arrays se ejecuta fila a fila
+    SQLULEN paramsetSize = 0;
+    SQLSetStmtAttr(hStmt, SQL_ATTR_PARAM_BIND_TYPE, (SQLPOINTER)SQL_PARAM_BIND_BY_COLUMN, 0);
+    SQLRETURN ret = SQLSetStmtAttr(hStmt, SQL_ATTR_PARAMSET_SIZE, (SQLPOINTER)(uintptr_t)count, 0);
+    if (SQL_SUCCEEDED(ret)) {
+        SQLGetStmtAttr(hStmt, SQL_ATTR_PARAMSET_SIZE, &paramsetSize, 0, NULL);
+    }
+    if (count == 1 || paramsetSize != (SQLULEN)count) {
+        SQLSetStmtAttr(hStmt, SQL_ATTR_PARAMSET_SIZE, (SQLPOINTER)1, 0);
+        return execute_batch_rows(env, statement, rows, count);
+    }
+
+    BatchColumn *columns = (BatchColumn *)calloc(paramCount > 0 ? paramCount : 1, sizeof(BatchColumn));
+    SQLUSMALLINT *status = (SQLUSMALLINT *)malloc(sizeof(SQLUSMALLINT) * count);
+    SQLULEN processed = 0;
+    jintArray result = NULL;
+
+    if (columns == NULL || status == NULL) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory binding batch parameters");
+        goto cleanup;
+    }
+    if (!describe_batch(env, rows, count, columns, paramCount, statement->connectionState->wideChars)
+            || !fill_batch(env, rows, count, columns, paramCount)) {
+        goto cleanup;
+    }
+
+    for (jsize c = 0; c < paramCount; c++) {
+        BatchColumn *column = &columns[c];
+        SQLULEN columnSize = column->columnSize;
+        if (column->cType == SQL_C_WCHAR) {
+            columnSize = column->width > (SQLLEN)sizeof(SQLWCHAR) ? (SQLULEN)(column->width / sizeof(SQLWCHAR)) - 1 : 1;
+        } else if (column->kind == PARAM_TEXT || column->kind == PARAM_BINARY) {
+            columnSize = column->width > 1 ? (SQLULEN)column->width : 1;
+        } else if (column->kind == PARAM_TIMESTAMP && column->digits > 0) {
+            columnSize = 20 + column->digits;
+        }
+        ret = SQLBindParameter(hStmt, (SQLUSMALLINT)(c + 1), SQL_PARAM_INPUT, column->cType, column->sqlType,
+                               columnSize, column->digits, column->data, column->width, column->indicators);
+        check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to bind batch parameter");
+        if (!SQL_SUCCEEDED(ret)) goto cleanup;
+    }
+
+    SQLSetStmtAttr(hStmt, SQL_ATTR_PARAM_STATUS_PTR, status, 0);
+    SQLSetStmtAttr(hStmt, SQL_ATTR_PARAMS_PROCESSED_PTR, &processed, 0);
+    for (jint r = 0; r < count; r++) status[r] = SQL_PARAM_UNUSED;
+
+    ret = run_statement(statement);
+
+    if (!SQL_SUCCEEDED(ret) && ret != SQL_NO_DATA && processed == 0) {
+        // Falló la sentencia completa (sintaxis, conexión...)
+        check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to execute batch");
+        goto cleanup;
+    }
+
+    // SQLRowCount suma todas las filas del lote; si coincide con las correctas,
+    // cada una afectó exactamente a una fila (el caso habitual de un INSERT)
+    SQLLEN rowCount = -1;
+    if (SQL_SUCCEEDED(ret)) SQLRowCount(hStmt, &rowCount);
+    jint succeeded = 0;
+    int failed = !SQL_SUCCEEDED(ret) && ret != SQL_NO_DATA;
+    for (jint r = 0; r < count; r++) {
+        if (status[r] == SQL_PARAM_SUCCESS || status[r] == SQL_PARAM_SUCCESS_WITH_INFO) succeeded++;
+        else if (status[r] != SQL_PARAM_DIAG_UNAVAILABLE) failed = 1;
+    }
+
+    jint *counts = (jint *)malloc(sizeof(jint) * count);
+    if (counts == NULL) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory reading batch results");
+        goto cleanup;
+    }
+    for (jint r = 0; r < count; r++) {
+        switch (status[r]) {
+            case SQL_PARAM_SUCCESS:
+            case SQL_PARAM_SUCCESS_WITH_INFO:
+                counts[r] = rowCount == succeeded ? 1 : -2;
+                break;
+            case SQL_PARAM_DIAG_UNAVAILABLE:
+                counts[r] = failed ? -3 : -2;
+                break;
+            default:
+                counts[r] = -3;
+                break;
+        }
+    }
+    result = (*env)->NewIntArray(env, count);
+    if (result != NULL) {
+        (*env)->SetIntArrayRegion(env, result, 0, count, counts);
+        if (failed) throw_batch_error(env, hStmt, result);
+    }
+    free(counts);
+
+cleanup:
+    SQLSetStmtAttr(hStmt, SQL_ATTR_PARAM_STATUS_PTR, NULL, 0);
+    SQLSetStmtAttr(hStmt, SQL_ATTR_PARAMS_PROCESSED_PTR, NULL, 0);
+    SQLSetStmtAttr(hStmt, SQL_ATTR_PARAMSET_SIZE, (SQLPOINTER)1, 0);
+    SQLFreeStmt(hStmt, SQL_RESET_PARAMS);
+    free_batch_columns(columns, paramCount);
+    free(status);
+    return result;
+}
+
+// Ejecuta un lote de filas sobre la sentencia cacheada de 'sql'
+JNIEXPORT jintArray JNICALL Java_odbcbridge_ODBCBridge_executeBatch(
+    JNIEnv *env, jobject obj, jlong connectionPtr, jstring jsql, jobjectArray rows, jint count
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    if (count <= 0) return (*env)->NewIntArray(env, 0);
+
+    const char *sql = (*env)->GetStringUTFChars(env, jsql, NULL);
+    StatementState *statement = acquire_statement(env, connectionState, sql);
+    (*env)->ReleaseStringUTFChars(env, jsql, sql);
+    if (statement == NULL) return NULL;
+
+    jintArray result = execute_batch(env, statement, rows, count);
+    release_statement(statement);
+    return result;
+}
+
+// Cambia el tamaño de la caché de sentencias; 0 la desactiva (se usa SQLExecDirect)
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_setStatementCacheSize(
+    JNIEnv *env, jobject obj, jlong connectionPtr, jint size
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    connectionState->cacheCapacity = size < 0 ? 0 : size;
+    cache_trim(connectionState);
+}
+
+// SQLMoreResults cancelable desde otro hilo, como la ejecución
+static SQLRETURN more_results(StatementState *statement) {
+    set_active_statement(statement->connectionState, statement);
+    SQLRETURN ret = SQLMoreResults(statement->hStmt);
+    set_active_statement(statement->connectionState, NULL);
+    return ret;
+}
+
+// Filas afectadas por el resultado actual: -1 si es un conjunto de filas,
+// SUCCESS_NO_INFO (-2) si el driver no lo sabe
+static jint result_count(SQLHSTMT hStmt) {
+    SQLSMALLINT columns = 0;
+    SQLLEN rows = -1;
+    if (SQL_SUCCEEDED(SQLNumResultCols(hStmt, &columns)) && columns > 0) return -1;
+    if (!SQL_SUCCEEDED(SQLRowCount(hStmt, &rows)) || rows < 0) return -2;
+    return (jint)rows;
+}
+
+// Añade un valor al array creciente de contadores de executeScript
+static int append_count(jint **counts, jsize *size, jsize *capacity, jint value) {
+    if (*size == *capacity) {
+        jsize grown = *capacity == 0 ? 16 : *capacity * 2;
+        jint *data = (jint *)realloc(*counts, grown * sizeof(jint));
+        if (data == NULL) return 0;
+        *counts = data;
+        *capacity = grown;
+    }
+    (*counts)[(*size)++] = value;
+    return 1;
+}
+
+// SQL_BATCH_SUPPORT del driver (SQL_BS_*), consultado una vez por conexión; 0 si no lo informa
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_getBatchSupport(
+    JNIEnv *env, jobject obj, jlong connectionPtr
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    if (connectionState->batchSupport < 0) {
+        SQLUINTEGER support = 0;
+        if (!SQL_SUCCEEDED(SQLGetInfo(connectionState->hDbc, SQL_BATCH_SUPPORT, &support, sizeof(support), NULL))) {
+            support = 0;
+        }
+        connectionState->batchSupport = (int)support;
+    }
+    return connectionState->batchSupport;
+}
+
+// Ejecuta cada texto con SQLExecDirect sobre un mismo handle (sin caché: los scripts
+// no se repiten) y recorre sus resultados con SQLMoreResults. Un texto puede ser un
+// lote de varias sentencias; devuelve las filas afectadas de cada resultado, en orden.
+JNIEXPORT jintArray JNICALL Java_odbcbridge_ODBCBridge_executeScript(
+    JNIEnv *env, jobject obj, jlong connectionPtr, jobjectArray statements
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    jsize statementCount = (*env)->GetArrayLength(env, statements);
+    StatementState *statement = new_statement(env, connectionState, "", STMT_TRANSIENT);
+    if (statement == NULL) return NULL;
+    SQLHSTMT hStmt = statement->hStmt;
+    apply_query_timeout(statement);
+
+    jint *counts = NULL;
+    jsize size = 0, capacity = 0;
+    int failed = 0;
+    for (jsize i = 0; i < statementCount && !failed; i++) {
+        jstring jsql = (jstring)(*env)->GetObjectArrayElement(env, statements, i);
+        const char *sql = (*env)->GetStringUTFChars(env, jsql, NULL);
+        set_active_statement(connectionState, statement);
+        SQLRETURN ret = submit_sql(connectionState, hStmt, sql, 0);
+        set_active_statement(connectionState, NULL);
+        (*env)->ReleaseStringUTFChars(env, jsql, sql);
+        (*env)->DeleteLocalRef(env, jsql);
+
+        // SQL_NO_DATA al ejecutar es un UPDATE/DELETE sin filas; en SQLMoreResults, el final
+        if (ret == SQL_NO_DATA) {
+            append_count(&counts, &size, &capacity, 0);
+            ret = more_results(statement);
+        }
+        while (SQL_SUCCEEDED(ret)) {
+            append_count(&counts, &size, &capacity, result_count(hStmt));
+            ret = more_results(statement);
+        }
+        if (ret != SQL_NO_DATA) {
+            // La sentencia que falló queda como EXECUTE_FAILED tras las anteriores
+            append_count(&counts, &size, &capacity, -3);
+            failed = 1;
+        }
+        if (!failed) SQLFreeStmt(hStmt, SQL_CLOSE);
+    }
+
+    jintArray result = (*env)->NewIntArray(env, size);
+    if (result != NULL) {
+        (*env)->SetIntArrayRegion(env, result, 0, size, counts);
+        if (failed) throw_batch_error(env, hStmt, result);
+    }
+    free(counts);
+    free_statement(statement);
+    return result;
+}
+
+// Pasa al siguiente resultado de la consulta (SQLMoreResults): descarta las filas
+// pendientes, desenlaza las columnas y describe las del nuevo resultado. Devuelve su
+// número de columnas (0 si es un recuento de filas, leído con getRowCount) o -1 si no hay más.
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_nextResult(
+    JNIEnv *env, jobject obj, jlong queryPtr
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    if (queryState->directBuffer != NULL) {
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Result set is bound for direct fetch");
+        return -1;
+    }
+
+    SQLHSTMT hStmt = queryState->hStmt;
+    SQLFreeStmt(hStmt, SQL_UNBIND);
+    SQLSetStmtAttr(hStmt, SQL_ATTR_ROW_ARRAY_SIZE, (SQLPOINTER)1, 0);
+    SQLSetStmtAttr(hStmt, SQL_ATTR_ROWS_FETCHED_PTR, NULL, 0);
+    free_column_buffers(queryState);
+    free(queryState->columns);
+    queryState->columns = NULL;
+    queryState->columnCount = 0;
+    queryState->rowArraySize = 0;
+    queryState->rowsFetched = 0;
+    queryState->blockMode = -1;
+
+    SQLRETURN ret = more_results(queryState->statement);
+    if (ret == SQL_NO_DATA) return -1;
+    check_error(env, ret, SQL_HANDLE_STMT, hStmt, "Failed to get next result");
+    if (!SQL_SUCCEEDED(ret)) return -1;
+
+    describe_columns(env, queryState);
+    return queryState->columnCount;
+}
+
+// Ejecución asíncrona (SQL_ATTR_ASYNC_ENABLE) pendiente de sondeo
+typedef struct {
+    StatementState *statement;
+    SQLRETURN ret;          // Último retorno; SQL_STILL_EXECUTING mientras no termina
+} AsyncCall;
+
+// Llama (o vuelve a llamar, al sondear) a la función de ejecución con los mismos argumentos
+static SQLRETURN submit_async(StatementState *statement) {
+    // La conexión se cerró con la llamada pendiente: el handle ya no existe
+    if (statement->connectionState == NULL) return SQL_INVALID_HANDLE;
+    if (statement->kind == STMT_TRANSIENT) {
+        return submit_sql(statement->connectionState, statement->hStmt, statement->sql, 0);
+    }
+    return SQLExecute(statement->hStmt);
+}
+
+// Recupera la sentencia de una llamada asíncrona terminada y vuelve al modo síncrono
+static StatementState *end_async(AsyncCall *call, SQLRETURN *ret) {
+    StatementState *statement = call->statement;
+    *ret = call->ret;
+    free(call);
+    SQLSetStmtAttr(statement->hStmt, SQL_ATTR_ASYNC_ENABLE, (SQLPOINTER)SQL_ASYNC_ENABLE_OFF, 0);
+    return statement;
+}
+
+// Devuelve el soporte de ejecución asíncrona del driver (SQL_ASYNC_MODE):
+// 0 ninguno, 1 por conexión, 2 por sentencia
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_getAsyncMode(
+    JNIEnv *env, jobject obj, jlong connectionPtr
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    SQLUINTEGER mode = SQL_AM_NONE;
+    SQLRETURN ret = SQLGetInfo(connectionState->hDbc, SQL_ASYNC_MODE, &mode, sizeof(mode), NULL);
+    return SQL_SUCCEEDED(ret) ? (jint)mode : SQL_AM_NONE;
+}
+
+/*
+ * Inicia la ejecución de una sentencia con SQL_ATTR_ASYNC_ENABLE: el driver
+ * devuelve SQL_STILL_EXECUTING y la llamada se completa con pollAsync, así un
+ * solo hilo puede sondear muchas sentencias. Devuelve la llamada pendiente
+ * (0 si falla) que se termina con finishQuery o finishUpdate.
+ */
+JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_executeAsync(
+    JNIEnv *env, jobject obj, jlong connectionPtr, jstring jsql, jobjectArray paramsArr
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    const char *sql = (*env)->GetStringUTFChars(env, jsql, NULL);
+    StatementState *statement = acquire_statement(env, connectionState, sql);
+    (*env)->ReleaseStringUTFChars(env, jsql, sql);
+    if (statement == NULL) return 0;
+
+    SQLRETURN ret = bind_parameters(env, statement, paramsArr);
+    if (!SQL_SUCCEEDED(ret)) {
+        if (!(*env)->ExceptionCheck(env)) {
+            check_error(env, ret, SQL_HANDLE_STMT, statement->hStmt, "Failed to bind parameters");
+        }
+        release_statement(statement);
+        return 0;
+    }
+    apply_query_timeout(statement);
+    apply_max_rows(statement);
+
+    // Se reserva antes de activar el modo asíncrono para devolver la sentencia sin él
+    AsyncCall *call = (AsyncCall *)calloc(1, sizeof(AsyncCall));
+    if (call == NULL) {
+        release_statement(statement);
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Out of memory starting asynchronous execution");
+        return 0;
+    }
+
+    ret = SQLSetStmtAttr(statement->hStmt, SQL_ATTR_ASYNC_ENABLE, (SQLPOINTER)SQL_ASYNC_ENABLE_ON, 0);
+    if (!SQL_SUCCEEDED(ret)) {
+        free(call);
+        release_statement(statement);
+        (*env)->ThrowNew(env, jcache.sqlExceptionClass, "Driver does not support asynchronous execution");
+        return 0;
+    }
+
+    call->statement = statement;
+    call->ret = submit_async(statement);
+    return (jlong)(intptr_t)call;
+}
+
+// Sondea una llamada asíncrona; devuelve true cuando ha terminado (bien o con error)
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_pollAsync(
+    JNIEnv *env, jobject obj, jlong callPtr
+) {
+    AsyncCall *call = (AsyncCall *)(intptr_t)callPtr;
+    if (call->ret == SQL_STILL_EXECUTING) {
+        call->ret = submit_async(call->statement);
+    }
+    return call->ret != SQL_STILL_EXECUTING ? JNI_TRUE : JNI_FALSE;
+}
+
+// Cancela con SQLCancel una llamada asíncrona; el siguiente sondeo termina con HY008
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_cancelAsync(
+    JNIEnv *env, jobject obj, jlong callPtr
+) {
+    AsyncCall *call = (AsyncCall *)(intptr_t)callPtr;
+    return SQL_SUCCEEDED(SQLCancel(call->statement->hStmt)) ? JNI_TRUE : JNI_FALSE;
+}
+
+// Termina una consulta asíncrona y devuelve su resultado (como query)
+JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_finishQuery(
+    JNIEnv *env, jobject obj, jlong callPtr
+) {
+    SQLRETURN ret;
+    StatementState *statement = end_async((AsyncCall *)(intptr_t)callPtr, &ret);
+    return open_query(env, statement, ret);
+}
+
+// Termina una sentencia DML/DDL asíncrona y devuelve las filas afectadas (como execute)
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_finishUpdate(
+    JNIEnv *env, jobject obj, jlong callPtr
+) {
+    SQLRETURN ret;
+    StatementState *statement = end_async((AsyncCall *)(intptr_t)callPtr, &ret);
+    return finish_update(env, statement, ret);
+}
+
+// Activa o desactiva el modo autocommit (SQL_ATTR_AUTOCOMMIT). Al activarlo
+// el driver confirma la transacción en curso.
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_setAutoCommit(
+    JNIEnv *env, jobject obj, jlong connectionPtr, jboolean enabled
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    SQLRETURN ret = SQLSetConnectAttr(connectionState->hDbc, SQL_ATTR_AUTOCOMMIT,
+        (SQLPOINTER)(intptr_t)(enabled ? SQL_AUTOCOMMIT_ON : SQL_AUTOCOMMIT_OFF), SQL_IS_UINTEGER);
+    check_error(env, ret, SQL_HANDLE_DBC, connectionState->hDbc, "Failed to set autocommit");
+}
+
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_getAutoCommit(
+    JNIEnv *env, jobject obj, jlong connectionPtr
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    SQLULEN value = SQL_AUTOCOMMIT_ON;
+    SQLRETURN ret = SQLGetConnectAttr(connectionState->hDbc, SQL_ATTR_AUTOCOMMIT, &value, SQL_IS_UINTEGER, NULL);
+    check_error(env, ret, SQL_HANDLE_DBC, connectionState->hDbc, "Failed to get autocommit");
+    return value == SQL_AUTOCOMMIT_OFF ? JNI_FALSE : JNI_TRUE;
+}
+
+// Termina la transacción en curso de la conexión con SQLEndTran (COMMIT o ROLLBACK)
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_endTransaction(
+    JNIEnv *env, jobject obj, jlong connectionPtr, jboolean commit
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    SQLRETURN ret = SQLEndTran(SQL_HANDLE_DBC, connectionState->hDbc, commit ? SQL_COMMIT : SQL_ROLLBACK);
+    check_error(env, ret, SQL_HANDLE_DBC, connectionState->hDbc,
+        commit ? "Failed to commit transaction" : "Failed to roll back transaction");
+}
+
+// Nivel de aislamiento (SQL_ATTR_TXN_ISOLATION); los valores SQL_TXN_* son los
+// mismos que las constantes TRANSACTION_* de java.sql.Connection
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_setTransactionIsolation(
+    JNIEnv *env, jobject obj, jlong connectionPtr, jint level
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    SQLRETURN ret = SQLSetConnectAttr(connectionState->hDbc, SQL_ATTR_TXN_ISOLATION,
+        (SQLPOINTER)(intptr_t)level, SQL_IS_UINTEGER);
+    check_error(env, ret, SQL_HANDLE_DBC, connectionState->hDbc, "Failed to set transaction isolation");
+}
+
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_getTransactionIsolation(
+    JNIEnv *env, jobject obj, jlong connectionPtr
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    SQLULEN value = 0;
+    SQLRETURN ret = SQLGetConnectAttr(connectionState->hDbc, SQL_ATTR_TXN_ISOLATION, &value, SQL_IS_UINTEGER, NULL);
+    check_error(env, ret, SQL_HANDLE_DBC, connectionState->hDbc, "Failed to get transaction isolation");
+    return (jint)value;
+}
+
+// Timeout por defecto (segundos) de las sentencias de la conexión; 0 = sin límite
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_setQueryTimeout(
+    JNIEnv *env, jobject obj, jlong connectionPtr, jint seconds
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    connectionState->queryTimeout = seconds < 0 ? 0 : seconds;
+}
+
+// Timeout propio de una sentencia preparada; -1 vuelve al de la conexión
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_setStatementTimeout(
+    JNIEnv *env, jobject obj, jlong statementPtr, jint seconds
+) {
+    StatementState *statement = (StatementState *)(intptr_t)statementPtr;
+    statement->timeout = seconds < 0 ? -1 : seconds;
+}
+
+// Cursor, concurrencia y NOSCAN de las sentencias que se preparen a partir de ahora y
+// límite de filas (0 = sin límite) de las siguientes ejecuciones
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_setStatementOptions(
+    JNIEnv *env, jobject obj, jlong connectionPtr, jint cursorType, jint concurrency,
+    jboolean noScan, jlong maxRows
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    connectionState->cursorType = cursorType;
+    connectionState->concurrency = concurrency;
+    connectionState->noScan = noScan ? 1 : 0;
+    connectionState->maxRows = maxRows < 0 ? 0 : (SQLULEN)maxRows;
+}
+
+// Cancela con SQLCancel la sentencia que la conexión está ejecutando o cuyo resultado
+// sigue abierto (desde otro hilo). Devuelve false si no había ninguna.
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_cancelConnection(
+    JNIEnv *env, jobject obj, jlong connectionPtr
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    jboolean cancelled = JNI_FALSE;
+    AcquireSRWLockExclusive(&connectionState->activeLock);
+    if (connectionState->activeStmt != SQL_NULL_HSTMT) {
+        cancelled = SQL_SUCCEEDED(SQLCancel(connectionState->activeStmt)) ? JNI_TRUE : JNI_FALSE;
+    }
+    ReleaseSRWLockExclusive(&connectionState->activeLock);
+    return cancelled;
+}
+
+// Cancela con SQLCancel una sentencia preparada en ejecución (desde otro hilo)
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_cancelStatement(
+    JNIEnv *env, jobject obj, jlong statementPtr
+) {
+    StatementState *statement = (StatementState *)(intptr_t)statementPtr;
+    return SQL_SUCCEEDED(SQLCancel(statement->hStmt)) ? JNI_TRUE : JNI_FALSE;
+}
+
+// Cancela con SQLCancel el SQLFetch en curso de un resultado (desde otro hilo)
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_cancel(
+    JNIEnv *env, jobject obj, jlong queryPtr
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    return SQL_SUCCEEDED(SQLCancel(queryState->hStmt)) ? JNI_TRUE : JNI_FALSE;
+}
+
+// Filas del resultado según SQLRowCount; -1 si el driver no lo sabe (lo habitual en un SELECT)
+JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_getRowCount(
+    JNIEnv *env, jobject obj, jlong queryPtr
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    SQLLEN rows = -1;
+    if (!SQL_SUCCEEDED(SQLRowCount(queryState->hStmt, &rows))) return -1;
+    return rows < 0 ? -1 : (jlong)rows;
+}
+
+// Devuelve {bytes leídos, objetos creados} de un resultado; se cuentan siempre
+// (sumas sobre la propia consulta, sin sincronización) y Java los lee al cerrarlo
+JNIEXPORT jlongArray JNICALL Java_odbcbridge_ODBCBridge_getFetchStats(
+    JNIEnv *env, jobject obj, jlong queryPtr
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    jlong stats[2] = { queryState->bytesFetched, queryState->objectsCreated };
+    jlongArray result = (*env)->NewLongArray(env, 2);
+    if (result == NULL) return NULL;
+    (*env)->SetLongArrayRegion(env, result, 0, 2, stats);
+    return result;
+}
+
+// Tamaño del paquete de red negociado; 0 si el driver no lo informa
+static jlong get_packet_size(SQLHDBC hDbc) {
+    SQLUINTEGER value = 0;
+    if (!SQL_SUCCEEDED(SQLGetConnectAttr(hDbc, SQL_ATTR_PACKET_SIZE, &value, SQL_IS_UINTEGER, NULL))) return 0;
+    return (jlong)value;
+}
+
+// Devuelve {cursor, concurrencia, NOSCAN, límite de filas, tamaño de paquete} efectivos
+// de un resultado, leídos del driver (puede haber sustituido los pedidos, 01S02)
+JNIEXPORT jlongArray JNICALL Java_odbcbridge_ODBCBridge_getStatementSettings(
+    JNIEnv *env, jobject obj, jlong queryPtr
+) {
+    QueryState *queryState = (QueryState *)(intptr_t)queryPtr;
+    ConnectionState *connectionState = queryState->statement->connectionState;
+    jlong settings[5] = {
+        get_statement_attr(queryState->hStmt, SQL_ATTR_CURSOR_TYPE),
+        get_statement_attr(queryState->hStmt, SQL_ATTR_CONCURRENCY),
+        get_statement_attr(queryState->hStmt, SQL_ATTR_NOSCAN),
+        get_statement_attr(queryState->hStmt, SQL_ATTR_MAX_ROWS),
+        connectionState != NULL ? get_packet_size(connectionState->hDbc) : 0
+    };
+    // Si el driver no los informa tras ejecutar, los que aplicó al preparar
+    if (settings[0] < 0) settings[0] = queryState->statement->appliedCursorType;
+    if (settings[1] < 0) settings[1] = queryState->statement->appliedConcurrency;
+    jlongArray result = (*env)->NewLongArray(env, 5);
+    if (result == NULL) return NULL;
+    (*env)->SetLongArrayRegion(env, result, 0, 5, settings);
+    return result;
+}
+
+// Tamaño del paquete de red de la conexión (SQL_ATTR_PACKET_SIZE); 0 si el driver no lo informa
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_getPacketSize(
+    JNIEnv *env, jobject obj, jlong connectionPtr
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    return (jint)get_packet_size(connectionState->hDbc);
+}
+
+// Activa el modo UTF-16: texto SQL con las funciones W, parámetros de texto como
+// SQL_C_WCHAR y columnas de texto leídas como SQL_C_WCHAR (afecta a las siguientes consultas)
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_setWideChars(
+    JNIEnv *env, jobject obj, jlong connectionPtr, jboolean enabled
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    int wide = enabled ? 1 : 0;
+    if (connectionState->wideChars != wide) {
+        // Las sentencias libres de la caché se prepararon con la otra codificación
+        int capacity = connectionState->cacheCapacity;
+        connectionState->cacheCapacity = 0;
+        cache_trim(connectionState);
+        connectionState->cacheCapacity = capacity;
+    }
+    connectionState->wideChars = wide;
+}
+
+// Devuelve {aciertos, fallos, expulsiones, tamaño, capacidad} de la caché de sentencias
+JNIEXPORT jlongArray JNICALL Java_odbcbridge_ODBCBridge_getStatementCacheStats(
+    JNIEnv *env, jobject obj, jlong connectionPtr
+) {
+    ConnectionState *connectionState = (ConnectionState *)(intptr_t)connectionPtr;
+    jlong values[5] = {
+        connectionState->cacheHits,
+        connectionState->cacheMisses,
+        connectionState->cacheEvictions,
+        connectionState->cacheSize,
+        connectionState->cacheCapacity
+    };
+    jlongArray result = (*env)->NewLongArray(env, 5);
+    if (result != NULL) {
+        (*env)->SetLongArrayRegion(env, result, 0, 5, values);
+    }
+    return result;
+}
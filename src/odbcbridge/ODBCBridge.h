@@ -26,6 +26,16 @@ JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_connectWithString(
     jstring jconnStr
 );
 
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    connectWithPacketSize
+ * Signature: (Ljava/lang/String;I)J
+ */
+JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_connectWithPacketSize(
+    JNIEnv *env, jobject obj,
+    jstring jconnStr, jint packetSize
+);
+
 /*
  * Class:     odbcbridge_ODBCBridge
  * Method:    close
@@ -34,6 +44,22 @@ JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_connectWithString(
 JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_close
   (JNIEnv *, jobject, jlong);
 
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    setConnectionPooling
+ * Signature: (ZZ)Z
+ */
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_setConnectionPooling
+  (JNIEnv *, jobject, jboolean, jboolean);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    isAlive
+ * Signature: (J)Z
+ */
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_isAlive
+  (JNIEnv *, jobject, jlong);
+
 /*
  * Class:     odbcbridge_ODBCBridge
  * Method:    getDatabaseInfo
@@ -66,6 +92,14 @@ JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_listTables
 JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_listColumns
   (JNIEnv *, jobject, jlong, jstring);
 
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    listPrimaryKeys
+ * Signature: (JLjava/lang/String;)[Ljava/lang/String;
+ */
+JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_listPrimaryKeys
+  (JNIEnv *, jobject, jlong, jstring);
+
 /*
  * Class:     odbcbridge_ODBCBridge
  * Method:    query
@@ -93,6 +127,14 @@ JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_fetchFields
 JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_fetchArray
   (JNIEnv *, jobject, jlong);
 
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    fetchBlock
+ * Signature: (JI)[[Ljava/lang/Object;
+ */
+JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_fetchBlock
+  (JNIEnv *, jobject, jlong, jint);
+
 /*
  * Class:     odbcbridge_ODBCBridge
  * Method:    free
@@ -104,6 +146,326 @@ JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_free
 JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_execute
   (JNIEnv *env, jobject self, jlong connPtr, jstring sqlJ, jobjectArray paramsArr);
 
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    prepare
+ * Signature: (JLjava/lang/String;)J
+ */
+JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_prepare
+  (JNIEnv *, jobject, jlong, jstring);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    executeQuery
+ * Signature: (J[Ljava/lang/Object;)J
+ */
+JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_executeQuery
+  (JNIEnv *, jobject, jlong, jobjectArray);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    executeUpdate
+ * Signature: (J[Ljava/lang/Object;)I
+ */
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_executeUpdate
+  (JNIEnv *, jobject, jlong, jobjectArray);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    closeStatement
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_closeStatement
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    setStatementCacheSize
+ * Signature: (JI)V
+ */
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_setStatementCacheSize
+  (JNIEnv *, jobject, jlong, jint);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    getStatementCacheStats
+ * Signature: (J)[J
+ */
+JNIEXPORT jlongArray JNICALL Java_odbcbridge_ODBCBridge_getStatementCacheStats
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    executeBatch
+ * Signature: (JLjava/lang/String;[[Ljava/lang/Object;I)[I
+ */
+JNIEXPORT jintArray JNICALL Java_odbcbridge_ODBCBridge_executeBatch
+  (JNIEnv *, jobject, jlong, jstring, jobjectArray, jint);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    getBatchSupport
+ * Signature: (J)I
+ */
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_getBatchSupport
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    executeScript
+ * Signature: (J[Ljava/lang/String;)[I
+ */
+JNIEXPORT jintArray JNICALL Java_odbcbridge_ODBCBridge_executeScript
+  (JNIEnv *, jobject, jlong, jobjectArray);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    nextResult
+ * Signature: (J)I
+ */
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_nextResult
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    bindDirect
+ * Signature: (JI[I)Ljava/nio/ByteBuffer;
+ */
+JNIEXPORT jobject JNICALL Java_odbcbridge_ODBCBridge_bindDirect
+  (JNIEnv *, jobject, jlong, jint, jintArray);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    fetchDirect
+ * Signature: (J)I
+ */
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_fetchDirect
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    getColumnKinds
+ * Signature: (J)[I
+ */
+JNIEXPORT jintArray JNICALL Java_odbcbridge_ODBCBridge_getColumnKinds
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    fetchColumns
+ * Signature: (JI[Ljava/lang/Object;[Ljava/lang/Object;)I
+ */
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_fetchColumns
+  (JNIEnv *, jobject, jlong, jint, jobjectArray, jobjectArray);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    fetchRow
+ * Signature: (JI)[Ljava/lang/Object;
+ */
+JNIEXPORT jobjectArray JNICALL Java_odbcbridge_ODBCBridge_fetchRow
+  (JNIEnv *, jobject, jlong, jint);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    getColumn
+ * Signature: (JI)Ljava/lang/Object;
+ */
+JNIEXPORT jobject JNICALL Java_odbcbridge_ODBCBridge_getColumn
+  (JNIEnv *, jobject, jlong, jint);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    readChunk
+ * Signature: (JI[BZ)I
+ */
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_readChunk
+  (JNIEnv *, jobject, jlong, jint, jbyteArray, jboolean);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    readChars
+ * Signature: (JI[C)I
+ */
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_readChars
+  (JNIEnv *, jobject, jlong, jint, jcharArray);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    setWideChars
+ * Signature: (JZ)V
+ */
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_setWideChars
+  (JNIEnv *, jobject, jlong, jboolean);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    setAutoCommit
+ * Signature: (JZ)V
+ */
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_setAutoCommit
+  (JNIEnv *, jobject, jlong, jboolean);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    getAutoCommit
+ * Signature: (J)Z
+ */
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_getAutoCommit
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    endTransaction
+ * Signature: (JZ)V
+ */
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_endTransaction
+  (JNIEnv *, jobject, jlong, jboolean);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    setTransactionIsolation
+ * Signature: (JI)V
+ */
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_setTransactionIsolation
+  (JNIEnv *, jobject, jlong, jint);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    getTransactionIsolation
+ * Signature: (J)I
+ */
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_getTransactionIsolation
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    setQueryTimeout
+ * Signature: (JI)V
+ */
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_setQueryTimeout
+  (JNIEnv *, jobject, jlong, jint);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    setStatementTimeout
+ * Signature: (JI)V
+ */
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_setStatementTimeout
+  (JNIEnv *, jobject, jlong, jint);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    setStatementOptions
+ * Signature: (JIIZJ)V
+ */
+JNIEXPORT void JNICALL Java_odbcbridge_ODBCBridge_setStatementOptions
+  (JNIEnv *, jobject, jlong, jint, jint, jboolean, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    cancelConnection
+ * Signature: (J)Z
+ */
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_cancelConnection
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    cancelStatement
+ * Signature: (J)Z
+ */
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_cancelStatement
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    cancel
+ * Signature: (J)Z
+ */
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_cancel
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    getAsyncMode
+ * Signature: (J)I
+ */
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_getAsyncMode
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    executeAsync
+ * Signature: (JLjava/lang/String;[Ljava/lang/Object;)J
+ */
+JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_executeAsync
+  (JNIEnv *, jobject, jlong, jstring, jobjectArray);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    pollAsync
+ * Signature: (J)Z
+ */
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_pollAsync
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    cancelAsync
+ * Signature: (J)Z
+ */
+JNIEXPORT jboolean JNICALL Java_odbcbridge_ODBCBridge_cancelAsync
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    finishQuery
+ * Signature: (J)J
+ */
+JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_finishQuery
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    finishUpdate
+ * Signature: (J)I
+ */
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_finishUpdate
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    getRowCount
+ * Signature: (J)J
+ */
+JNIEXPORT jlong JNICALL Java_odbcbridge_ODBCBridge_getRowCount
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    getFetchStats
+ * Signature: (J)[J
+ */
+JNIEXPORT jlongArray JNICALL Java_odbcbridge_ODBCBridge_getFetchStats
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    getStatementSettings
+ * Signature: (J)[J
+ */
+JNIEXPORT jlongArray JNICALL Java_odbcbridge_ODBCBridge_getStatementSettings
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     odbcbridge_ODBCBridge
+ * Method:    getPacketSize
+ * Signature: (J)I
+ */
+JNIEXPORT jint JNICALL Java_odbcbridge_ODBCBridge_getPacketSize
+  (JNIEnv *, jobject, jlong);
+
 #ifdef __cplusplus
 }
 #endif
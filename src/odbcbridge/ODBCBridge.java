@@ -25,6 +25,9 @@ package odbcbridge;
  * 
  *    # Genera DLL 32:
  *    - cl /I "%JAVA_HOME%\include" /I "%JAVA_HOME%\include\win32" /LD /Fe:odbc_bridge_win32.dll src/odbcbridge/ODBCBridge.c odbc32.lib odbccp32.lib
+ * 
+ * 4. Linux / macOS (unixODBC):
+ *    - make   (genera libodbc_bridge_linux_x86_64.so, libodbc_bridge_linux_aarch64.so, libodbc_bridge_macos_aarch64.dylib...)
  */
 public class ODBCBridge {
     
@@ -46,18 +49,20 @@ public class ODBCBridge {
                 loadLibrary("odbc_bridge_" + arch);
                 
             } else if (osName.contains("mac")) {
-                loadLibrary(libName);
+                loadUnixLibrary(libName, "macos");
                 
             } else if (osName.contains("nux") || osName.contains("nix")) {
-                loadLibrary(libName);
+                loadUnixLibrary(libName, "linux");
                 
             } else {
                 throw new UnsupportedOperationException("OS not supported");
             }
         } catch (UnsatisfiedLinkError e) {
             e.printStackTrace();
-            javax.swing.JOptionPane.showMessageDialog(null, 
-                    e.getMessage(), "", javax.swing.JOptionPane.ERROR_MESSAGE);
+            if (!java.awt.GraphicsEnvironment.isHeadless()) {
+                javax.swing.JOptionPane.showMessageDialog(null, 
+                        e.getMessage(), "", javax.swing.JOptionPane.ERROR_MESSAGE);
+            }
             throw new RuntimeException("Failed to load native library", e);
         }
     }
@@ -66,6 +71,21 @@ public class ODBCBridge {
         System.out.println("ODBCBridge.loadLibrary: " + libName);
         System.loadLibrary(libName);
     }
+
+    /**
+     * Carga la biblioteca de la arquitectura actual (libodbc_bridge_linux_x86_64.so,
+     * libodbc_bridge_macos_aarch64.dylib...) que genera el Makefile, o
+     * libodbc_bridge sin sufijo si no existe.
+     */
+    static void loadUnixLibrary(String libName, String os) {
+        String arch = System.getProperty("os.arch");
+        if (arch.equals("amd64")) arch = "x86_64";
+        try {
+            loadLibrary(libName + "_" + os + "_" + arch);
+        } catch (UnsatisfiedLinkError e) {
+            loadLibrary(libName);
+        }
+    }
     
     private ODBCBridge() {
         
@@ -85,6 +105,18 @@ public class ODBCBridge {
      */
     public native long connectWithString(String connectionString) throws Exception;
 
+    /**
+     * Igual que {@link #connectWithString(String)} pidiendo un tamaño de
+     * paquete de red ({@code SQL_ATTR_PACKET_SIZE}), que solo puede fijarse
+     * antes de conectar. El driver puede ajustarlo o ignorarlo.
+     *
+     * @param connectionString Cadena completa de conexión ODBC
+     * @param packetSize       Bytes por paquete; 0 usa el del driver
+     * @return Puntero a la conexión (handle)
+     * @throws Exception Si la conexión falla
+     */
+    public native long connectWithPacketSize(String connectionString, int packetSize) throws Exception;
+
     /**
      * Conecta a una fuente de datos ODBC usando solo el nombre del DSN.
      * 
@@ -125,6 +157,28 @@ public class ODBCBridge {
      * @throws Exception Si ocurre un error al cerrar la conexión
      */
     public native void close(long connectionPtr) throws Exception;
+
+    /**
+     * Activa o desactiva el pooling de conexiones del Driver Manager
+     * ({@code SQL_ATTR_CONNECTION_POOLING} / {@code SQL_ATTR_CP_MATCH}).
+     * 
+     * <p>Todas las conexiones comparten un único entorno ODBC que se crea en la
+     * primera conexión; este método solo tiene efecto si se llama antes.</p>
+     * 
+     * @param enabled true para reutilizar conexiones físicas en el Driver Manager
+     * @param strictMatch true para exigir coincidencia exacta de atributos de conexión
+     * @return false si el entorno ya estaba creado y no se aplicó el cambio
+     */
+    public native boolean setConnectionPooling(boolean enabled, boolean strictMatch);
+
+    /**
+     * Comprueba de forma barata si una conexión sigue viva consultando
+     * {@code SQL_ATTR_CONNECTION_DEAD}, sin enviar nada al servidor.
+     *
+     * @param connectionPtr Puntero a la conexión
+     * @return false si el driver reporta la conexión como muerta
+     */
+    public native boolean isAlive(long connectionPtr);
     
     /**
      * Obtiene información detallada sobre la base de datos conectada.
@@ -153,17 +207,34 @@ public class ODBCBridge {
     public native String[] listTables(long connectionPtr) throws Exception;
     
     /**
-     * Lista todas las columnas de una tabla específica.
+     * Lista todas las columnas de una tabla específica, o de todas las tablas
+     * con una sola llamada a {@code SQLColumns} si {@code tableName} es null.
      * 
      * @param connectionPtr Puntero a la conexión activa
-     * @param tableName Nombre de la tabla a consultar
-     * @return Array de ODBCField con información de cada columna
+     * @param tableName Nombre (patrón) de la tabla a consultar, o null para todas
+     * @return Array de {@link ODBCColumn} con información de cada columna y su tabla
      * @throws Exception Si ocurre un error al listar las columnas
      */
     public native ODBCField[] listColumns(long connectionPtr, String tableName) throws Exception;
     
+    /**
+     * Lista las columnas de la clave primaria de una tabla ({@code SQLPrimaryKeys}).
+     * 
+     * @param connectionPtr Puntero a la conexión activa
+     * @param tableName Nombre de la tabla
+     * @return Nombres de las columnas en el orden de la clave (vacío si no tiene)
+     * @throws Exception Si ocurre un error al consultar el catálogo
+     */
+    public native String[] listPrimaryKeys(long connectionPtr, String tableName) throws Exception;
+    
     /** 
      * Ejecuta una consulta SELECT y devuelve un puntero a QueryState. 
+     *
+     * <p>Los parámetros se enlazan con su tipo SQL: String, Integer/Short/Byte,
+     * Long, Double/Float, BigDecimal ({@code SQL_C_NUMERIC}), Boolean, byte[],
+     * java.sql.Date/Time/Timestamp, LocalDate/LocalTime/LocalDateTime y null
+     * (SQL NULL). Cualquier otro objeto se envía como texto con {@code toString()}.</p>
+     *
      * @param connectionPtr puntero a la conexión JNI
      * @param sql           sentencia SQL
      * @param params        parámetros opcionales (Object[]), o null
@@ -181,7 +252,8 @@ public class ODBCBridge {
      *
      * @param connectionPtr Puntero a la conexión JNI
      * @param sql           Sentencia SQL a ejecutar
-     * @param params        Parámetros opcionales (en orden), o null si no hay
+     * @param params        Parámetros opcionales (en orden, mismos tipos que
+     *                      {@link #query(long, String, Object[])}), o null si no hay
      * @return número de filas afectadas, o 0 si no se puede determinar
      * @throws Exception si ocurre algún error ODBC/JNI
      */
@@ -193,7 +265,305 @@ public class ODBCBridge {
     public int execute(long connectionPtr, String sql) throws Exception {
         return execute(connectionPtr, sql, null);
     }
-    
+
+    /**
+     * Ejecuta una sentencia DML con las primeras {@code count} filas de
+     * {@code rows} en un solo {@code SQLExecute}, enlazando los parámetros por
+     * columnas con {@code SQL_ATTR_PARAMSET_SIZE}. Si el driver no admite
+     * arrays de parámetros las filas se ejecutan una a una.
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @param sql           Sentencia SQL con marcadores {@code ?}
+     * @param rows          Parámetros de cada fila (todas con el mismo número)
+     * @param count         Número de filas de {@code rows} a ejecutar
+     * @return Estado de cada fila: filas afectadas,
+     *         {@link java.sql.Statement#SUCCESS_NO_INFO} o {@link java.sql.Statement#EXECUTE_FAILED}
+     * @throws java.sql.BatchUpdateException si alguna fila falla (con el estado de todas)
+     * @throws Exception si falla la sentencia completa
+     */
+    public native int[] executeBatch(long connectionPtr, String sql, Object[][] rows, int count) throws Exception;
+
+    /**
+     * Devuelve los lotes de sentencias que admite el driver ({@code SQL_BATCH_SUPPORT}).
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @return Máscara de bits {@code SQL_BS_*}, o 0 si el driver no lo informa
+     */
+    public native int getBatchSupport(long connectionPtr);
+
+    /**
+     * Ejecuta cada texto con {@code SQLExecDirect} y recorre todos sus
+     * resultados con {@code SQLMoreResults}; un texto puede contener varias
+     * sentencias si el driver admite lotes.
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @param statements    Textos SQL a ejecutar en orden
+     * @return Filas afectadas de cada resultado, en orden: -1 si el resultado
+     *         es un conjunto de filas, {@link java.sql.Statement#SUCCESS_NO_INFO}
+     *         si el driver no lo sabe
+     * @throws java.sql.BatchUpdateException si una sentencia falla (con los
+     *         contadores anteriores y {@link java.sql.Statement#EXECUTE_FAILED})
+     */
+    public native int[] executeScript(long connectionPtr, String[] statements) throws Exception;
+
+    /**
+     * Pasa al siguiente resultado de una consulta ({@code SQLMoreResults}),
+     * descartando las filas pendientes del actual.
+     *
+     * @param queryPtr Puntero al resultado de la consulta
+     * @return Columnas del nuevo resultado (0 si es un recuento de filas,
+     *         leído con {@link #getRowCount}), o -1 si no hay más
+     */
+    public native int nextResult(long queryPtr) throws Exception;
+
+    /**
+     * Prepara una sentencia con {@code SQLPrepare} para ejecutarla varias veces
+     * con distintos parámetros.
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @param sql           Sentencia SQL con marcadores {@code ?}
+     * @return Puntero a la sentencia preparada
+     * @throws Exception Si el driver no puede preparar la sentencia
+     */
+    public native long prepare(long connectionPtr, String sql) throws Exception;
+
+    /**
+     * Ejecuta una sentencia preparada que devuelve filas.
+     *
+     * @param statementPtr Puntero devuelto por {@link #prepare(long, String)}
+     * @param params       Parámetros opcionales (en orden), o null si no hay
+     * @return Puntero a QueryState; al liberarlo la sentencia queda lista para reejecutarse
+     * @throws Exception Si la sentencia tiene un resultado abierto o falla la ejecución
+     */
+    public native long executeQuery(long statementPtr, Object[] params) throws Exception;
+
+    /**
+     * Ejecuta una sentencia preparada DML/DDL.
+     *
+     * @param statementPtr Puntero devuelto por {@link #prepare(long, String)}
+     * @param params       Parámetros opcionales (en orden), o null si no hay
+     * @return número de filas afectadas
+     * @throws Exception Si la sentencia tiene un resultado abierto o falla la ejecución
+     */
+    public native int executeUpdate(long statementPtr, Object[] params) throws Exception;
+
+    /**
+     * Libera una sentencia preparada.
+     *
+     * @param statementPtr Puntero devuelto por {@link #prepare(long, String)}
+     */
+    public native void closeStatement(long statementPtr);
+
+    /**
+     * Cambia el número máximo de sentencias preparadas que guarda la caché
+     * de la conexión. {@link #query} y {@link #execute} reutilizan las sentencias
+     * de la caché por texto SQL; con 0 se desactiva y se usa {@code SQLExecDirect}.
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @param size          Número de sentencias (LRU)
+     */
+    public native void setStatementCacheSize(long connectionPtr, int size);
+
+    /**
+     * Activa el modo UTF-16 de la conexión: el texto SQL se envía con
+     * {@code SQLPrepareW}/{@code SQLExecDirectW}, los parámetros de texto como
+     * {@code SQL_C_WCHAR} y las columnas de texto se leen como {@code SQL_C_WCHAR}
+     * y se convierten con {@code NewString}, sin pasar por la página de códigos ANSI.
+     * Afecta a las consultas ejecutadas después de la llamada.
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @param enabled       true para usar UTF-16
+     */
+    public native void setWideChars(long connectionPtr, boolean enabled);
+
+    /**
+     * Activa o desactiva el modo autocommit ({@code SQL_ATTR_AUTOCOMMIT}). Al
+     * activarlo el driver confirma la transacción en curso.
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @param enabled       true para confirmar cada sentencia al ejecutarla
+     */
+    public native void setAutoCommit(long connectionPtr, boolean enabled) throws Exception;
+
+    /** Indica si la conexión está en modo autocommit. */
+    public native boolean getAutoCommit(long connectionPtr) throws Exception;
+
+    /**
+     * Termina la transacción en curso con {@code SQLEndTran}.
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @param commit        true para confirmarla, false para deshacerla
+     */
+    public native void endTransaction(long connectionPtr, boolean commit) throws Exception;
+
+    /**
+     * Establece el nivel de aislamiento ({@code SQL_ATTR_TXN_ISOLATION}); los
+     * valores son los de {@link java.sql.Connection#TRANSACTION_READ_COMMITTED} y
+     * demás constantes.
+     */
+    public native void setTransactionIsolation(long connectionPtr, int level) throws Exception;
+
+    /** Devuelve el nivel de aislamiento de la conexión. */
+    public native int getTransactionIsolation(long connectionPtr) throws Exception;
+
+    /**
+     * Establece el timeout por defecto ({@code SQL_ATTR_QUERY_TIMEOUT}) de las
+     * sentencias de la conexión. Si se agota, la llamada lanza
+     * {@link java.sql.SQLTimeoutException}.
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @param seconds       Segundos; 0 sin límite
+     */
+    public native void setQueryTimeout(long connectionPtr, int seconds);
+
+    /**
+     * Establece el timeout propio de una sentencia preparada.
+     *
+     * @param statementPtr Puntero devuelto por {@link #prepare}
+     * @param seconds      Segundos; 0 sin límite, -1 para usar el de la conexión
+     */
+    public native void setStatementTimeout(long statementPtr, int seconds);
+
+    /**
+     * Establece el cursor ({@code SQL_ATTR_CURSOR_TYPE}), la concurrencia
+     * ({@code SQL_ATTR_CONCURRENCY}) y {@code SQL_ATTR_NOSCAN} de las sentencias
+     * que se preparen a partir de ahora, y el límite de filas
+     * ({@code SQL_ATTR_MAX_ROWS}) de las siguientes ejecuciones.
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @param cursorType    {@code SQL_CURSOR_*}
+     * @param concurrency   {@code SQL_CONCUR_*}
+     * @param noScan        true para no procesar las secuencias de escape
+     * @param maxRows       Filas máximas por resultado; 0 sin límite
+     */
+    public native void setStatementOptions(long connectionPtr, int cursorType, int concurrency,
+            boolean noScan, long maxRows);
+
+    /**
+     * Cancela con {@code SQLCancel} la sentencia que la conexión está
+     * ejecutando, o la de la última consulta mientras su resultado siga
+     * abierto. Se llama desde otro hilo; la llamada cancelada lanza
+     * {@link java.sql.SQLTimeoutException}.
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @return false si no había ninguna sentencia en ejecución ni resultado abierto
+     */
+    public native boolean cancelConnection(long connectionPtr);
+
+    /**
+     * Cancela con {@code SQLCancel} una sentencia preparada en ejecución (desde otro hilo).
+     *
+     * @param statementPtr Puntero devuelto por {@link #prepare}
+     * @return true si el driver aceptó la cancelación
+     */
+    public native boolean cancelStatement(long statementPtr);
+
+    /**
+     * Cancela con {@code SQLCancel} la lectura en curso de un resultado (desde otro hilo).
+     *
+     * @param queryPtr Puntero al resultado de la consulta
+     * @return true si el driver aceptó la cancelación
+     */
+    public native boolean cancel(long queryPtr);
+
+    /**
+     * Devuelve las filas del resultado según {@code SQLRowCount}.
+     *
+     * @param queryPtr Puntero al resultado de la consulta
+     * @return Número de filas, o -1 si el driver no lo conoce
+     */
+    public native long getRowCount(long queryPtr);
+
+    /**
+     * Devuelve los contadores de lectura de un resultado.
+     *
+     * @param queryPtr Puntero al resultado de la consulta
+     * @return {bytes de datos leídos del driver, objetos Java creados para los valores}
+     */
+    public native long[] getFetchStats(long queryPtr);
+
+    /**
+     * Devuelve los atributos efectivos de la sentencia de un resultado, leídos
+     * del driver (puede haber sustituido los pedidos).
+     *
+     * @param queryPtr Puntero al resultado de la consulta
+     * @return {cursor, concurrencia, NOSCAN, límite de filas, tamaño de paquete};
+     *         -1 (0 el paquete) si el driver no lo informa
+     */
+    public native long[] getStatementSettings(long queryPtr);
+
+    /**
+     * Devuelve el tamaño del paquete de red de la conexión ({@code SQL_ATTR_PACKET_SIZE}).
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @return Bytes por paquete, o 0 si el driver no lo informa
+     */
+    public native int getPacketSize(long connectionPtr);
+
+    /**
+     * Devuelve el soporte de ejecución asíncrona del driver ({@code SQL_ASYNC_MODE}).
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @return 0 ninguno, 1 por conexión, 2 por sentencia
+     */
+    public native int getAsyncMode(long connectionPtr);
+
+    /**
+     * Inicia una sentencia con {@code SQL_ATTR_ASYNC_ENABLE}: vuelve en cuanto
+     * el driver responde {@code SQL_STILL_EXECUTING} y se completa sondeando con
+     * {@link #pollAsync}. Termina con {@link #finishQuery} o {@link #finishUpdate}.
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @param sql           Sentencia SQL
+     * @param params        Parámetros, o null
+     * @return Puntero a la llamada pendiente
+     * @throws Exception Si falla el enlace o el driver no admite el modo asíncrono
+     */
+    public native long executeAsync(long connectionPtr, String sql, Object[] params) throws Exception;
+
+    /**
+     * Sondea una llamada iniciada con {@link #executeAsync}.
+     *
+     * @param callPtr Puntero a la llamada pendiente
+     * @return true cuando ha terminado (con éxito o con error)
+     */
+    public native boolean pollAsync(long callPtr);
+
+    /**
+     * Cancela con {@code SQLCancel} una llamada asíncrona; termina con
+     * {@link java.sql.SQLTimeoutException} al llamar a finish.
+     *
+     * @param callPtr Puntero a la llamada pendiente
+     * @return true si el driver aceptó la cancelación
+     */
+    public native boolean cancelAsync(long callPtr);
+
+    /**
+     * Termina una consulta asíncrona ya completada y libera la llamada.
+     *
+     * @param callPtr Puntero a la llamada
+     * @return Puntero al resultado, como {@link #query}
+     * @throws Exception Si la consulta falló
+     */
+    public native long finishQuery(long callPtr) throws Exception;
+
+    /**
+     * Termina una sentencia DML/DDL asíncrona ya completada y libera la llamada.
+     *
+     * @param callPtr Puntero a la llamada
+     * @return Filas afectadas, como {@link #execute}
+     * @throws Exception Si la sentencia falló
+     */
+    public native int finishUpdate(long callPtr) throws Exception;
+
+    /**
+     * Devuelve los contadores de la caché de sentencias de la conexión.
+     *
+     * @param connectionPtr Puntero a la conexión JNI
+     * @return {aciertos, fallos, expulsiones, tamaño, capacidad}
+     */
+    public native long[] getStatementCacheStats(long connectionPtr);
+
     /**
      * Obtiene los metadatos de las columnas del resultado de una consulta.
      * 
@@ -211,7 +581,126 @@ public class ODBCBridge {
      * @throws Exception Si ocurre un error al obtener la fila
      */
     public native Object[] fetchArray(long queryPtr) throws Exception;
-    
+
+    /**
+     * Obtiene un bloque de filas del resultado con un solo {@code SQLFetch}.
+     *
+     * <p>En la primera llamada las columnas se enlazan con {@code SQLBindCol}
+     * y {@code SQL_ATTR_ROW_ARRAY_SIZE}, por lo que el tamaño del bloque queda
+     * fijado por el {@code maxRows} de esa llamada. Si alguna columna no se puede
+     * enlazar (p. ej. LONGVARCHAR) las filas se leen una a una con
+     * {@code SQLGetData}. No debe mezclarse con {@link #fetchArray(long)}
+     * sobre la misma consulta.</p>
+     *
+     * @param queryPtr Puntero al resultado de la consulta
+     * @param maxRows Número máximo de filas por bloque
+     * @return Array de filas (cada una un array de objetos), o null si no hay más filas
+     * @throws Exception Si ocurre un error al obtener las filas
+     */
+    public native Object[][] fetchBlock(long queryPtr, int maxRows) throws Exception;
+
+    /**
+     * Avanza una fila leyendo con {@code SQLGetData} solo las
+     * {@code eagerColumns} primeras columnas; el resto queda a null y se lee
+     * después, en orden creciente, con {@link #getColumn} o {@link #readChunk}.
+     * Lee siempre fila a fila y no debe mezclarse con {@link #fetchBlock} ni
+     * {@link #fetchColumns}.
+     *
+     * @param queryPtr     Puntero al resultado de la consulta
+     * @param eagerColumns Número de columnas que se leen al avanzar
+     * @return Array de objetos de la fila, o null si no hay más filas
+     * @throws Exception Si ocurre un error al obtener la fila
+     */
+    public native Object[] fetchRow(long queryPtr, int eagerColumns) throws Exception;
+
+    /**
+     * Lee completa una columna de la fila actual (después de {@link #fetchRow}).
+     *
+     * @param queryPtr Puntero al resultado de la consulta
+     * @param column   Índice 1-based de la columna
+     * @return Valor de la columna, o null si es NULL
+     * @throws Exception Si ocurre un error al leer la columna
+     */
+    public native Object getColumn(long queryPtr, int column) throws Exception;
+
+    /**
+     * Lee el siguiente trozo de una columna de la fila actual con
+     * {@code SQLGetData} (después de {@link #fetchRow}).
+     *
+     * @param queryPtr Puntero al resultado de la consulta
+     * @param column   Índice 1-based de la columna
+     * @param buffer   Destino del trozo; su longitud fija el tamaño del trozo
+     * @param text     true para leer como texto (sin terminador), false como binario
+     * @return Bytes copiados, -1 si no quedan datos o -2 si el valor es NULL
+     * @throws Exception Si ocurre un error al leer
+     */
+    public native int readChunk(long queryPtr, int column, byte[] buffer, boolean text) throws Exception;
+
+    /**
+     * Lee el siguiente trozo de texto de una columna de la fila actual como
+     * {@code SQL_C_WCHAR}: las unidades UTF-16 del driver se copian tal cual.
+     *
+     * @param queryPtr Puntero al resultado de la consulta
+     * @param column   Índice 1-based de la columna
+     * @param buffer   Destino del trozo; su longitud fija el tamaño del trozo
+     * @return Caracteres copiados, -1 si no quedan datos o -2 si el valor es NULL
+     * @throws Exception Si ocurre un error al leer
+     */
+    public native int readChars(long queryPtr, int column, char[] buffer) throws Exception;
+
+    /**
+     * Devuelve cómo se almacena cada columna en {@link #fetchColumns}:
+     * 0 = INTEGER/SMALLINT/TINYINT y 1 = BIGINT (en {@code long[]}),
+     * 2 = REAL/FLOAT y 3 = DOUBLE (en {@code double[]}), 4 = resto (en {@code Object[]}).
+     *
+     * @param queryPtr Puntero al resultado de la consulta
+     * @return Almacenamiento de cada columna
+     */
+    public native int[] getColumnKinds(long queryPtr);
+
+    /**
+     * Lee un bloque de filas en formato columnar: los enteros y reales se copian
+     * del buffer enlazado a arrays primitivos sin crear objetos.
+     *
+     * <p>Comparte el enlace de columnas con {@link #fetchBlock(long, int)} y no
+     * debe mezclarse con él ni con {@link #fetchArray(long)}.</p>
+     *
+     * @param queryPtr Puntero al resultado de la consulta
+     * @param maxRows  Número máximo de filas por bloque
+     * @param columns  Un array por columna ({@code long[]}, {@code double[]} u
+     *                 {@code Object[]} según {@link #getColumnKinds}) de al menos {@code maxRows}
+     * @param nulls    Un {@code boolean[]} por columna de al menos {@code maxRows}
+     * @return Filas leídas, o 0 si no hay más
+     * @throws Exception Si ocurre un error al obtener las filas
+     */
+    public native int fetchColumns(long queryPtr, int maxRows, Object[] columns, Object[] nulls) throws Exception;
+
+    /**
+     * Enlaza las columnas del resultado por filas en un buffer nativo y lo
+     * expone sin copias como {@code DirectByteBuffer}. Enteros (y decimales sin
+     * escala) se leen como {@code long}, reales y decimales como {@code double}
+     * y el resto como texto. No debe mezclarse con {@link #fetchArray(long)} ni
+     * {@link #fetchBlock(long, int)}.
+     *
+     * @param queryPtr Puntero al resultado de la consulta (sin leer todavía)
+     * @param maxRows  Filas por bloque
+     * @param layout   Recibe {tamaño de fila, bytes del indicador, filas del bloque}
+     *                 y por columna {tipo, desplazamiento del valor, desplazamiento
+     *                 del indicador, ancho}; debe tener {@code 3 + 4 * columnas} elementos
+     * @return Buffer con el bloque de filas (orden de bytes nativo)
+     * @throws Exception Si alguna columna es demasiado ancha o falla el enlace
+     */
+    public native java.nio.ByteBuffer bindDirect(long queryPtr, int maxRows, int[] layout) throws Exception;
+
+    /**
+     * Lee el siguiente bloque de filas sobre el buffer de {@link #bindDirect}.
+     *
+     * @param queryPtr Puntero al resultado de la consulta
+     * @return Filas leídas, o 0 si no hay más
+     * @throws Exception Si ocurre un error al obtener las filas
+     */
+    public native int fetchDirect(long queryPtr) throws Exception;
+
     /**
      * Libera los recursos asociados a una consulta.
      * 
@@ -0,0 +1,38 @@
+package odbcbridge;
+
+/**
+ * Instantánea de los contadores de una caché (p. ej. la caché de sentencias
+ * preparadas de una {@link ODBCConnection}).
+ */
+public class ODBCCacheStats {
+    /** Búsquedas resueltas desde la caché. */
+    public final long hits;
+    /** Búsquedas que no estaban en la caché. */
+    public final long misses;
+    /** Entradas expulsadas por falta de espacio. */
+    public final long evictions;
+    /** Entradas guardadas en este momento. */
+    public final long size;
+    /** Número máximo de entradas (-1 si no tiene límite). */
+    public final long capacity;
+
+    public ODBCCacheStats(long hits, long misses, long evictions, long size, long capacity) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.capacity = capacity;
+    }
+
+    /** Proporción de aciertos (0 si todavía no hubo búsquedas). */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, hitRatio=%.3f, evictions=%d, size=%d/%d",
+            hits, misses, getHitRatio(), evictions, size, capacity);
+    }
+}
@@ -0,0 +1,46 @@
+package odbcbridge;
+
+import java.math.BigDecimal;
+
+/**
+ * Resultado leído entero en memoria con el mismo formato columnar que los
+ * bloques de {@link ODBCResultSet}: un array primitivo por columna numérica,
+ * un {@code Object[]} por columna de texto o binaria y un {@code boolean[]}
+ * de nulos por columna. Los arrays no se modifican una vez creado, así que
+ * varios {@link ODBCResultSet} pueden recorrerlo a la vez.
+ */
+final class ODBCCachedResult {
+    // Estimación de la cabecera de un objeto
+    private static final int OBJECT_HEADER = 16;
+
+    final ODBCField[] fields;
+    final int[] kinds;
+    final Object[] columns;
+    final boolean[][] nulls;
+    final int rows;
+    /** Memoria aproximada en bytes. */
+    final long bytes;
+
+    ODBCCachedResult(ODBCField[] fields, int[] kinds, Object[] columns, boolean[][] nulls, int rows, long bytes) {
+        this.fields = fields;
+        this.kinds = kinds;
+        this.columns = columns;
+        this.nulls = nulls;
+        this.rows = rows;
+        this.bytes = bytes;
+    }
+
+    /** Abre un nuevo recorrido del resultado. */
+    ODBCResultSet open() {
+        return new ODBCResultSet(this);
+    }
+
+    // Tamaño aproximado de un valor de una columna no primitiva
+    static long sizeOf(Object value) {
+        if (value == null) return 0;
+        if (value instanceof String) return OBJECT_HEADER + 24 + 2L * ((String) value).length();
+        if (value instanceof byte[]) return OBJECT_HEADER + ((byte[]) value).length;
+        if (value instanceof BigDecimal) return OBJECT_HEADER + 48;
+        return OBJECT_HEADER + 16;
+    }
+}
@@ -0,0 +1,24 @@
+package odbcbridge;
+
+/**
+ * Columna de una tabla según el catálogo ({@code SQLColumns}): además del
+ * nombre, tipo y tamaño de {@link ODBCField} indica a qué tabla pertenece.
+ */
+public class ODBCColumn extends ODBCField {
+    /** Esquema de la tabla (null si el driver no usa esquemas). */
+    public final String schema;
+    /** Nombre de la tabla. */
+    public final String table;
+
+    public ODBCColumn(String name, int type, int size, String schema, String table) {
+        super(name, type, size);
+        this.schema = schema;
+        this.table = table;
+    }
+
+    @Override
+    public String toString() {
+        return "ODBCColumn{" + "table=" + (schema == null ? "" : schema + ".") + table
+            + ", name=" + name + ", type=" + getTypeName() + ", size=" + size + '}';
+    }
+}
@@ -0,0 +1,1207 @@
+package odbcbridge;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Wrapper de nivel alto para ODBCBridge usando AutoCloseable.
+ */
+public class ODBCConnection implements AutoCloseable {
+    /** Filas por bloque usadas por defecto al leer resultados. */
+    public static final int DEFAULT_FETCH_SIZE = 256;
+    /** Sentencias preparadas que guarda por defecto la caché de cada conexión. */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+    /** Filas por {@code SQLExecute} usadas por defecto en {@link #executeBatch}. */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    /** Memoria máxima por defecto (bytes) de los buffers de un bloque del lote. */
+    public static final long DEFAULT_BATCH_MEMORY_BUDGET = 16L * 1024 * 1024;
+
+    /**
+     * Tamaño (bytes o caracteres) a partir del cual una columna de texto o
+     * binaria se lee bajo demanda en lugar de materializarse con la fila.
+     */
+    public static final int DEFAULT_LOB_THRESHOLD = 64 * 1024;
+
+    /** Memoria por defecto (bytes) de la copia de un resultado desacoplado antes de pasar a disco. */
+    public static final long DEFAULT_DETACHED_MEMORY_BUDGET = 16L * 1024 * 1024;
+
+    /** Cursor de solo avance ({@code SQL_CURSOR_FORWARD_ONLY}), el usado por defecto. */
+    public static final int CURSOR_FORWARD_ONLY = 0;
+    /** Cursor dirigido por claves ({@code SQL_CURSOR_KEYSET_DRIVEN}). */
+    public static final int CURSOR_KEYSET_DRIVEN = 1;
+    /** Cursor dinámico ({@code SQL_CURSOR_DYNAMIC}). */
+    public static final int CURSOR_DYNAMIC = 2;
+    /** Cursor estático ({@code SQL_CURSOR_STATIC}). */
+    public static final int CURSOR_STATIC = 3;
+
+    /** Solo lectura ({@code SQL_CONCUR_READ_ONLY}), la usada por defecto. */
+    public static final int CONCUR_READ_ONLY = 1;
+    /** Bloqueo de las filas leídas ({@code SQL_CONCUR_LOCK}). */
+    public static final int CONCUR_LOCK = 2;
+    /** Optimista por versión de fila ({@code SQL_CONCUR_ROWVER}). */
+    public static final int CONCUR_ROWVER = 3;
+    /** Optimista por valores ({@code SQL_CONCUR_VALUES}). */
+    public static final int CONCUR_VALUES = 4;
+
+    // SQL_BATCH_SUPPORT necesario para enviar un script entero: SQL_BS_SELECT_EXPLICIT | SQL_BS_ROW_COUNT_EXPLICIT
+    private static final int BATCH_STATEMENTS = 0x1 | 0x2;
+
+    private static final ODBCBridge nativeBridge = ODBCBridge.INSTANCE;
+    private final long handle;
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private long batchMemoryBudget = DEFAULT_BATCH_MEMORY_BUDGET;
+    private int lobThreshold = DEFAULT_LOB_THRESHOLD;
+    private long detachedMemoryBudget = DEFAULT_DETACHED_MEMORY_BUDGET;
+    private boolean wideChars;
+    private int queryTimeout;
+    private int cursorType = CURSOR_FORWARD_ONLY;
+    private int concurrency = CONCUR_READ_ONLY;
+    private boolean noScan;
+    private long maxRows;
+    private ODBCMetrics metrics;
+    // DSN (o DRIVER) de la conexión para los eventos JFR
+    private String dataSourceName;
+    private ODBCMetadataCache metadataCache;
+    private ODBCResultCache resultCache;
+    private boolean autoCommit = true;
+    // Aislamiento de la conexión antes del primer cambio, para restaurarlo en el pool (0 = sin cambiar)
+    private int originalIsolation;
+    // SAVEPOINT, ROLLBACK TO y RELEASE del DBMS, resueltos la primera vez
+    private String[] savepointSql;
+    private int savepointCount;
+    // Tablas modificadas en la transacción en curso, para la caché de resultados
+    private final Set<String> transactionTables = new HashSet<>();
+    private boolean transactionChangedAll;
+    // Evita cancelar sobre una conexión ya cerrada
+    private final Object cancelLock = new Object();
+    private volatile boolean closed;
+
+    public ODBCConnection(long handle) {
+        this.handle = handle;
+    }
+    
+    public static ODBCConnection connectWithString(String connectionString) throws Exception {
+        return connectWithString(connectionString, 0);
+    }
+
+    /**
+     * Conecta pidiendo un tamaño de paquete de red ({@code SQL_ATTR_PACKET_SIZE});
+     * solo puede elegirse al conectar y el driver puede ajustarlo o ignorarlo.
+     *
+     * @param connectionString Cadena completa de conexión ODBC
+     * @param packetSize       Bytes por paquete; 0 usa el del driver
+     * @see #getPacketSize()
+     */
+    public static ODBCConnection connectWithString(String connectionString, int packetSize) throws Exception {
+        if (packetSize < 0) throw new IllegalArgumentException("packetSize no puede ser negativo: " + packetSize);
+        String name = dataSourceName(connectionString);
+        Object event = ODBCEvents.beginConnect();
+        long connectionPtr;
+        try {
+            connectionPtr = packetSize > 0
+                    ? nativeBridge.connectWithPacketSize(connectionString, packetSize)
+                    : nativeBridge.connectWithString(connectionString);
+        } catch (Exception e) {
+            ODBCEvents.commitConnect(event, name, false);
+            throw e;
+        }
+        ODBCEvents.commitConnect(event, name, true);
+        try {
+            return new ODBCConnection(connectionPtr).setDataSourceName(name);
+        } catch (Exception e) {
+            if (connectionPtr != 0) {
+                ODBCBridge.INSTANCE.close(connectionPtr);
+            }
+            throw e;
+        }
+    }
+    
+    public static ODBCConnection connect(String dsn, String uid, String pwd) throws Exception {
+        Object event = ODBCEvents.beginConnect();
+        long connectionPtr;
+        try {
+            connectionPtr = nativeBridge.connect(dsn, uid, pwd);
+        } catch (Exception e) {
+            ODBCEvents.commitConnect(event, dsn, false);
+            throw e;
+        }
+        ODBCEvents.commitConnect(event, dsn, true);
+        try {
+            return new ODBCConnection(connectionPtr).setDataSourceName(dsn);
+        } catch (Exception e) {
+            if (connectionPtr != 0) {
+                ODBCBridge.INSTANCE.close(connectionPtr);
+            }
+            throw e;
+        }
+    }
+    
+    public static ODBCConnection connect(String dsn) throws Exception {
+        Object event = ODBCEvents.beginConnect();
+        long connectionPtr;
+        try {
+            connectionPtr = nativeBridge.connect(dsn);
+        } catch (Exception e) {
+            ODBCEvents.commitConnect(event, dsn, false);
+            throw e;
+        }
+        ODBCEvents.commitConnect(event, dsn, true);
+        try {
+            return new ODBCConnection(connectionPtr).setDataSourceName(dsn);
+        } catch (Exception e) {
+            if (connectionPtr != 0) {
+                ODBCBridge.INSTANCE.close(connectionPtr);
+            }
+            throw e;
+        }
+    }
+  
+    // Valor de DSN= (o DRIVER=) de una cadena de conexión, para identificar la conexión en los eventos
+    static String dataSourceName(String connectionString) {
+        String driver = null;
+        for (String part : connectionString.split(";")) {
+            int eq = part.indexOf('=');
+            if (eq <= 0) continue;
+            String key = part.substring(0, eq).trim();
+            if (key.equalsIgnoreCase("DSN")) return part.substring(eq + 1).trim();
+            if (key.equalsIgnoreCase("DRIVER") && driver == null) driver = part.substring(eq + 1).trim();
+        }
+        return driver;
+    }
+
+    /** Lista tablas disponibles */
+    public String[] listTables() throws Exception {
+        ensureOpen();
+        if (metadataCache == null) return nativeBridge.listTables(handle());
+        return metadataCache.get(ODBCMetadataCache.TABLES, () -> nativeBridge.listTables(handle())).clone();
+    }
+
+    /** Lista columnas de tabla (cada una es un {@link ODBCColumn}). */
+    public ODBCField[] listColumns(String table) throws Exception {
+        if (table == null) throw new IllegalArgumentException("table no puede ser null; usar listAllColumns()");
+        ensureOpen();
+        if (metadataCache == null) return nativeBridge.listColumns(handle(), table);
+        return metadataCache.get(ODBCMetadataCache.COLUMNS_PREFIX + table,
+                () -> nativeBridge.listColumns(handle(), table)).clone();
+    }
+
+    /**
+     * Lista las columnas de todas las tablas con una sola llamada a
+     * {@code SQLColumns}, agrupadas por nombre de tabla en el orden del
+     * catálogo. Incluye vistas y tablas de sistema si el driver las informa;
+     * con el mismo nombre en varios esquemas, {@link ODBCColumn#schema} las distingue.
+     */
+    public Map<String, ODBCField[]> listAllColumns() throws Exception {
+        ensureOpen();
+        ODBCField[] all = metadataCache == null
+                ? nativeBridge.listColumns(handle(), null)
+                : metadataCache.get(ODBCMetadataCache.ALL_COLUMNS, () -> nativeBridge.listColumns(handle(), null));
+
+        Map<String, ODBCField[]> byTable = new LinkedHashMap<>();
+        int start = 0;
+        for (int i = 1; i <= all.length; i++) {
+            // El catálogo devuelve las columnas de cada tabla seguidas
+            if (i == all.length || !tableOf(all[i]).equals(tableOf(all[start]))) {
+                String table = tableOf(all[start]);
+                ODBCField[] columns = Arrays.copyOfRange(all, start, i);
+                ODBCField[] previous = byTable.get(table);
+                if (previous != null) {
+                    ODBCField[] merged = Arrays.copyOf(previous, previous.length + columns.length);
+                    System.arraycopy(columns, 0, merged, previous.length, columns.length);
+                    columns = merged;
+                }
+                byTable.put(table, columns);
+                start = i;
+            }
+        }
+        if (metadataCache != null) {
+            for (Map.Entry<String, ODBCField[]> entry : byTable.entrySet()) {
+                metadataCache.put(ODBCMetadataCache.COLUMNS_PREFIX + entry.getKey(), entry.getValue().clone());
+            }
+        }
+        return byTable;
+    }
+
+    private static String tableOf(ODBCField field) {
+        String table = ((ODBCColumn) field).table;
+        return table == null ? "" : table;
+    }
+
+    /** Lista las columnas de la clave primaria de una tabla, en orden. */
+    public String[] listPrimaryKeys(String table) throws Exception {
+        ensureOpen();
+        if (metadataCache == null) return nativeBridge.listPrimaryKeys(handle(), table);
+        return metadataCache.get(ODBCMetadataCache.PRIMARY_KEYS_PREFIX + table,
+                () -> nativeBridge.listPrimaryKeys(handle(), table)).clone();
+    }
+
+    /** Devuelve la caché del catálogo de esta conexión, o null si no tiene. */
+    public ODBCMetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    /**
+     * Guarda en {@code cache} las lecturas del catálogo ({@link #listTables},
+     * {@link #listColumns}, {@link #listPrimaryKeys}, {@link #getDatabaseInfo});
+     * null lee siempre del driver. Las conexiones de un {@link ODBCDataSource}
+     * con caché de metadatos ya la tienen.
+     */
+    public ODBCConnection setMetadataCache(ODBCMetadataCache cache) {
+        this.metadataCache = cache;
+        return this;
+    }
+
+    /** Devuelve la caché de resultados de esta conexión, o null si no tiene. */
+    public ODBCResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Guarda los resultados de {@link #query} en {@code cache} (null para no
+     * usar caché) y descarta de ella lo que modifiquen las sentencias de esta
+     * conexión. Las conexiones de un {@link ODBCDataSource} con caché de
+     * resultados ya la tienen.
+     */
+    public ODBCConnection setResultCache(ODBCResultCache cache) {
+        this.resultCache = cache;
+        return this;
+    }
+
+    // Descarta de la caché de resultados lo que 'sql' puede haber modificado;
+    // dentro de una transacción lo recuerda para descartarlo otra vez al confirmarla
+    void invalidateResults(String sql) {
+        ODBCResultCache cache = resultCache;
+        if (cache == null) return;
+        Set<String> tables = cache.invalidateStatement(sql);
+        if (!autoCommit) {
+            if (tables == null) transactionChangedAll = true;
+            else transactionTables.addAll(tables);
+        }
+    }
+
+    // La transacción en curso ha modificado datos que otras conexiones aún no ven
+    private boolean hasUncommittedChanges() {
+        return transactionChangedAll || !transactionTables.isEmpty();
+    }
+    
+    /** Comprueba si la conexión sigue viva (SQL_ATTR_CONNECTION_DEAD). */
+    public boolean isAlive() {
+        return !isClosed() && nativeBridge.isAlive(handle);
+    }
+
+    /** Indica si la conexión se cerró (o, si es de un pool, se devolvió). */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // Lanza SQLException si la conexión ya no puede usarse; ODBCConnectionPool
+    // lo redefine para los préstamos devueltos, cuyo handle puede tener otro dueño
+    void ensureOpen() throws SQLException {
+        if (closed) throw new SQLException("La conexión está cerrada");
+    }
+
+    // Puntero nativo de la conexión tras comprobar que sigue abierta
+    long handle() throws SQLException {
+        ensureOpen();
+        return handle;
+    }
+
+    /** Obtiene información de la base de datos. */
+    public ODBCInfo getDatabaseInfo() throws Exception {
+        ensureOpen();
+        if (metadataCache == null) return nativeBridge.getDatabaseInfo(handle());
+        return metadataCache.get(ODBCMetadataCache.INFO, () -> nativeBridge.getDatabaseInfo(handle()));
+    }
+
+    /** Devuelve el número de filas por bloque usado por {@link #query}. */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Establece el número de filas leídas por cada {@code SQLFetch}.
+     * Un valor de 1 desactiva la lectura por bloques.
+     */
+    public ODBCConnection setFetchSize(int fetchSize) {
+        if (fetchSize < 1) throw new IllegalArgumentException("fetchSize debe ser mayor que 0: " + fetchSize);
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /** Devuelve el tamaño a partir del cual las columnas se leen bajo demanda. */
+    public int getLobThreshold() {
+        return lobThreshold;
+    }
+
+    /**
+     * Establece el tamaño declarado (bytes o caracteres) a partir del cual una
+     * columna de texto o binaria no se materializa con la fila y se lee bajo
+     * demanda, p. ej. con {@link ODBCResultSet#getBinaryStream(int)}. Las
+     * columnas de tamaño desconocido se leen siempre bajo demanda.
+     */
+    public ODBCConnection setLobThreshold(int lobThreshold) {
+        if (lobThreshold < 0) throw new IllegalArgumentException("lobThreshold no puede ser negativo: " + lobThreshold);
+        this.lobThreshold = lobThreshold;
+        return this;
+    }
+
+    /** Devuelve la memoria (bytes) de la copia de los resultados desacoplados antes de pasar a disco. */
+    public long getDetachedMemoryBudget() {
+        return detachedMemoryBudget;
+    }
+
+    /**
+     * Establece cuántos bytes de un resultado desacoplado
+     * ({@link ODBCQueryOptions#setDetached(boolean)}) se guardan en el heap;
+     * el resto va a un archivo temporal mapeado en memoria.
+     */
+    public ODBCConnection setDetachedMemoryBudget(long detachedMemoryBudget) {
+        if (detachedMemoryBudget < 0) {
+            throw new IllegalArgumentException("detachedMemoryBudget no puede ser negativo: " + detachedMemoryBudget);
+        }
+        this.detachedMemoryBudget = detachedMemoryBudget;
+        return this;
+    }
+
+    /** Indica si la conexión usa el modo UTF-16 ({@code SQL_C_WCHAR}). */
+    public boolean isWideChars() {
+        return wideChars;
+    }
+
+    /**
+     * Activa el modo UTF-16: texto SQL, parámetros y columnas de texto viajan
+     * como {@code SQL_C_WCHAR} sin convertirse a la página de códigos ANSI.
+     * Recomendado para esquemas con NVARCHAR y datos no latinos.
+     */
+    public ODBCConnection setWideChars(boolean wideChars) throws SQLException {
+        nativeBridge.setWideChars(handle(), wideChars);
+        this.wideChars = wideChars;
+        return this;
+    }
+
+    /** Devuelve el timeout por defecto de las sentencias en segundos (0 = sin límite). */
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    /**
+     * Establece el timeout por defecto ({@code SQL_ATTR_QUERY_TIMEOUT}) de las
+     * consultas y sentencias de la conexión; 0 las deja sin límite. Si se agota,
+     * la llamada lanza {@link java.sql.SQLTimeoutException}.
+     */
+    public ODBCConnection setQueryTimeout(int seconds) throws SQLException {
+        if (seconds < 0) throw new IllegalArgumentException("queryTimeout no puede ser negativo: " + seconds);
+        nativeBridge.setQueryTimeout(handle(), seconds);
+        this.queryTimeout = seconds;
+        return this;
+    }
+
+    // ==================== ATRIBUTOS DE SENTENCIA ====================
+
+    /** Devuelve el tipo de cursor de las consultas ({@code CURSOR_*}). */
+    public int getCursorType() {
+        return cursorType;
+    }
+
+    /**
+     * Establece el tipo de cursor ({@code SQL_ATTR_CURSOR_TYPE}) de las
+     * consultas; por defecto {@link #CURSOR_FORWARD_ONLY}, el único que no
+     * obliga al servidor a materializar el resultado. Se fija al preparar cada
+     * sentencia: las de la caché preparadas con otro cursor no se reutilizan.
+     */
+    public ODBCConnection setCursorType(int cursorType) throws SQLException {
+        if (cursorType < CURSOR_FORWARD_ONLY || cursorType > CURSOR_STATIC) {
+            throw new IllegalArgumentException("cursorType no válido: " + cursorType);
+        }
+        this.cursorType = cursorType;
+        applyStatementOptions();
+        return this;
+    }
+
+    /** Devuelve la concurrencia de las consultas ({@code CONCUR_*}). */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Establece la concurrencia ({@code SQL_ATTR_CONCURRENCY}) de las
+     * consultas; por defecto {@link #CONCUR_READ_ONLY}. Como el cursor, se
+     * fija al preparar cada sentencia.
+     */
+    public ODBCConnection setConcurrency(int concurrency) throws SQLException {
+        if (concurrency < CONCUR_READ_ONLY || concurrency > CONCUR_VALUES) {
+            throw new IllegalArgumentException("concurrency no válida: " + concurrency);
+        }
+        this.concurrency = concurrency;
+        applyStatementOptions();
+        return this;
+    }
+
+    /** Devuelve el límite de filas de cada resultado (0 = sin límite). */
+    public long getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * Establece el número máximo de filas que devuelve el driver en cada
+     * resultado ({@code SQL_ATTR_MAX_ROWS}); 0 las deja sin límite. Con un
+     * límite las consultas no usan la caché de resultados.
+     */
+    public ODBCConnection setMaxRows(long maxRows) throws SQLException {
+        if (maxRows < 0) throw new IllegalArgumentException("maxRows no puede ser negativo: " + maxRows);
+        this.maxRows = maxRows;
+        applyStatementOptions();
+        return this;
+    }
+
+    /** Indica si el driver deja sin procesar las secuencias de escape ODBC. */
+    public boolean isNoScan() {
+        return noScan;
+    }
+
+    /**
+     * Con true el driver no busca secuencias de escape ODBC ({@code {fn ...}},
+     * {@code {d ...}}...) en el texto SQL ({@code SQL_ATTR_NOSCAN}), lo que
+     * ahorra recorrerlo en cada preparación si no se usan.
+     */
+    public ODBCConnection setNoScan(boolean noScan) throws SQLException {
+        this.noScan = noScan;
+        applyStatementOptions();
+        return this;
+    }
+
+    /** Devuelve el tamaño del paquete de red negociado en bytes, o 0 si el driver no lo informa. */
+    public int getPacketSize() throws SQLException {
+        return nativeBridge.getPacketSize(handle());
+    }
+
+    private void applyStatementOptions() throws SQLException {
+        nativeBridge.setStatementOptions(handle(), cursorType, concurrency, noScan, maxRows);
+    }
+
+    // ==================== TRANSACCIONES ====================
+
+    /** Indica si cada sentencia se confirma al ejecutarla (por defecto true). */
+    public boolean getAutoCommit() {
+        return autoCommit;
+    }
+
+    /**
+     * Activa o desactiva el modo autocommit ({@code SQL_ATTR_AUTOCOMMIT}). Sin
+     * autocommit las sentencias forman una transacción que termina con
+     * {@link #commit()} o {@link #rollback()}, y el servidor escribe su log una
+     * vez por transacción en lugar de una por sentencia. Al volver a activarlo
+     * el driver confirma la transacción en curso.
+     */
+    public ODBCConnection setAutoCommit(boolean autoCommit) throws Exception {
+        ensureOpen();
+        if (autoCommit == this.autoCommit) return this;
+        nativeBridge.setAutoCommit(handle(), autoCommit);
+        this.autoCommit = autoCommit;
+        if (autoCommit) {
+            transactionEnded(true);
+        }
+        return this;
+    }
+
+    /** Confirma la transacción en curso ({@code SQLEndTran} con {@code SQL_COMMIT}). */
+    public void commit() throws Exception {
+        checkTransaction();
+        nativeBridge.endTransaction(handle(), true);
+        transactionEnded(true);
+    }
+
+    /** Deshace la transacción en curso ({@code SQLEndTran} con {@code SQL_ROLLBACK}). */
+    public void rollback() throws Exception {
+        checkTransaction();
+        nativeBridge.endTransaction(handle(), false);
+        transactionEnded(false);
+    }
+
+    // Al confirmar, los resultados guardados por otras conexiones durante la
+    // transacción dejan de valer para las tablas que modificó. Al deshacerla
+    // no hay nada que descartar: la caché no guardó datos sin confirmar.
+    private void transactionEnded(boolean committed) {
+        ODBCResultCache cache = resultCache;
+        if (committed && cache != null) {
+            if (transactionChangedAll) {
+                cache.invalidate();
+            } else {
+                for (String table : transactionTables) {
+                    cache.invalidateTable(table);
+                }
+            }
+        }
+        transactionTables.clear();
+        transactionChangedAll = false;
+        savepointCount = 0;
+    }
+
+    private void checkTransaction() {
+        if (autoCommit) {
+            throw new IllegalStateException("La conexión está en modo autocommit");
+        }
+    }
+
+    /**
+     * Ejecuta {@code work} en una transacción: la confirma si termina bien y
+     * la deshace si lanza una excepción. Si la conexión ya está en una
+     * transacción, {@code work} se ejecuta dentro de un savepoint y solo se
+     * deshace lo que hizo.
+     *
+     * <pre>
+     * connection.inTransaction(conn -&gt; {
+     *     conn.execute("UPDATE accounts SET balance = balance - ? WHERE id = ?", new Object[]{ 100, 1 });
+     *     return conn.execute("UPDATE accounts SET balance = balance + ? WHERE id = ?", new Object[]{ 100, 2 });
+     * });
+     * </pre>
+     */
+    public <T> T inTransaction(TransactionCallback<T> work) throws Exception {
+        ensureOpen();
+        if (!autoCommit) {
+            ODBCSavepoint savepoint = setSavepoint();
+            T result;
+            try {
+                result = work.doInTransaction(this);
+            } catch (Throwable e) {
+                try {
+                    rollback(savepoint);
+                } catch (Exception suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+            releaseSavepoint(savepoint);
+            return result;
+        }
+        setAutoCommit(false);
+        T result;
+        try {
+            result = work.doInTransaction(this);
+            commit();
+        } catch (Throwable e) {
+            try {
+                rollback();
+            } catch (Exception suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            try {
+                setAutoCommit(true);
+            } catch (Exception suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        setAutoCommit(true);
+        return result;
+    }
+
+    /** Crea un savepoint con un nombre generado ({@code SP_1}, {@code SP_2}...). */
+    public ODBCSavepoint setSavepoint() throws Exception {
+        return setSavepoint("SP_" + (savepointCount + 1));
+    }
+
+    /**
+     * Crea un savepoint en la transacción en curso. ODBC no tiene una función
+     * para ello, así que se ejecuta la sentencia del DBMS: {@code SAVEPOINT},
+     * o {@code SAVE TRANSACTION} en SQL Server.
+     *
+     * @param name Nombre del savepoint (letras, dígitos y '_')
+     */
+    public ODBCSavepoint setSavepoint(String name) throws Exception {
+        checkTransaction();
+        if (!name.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Nombre de savepoint no válido: " + name);
+        }
+        nativeBridge.execute(handle(), savepointSql()[0] + name, null);
+        savepointCount++;
+        return new ODBCSavepoint(name);
+    }
+
+    /** Deshace lo ejecutado desde {@code savepoint}; la transacción sigue abierta. */
+    public void rollback(ODBCSavepoint savepoint) throws Exception {
+        checkTransaction();
+        nativeBridge.execute(handle(), savepointSql()[1] + savepoint.getName(), null);
+    }
+
+    /** Libera {@code savepoint}; no hace nada en los DBMS que no lo admiten (SQL Server, Oracle). */
+    public void releaseSavepoint(ODBCSavepoint savepoint) throws Exception {
+        checkTransaction();
+        String release = savepointSql()[2];
+        if (release != null) {
+            nativeBridge.execute(handle(), release + savepoint.getName(), null);
+        }
+    }
+
+    // Sentencias de savepoint según el DBMS de la conexión
+    private String[] savepointSql() throws Exception {
+        if (savepointSql == null) {
+            String dbms = String.valueOf(getDatabaseInfo().dbmsName).toLowerCase(Locale.ROOT);
+            if (dbms.contains("sql server") || dbms.contains("sybase") || dbms.contains("adaptive server")) {
+                savepointSql = new String[] { "SAVE TRANSACTION ", "ROLLBACK TRANSACTION ", null };
+            } else if (dbms.contains("oracle")) {
+                savepointSql = new String[] { "SAVEPOINT ", "ROLLBACK TO SAVEPOINT ", null };
+            } else {
+                savepointSql = new String[] { "SAVEPOINT ", "ROLLBACK TO SAVEPOINT ", "RELEASE SAVEPOINT " };
+            }
+        }
+        return savepointSql;
+    }
+
+    /**
+     * Devuelve el nivel de aislamiento ({@link Connection#TRANSACTION_READ_COMMITTED}
+     * y demás constantes de {@link Connection}).
+     */
+    public int getTransactionIsolation() throws Exception {
+        return nativeBridge.getTransactionIsolation(handle());
+    }
+
+    /**
+     * Cambia el nivel de aislamiento ({@code SQL_ATTR_TXN_ISOLATION}). Los
+     * valores son las constantes {@code TRANSACTION_*} de {@link Connection},
+     * que coinciden con las {@code SQL_TXN_*} de ODBC. Muchos drivers solo lo
+     * admiten fuera de una transacción.
+     */
+    public ODBCConnection setTransactionIsolation(int level) throws Exception {
+        switch (level) {
+            case Connection.TRANSACTION_READ_UNCOMMITTED:
+            case Connection.TRANSACTION_READ_COMMITTED:
+            case Connection.TRANSACTION_REPEATABLE_READ:
+            case Connection.TRANSACTION_SERIALIZABLE:
+                break;
+            default:
+                throw new IllegalArgumentException("Nivel de aislamiento no válido: " + level);
+        }
+        if (originalIsolation == 0) {
+            originalIsolation = nativeBridge.getTransactionIsolation(handle());
+        }
+        nativeBridge.setTransactionIsolation(handle(), level);
+        return this;
+    }
+
+    // Deja la conexión como estaba antes de prestarla (ODBCConnectionPool): deshace
+    // la transacción sin terminar y restaura el autocommit y el aislamiento
+    void resetTransactionState() throws Exception {
+        if (!autoCommit) {
+            rollback();
+            setAutoCommit(true);
+        }
+        if (originalIsolation != 0) {
+            nativeBridge.setTransactionIsolation(handle(), originalIsolation);
+            originalIsolation = 0;
+        }
+    }
+
+    /**
+     * Cancela con {@code SQLCancel} la sentencia que esta conexión está
+     * ejecutando en otro hilo ({@link #query}, {@link #execute}, lotes...).
+     * La sentencia de la última consulta sigue registrada hasta que se cierra
+     * su resultado, así que también cancela la lectura en curso; con varios
+     * resultados abiertos a la vez, {@link ODBCResultSet#cancel()} elige cuál.
+     * La llamada cancelada lanza {@link java.sql.SQLTimeoutException}.
+     *
+     * @return false si no había ninguna sentencia en ejecución ni resultado abierto
+     */
+    public boolean cancel() {
+        synchronized (cancelLock) {
+            return !closed && nativeBridge.cancelConnection(handle);
+        }
+    }
+
+    /** Devuelve las métricas donde se registra esta conexión, o null si no tiene. */
+    public ODBCMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Registra los tiempos de ejecución y lectura de esta conexión y de sus
+     * resultados en {@code metrics} (null para no registrar nada). Las
+     * conexiones de un {@link ODBCDataSource} con métricas ya las tienen.
+     */
+    public ODBCConnection setMetrics(ODBCMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    // Nombre con el que la conexión aparece en los eventos JFR
+    String getDataSourceName() {
+        return dataSourceName;
+    }
+
+    ODBCConnection setDataSourceName(String dataSourceName) {
+        this.dataSourceName = dataSourceName;
+        return this;
+    }
+
+    // Marca de inicio para ODBCMetrics: 0 si no hay métricas o están desactivadas
+    long startTimer() {
+        ODBCMetrics m = metrics;
+        return m == null ? 0 : m.start();
+    }
+
+    // Cierra la medición de una consulta iniciada con startTimer y ODBCEvents.beginExecute
+    void recordExecute(long start, Object event, String sql, boolean success) {
+        if (start != 0) metrics.recordExecute(start, success);
+        ODBCEvents.commitExecute(event, dataSourceName, sql, -1, success);
+    }
+
+    // Igual para una sentencia DML/DDL: rows -1 si ha fallado
+    void recordUpdate(long start, Object event, String sql, int rows) {
+        if (start != 0) metrics.recordUpdate(start, rows != -1, rows);
+        ODBCEvents.commitExecute(event, dataSourceName, sql, rows, rows != -1);
+    }
+
+    /** Ejecuta query y devuelve un wrapper AutoCloseable */
+    public ODBCResultSet query(String sql, Object[] params) throws Exception {
+        return query(sql, params, fetchSize);
+    }
+
+    /** Ejecuta query leyendo {@code fetchSize} filas por bloque. */
+    public ODBCResultSet query(String sql, Object[] params, int fetchSize) throws Exception {
+        return query(sql, params, fetchSize, -1);
+    }
+
+    // Consulta a través de la caché de resultados, si la hay: cacheTtlMillis -1
+    // usa el tiempo de vida de la caché y 0 no la usa
+    private ODBCResultSet query(String sql, Object[] params, int fetchSize, long cacheTtlMillis) throws Exception {
+        ensureOpen();
+        ODBCResultCache cache = resultCache;
+        if (cache == null) {
+            return executeQuery(sql, params, fetchSize);
+        }
+        // Tras modificar datos en una transacción la caché no se usa hasta
+        // terminarla: vería lo anterior a los cambios o guardaría lo no confirmado
+        ODBCResultCache.Key key = cacheTtlMillis == 0 || maxRows > 0 || hasUncommittedChanges()
+                ? null : ODBCResultCache.key(sql, params);
+        if (key == null) {
+            // No se guarda; si no es una consulta puede haber modificado tablas
+            try {
+                return executeQuery(sql, params, fetchSize);
+            } finally {
+                invalidateResults(sql);
+            }
+        }
+        ODBCCachedResult cached = cache.get(key);
+        if (cached != null) {
+            return cached.open();
+        }
+        long mark = cache.mark();
+        ODBCResultSet rs = executeQuery(sql, params, fetchSize);
+        try {
+            ODBCCachedResult result = rs.materialize(cache.getMaxEntryBytes());
+            cache.put(key, result, mark, cacheTtlMillis < 0 ? cache.getTtlMillis() : cacheTtlMillis);
+        } catch (Exception e) {
+            rs.close();
+            throw e;
+        }
+        return rs;
+    }
+
+    private ODBCResultSet executeQuery(String sql, Object[] params, int fetchSize) throws Exception {
+        long ptr = -1;
+        long start = startTimer();
+        Object event = ODBCEvents.beginExecute();
+        try  {
+            ptr = nativeBridge.query(handle(), sql, params);
+            recordExecute(start, event, sql, true);
+            return wrap(ptr, fetchSize, sql);
+        } catch (Exception e) {
+            if (ptr != -1) {
+                nativeBridge.free(ptr);
+            } else {
+                recordExecute(start, event, sql, false);
+            }
+            throw e;
+        }
+    }
+
+    // Envuelve un resultado nativo con la configuración de esta conexión
+    ODBCResultSet wrap(long queryPtr, int fetchSize, String sql) throws Exception {
+        ODBCResultSet rs = new ODBCResultSet(nativeBridge, queryPtr, fetchSize);
+        rs.setLobThreshold(lobThreshold);
+        rs.setMetrics(metrics);
+        rs.setSource(dataSourceName, sql);
+        return rs;
+    }
+
+    public ODBCResultSet query(String sql) throws Exception {
+        return query(sql, null);
+    }
+
+    /** Ejecuta query con opciones propias (timeout, filas por bloque, cursor...). */
+    public ODBCResultSet query(String sql, Object[] params, ODBCQueryOptions options) throws Exception {
+        int size = options.getFetchSize() > 0 ? options.getFetchSize() : fetchSize;
+        // Un resultado truncado por maxRows no puede servir a la misma consulta sin límite
+        long cacheTtl = options.getMaxRows() > 0 ? 0 : options.getCacheTtlMillis();
+        if (!overrideOptions(options)) {
+            return detach(query(sql, params, size, cacheTtl), options);
+        }
+        try {
+            return detach(query(sql, params, size, cacheTtl), options);
+        } finally {
+            restoreOptions();
+        }
+    }
+
+    // Desacopla el resultado de su sentencia si las opciones lo piden
+    ODBCResultSet detach(ODBCResultSet rs, ODBCQueryOptions options) throws Exception {
+        if (!options.isDetached()) return rs;
+        try {
+            return rs.detach(detachedMemoryBudget);
+        } catch (Exception e) {
+            rs.close();
+            throw e;
+        }
+    }
+
+    // Aplica el timeout y los atributos de sentencia de las opciones en lugar de
+    // los de la conexión; true si hay que restaurarlos
+    boolean overrideOptions(ODBCQueryOptions options) throws SQLException {
+        boolean overridden = false;
+        int timeout = options.getQueryTimeout();
+        if (timeout >= 0 && timeout != queryTimeout) {
+            nativeBridge.setQueryTimeout(handle(), timeout);
+            overridden = true;
+        }
+        int cursor = options.getCursorType() >= 0 ? options.getCursorType() : cursorType;
+        int concur = options.getConcurrency() >= 0 ? options.getConcurrency() : concurrency;
+        boolean scan = options.getNoScan() != null ? options.getNoScan() : noScan;
+        long rows = options.getMaxRows() >= 0 ? options.getMaxRows() : maxRows;
+        if (cursor != cursorType || concur != concurrency || scan != noScan || rows != maxRows) {
+            nativeBridge.setStatementOptions(handle(), cursor, concur, scan, rows);
+            overridden = true;
+        }
+        return overridden;
+    }
+
+    void restoreOptions() throws SQLException {
+        nativeBridge.setQueryTimeout(handle(), queryTimeout);
+        applyStatementOptions();
+    }
+
+    /**
+     * Ejecuta query y devuelve sus filas como un {@link Stream} perezoso,
+     * convertidas con {@code mapper}. Los bloques se leen al consumirlo y la
+     * sentencia se libera al agotarlo o al cerrar el stream. Una operación
+     * terminal que corta antes del final ({@code findFirst}, {@code anyMatch},
+     * {@code limit}...) no lo agota, así que el stream debe cerrarse siempre,
+     * con try-with-resources o usando {@link #withStream}:
+     *
+     * <pre>
+     * try (Stream&lt;User&gt; users = conn.stream("SELECT id, name FROM users", null,
+     *         row -&gt; new User(row.getInt(1), row.getString(2)))) {
+     *     users.parallel().forEach(...);
+     * }
+     * </pre>
+     *
+     * @see ODBCResultSet#stream(RowMapper)
+     */
+    public <T> Stream<T> stream(String sql, Object[] params, RowMapper<T> mapper) throws Exception {
+        ODBCResultSet rs = query(sql, params);
+        try {
+            return rs.stream(mapper);
+        } catch (RuntimeException e) {
+            rs.close();
+            throw e;
+        }
+    }
+
+    public <T> Stream<T> stream(String sql, RowMapper<T> mapper) throws Exception {
+        return stream(sql, null, mapper);
+    }
+
+    /**
+     * Igual que {@link #stream(String, Object[], RowMapper)}, pero entrega el
+     * stream a {@code work} y lo cierra al volver, aunque la operación
+     * terminal no lo haya agotado:
+     *
+     * <pre>
+     * Optional&lt;User&gt; admin = conn.withStream("SELECT id, name, role FROM users", null,
+     *         row -&gt; new User(row.getInt(1), row.getString(2), row.getString(3)),
+     *         users -&gt; users.filter(User::isAdmin).findFirst());
+     * </pre>
+     */
+    public <T, R> R withStream(String sql, Object[] params, RowMapper<T> mapper,
+                               Function<? super Stream<T>, ? extends R> work) throws Exception {
+        try (Stream<T> stream = stream(sql, params, mapper)) {
+            return work.apply(stream);
+        }
+    }
+
+    /**
+     * Ejecuta query y la lee con un {@link ODBCDirectCursor}: las filas se
+     * enlazan en memoria nativa y se leen sin crear objetos por fila.
+     */
+    public ODBCDirectCursor queryDirect(String sql, Object[] params) throws Exception {
+        return queryDirect(sql, params, fetchSize);
+    }
+
+    /** Igual que {@link #queryDirect(String, Object[])} con {@code fetchSize} filas por bloque. */
+    public ODBCDirectCursor queryDirect(String sql, Object[] params, int fetchSize) throws Exception {
+        long ptr = -1;
+        long start = startTimer();
+        Object event = ODBCEvents.beginExecute();
+        try  {
+            ptr = nativeBridge.query(handle(), sql, params);
+            recordExecute(start, event, sql, true);
+            return new ODBCDirectCursor(nativeBridge, ptr, fetchSize);
+        } catch (Exception e) {
+            if (ptr != -1) {
+                nativeBridge.free(ptr);
+            } else {
+                recordExecute(start, event, sql, false);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Ejecuta una sentencia DML/DDL (INSERT, UPDATE, DELETE, CREATE, etc.)
+     * y devuelve el número de filas afectadas.
+     *
+     * @param sql           Sentencia SQL a ejecutar
+     * @param params        Parámetros opcionales (en orden), o null si no hay
+     * @return número de filas afectadas, o 0 si no se puede determinar
+     * @throws Exception si ocurre algún error ODBC/JNI
+     */
+    public int execute(String sql, Object[] params) throws Exception {
+        if (resultCache == null) {
+            return executeUpdate(sql, params);
+        }
+        try {
+            return executeUpdate(sql, params);
+        } finally {
+            invalidateResults(sql);
+        }
+    }
+
+    private int executeUpdate(String sql, Object[] params) throws Exception {
+        long start = startTimer();
+        Object event = ODBCEvents.beginExecute();
+        if (start == 0 && event == null) {
+            return nativeBridge.execute(handle(), sql, params);
+        }
+        int rows = -1;
+        try {
+            return rows = nativeBridge.execute(handle(), sql, params);
+        } finally {
+            recordUpdate(start, event, sql, rows);
+        }
+    }
+
+    /**
+     * Sobrecarga sin parámetros.
+     */
+    public int execute(String sql) throws Exception {
+        return execute(sql, (Object[]) null);
+    }
+
+    /** Ejecuta una sentencia DML/DDL con opciones propias (timeout, atributos de sentencia). */
+    public int execute(String sql, Object[] params, ODBCQueryOptions options) throws Exception {
+        if (!overrideOptions(options)) {
+            return execute(sql, params);
+        }
+        try {
+            return execute(sql, params);
+        } finally {
+            restoreOptions();
+        }
+    }
+
+    /**
+     * Ejecuta una sentencia DML/DDL (INSERT, UPDATE, DELETE, CREATE, etc.)
+     * y devuelve el número de filas afectadas.
+     *
+     * @deprecated el puntero se ignora; usar {@link #execute(String, Object[])}
+     * @param connectionPtr Puntero a la conexión JNI
+     * @param sql           Sentencia SQL a ejecutar
+     * @param params        Parámetros opcionales (en orden), o null si no hay
+     * @return número de filas afectadas, o 0 si no se puede determinar
+     * @throws Exception si ocurre algún error ODBC/JNI
+     */
+    @Deprecated
+    public int execute(long connectionPtr, String sql, Object[] params) throws Exception {
+        return nativeBridge.execute(handle(), sql, params);
+    }
+
+    /**
+     * Sobrecarga sin parámetros.
+     *
+     * @deprecated el puntero se ignora; usar {@link #execute(String)}
+     */
+    @Deprecated
+    public int execute(long connectionPtr, String sql) throws Exception {
+        return execute(connectionPtr, sql, null);
+    }
+
+    /** Devuelve el número máximo de filas enviadas por {@code SQLExecute} en un lote. */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /** Establece el número máximo de filas enviadas por {@code SQLExecute} en un lote. */
+    public ODBCConnection setBatchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize debe ser mayor que 0: " + batchSize);
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /** Devuelve la memoria máxima (bytes) de los buffers nativos de cada bloque del lote. */
+    public long getBatchMemoryBudget() {
+        return batchMemoryBudget;
+    }
+
+    /**
+     * Establece la memoria máxima (bytes) de los buffers nativos de cada bloque
+     * del lote; los bloques se cortan antes de {@link #getBatchSize()} filas si
+     * la superarían (p. ej. con textos largos).
+     */
+    public ODBCConnection setBatchMemoryBudget(long batchMemoryBudget) {
+        if (batchMemoryBudget < 1) throw new IllegalArgumentException("batchMemoryBudget debe ser mayor que 0: " + batchMemoryBudget);
+        this.batchMemoryBudget = batchMemoryBudget;
+        return this;
+    }
+
+    /**
+     * Ejecuta una sentencia DML una vez por fila enviando miles de filas por
+     * {@code SQLExecute} (arrays de parámetros enlazados por columnas).
+     *
+     * @param sql  Sentencia SQL con marcadores {@code ?}
+     * @param rows Parámetros de cada fila
+     * @return Estado de cada fila: filas afectadas,
+     *         {@link java.sql.Statement#SUCCESS_NO_INFO} o {@link java.sql.Statement#EXECUTE_FAILED}
+     * @throws java.sql.BatchUpdateException si alguna fila falla; lleva el estado
+     *         de las filas enviadas hasta ese bloque
+     */
+    public int[] executeBatch(String sql, List<Object[]> rows) throws Exception {
+        return executeBatch(sql, rows.iterator());
+    }
+
+    /**
+     * Variante de {@link #executeBatch(String, List)} que consume las filas a
+     * medida que se envían, sin tenerlas todas en memoria.
+     */
+    public int[] executeBatch(String sql, Iterator<Object[]> rows) throws Exception {
+        if (resultCache == null) {
+            return executeBatchRows(sql, rows);
+        }
+        try {
+            return executeBatchRows(sql, rows);
+        } finally {
+            invalidateResults(sql);
+        }
+    }
+
+    private int[] executeBatchRows(String sql, Iterator<Object[]> rows) throws Exception {
+        ODBCBatch batch = new ODBCBatch(nativeBridge, handle(), sql, batchSize, batchMemoryBudget);
+        long start = startTimer();
+        Object event = ODBCEvents.beginExecute();
+        if (start == 0 && event == null) {
+            return batch.execute(rows);
+        }
+        int[] counts = null;
+        try {
+            return counts = batch.execute(rows);
+        } finally {
+            long affected = 0;
+            if (counts != null) {
+                for (int count : counts) {
+                    if (count > 0) affected += count;
+                }
+            }
+            if (start != 0) metrics.recordUpdate(start, counts != null, affected);
+            ODBCEvents.commitExecute(event, dataSourceName, sql, affected, counts != null);
+        }
+    }
+
+    /**
+     * Ejecuta un script de varias sentencias separadas por {@code ;} (p. ej.
+     * una migración) y devuelve las filas afectadas por cada una. Si el driver
+     * admite lotes de sentencias ({@code SQL_BATCH_SUPPORT}) el script viaja
+     * entero en un solo {@code SQLExecDirect} y los resultados se recorren con
+     * {@code SQLMoreResults}; si no, se envía sentencia a sentencia, sin
+     * preparar ni pasar por la caché de sentencias. Las líneas que solo
+     * contienen {@code GO} separan lotes en ambos casos.
+     *
+     * <p>Al dividir por {@code ;} no se reconocen los cuerpos de procedimientos
+     * con varias sentencias; en drivers sin lotes hay que ejecutarlos con
+     * {@link #execute(String)}.</p>
+     *
+     * @param script Sentencias SQL sin parámetros
+     * @return Filas afectadas por cada resultado, en orden: -1 en los que
+     *         devuelven filas (se descartan) y {@link java.sql.Statement#SUCCESS_NO_INFO}
+     *         si el driver no lo sabe
+     * @throws java.sql.BatchUpdateException si falla una sentencia; lleva los
+     *         recuentos anteriores y {@link java.sql.Statement#EXECUTE_FAILED}
+     *         para la que falló. Las siguientes no se ejecutan.
+     */
+    public int[] executeScript(String script) throws Exception {
+        boolean batches = (nativeBridge.getBatchSupport(handle()) & BATCH_STATEMENTS) == BATCH_STATEMENTS;
+        String[] statements = ODBCScript.split(script, batches);
+        if (statements.length == 0) return new int[0];
+        long start = startTimer();
+        Object event = ODBCEvents.beginExecute();
+        int[] counts = null;
+        try {
+            return counts = nativeBridge.executeScript(handle(), statements);
+        } finally {
+            long affected = 0;
+            if (counts != null) {
+                for (int count : counts) {
+                    if (count > 0) affected += count;
+                }
+            }
+            if (start != 0) metrics.recordUpdate(start, counts != null, affected);
+            ODBCEvents.commitExecute(event, dataSourceName, script, affected, counts != null);
+            invalidateResults(script);
+        }
+    }
+
+    /**
+     * Prepara una sentencia para ejecutarla varias veces con distintos
+     * parámetros ({@code SQLPrepare}/{@code SQLExecute}).
+     */
+    public ODBCPreparedStatement prepare(String sql) throws Exception {
+        long statementPtr = nativeBridge.prepare(handle(), sql);
+        return new ODBCPreparedStatement(nativeBridge, this, sql, statementPtr);
+    }
+
+    /**
+     * Cambia el tamaño de la caché LRU de sentencias preparadas que reutilizan
+     * {@link #query} y {@link #execute} por texto SQL
+     * (por defecto {@value #DEFAULT_STATEMENT_CACHE_SIZE}). Con 0 se desactiva
+     * y cada llamada usa {@code SQLExecDirect}.
+     */
+    public ODBCConnection setStatementCacheSize(int size) throws SQLException {
+        if (size < 0) throw new IllegalArgumentException("size no puede ser negativo: " + size);
+        nativeBridge.setStatementCacheSize(handle(), size);
+        return this;
+    }
+
+    /** Devuelve los aciertos/fallos de la caché de sentencias preparadas. */
+    public ODBCCacheStats getStatementCacheStats() throws SQLException {
+        long[] stats = nativeBridge.getStatementCacheStats(handle());
+        return new ODBCCacheStats(stats[0], stats[1], stats[2], stats[3], stats[4]);
+    }
+
+    /** Cierra la conexión */
+    @Override
+    public void close() throws Exception {
+        synchronized (cancelLock) {
+            if (closed) return;
+            closed = true;
+            nativeBridge.close(handle);
+        }
+    }
+}
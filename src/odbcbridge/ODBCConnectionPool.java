@@ -0,0 +1,430 @@
+// ODBCConnectionPool.java
+package odbcbridge;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de conexiones ODBC construido sobre un {@link ODBCDataSource}.
+ *
+ * <p>Las conexiones entregadas por {@link #getConnection()} son
+ * {@link ODBCConnection} normales cuyo {@code close()} devuelve el handle
+ * nativo al pool en lugar de desconectarlo.</p>
+ *
+ * <h2>Características:</h2>
+ * <ul>
+ *   <li>Tamaño mínimo y máximo de conexiones físicas</li>
+ *   <li>Expulsión de conexiones ociosas y tiempo de vida máximo</li>
+ *   <li>Timeout de espera al pedir una conexión</li>
+ *   <li>Validación barata con {@code SQL_ATTR_CONNECTION_DEAD}</li>
+ *   <li>Estadísticas: activas, ociosas, en espera, espera media y fallos al reponer el mínimo</li>
+ * </ul>
+ *
+ * <p>No hay un candado global: las conexiones ociosas viven en una cola
+ * concurrente sin bloqueo y el máximo se controla con un semáforo.</p>
+ *
+ * <h2>Ejemplo de uso:</h2>
+ * <pre>
+ * {@code
+ * ODBCConnectionPool pool = new ODBCConnectionPool(new ODBCDataSource("MiDSN"))
+ *     .setMinSize(2)
+ *     .setMaxSize(50);
+ *
+ * try (ODBCConnection connection = pool.getConnection()) {
+ *     ...
+ * }
+ * }
+ * </pre>
+ */
+public class ODBCConnectionPool implements AutoCloseable {
+
+    private static final ODBCBridge nativeBridge = ODBCBridge.INSTANCE;
+
+    private final ODBCDataSource dataSource;
+
+    // Configuración
+    private int minSize = 0;
+    private int maxSize = 10;
+    private long idleTimeoutMillis = TimeUnit.MINUTES.toMillis(10);
+    private long maxLifetimeMillis = TimeUnit.MINUTES.toMillis(30);
+    private long borrowTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+    private long validationIntervalMillis = TimeUnit.SECONDS.toMillis(5);
+    private long housekeepingIntervalMillis = TimeUnit.SECONDS.toMillis(30);
+
+    // Estado
+    private final ConcurrentLinkedDeque<Entry> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean closed;
+    private volatile Semaphore permits;
+    private volatile String connectionString;
+    private volatile String dataSourceName;
+    private ScheduledExecutorService housekeeper;
+
+    // Estadísticas
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder destroyedCount = new LongAdder();
+    private final LongAdder refillFailureCount = new LongAdder();
+    private volatile Exception lastRefillError;
+
+    /**
+     * Crea un pool para la fuente de datos indicada. Se toma una copia de la
+     * configuración, así que cambios posteriores en {@code dataSource} no afectan al pool.
+     *
+     * @param dataSource Fuente de datos de la que se obtienen las conexiones físicas
+     */
+    public ODBCConnectionPool(ODBCDataSource dataSource) {
+        this.dataSource = dataSource.clone();
+    }
+
+    // ==================== CONFIGURACIÓN ====================
+
+    /** Conexiones físicas que se mantienen abiertas aunque estén ociosas. */
+    public ODBCConnectionPool setMinSize(int minSize) {
+        checkNotStarted();
+        if (minSize < 0) throw new IllegalArgumentException("minSize no puede ser negativo: " + minSize);
+        this.minSize = minSize;
+        return this;
+    }
+
+    /** Máximo de conexiones físicas (prestadas + ociosas). */
+    public ODBCConnectionPool setMaxSize(int maxSize) {
+        checkNotStarted();
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize debe ser mayor que 0: " + maxSize);
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    /** Tiempo que una conexión puede estar ociosa antes de cerrarse (0 = nunca). */
+    public ODBCConnectionPool setIdleTimeout(long timeout, TimeUnit unit) {
+        this.idleTimeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    /** Tiempo de vida máximo de una conexión física (0 = ilimitado). */
+    public ODBCConnectionPool setMaxLifetime(long lifetime, TimeUnit unit) {
+        this.maxLifetimeMillis = unit.toMillis(lifetime);
+        return this;
+    }
+
+    /** Tiempo máximo de espera en {@link #getConnection()} cuando el pool está lleno. */
+    public ODBCConnectionPool setBorrowTimeout(long timeout, TimeUnit unit) {
+        this.borrowTimeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Una conexión ociosa durante más de este tiempo se valida con
+     * {@code SQL_ATTR_CONNECTION_DEAD} antes de prestarla (0 = validar siempre).
+     */
+    public ODBCConnectionPool setValidationInterval(long interval, TimeUnit unit) {
+        this.validationIntervalMillis = unit.toMillis(interval);
+        return this;
+    }
+
+    /** Frecuencia con la que se expulsan conexiones ociosas o caducadas. */
+    public ODBCConnectionPool setHousekeepingInterval(long interval, TimeUnit unit) {
+        checkNotStarted();
+        this.housekeepingIntervalMillis = unit.toMillis(interval);
+        return this;
+    }
+
+    public int getMinSize() { return minSize; }
+    public int getMaxSize() { return maxSize; }
+    public ODBCDataSource getDataSource() { return dataSource; }
+
+    private void checkNotStarted() {
+        if (started.get()) throw new IllegalStateException("El pool ya está iniciado");
+    }
+
+    // ==================== CICLO DE VIDA ====================
+
+    /**
+     * Inicia el pool: abre las conexiones mínimas y arranca la tarea de
+     * mantenimiento. Se llama automáticamente en el primer {@link #getConnection()}.
+     */
+    public synchronized ODBCConnectionPool start() throws Exception {
+        if (permits != null) return this;
+        if (minSize > maxSize) throw new IllegalStateException("minSize > maxSize");
+        started.set(true);
+
+        connectionString = dataSource.buildConnectionString();
+        dataSourceName = ODBCConnection.dataSourceName(connectionString);
+        fillToMinimum();
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ODBCConnectionPool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+                housekeepingIntervalMillis, housekeepingIntervalMillis, TimeUnit.MILLISECONDS);
+
+        permits = new Semaphore(maxSize);
+        return this;
+    }
+
+    /**
+     * Obtiene una conexión del pool, esperando como máximo el borrow timeout.
+     *
+     * @return Conexión cuyo {@code close()} la devuelve al pool
+     * @throws SQLTimeoutException Si no hay conexión disponible a tiempo
+     * @throws Exception Si falla la creación de una conexión física
+     */
+    public ODBCConnection getConnection() throws Exception {
+        if (closed) throw new SQLException("El pool está cerrado");
+        Semaphore permits = this.permits;
+        if (permits == null) {
+            permits = start().permits;
+        }
+
+        final long startNanos = System.nanoTime();
+        if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            timeoutCount.increment();
+            throw new SQLTimeoutException("Timeout esperando una conexión del pool ("
+                    + borrowTimeoutMillis + " ms, activas=" + active.get() + ")");
+        }
+
+        Entry entry = null;
+        try {
+            entry = takeIdle();
+            if (entry == null) {
+                entry = create();
+            }
+            PooledConnection connection = new PooledConnection(entry);
+            active.incrementAndGet();
+            borrowCount.increment();
+            borrowWaitNanos.add(System.nanoTime() - startNanos);
+            return connection;
+        } catch (Exception | Error e) {
+            // Si falló al configurarla, la conexión física queda a medias: se cierra
+            if (entry != null) destroy(entry);
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Toma la conexión ociosa más reciente que siga siendo válida. */
+    private Entry takeIdle() {
+        Entry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            long now = System.currentTimeMillis();
+            if (isExpired(entry, now)) {
+                destroy(entry);
+                continue;
+            }
+            if (now - entry.lastUsed >= validationIntervalMillis && !nativeBridge.isAlive(entry.handle)) {
+                destroy(entry);
+                continue;
+            }
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Devuelve al pool la conexión física de un {@link PooledConnection}.
+     *
+     * @param reusable false si no se pudo restaurar su estado y hay que cerrarla
+     */
+    void release(Entry entry, boolean reusable) {
+        active.decrementAndGet();
+        try {
+            long now = System.currentTimeMillis();
+            if (closed || !reusable || isExpired(entry, now) || !nativeBridge.isAlive(entry.handle)) {
+                destroy(entry);
+            } else {
+                entry.lastUsed = now;
+                idle.offerFirst(entry);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return maxLifetimeMillis > 0 && now - entry.createdAt >= maxLifetimeMillis;
+    }
+
+    private Entry create() throws Exception {
+        ODBCMetrics metrics = dataSource.getMetrics();
+        long start = metrics == null ? 0 : metrics.start();
+        Object event = ODBCEvents.beginConnect();
+        long handle;
+        try {
+            int packetSize = dataSource.getPacketSize();
+            handle = packetSize > 0
+                    ? nativeBridge.connectWithPacketSize(connectionString, packetSize)
+                    : nativeBridge.connectWithString(connectionString);
+        } catch (Exception e) {
+            if (start != 0) metrics.recordConnect(start, false);
+            ODBCEvents.commitConnect(event, dataSourceName, false);
+            throw e;
+        }
+        if (start != 0) metrics.recordConnect(start, true);
+        ODBCEvents.commitConnect(event, dataSourceName, true);
+        total.incrementAndGet();
+        createdCount.increment();
+        return new Entry(handle);
+    }
+
+    private void destroy(Entry entry) {
+        total.decrementAndGet();
+        destroyedCount.increment();
+        try {
+            nativeBridge.close(entry.handle);
+        } catch (Exception e) {
+            // La conexión ya no es utilizable; no hay nada más que hacer
+        }
+    }
+
+    /** Expulsa conexiones ociosas o caducadas y repone el mínimo. */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        for (Entry entry : idle) {
+            boolean idleTooLong = idleTimeoutMillis > 0
+                    && now - entry.lastUsed >= idleTimeoutMillis
+                    && total.get() > minSize;
+            if ((idleTooLong || isExpired(entry, now)) && idle.remove(entry)) {
+                destroy(entry);
+            }
+        }
+        try {
+            fillToMinimum();
+        } catch (Exception e) {
+            // Se reintenta en la siguiente pasada; el fallo queda en getStats()
+            refillFailureCount.increment();
+            lastRefillError = e;
+        }
+    }
+
+    private void fillToMinimum() throws Exception {
+        while (!closed && total.get() < minSize) {
+            idle.offerLast(create());
+        }
+    }
+
+    /** Cierra las conexiones ociosas; las prestadas se cierran al devolverse. */
+    @Override
+    public void close() {
+        closed = true;
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
+        Entry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+    }
+
+    // ==================== ESTADÍSTICAS ====================
+
+    /** Devuelve una instantánea de las estadísticas del pool. */
+    public ODBCPoolStats getStats() {
+        long borrows = borrowCount.sum();
+        Semaphore semaphore = permits;
+        return new ODBCPoolStats(
+                active.get(),
+                idle.size(),
+                total.get(),
+                semaphore == null ? 0 : semaphore.getQueueLength(),
+                borrows,
+                borrows == 0 ? 0.0 : borrowWaitNanos.sum() / (double) borrows / 1_000_000.0,
+                timeoutCount.sum(),
+                createdCount.sum(),
+                destroyedCount.sum(),
+                refillFailureCount.sum(),
+                lastRefillError);
+    }
+
+    @Override
+    public String toString() {
+        return "ODBCConnectionPool{" + dataSource + ", " + getStats() + '}';
+    }
+
+    // ==================== CLASES INTERNAS ====================
+
+    /** Conexión física administrada por el pool. */
+    static final class Entry {
+        final long handle;
+        final long createdAt;
+        volatile long lastUsed;
+
+        Entry(long handle) {
+            this.handle = handle;
+            this.createdAt = this.lastUsed = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Conexión prestada: {@code close()} la devuelve al pool una sola vez y
+     * desde entonces sus métodos lanzan {@link SQLException}. Cada préstamo
+     * recibe un envoltorio nuevo.
+     */
+    private final class PooledConnection extends ODBCConnection {
+        private final Entry entry;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        PooledConnection(Entry entry) throws SQLException {
+            super(entry.handle);
+            this.entry = entry;
+            // Cada préstamo parte de la configuración del DataSource
+            setWideChars(dataSource.isWideChars());
+            setQueryTimeout(dataSource.getQueryTimeout());
+            if (dataSource.getFetchSize() > 0) {
+                setFetchSize(dataSource.getFetchSize());
+            }
+            setCursorType(dataSource.getCursorType());
+            setConcurrency(dataSource.getConcurrency());
+            setMaxRows(dataSource.getMaxRows());
+            setNoScan(dataSource.isNoScan());
+            setMetrics(dataSource.getMetrics());
+            setMetadataCache(dataSource.getMetadataCache());
+            setResultCache(dataSource.getResultCache());
+            setDataSourceName(dataSourceName);
+        }
+
+        // Una vez devuelta, la conexión física puede estar ejecutando para otro
+        // préstamo: cualquier uso posterior de este envoltorio se rechaza
+        @Override
+        void ensureOpen() throws SQLException {
+            if (returned.get()) throw new SQLException("conexión devuelta al pool");
+        }
+
+        @Override
+        public boolean isClosed() {
+            return returned.get();
+        }
+
+        @Override
+        public synchronized boolean cancel() {
+            return !returned.get() && super.cancel();
+        }
+
+        @Override
+        public synchronized void close() {
+            if (returned.get()) return;
+            // Una transacción sin terminar se deshace antes de devolverla
+            boolean reusable = true;
+            try {
+                resetTransactionState();
+            } catch (Exception e) {
+                reusable = false;
+            }
+            returned.set(true);
+            release(entry, reusable);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Clase para configurar y construir cadenas de conexión ODBC.
@@ -74,6 +75,17 @@ public class ODBCDataSource {
     private String server;
     private Integer port;
     private String driver;
+    private boolean wideChars;
+    private int queryTimeout;
+    private int fetchSize;
+    private int cursorType = ODBCConnection.CURSOR_FORWARD_ONLY;
+    private int concurrency = ODBCConnection.CONCUR_READ_ONLY;
+    private long maxRows;
+    private boolean noScan;
+    private int packetSize;
+    private ODBCMetrics metrics;
+    private ODBCMetadataCache metadataCache;
+    private ODBCResultCache resultCache;
     
     // Propiedades adicionales personalizadas
     private final Map<String, String> properties = new HashMap<>();
@@ -257,6 +269,205 @@ public class ODBCDataSource {
         return setProperty("Command Timeout", String.valueOf(seconds));
     }
     
+    /**
+     * Establece si las conexiones usan el modo UTF-16 ({@code SQL_C_WCHAR})
+     * para el texto SQL, los parámetros y las columnas de texto.
+     * 
+     * @param wideChars true para usar UTF-16
+     * @return Esta instancia para encadenamiento fluido
+     * @see ODBCConnection#setWideChars(boolean)
+     */
+    public ODBCDataSource setWideChars(boolean wideChars) {
+        this.wideChars = wideChars;
+        return this;
+    }
+    
+    /**
+     * Establece el timeout por defecto en segundos de las consultas de cada
+     * conexión ({@code SQL_ATTR_QUERY_TIMEOUT}); 0 las deja sin límite. A
+     * diferencia de {@link #setCommandTimeout(int)} no depende del driver: se
+     * aplica con la API ODBC y lanza {@link java.sql.SQLTimeoutException}.
+     * 
+     * @param seconds Segundos de timeout
+     * @return Esta instancia para encadenamiento fluido
+     * @see ODBCConnection#setQueryTimeout(int)
+     */
+    public ODBCDataSource setQueryTimeout(int seconds) {
+        if (seconds < 0) throw new IllegalArgumentException("queryTimeout no puede ser negativo: " + seconds);
+        this.queryTimeout = seconds;
+        return this;
+    }
+    
+    /**
+     * Establece las filas leídas por cada {@code SQLFetch} en las consultas de
+     * cada conexión (por defecto {@value ODBCConnection#DEFAULT_FETCH_SIZE}).
+     * 
+     * @param fetchSize Filas por bloque; 1 lee fila a fila
+     * @return Esta instancia para encadenamiento fluido
+     * @see ODBCConnection#setFetchSize(int)
+     */
+    public ODBCDataSource setFetchSize(int fetchSize) {
+        if (fetchSize < 1) throw new IllegalArgumentException("fetchSize debe ser mayor que 0: " + fetchSize);
+        this.fetchSize = fetchSize;
+        return this;
+    }
+    
+    /**
+     * Establece el tipo de cursor ({@code SQL_ATTR_CURSOR_TYPE}) de las
+     * consultas de cada conexión; por defecto
+     * {@link ODBCConnection#CURSOR_FORWARD_ONLY}, aunque el driver use otro.
+     * 
+     * @param cursorType Una de las constantes {@code ODBCConnection.CURSOR_*}
+     * @return Esta instancia para encadenamiento fluido
+     * @see ODBCConnection#setCursorType(int)
+     */
+    public ODBCDataSource setCursorType(int cursorType) {
+        if (cursorType < ODBCConnection.CURSOR_FORWARD_ONLY || cursorType > ODBCConnection.CURSOR_STATIC) {
+            throw new IllegalArgumentException("cursorType no válido: " + cursorType);
+        }
+        this.cursorType = cursorType;
+        return this;
+    }
+    
+    /**
+     * Establece la concurrencia ({@code SQL_ATTR_CONCURRENCY}) de las
+     * consultas de cada conexión; por defecto {@link ODBCConnection#CONCUR_READ_ONLY}.
+     * 
+     * @param concurrency Una de las constantes {@code ODBCConnection.CONCUR_*}
+     * @return Esta instancia para encadenamiento fluido
+     * @see ODBCConnection#setConcurrency(int)
+     */
+    public ODBCDataSource setConcurrency(int concurrency) {
+        if (concurrency < ODBCConnection.CONCUR_READ_ONLY || concurrency > ODBCConnection.CONCUR_VALUES) {
+            throw new IllegalArgumentException("concurrency no válida: " + concurrency);
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+    
+    /**
+     * Establece el número máximo de filas de cada resultado
+     * ({@code SQL_ATTR_MAX_ROWS}); 0 las deja sin límite.
+     * 
+     * @param maxRows Filas máximas
+     * @return Esta instancia para encadenamiento fluido
+     * @see ODBCConnection#setMaxRows(long)
+     */
+    public ODBCDataSource setMaxRows(long maxRows) {
+        if (maxRows < 0) throw new IllegalArgumentException("maxRows no puede ser negativo: " + maxRows);
+        this.maxRows = maxRows;
+        return this;
+    }
+    
+    /**
+     * Establece si el driver deja sin procesar las secuencias de escape ODBC
+     * del texto SQL ({@code SQL_ATTR_NOSCAN}).
+     * 
+     * @param noScan true si las sentencias no usan secuencias de escape
+     * @return Esta instancia para encadenamiento fluido
+     * @see ODBCConnection#setNoScan(boolean)
+     */
+    public ODBCDataSource setNoScan(boolean noScan) {
+        this.noScan = noScan;
+        return this;
+    }
+    
+    /**
+     * Establece el tamaño del paquete de red ({@code SQL_ATTR_PACKET_SIZE})
+     * que se pide al conectar; el driver puede ajustarlo o ignorarlo.
+     * 
+     * @param bytes Bytes por paquete; 0 usa el del driver
+     * @return Esta instancia para encadenamiento fluido
+     * @see ODBCConnection#getPacketSize()
+     */
+    public ODBCDataSource setPacketSize(int bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("packetSize no puede ser negativo: " + bytes);
+        this.packetSize = bytes;
+        return this;
+    }
+    
+    /**
+     * Activa las métricas de las conexiones de esta fuente de datos (tiempos
+     * de conexión, ejecución y lectura, filas y bytes). La primera vez crea el
+     * {@link ODBCMetrics} que devuelve {@link #getMetrics()}; desactivadas no
+     * añaden coste apreciable.
+     * 
+     * @param enabled true para registrar métricas
+     * @return Esta instancia para encadenamiento fluido
+     */
+    public ODBCDataSource setMetricsEnabled(boolean enabled) {
+        if (metrics == null) {
+            if (!enabled) return this;
+            metrics = new ODBCMetrics();
+        }
+        metrics.setEnabled(enabled);
+        return this;
+    }
+    
+    /**
+     * Establece las métricas donde registran sus conexiones; varias fuentes de
+     * datos pueden compartir una instancia. null las desactiva.
+     * 
+     * @param metrics Métricas a usar
+     * @return Esta instancia para encadenamiento fluido
+     */
+    public ODBCDataSource setMetrics(ODBCMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+    
+    /**
+     * Activa una caché del catálogo (tablas, columnas, claves primarias e
+     * {@link ODBCInfo}) compartida por las conexiones de esta fuente de datos.
+     * Cada entrada caduca a los {@code ttl} de leerse; 0 la guarda hasta
+     * invalidarla con {@link ODBCMetadataCache#invalidate()}.
+     * 
+     * @param ttl Tiempo de vida de cada entrada
+     * @param unit Unidad de {@code ttl}
+     * @return Esta instancia para encadenamiento fluido
+     */
+    public ODBCDataSource setMetadataCache(long ttl, TimeUnit unit) {
+        return setMetadataCache(new ODBCMetadataCache(ttl, unit));
+    }
+    
+    /**
+     * Establece la caché del catálogo de las conexiones; null la desactiva.
+     * 
+     * @param cache Caché a usar
+     * @return Esta instancia para encadenamiento fluido
+     */
+    public ODBCDataSource setMetadataCache(ODBCMetadataCache cache) {
+        this.metadataCache = cache;
+        return this;
+    }
+    
+    /**
+     * Activa una caché de resultados de consultas compartida por las
+     * conexiones de esta fuente de datos, limitada a {@code maxBytes} de
+     * memoria; las sentencias que ejecutan esas conexiones descartan los
+     * resultados de las tablas que modifican.
+     * 
+     * @param maxBytes Memoria máxima (aproximada) de los resultados guardados
+     * @param ttl Tiempo de vida de cada resultado (0 = hasta invalidarlo o expulsarlo)
+     * @param unit Unidad de {@code ttl}
+     * @return Esta instancia para encadenamiento fluido
+     * @see ODBCResultCache
+     */
+    public ODBCDataSource setResultCache(long maxBytes, long ttl, TimeUnit unit) {
+        return setResultCache(new ODBCResultCache(maxBytes, ttl, unit));
+    }
+    
+    /**
+     * Establece la caché de resultados de las conexiones; null la desactiva.
+     * 
+     * @param cache Caché a usar
+     * @return Esta instancia para encadenamiento fluido
+     */
+    public ODBCDataSource setResultCache(ODBCResultCache cache) {
+        this.resultCache = cache;
+        return this;
+    }
+    
     /**
      * Establece una propiedad personalizada.
      * 
@@ -308,6 +519,17 @@ public class ODBCDataSource {
     public String getServer() { return server; }
     public Integer getPort() { return port; }
     public String getDriver() { return driver; }
+    public boolean isWideChars() { return wideChars; }
+    public int getQueryTimeout() { return queryTimeout; }
+    public int getFetchSize() { return fetchSize; }
+    public int getCursorType() { return cursorType; }
+    public int getConcurrency() { return concurrency; }
+    public long getMaxRows() { return maxRows; }
+    public boolean isNoScan() { return noScan; }
+    public int getPacketSize() { return packetSize; }
+    public ODBCMetrics getMetrics() { return metrics; }
+    public ODBCMetadataCache getMetadataCache() { return metadataCache; }
+    public ODBCResultCache getResultCache() { return resultCache; }
     
     /**
      * Obtiene una propiedad personalizada.
@@ -661,7 +883,61 @@ public class ODBCDataSource {
      * @throws Exception Si la conexión falla
      */
     public ODBCConnection getConnection() throws Exception {
-        return ODBCConnection.connectWithString(buildConnectionString());
+        String connectionString = buildConnectionString();
+        long start = metrics == null ? 0 : metrics.start();
+        ODBCConnection connection;
+        try {
+            connection = ODBCConnection.connectWithString(connectionString, packetSize);
+        } catch (Exception e) {
+            if (start != 0) metrics.recordConnect(start, false);
+            throw e;
+        }
+        if (start != 0) metrics.recordConnect(start, true);
+        connection.setMetrics(metrics);
+        connection.setMetadataCache(metadataCache);
+        connection.setResultCache(resultCache);
+        if (wideChars) {
+            connection.setWideChars(true);
+        }
+        if (queryTimeout > 0) {
+            connection.setQueryTimeout(queryTimeout);
+        }
+        if (fetchSize > 0) {
+            connection.setFetchSize(fetchSize);
+        }
+        if (cursorType != ODBCConnection.CURSOR_FORWARD_ONLY) {
+            connection.setCursorType(cursorType);
+        }
+        if (concurrency != ODBCConnection.CONCUR_READ_ONLY) {
+            connection.setConcurrency(concurrency);
+        }
+        if (maxRows > 0) {
+            connection.setMaxRows(maxRows);
+        }
+        if (noScan) {
+            connection.setNoScan(true);
+        }
+        return connection;
+    }
+    
+    /**
+     * Crea un pool de conexiones sobre esta configuración.
+     * 
+     * @return Pool sin iniciar, configurable con sus métodos fluidos
+     */
+    public ODBCConnectionPool createPool() {
+        return new ODBCConnectionPool(this);
+    }
+    
+    /**
+     * Activa el pooling de conexiones del Driver Manager para todo el proceso.
+     * Debe llamarse antes de abrir la primera conexión.
+     * 
+     * @param enabled true para activar el pooling
+     * @return false si ya había conexiones y el cambio no se aplicó
+     */
+    public static boolean setDriverManagerPooling(boolean enabled) {
+        return ODBCBridge.INSTANCE.setConnectionPooling(enabled, false);
     }
     
     /** Lista todos los DSNs disponibles. */
@@ -692,11 +968,24 @@ public class ODBCDataSource {
         server = null;
         port = null;
         driver = null;
+        wideChars = false;
+        queryTimeout = 0;
+        fetchSize = 0;
+        cursorType = ODBCConnection.CURSOR_FORWARD_ONLY;
+        concurrency = ODBCConnection.CONCUR_READ_ONLY;
+        maxRows = 0;
+        noScan = false;
+        packetSize = 0;
+        metrics = null;
+        metadataCache = null;
+        resultCache = null;
         properties.clear();
     }
     
     /**
-     * Crea una copia de esta fuente de datos.
+     * Crea una copia de esta fuente de datos. La copia comparte las métricas y
+     * las cachés del catálogo y de resultados, así las conexiones de un pool creado con
+     * {@link #createPool()} usan las de esta instancia.
      * 
      * @return Nueva instancia con la misma configuración
      */
@@ -709,6 +998,17 @@ public class ODBCDataSource {
         copy.server = this.server;
         copy.port = this.port;
         copy.driver = this.driver;
+        copy.wideChars = this.wideChars;
+        copy.queryTimeout = this.queryTimeout;
+        copy.fetchSize = this.fetchSize;
+        copy.cursorType = this.cursorType;
+        copy.concurrency = this.concurrency;
+        copy.maxRows = this.maxRows;
+        copy.noScan = this.noScan;
+        copy.packetSize = this.packetSize;
+        copy.metrics = this.metrics;
+        copy.metadataCache = this.metadataCache;
+        copy.resultCache = this.resultCache;
         copy.properties.putAll(this.properties);
         return copy;
     }
@@ -0,0 +1,217 @@
+package odbcbridge;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cursor de solo lectura que lee las filas directamente de la memoria nativa
+ * enlazada con {@code SQLBindCol}, sin crear objetos por fila ni por valor.
+ *
+ * <p>El cursor es un <em>flyweight</em>: {@link #next()} solo mueve el
+ * desplazamiento de la fila actual dentro del bloque y los getters leen en su
+ * posición. Pensado para recorridos de columnas numéricas:</p>
+ * <pre>
+ * try (ODBCDirectCursor cursor = conn.queryDirect("SELECT qty, price FROM sales", null)) {
+ *     double total = 0;
+ *     while (cursor.next()) {
+ *         if (!cursor.isNull(2)) total += cursor.getLong(1) * cursor.getDouble(2);
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>Los enteros (y decimales sin escala de hasta 18 dígitos) se leen como
+ * {@code long}; reales y decimales como {@code double}; el resto de columnas
+ * como texto con {@link #getString(int)}. Los valores solo son válidos hasta la
+ * siguiente llamada a {@link #next()} que lea un bloque nuevo.</p>
+ */
+public class ODBCDirectCursor implements AutoCloseable {
+    /** Columna leída como {@code long}. */
+    public static final int TYPE_LONG = 0;
+    /** Columna leída como {@code double}. */
+    public static final int TYPE_DOUBLE = 1;
+    /** Columna leída como texto. */
+    public static final int TYPE_TEXT = 2;
+
+    // SQL_NULL_DATA
+    private static final long NULL_DATA = -1;
+
+    private final ODBCBridge nativeBridge;
+    // Puntero y buffer nativos; 0 y null una vez cerrado el cursor
+    private long ptr;
+    private final ODBCField[] fields;
+    private final Map<String,Integer> indexMap;
+    private ByteBuffer buffer;
+    private final int rowSize;
+    private final boolean longIndicators;
+    private final int[] types;
+    private final int[] valueOffsets;
+    private final int[] indicatorOffsets;
+    private final int[] widths;
+
+    private int rowsFetched;
+    private int row = -1;
+    private int rowOffset;
+    private byte[] text = new byte[64];
+    private boolean closed;
+
+    ODBCDirectCursor(ODBCBridge nativeBridge, long ptr, int fetchSize) throws Exception {
+        this.nativeBridge = nativeBridge;
+        this.ptr = ptr;
+        this.fields = nativeBridge.fetchFields(ptr);
+        this.indexMap = new HashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            indexMap.put(fields[i].name, i);
+        }
+
+        int columns = fields.length;
+        int[] layout = new int[3 + 4 * columns];
+        this.buffer = nativeBridge.bindDirect(ptr, Math.max(1, fetchSize), layout).order(ByteOrder.nativeOrder());
+        this.rowSize = layout[0];
+        this.longIndicators = layout[1] == 8;
+        this.types = new int[columns];
+        this.valueOffsets = new int[columns];
+        this.indicatorOffsets = new int[columns];
+        this.widths = new int[columns];
+        for (int i = 0; i < columns; i++) {
+            types[i] = layout[3 + 4 * i];
+            valueOffsets[i] = layout[4 + 4 * i];
+            indicatorOffsets[i] = layout[5 + 4 * i];
+            widths[i] = layout[6 + 4 * i];
+        }
+    }
+
+    /**
+     * Avanza a la siguiente fila, leyendo un bloque nuevo cuando se agota el actual.
+     * @return true si hay fila, false al acabar.
+     */
+    public boolean next() throws Exception {
+        if (closed) throw new SQLException("El cursor está cerrado");
+        if (++row >= rowsFetched) {
+            rowsFetched = nativeBridge.fetchDirect(ptr);
+            row = 0;
+            if (rowsFetched == 0) {
+                row = -1;
+                return false;
+            }
+        }
+        rowOffset = row * rowSize;
+        return true;
+    }
+
+    /** Devuelve metadata de columnas. */
+    public ODBCField[] getFields() {
+        return fields;
+    }
+
+    /** Devuelve el número de columnas. */
+    public int getColumnCount() {
+        return fields.length;
+    }
+
+    /** Devuelve el tipo con el que se lee la columna ({@link #TYPE_LONG}, etc.), índice 1-based. */
+    public int getColumnType(int columnIndex) {
+        return types[columnIndex - 1];
+    }
+
+    /** Devuelve el índice 1-based de una columna por nombre. */
+    public int findColumn(String columnName) {
+        Integer idx = indexMap.get(columnName);
+        if (idx == null) throw new IllegalArgumentException("Columna no encontrada: " + columnName);
+        return idx + 1;
+    }
+
+    /** Indica si el valor de la columna (1-based) es NULL. */
+    public boolean isNull(int columnIndex) throws SQLException {
+        return indicator(columnIndex - 1) == NULL_DATA;
+    }
+
+    /** Lee la columna como {@code long} (0 si es NULL). */
+    public long getLong(int columnIndex) throws SQLException {
+        int col = columnIndex - 1;
+        if (indicator(col) == NULL_DATA) return 0;
+        switch (types[col]) {
+            case TYPE_LONG:   return buffer.getLong(rowOffset + valueOffsets[col]);
+            case TYPE_DOUBLE: return (long) buffer.getDouble(rowOffset + valueOffsets[col]);
+            default:          return Long.parseLong(getString(columnIndex).trim());
+        }
+    }
+
+    /** Lee la columna como {@code int} (0 si es NULL). */
+    public int getInt(int columnIndex) throws SQLException {
+        return (int) getLong(columnIndex);
+    }
+
+    /** Lee la columna como {@code double} (0 si es NULL). */
+    public double getDouble(int columnIndex) throws SQLException {
+        int col = columnIndex - 1;
+        if (indicator(col) == NULL_DATA) return 0;
+        switch (types[col]) {
+            case TYPE_DOUBLE: return buffer.getDouble(rowOffset + valueOffsets[col]);
+            case TYPE_LONG:   return buffer.getLong(rowOffset + valueOffsets[col]);
+            default:          return Double.parseDouble(getString(columnIndex).trim());
+        }
+    }
+
+    /** Lee la columna como texto (null si es NULL). Crea un String por llamada. */
+    public String getString(int columnIndex) throws SQLException {
+        int col = columnIndex - 1;
+        long length = indicator(col);
+        if (length == NULL_DATA) return null;
+        switch (types[col]) {
+            case TYPE_LONG:   return Long.toString(buffer.getLong(rowOffset + valueOffsets[col]));
+            case TYPE_DOUBLE: return Double.toString(buffer.getDouble(rowOffset + valueOffsets[col]));
+            default:
+                // Sin terminador; el indicador puede superar el buffer si el valor se truncó
+                int size = (int) Math.min(Math.max(length, 0), widths[col] - 1);
+                if (text.length < size) text = new byte[Math.max(size, text.length * 2)];
+                int position = rowOffset + valueOffsets[col];
+                for (int i = 0; i < size; i++) {
+                    text[i] = buffer.get(position + i);
+                }
+                return new String(text, 0, size, StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Indica si la columna es NULL, por nombre. */
+    public boolean isNull(String columnName) throws SQLException {
+        return isNull(findColumn(columnName));
+    }
+
+    /** Lee la columna como {@code long}, por nombre. */
+    public long getLong(String columnName) throws SQLException {
+        return getLong(findColumn(columnName));
+    }
+
+    /** Lee la columna como {@code double}, por nombre. */
+    public double getDouble(String columnName) throws SQLException {
+        return getDouble(findColumn(columnName));
+    }
+
+    /** Lee la columna como texto, por nombre. */
+    public String getString(String columnName) throws SQLException {
+        return getString(findColumn(columnName));
+    }
+
+    // Todos los getters pasan por aquí: tras close() el buffer nativo ya no existe
+    private long indicator(int col) throws SQLException {
+        if (closed) throw new SQLException("El cursor está cerrado");
+        if (row < 0) throw new IllegalStateException("There is no current row. Did you forget to call next()?");
+        int position = rowOffset + indicatorOffsets[col];
+        return longIndicators ? buffer.getLong(position) : buffer.getInt(position);
+    }
+
+    /** Libera la consulta y la memoria nativa del buffer; las llamadas siguientes no hacen nada. */
+    @Override
+    public void close() throws Exception {
+        if (closed) return;
+        closed = true;
+        long queryPtr = ptr;
+        ptr = 0;
+        buffer = null;
+        nativeBridge.free(queryPtr);
+    }
+}
@@ -0,0 +1,125 @@
+package odbcbridge;
+
+/**
+ * Punto de entrada de los eventos JFR ({@code ODBCFlightRecorder}) desde
+ * ODBCConnection y ODBCResultSet. No menciona ninguna clase de {@code jdk.jfr}:
+ * los eventos están en {@code src-jfr}, que solo se compila con JDK 11+, y
+ * {@code ODBCJfrEvents} se carga por reflexión como un {@link Sink}. Si no
+ * está en el classpath o la JVM no tiene Flight Recorder, la librería funciona
+ * igual sin eventos.
+ *
+ * <p>Los {@code begin*} devuelven null si JFR no está disponible o el evento
+ * no está activo en ninguna grabación; los {@code commit*} ignoran null.</p>
+ */
+final class ODBCEvents {
+    /** Longitud máxima de la huella SQL guardada en cada evento. */
+    static final int MAX_FINGERPRINT_LENGTH = 512;
+
+    private static final Sink SINK = loadSink();
+
+    static final boolean AVAILABLE = SINK != null;
+
+    private ODBCEvents() {
+    }
+
+    /** Emisor de los eventos; lo implementa ODBCJfrEvents (src-jfr). */
+    interface Sink {
+        Object beginConnect();
+
+        void commitConnect(Object event, String dataSource, boolean success);
+
+        Object beginExecute();
+
+        void commitExecute(Object event, String dataSource, String sql, long rowsAffected, boolean success);
+
+        Object beginFetch();
+
+        void commitFetch(Object event, String dataSource, String sql, int rows, long bytes);
+
+        Object beginStatement();
+
+        void commitStatement(Object event, String dataSource, String sql, long rows, long bytes, long objects);
+    }
+
+    // Crea ODBCJfrEvents: falla si no se compiló, si no hay jdk.jfr o si JFR no puede registrar los eventos
+    private static Sink loadSink() {
+        try {
+            Class<?> type = Class.forName("odbcbridge.ODBCJfrEvents", true, ODBCEvents.class.getClassLoader());
+            return (Sink) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static Object beginConnect() {
+        return AVAILABLE ? SINK.beginConnect() : null;
+    }
+
+    static void commitConnect(Object event, String dataSource, boolean success) {
+        if (event != null) SINK.commitConnect(event, dataSource, success);
+    }
+
+    static Object beginExecute() {
+        return AVAILABLE ? SINK.beginExecute() : null;
+    }
+
+    static void commitExecute(Object event, String dataSource, String sql, long rowsAffected, boolean success) {
+        if (event != null) SINK.commitExecute(event, dataSource, sql, rowsAffected, success);
+    }
+
+    static Object beginFetch() {
+        return AVAILABLE ? SINK.beginFetch() : null;
+    }
+
+    static void commitFetch(Object event, String dataSource, String sql, int rows, long bytes) {
+        if (event != null) SINK.commitFetch(event, dataSource, sql, rows, bytes);
+    }
+
+    static Object beginStatement() {
+        return AVAILABLE ? SINK.beginStatement() : null;
+    }
+
+    static void commitStatement(Object event, String dataSource, String sql, long rows, long bytes, long objects) {
+        if (event != null) SINK.commitStatement(event, dataSource, sql, rows, bytes, objects);
+    }
+
+    /**
+     * Huella de una sentencia para agrupar eventos sin guardar datos: los
+     * literales de texto y numéricos se sustituyen por {@code ?} y los
+     * espacios se compactan.
+     */
+    static String fingerprint(String sql) {
+        if (sql == null) return null;
+        StringBuilder out = new StringBuilder(Math.min(sql.length(), MAX_FINGERPRINT_LENGTH));
+        int n = sql.length();
+        for (int i = 0; i < n && out.length() < MAX_FINGERPRINT_LENGTH; i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                // Literal de texto ('' es una comilla escapada)
+                while (++i < n) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < n && sql.charAt(i + 1) == '\'') i++;
+                        else break;
+                    }
+                }
+                out.append('?');
+            } else if (Character.isDigit(c) && !endsWithIdentifier(out)) {
+                while (i + 1 < n && (Character.isLetterOrDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.')) i++;
+                out.append('?');
+            } else if (Character.isWhitespace(c)) {
+                if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') out.append(' ');
+            } else {
+                out.append(c);
+            }
+        }
+        int end = out.length();
+        if (end > 0 && out.charAt(end - 1) == ' ') out.setLength(end - 1);
+        return out.toString();
+    }
+
+    private static boolean endsWithIdentifier(StringBuilder out) {
+        if (out.length() == 0) return false;
+        char last = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_' || last == '"' || last == ']';
+    }
+}
@@ -0,0 +1,122 @@
+package odbcbridge;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias en nanosegundos con cubetas log-lineales (al estilo
+ * HdrHistogram): cada potencia de dos se divide en {@value #SUB_BUCKETS}
+ * cubetas, así cualquier percentil tiene un error relativo menor del 7 % con
+ * memoria fija y sin reservar nada al registrar.
+ *
+ * <p>{@link #record(long)} no usa candados: incrementa una cubeta atómica y
+ * dos {@link LongAdder}, por lo que varios hilos pueden registrar a la vez.</p>
+ */
+public class ODBCLatencyHistogram {
+    // Cubetas por potencia de dos (2^SUB_BUCKET_BITS)
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Valores 0..15 tienen cubeta propia; después 16 cubetas por exponente 4..62
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /** Registra una duración en nanosegundos (los valores negativos cuentan como 0). */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /** Pone a cero todas las cubetas. */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /** Devuelve una copia de las cubetas para calcular percentiles. */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        // El total sale de las cubetas copiadas para que los percentiles sean coherentes
+        return new Snapshot(copy, total, sum.sum(), max.get());
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // Mayor valor que cae en la cubeta 'index'
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        long lower = (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+        return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /** Instantánea inmutable de un {@link ODBCLatencyHistogram}. */
+    public static class Snapshot {
+        private final long[] counts;
+        /** Duraciones registradas. */
+        public final long count;
+        /** Suma de las duraciones en nanosegundos. */
+        public final long totalNanos;
+        /** Mayor duración registrada en nanosegundos. */
+        public final long maxNanos;
+
+        Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /** Duración media en nanosegundos (0 sin registros). */
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * Devuelve la duración (nanosegundos) por debajo de la cual está el
+         * {@code percentile} por ciento de los registros; 0 sin registros.
+         *
+         * @param percentile Percentil entre 0 y 100
+         */
+        public long getPercentileNanos(double percentile) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100.0 * count);
+            if (rank < 1) rank = 1;
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(upperBoundOf(i), maxNanos);
+            }
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d, mean=%.1f us, p50=%.1f us, p99=%.1f us, max=%.1f us",
+                count, getMeanNanos() / 1e3, getPercentileNanos(50) / 1e3,
+                getPercentileNanos(99) / 1e3, maxNanos / 1e3);
+        }
+    }
+}
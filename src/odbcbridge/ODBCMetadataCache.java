@@ -0,0 +1,125 @@
+package odbcbridge;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché del catálogo (tablas, columnas, claves primarias y {@link ODBCInfo})
+ * compartida por las conexiones de un {@link ODBCDataSource}. Cada entrada
+ * caduca a los {@link #getTtlMillis()} milisegundos de leerse del driver, y
+ * {@link #invalidate()} o {@link #invalidate(String)} la descartan antes,
+ * p. ej. después de un cambio de esquema.
+ *
+ * <p>Los valores se guardan tal como los devuelve el driver; las conexiones
+ * entregan copias, así que modificar un array devuelto no altera la caché.</p>
+ */
+public class ODBCMetadataCache {
+
+    /** Lectura del catálogo que se guarda en la caché. */
+    @FunctionalInterface
+    interface Loader<T> {
+        T load() throws Exception;
+    }
+
+    // Claves de las entradas
+    static final String TABLES = "tables";
+    static final String INFO = "info";
+    static final String ALL_COLUMNS = "columns";
+    static final String COLUMNS_PREFIX = "columns:";
+    static final String PRIMARY_KEYS_PREFIX = "pk:";
+
+    private final long ttlMillis;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param ttl  Tiempo de vida de cada entrada (0 = hasta invalidarla)
+     * @param unit Unidad de {@code ttl}
+     */
+    public ODBCMetadataCache(long ttl, TimeUnit unit) {
+        if (ttl < 0) throw new IllegalArgumentException("ttl no puede ser negativo: " + ttl);
+        this.ttlMillis = unit.toMillis(ttl);
+    }
+
+    /** Tiempo de vida de cada entrada en milisegundos (0 = sin caducidad). */
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    // Devuelve la entrada vigente o la carga con 'loader'. Dos hilos pueden
+    // cargar la misma clave a la vez: el catálogo es idempotente y no se bloquea
+    // la caché mientras el driver responde.
+    @SuppressWarnings("unchecked")
+    <T> T get(String key, Loader<T> loader) throws Exception {
+        Entry entry = entries.get(key);
+        long now = System.currentTimeMillis();
+        if (entry != null) {
+            if (!entry.isExpired(now)) {
+                hits.increment();
+                return (T) entry.value;
+            }
+            if (entries.remove(key, entry)) expirations.increment();
+        }
+        misses.increment();
+        T value = loader.load();
+        put(key, value, now);
+        return value;
+    }
+
+    // Guarda un valor leído por otra vía (p. ej. las columnas de listAllColumns)
+    void put(String key, Object value) {
+        put(key, value, System.currentTimeMillis());
+    }
+
+    private void put(String key, Object value, long loadedAt) {
+        if (value != null) {
+            entries.put(key, new Entry(value, ttlMillis == 0 ? Long.MAX_VALUE : loadedAt + ttlMillis));
+        }
+    }
+
+    /** Descarta todas las entradas. */
+    public void invalidate() {
+        entries.clear();
+    }
+
+    /**
+     * Descarta lo guardado de una tabla (columnas y clave primaria), la lista
+     * de tablas y las columnas de todas las tablas.
+     */
+    public void invalidate(String table) {
+        entries.remove(COLUMNS_PREFIX + table);
+        entries.remove(PRIMARY_KEYS_PREFIX + table);
+        entries.remove(TABLES);
+        entries.remove(ALL_COLUMNS);
+    }
+
+    /**
+     * Devuelve aciertos, fallos, entradas caducadas ({@code evictions}) y
+     * entradas guardadas; {@code capacity} es -1 porque la caché no tiene límite.
+     */
+    public ODBCCacheStats getStats() {
+        return new ODBCCacheStats(hits.sum(), misses.sum(), expirations.sum(), entries.size(), -1);
+    }
+
+    @Override
+    public String toString() {
+        return "ODBCMetadataCache{ttl=" + ttlMillis + " ms, " + getStats() + '}';
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long expiresAt;
+
+        Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package odbcbridge;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Métricas de las conexiones de un {@link ODBCDataSource} (o de las conexiones
+ * a las que se asigne con {@link ODBCConnection#setMetrics(ODBCMetrics)}).
+ *
+ * <p>Mide el tiempo de conexión, de ejecución ({@code SQLExecDirect} o
+ * {@code SQLExecute}) y de cada bloque leído ({@code SQLFetch} y la copia a
+ * Java), y cuenta filas, bytes leídos del driver y objetos Java creados para
+ * los valores. Los contadores son {@link LongAdder} y los tiempos
+ * {@link ODBCLatencyHistogram}, así que muchos hilos pueden registrar sin
+ * contención.</p>
+ *
+ * <p>Desactivadas, cada operación solo lee un campo volátil: no se toma la
+ * hora ni se consultan los contadores nativos.</p>
+ *
+ * <pre>
+ * {@code
+ * ODBCDataSource ds = new ODBCDataSource("MiDSN").setMetricsEnabled(true);
+ * ds.getMetrics().registerMBean("MiDSN");   // odbcbridge:type=ODBCMetrics,name=MiDSN
+ * ...
+ * ODBCMetricsSnapshot snapshot = ds.getMetrics().snapshot();
+ * }
+ * </pre>
+ */
+public class ODBCMetrics implements ODBCMetricsMXBean {
+    /** Dominio de los nombres JMX registrados con {@link #registerMBean(String)}. */
+    public static final String JMX_DOMAIN = "odbcbridge";
+
+    private volatile boolean enabled = true;
+
+    private final LongAdder connectCount = new LongAdder();
+    private final LongAdder connectErrors = new LongAdder();
+    private final LongAdder executeCount = new LongAdder();
+    private final LongAdder executeErrors = new LongAdder();
+    private final LongAdder rowsAffected = new LongAdder();
+    private final LongAdder fetchCount = new LongAdder();
+    private final LongAdder rowsFetched = new LongAdder();
+    private final LongAdder bytesFetched = new LongAdder();
+    private final LongAdder objectsCreated = new LongAdder();
+    private final LongAdder statementsClosed = new LongAdder();
+
+    private final ODBCLatencyHistogram connectTime = new ODBCLatencyHistogram();
+    private final ODBCLatencyHistogram executeTime = new ODBCLatencyHistogram();
+    private final ODBCLatencyHistogram fetchTime = new ODBCLatencyHistogram();
+
+    private ObjectName objectName;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Activa o desactiva el registro; los valores acumulados se conservan. */
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // ==================== REGISTRO ====================
+
+    // Marca de inicio de una operación: 0 si las métricas están desactivadas
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    void recordConnect(long start, boolean ok) {
+        if (start == 0) return;
+        connectTime.record(System.nanoTime() - start);
+        connectCount.increment();
+        if (!ok) connectErrors.increment();
+    }
+
+    void recordExecute(long start, boolean ok) {
+        if (start == 0) return;
+        executeTime.record(System.nanoTime() - start);
+        executeCount.increment();
+        if (!ok) executeErrors.increment();
+    }
+
+    void recordUpdate(long start, boolean ok, long rows) {
+        if (start == 0) return;
+        recordExecute(start, ok);
+        if (rows > 0) rowsAffected.add(rows);
+    }
+
+    void recordFetch(long start, int rows) {
+        if (start == 0) return;
+        fetchTime.record(System.nanoTime() - start);
+        fetchCount.increment();
+        if (rows > 0) rowsFetched.add(rows);
+    }
+
+    // Contadores nativos de un resultado al cerrarlo (ODBCBridge#getFetchStats)
+    void recordClose(long bytes, long objects) {
+        bytesFetched.add(bytes);
+        objectsCreated.add(objects);
+        statementsClosed.increment();
+    }
+
+    // ==================== CONSULTA ====================
+
+    /** Devuelve una instantánea de todos los contadores e histogramas. */
+    public ODBCMetricsSnapshot snapshot() {
+        return new ODBCMetricsSnapshot(
+                connectCount.sum(), connectErrors.sum(), connectTime.snapshot(),
+                executeCount.sum(), executeErrors.sum(), executeTime.snapshot(), rowsAffected.sum(),
+                fetchCount.sum(), fetchTime.snapshot(), rowsFetched.sum(), bytesFetched.sum(),
+                objectsCreated.sum(), statementsClosed.sum());
+    }
+
+    @Override
+    public void reset() {
+        connectCount.reset();
+        connectErrors.reset();
+        executeCount.reset();
+        executeErrors.reset();
+        rowsAffected.reset();
+        fetchCount.reset();
+        rowsFetched.reset();
+        bytesFetched.reset();
+        objectsCreated.reset();
+        statementsClosed.reset();
+        connectTime.reset();
+        executeTime.reset();
+        fetchTime.reset();
+    }
+
+    @Override public long getConnectCount() { return connectCount.sum(); }
+    @Override public long getConnectErrorCount() { return connectErrors.sum(); }
+    @Override public double getConnectMeanMicros() { return connectTime.snapshot().getMeanNanos() / 1e3; }
+    @Override public double getConnectP99Micros() { return connectTime.snapshot().getPercentileNanos(99) / 1e3; }
+    @Override public long getExecuteCount() { return executeCount.sum(); }
+    @Override public long getExecuteErrorCount() { return executeErrors.sum(); }
+    @Override public double getExecuteMeanMicros() { return executeTime.snapshot().getMeanNanos() / 1e3; }
+    @Override public double getExecuteP50Micros() { return executeTime.snapshot().getPercentileNanos(50) / 1e3; }
+    @Override public double getExecuteP99Micros() { return executeTime.snapshot().getPercentileNanos(99) / 1e3; }
+    @Override public double getExecuteMaxMicros() { return executeTime.snapshot().maxNanos / 1e3; }
+    @Override public long getRowsAffected() { return rowsAffected.sum(); }
+    @Override public long getFetchCount() { return fetchCount.sum(); }
+    @Override public double getFetchMeanMicros() { return fetchTime.snapshot().getMeanNanos() / 1e3; }
+    @Override public double getFetchP99Micros() { return fetchTime.snapshot().getPercentileNanos(99) / 1e3; }
+    @Override public long getRowsFetched() { return rowsFetched.sum(); }
+    @Override public long getBytesFetched() { return bytesFetched.sum(); }
+    @Override public long getObjectsCreated() { return objectsCreated.sum(); }
+    @Override public long getStatementsClosed() { return statementsClosed.sum(); }
+
+    // ==================== JMX ====================
+
+    /**
+     * Registra estas métricas en el MBeanServer de la plataforma como
+     * {@code odbcbridge:type=ODBCMetrics,name=<name>}.
+     *
+     * @param name Nombre que identifica la fuente de datos (p. ej. el DSN)
+     * @return Nombre JMX registrado
+     * @throws JMException si el nombre no es válido o ya está registrado
+     */
+    public synchronized ObjectName registerMBean(String name) throws JMException {
+        if (objectName != null) {
+            throw new IllegalStateException("Las métricas ya están registradas como " + objectName);
+        }
+        ObjectName candidate = new ObjectName(JMX_DOMAIN + ":type=ODBCMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, candidate);
+        objectName = candidate;
+        return candidate;
+    }
+
+    /** Elimina el registro JMX hecho con {@link #registerMBean(String)}, si lo hay. */
+    public synchronized void unregisterMBean() throws JMException {
+        if (objectName == null) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+        objectName = null;
+    }
+
+    @Override
+    public String toString() {
+        return "ODBCMetrics{" + (enabled ? "" : "disabled, ") + snapshot() + '}';
+    }
+}
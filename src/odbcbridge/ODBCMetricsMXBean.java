@@ -0,0 +1,51 @@
+package odbcbridge;
+
+/**
+ * Vista JMX de un {@link ODBCMetrics}. Los tiempos se publican en
+ * microsegundos; los percentiles se calculan sobre una instantánea al leerlos.
+ */
+public interface ODBCMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getConnectCount();
+
+    long getConnectErrorCount();
+
+    double getConnectMeanMicros();
+
+    double getConnectP99Micros();
+
+    long getExecuteCount();
+
+    long getExecuteErrorCount();
+
+    double getExecuteMeanMicros();
+
+    double getExecuteP50Micros();
+
+    double getExecuteP99Micros();
+
+    double getExecuteMaxMicros();
+
+    long getRowsAffected();
+
+    long getFetchCount();
+
+    double getFetchMeanMicros();
+
+    double getFetchP99Micros();
+
+    long getRowsFetched();
+
+    long getBytesFetched();
+
+    long getObjectsCreated();
+
+    long getStatementsClosed();
+
+    /** Pone a cero contadores e histogramas. */
+    void reset();
+}
@@ -0,0 +1,94 @@
+package odbcbridge;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Instantánea de un {@link ODBCMetrics}, pensada para volcarla a un sistema
+ * de métricas externo con {@link #toMap()}.
+ */
+public class ODBCMetricsSnapshot {
+    /** Conexiones abiertas (incluidas las fallidas). */
+    public final long connectCount;
+    /** Conexiones que fallaron. */
+    public final long connectErrors;
+    /** Tiempo de conexión. */
+    public final ODBCLatencyHistogram.Snapshot connectTime;
+    /** Consultas y sentencias ejecutadas (incluidas las fallidas). */
+    public final long executeCount;
+    /** Ejecuciones que fallaron. */
+    public final long executeErrors;
+    /** Tiempo de ejecución hasta tener el resultado. */
+    public final ODBCLatencyHistogram.Snapshot executeTime;
+    /** Filas afectadas por sentencias DML. */
+    public final long rowsAffected;
+    /** Bloques (o filas sueltas) leídos del driver. */
+    public final long fetchCount;
+    /** Tiempo de cada lectura, incluida la creación de los objetos Java. */
+    public final ODBCLatencyHistogram.Snapshot fetchTime;
+    /** Filas leídas. */
+    public final long rowsFetched;
+    /** Bytes de datos leídos del driver (de los resultados ya cerrados). */
+    public final long bytesFetched;
+    /** Objetos Java creados en JNI para los valores (de los resultados ya cerrados). */
+    public final long objectsCreated;
+    /** Resultados cerrados. */
+    public final long statementsClosed;
+
+    public ODBCMetricsSnapshot(long connectCount, long connectErrors, ODBCLatencyHistogram.Snapshot connectTime,
+            long executeCount, long executeErrors, ODBCLatencyHistogram.Snapshot executeTime, long rowsAffected,
+            long fetchCount, ODBCLatencyHistogram.Snapshot fetchTime, long rowsFetched, long bytesFetched,
+            long objectsCreated, long statementsClosed) {
+        this.connectCount = connectCount;
+        this.connectErrors = connectErrors;
+        this.connectTime = connectTime;
+        this.executeCount = executeCount;
+        this.executeErrors = executeErrors;
+        this.executeTime = executeTime;
+        this.rowsAffected = rowsAffected;
+        this.fetchCount = fetchCount;
+        this.fetchTime = fetchTime;
+        this.rowsFetched = rowsFetched;
+        this.bytesFetched = bytesFetched;
+        this.objectsCreated = objectsCreated;
+        this.statementsClosed = statementsClosed;
+    }
+
+    /**
+     * Devuelve los valores con nombres planos ({@code execute.count},
+     * {@code execute.p99.us}...), en microsegundos para los tiempos.
+     */
+    public Map<String, Number> toMap() {
+        Map<String, Number> map = new LinkedHashMap<>();
+        map.put("connect.count", connectCount);
+        map.put("connect.errors", connectErrors);
+        putTimes(map, "connect", connectTime);
+        map.put("execute.count", executeCount);
+        map.put("execute.errors", executeErrors);
+        putTimes(map, "execute", executeTime);
+        map.put("execute.rowsAffected", rowsAffected);
+        map.put("fetch.count", fetchCount);
+        putTimes(map, "fetch", fetchTime);
+        map.put("fetch.rows", rowsFetched);
+        map.put("fetch.bytes", bytesFetched);
+        map.put("fetch.objects", objectsCreated);
+        map.put("statements.closed", statementsClosed);
+        return map;
+    }
+
+    private static void putTimes(Map<String, Number> map, String prefix, ODBCLatencyHistogram.Snapshot times) {
+        map.put(prefix + ".mean.us", times.getMeanNanos() / 1e3);
+        map.put(prefix + ".p50.us", times.getPercentileNanos(50) / 1e3);
+        map.put(prefix + ".p90.us", times.getPercentileNanos(90) / 1e3);
+        map.put(prefix + ".p99.us", times.getPercentileNanos(99) / 1e3);
+        map.put(prefix + ".p999.us", times.getPercentileNanos(99.9) / 1e3);
+        map.put(prefix + ".max.us", times.maxNanos / 1e3);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("connect=[%s], execute=[%s], fetch=[%s], rows=%d, bytes=%d, objects=%d, errors=%d",
+            connectTime, executeTime, fetchTime, rowsFetched, bytesFetched, objectsCreated,
+            connectErrors + executeErrors);
+    }
+}
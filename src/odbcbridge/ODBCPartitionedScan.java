@@ -0,0 +1,465 @@
+package odbcbridge;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recorre una tabla (o consulta) grande en paralelo, partiéndola en rangos de
+ * una columna clave numérica o de fecha y leyendo cada rango con su propia
+ * conexión del {@link ODBCDataSource}.
+ *
+ * <pre>
+ * ODBCPartitionedScan scan = ODBCPartitionedScan.table(dataSource, "orders", "id")
+ *         .setConnections(8)
+ *         .setOrdered(true);
+ * scan.forEach(row -&gt; writer.write(row.getValues()));
+ * </pre>
+ *
+ * <p>Los límites se calculan con {@code MIN}/{@code MAX} de la clave (rangos
+ * del mismo ancho) o, con {@link #setQuantiles(boolean)}, con {@code NTILE}
+ * para que todas las particiones tengan las mismas filas aunque la clave esté
+ * sesgada. Las filas con clave NULL forman una partición propia al final.</p>
+ *
+ * <p>Las filas se entregan en el hilo que llama a {@link #forEach}: en orden
+ * de clave con {@link #setOrdered(boolean)}, o según llegan de cualquier
+ * conexión. Las colas entre los hilos de lectura y el llamador están
+ * acotadas, así que un consumidor lento frena la lectura.
+ * {@link #getProgress()} se puede consultar desde otro hilo.</p>
+ */
+public class ODBCPartitionedScan {
+    /** Conexiones abiertas por defecto. */
+    public static final int DEFAULT_CONNECTIONS = 4;
+    /** Bloques de filas que puede adelantar cada conexión por defecto. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+    private final ODBCDataSource dataSource;
+    private final String source;
+    private final String keyColumn;
+    private String columns = "*";
+    private String filter;
+    private Object[] filterParams;
+    private int connections = DEFAULT_CONNECTIONS;
+    private int partitions;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private boolean ordered;
+    private boolean quantiles;
+    private boolean includeNulls = true;
+    private Object[] boundaries;
+
+    // Estado del recorrido en curso
+    private volatile Partition[] running;
+    private volatile long startNanos;
+    private volatile boolean aborted;
+
+    private ODBCPartitionedScan(ODBCDataSource dataSource, String source, String keyColumn) {
+        this.dataSource = dataSource;
+        this.source = source;
+        this.keyColumn = keyColumn;
+    }
+
+    /** Recorre una tabla partiéndola por {@code keyColumn}. */
+    public static ODBCPartitionedScan table(ODBCDataSource dataSource, String table, String keyColumn) {
+        return new ODBCPartitionedScan(dataSource, table, keyColumn);
+    }
+
+    /** Recorre el resultado de una consulta (como subconsulta) partiéndolo por {@code keyColumn}. */
+    public static ODBCPartitionedScan query(ODBCDataSource dataSource, String sql, String keyColumn) {
+        return new ODBCPartitionedScan(dataSource, "(" + sql + ") scan_src", keyColumn);
+    }
+
+    /** Columnas a leer, separadas por comas (por defecto {@code *}). */
+    public ODBCPartitionedScan setColumns(String columns) {
+        this.columns = columns;
+        return this;
+    }
+
+    /** Condición adicional que deben cumplir las filas, con sus parámetros. */
+    public ODBCPartitionedScan setFilter(String condition, Object[] params) {
+        this.filter = condition;
+        this.filterParams = params;
+        return this;
+    }
+
+    /** Conexiones que se abren en paralelo. */
+    public ODBCPartitionedScan setConnections(int connections) {
+        if (connections < 1) throw new IllegalArgumentException("connections debe ser mayor que 0: " + connections);
+        this.connections = connections;
+        return this;
+    }
+
+    /**
+     * Rangos en que se parte la clave (por defecto uno por conexión). Con más
+     * rangos que conexiones, las que acaban antes toman los siguientes.
+     */
+    public ODBCPartitionedScan setPartitions(int partitions) {
+        if (partitions < 1) throw new IllegalArgumentException("partitions debe ser mayor que 0: " + partitions);
+        this.partitions = partitions;
+        return this;
+    }
+
+    /** Bloques de filas que cada conexión puede leer por delante del consumidor. */
+    public ODBCPartitionedScan setQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) throw new IllegalArgumentException("queueCapacity debe ser mayor que 0: " + queueCapacity);
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /** Entrega las filas en orden de clave (cada partición con ORDER BY). */
+    public ODBCPartitionedScan setOrdered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /** Calcula los límites con {@code NTILE} en lugar de repartir MIN..MAX en rangos iguales. */
+    public ODBCPartitionedScan setQuantiles(boolean quantiles) {
+        this.quantiles = quantiles;
+        return this;
+    }
+
+    /** Lee también las filas con clave NULL, como última partición (por defecto true). */
+    public ODBCPartitionedScan setIncludeNulls(boolean includeNulls) {
+        this.includeNulls = includeNulls;
+        return this;
+    }
+
+    /**
+     * Límites explícitos en orden creciente: {@code n} valores definen
+     * {@code n - 1} rangos, el último con el límite superior incluido.
+     */
+    public ODBCPartitionedScan setBoundaries(Object... boundaries) {
+        if (boundaries != null && boundaries.length < 2) {
+            throw new IllegalArgumentException("Se necesitan al menos dos límites");
+        }
+        this.boundaries = boundaries;
+        return this;
+    }
+
+    /** Recibe cada fila del recorrido. */
+    @FunctionalInterface
+    public interface RowHandler {
+        void handle(ODBCRow row) throws Exception;
+    }
+
+    /**
+     * Lee todas las particiones y entrega cada fila a {@code handler} en el
+     * hilo que llama. Si el handler o una partición fallan, se cancelan las
+     * lecturas en curso y se relanza el error.
+     */
+    public void forEach(RowHandler handler) throws Exception {
+        Object[] points = boundaries != null ? boundaries : computeBoundaries();
+        Partition[] parts = createPartitions(points);
+        BlockingQueue<Batch> shared = ordered ? null : new ArrayBlockingQueue<>(queueCapacity * connections);
+        for (Partition part : parts) {
+            part.queue = ordered ? new ArrayBlockingQueue<>(queueCapacity) : shared;
+        }
+
+        aborted = false;
+        startNanos = System.nanoTime();
+        running = parts;
+        // Tabla vacía (o filtro sin filas) sin la partición de NULL: no hay nada que leer
+        if (parts.length == 0) return;
+        int threads = Math.min(connections, parts.length);
+        AtomicInteger nextPartition = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "ODBCPartitionedScan-" + keyColumn);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < threads; i++) {
+                pool.execute(() -> scanPartitions(parts, nextPartition));
+            }
+            if (ordered) {
+                for (Partition part : parts) {
+                    drain(part.queue, handler, 1);
+                }
+            } else {
+                drain(shared, handler, parts.length);
+            }
+        } catch (Exception | Error e) {
+            aborted = true;
+            for (Partition part : parts) {
+                part.cancel();
+            }
+            throw e;
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    /** Avance del recorrido en curso (o del último); null si no ha empezado ninguno. */
+    public ODBCScanProgress getProgress() {
+        Partition[] parts = running;
+        if (parts == null) return null;
+        ODBCScanProgress.Partition[] stats = new ODBCScanProgress.Partition[parts.length];
+        int completed = 0;
+        long rows = 0;
+        for (int i = 0; i < parts.length; i++) {
+            stats[i] = parts[i].stats();
+            rows += stats[i].rows;
+            if (stats[i].done) completed++;
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        return new ODBCScanProgress(parts.length, completed, rows, elapsed, stats);
+    }
+
+    // Consume la cola hasta recibir el fin de `ends` particiones
+    private void drain(BlockingQueue<Batch> queue, RowHandler handler, int ends) throws Exception {
+        while (ends > 0) {
+            Batch batch = queue.take();
+            if (batch.rows == null) {
+                if (batch.partition.error != null) throw batch.partition.error;
+                ends--;
+                continue;
+            }
+            Partition part = batch.partition;
+            for (Object[] values : batch.rows) {
+                handler.handle(new ODBCRow(part.fields, part.indexMap, values));
+            }
+        }
+    }
+
+    // Bucle de cada hilo: una conexión que lee particiones mientras queden
+    private void scanPartitions(Partition[] parts, AtomicInteger nextPartition) {
+        ODBCConnection connection = null;
+        try {
+            int index;
+            while (!aborted && (index = nextPartition.getAndIncrement()) < parts.length) {
+                Partition part = parts[index];
+                try {
+                    if (connection == null) {
+                        connection = dataSource.getConnection();
+                    }
+                    scan(connection, part);
+                } catch (Exception e) {
+                    part.error = e;
+                } finally {
+                    part.endNanos = System.nanoTime();
+                    part.done = part.error == null;
+                    put(part.queue, new Batch(part, null));
+                }
+            }
+        } catch (CancellationException e) {
+            // El consumidor abandonó el recorrido
+        } finally {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (Exception ignored) {
+                }
+            }
+        }
+    }
+
+    private void scan(ODBCConnection connection, Partition part) throws Exception {
+        part.startNanos = System.nanoTime();
+        int batchSize = connection.getFetchSize();
+        try (ODBCResultSet rs = connection.query(part.sql, part.params)) {
+            part.resultSet = rs;
+            ODBCField[] fields = rs.getFields();
+            Map<String,Integer> indexMap = new HashMap<>();
+            for (int i = 0; i < fields.length; i++) {
+                indexMap.put(fields[i].name, i);
+            }
+            part.fields = fields;
+            part.indexMap = indexMap;
+
+            List<Object[]> rows = new ArrayList<>(batchSize);
+            while (rs.next()) {
+                rows.add(rs.getValues());
+                part.rows++;
+                if (rows.size() == batchSize) {
+                    put(part.queue, new Batch(part, rows));
+                    rows = new ArrayList<>(batchSize);
+                }
+            }
+            if (!rows.isEmpty()) {
+                put(part.queue, new Batch(part, rows));
+            }
+        } finally {
+            part.resultSet = null;
+        }
+    }
+
+    // Encola esperando hueco; si el consumidor abandona, termina el hilo
+    private void put(BlockingQueue<Batch> queue, Batch batch) {
+        try {
+            while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                if (aborted) throw new CancellationException();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+    }
+
+    // Límites: MIN/MAX repartido en rangos iguales, o cuantiles con NTILE
+    private Object[] computeBoundaries() throws Exception {
+        int count = partitions > 0 ? partitions : connections;
+        String where = " WHERE " + keyColumn + " IS NOT NULL" + (filter != null ? " AND (" + filter + ")" : "");
+        try (ODBCConnection connection = dataSource.getConnection()) {
+            Object min, max;
+            try (ODBCResultSet rs = connection.query(
+                    "SELECT MIN(" + keyColumn + "), MAX(" + keyColumn + ") FROM " + source + where, filterParams)) {
+                if (!rs.next() || rs.get(1) == null) return null;
+                min = rs.get(1);
+                max = rs.get(2);
+            }
+            if (!quantiles || count == 1) {
+                return split(min, max, count);
+            }
+            List<Object> points = new ArrayList<>(count + 1);
+            try (ODBCResultSet rs = connection.query(
+                    "SELECT MIN(" + keyColumn + ") FROM (SELECT " + keyColumn + ", NTILE(" + count + ") OVER (ORDER BY "
+                    + keyColumn + ") AS scan_tile FROM " + source + where + ") scan_q GROUP BY scan_tile ORDER BY 1",
+                    filterParams)) {
+                while (rs.next()) {
+                    points.add(rs.get(1));
+                }
+            }
+            points.add(max);
+            return distinct(points);
+        }
+    }
+
+    // Reparte [min, max] en `count` rangos del mismo ancho
+    static Object[] split(Object min, Object max, int count) {
+        List<Object> points = new ArrayList<>(count + 1);
+        if (min instanceof java.util.Date) {
+            long lo = ((java.util.Date) min).getTime();
+            long hi = ((java.util.Date) max).getTime();
+            for (int i = 0; i < count; i++) {
+                points.add(sameDateType(min, lo + (long) ((hi - (double) lo) * i / count)));
+            }
+        } else if (isIntegral(min)) {
+            long lo = ((Number) min).longValue();
+            long hi = ((Number) max).longValue();
+            for (int i = 0; i < count; i++) {
+                points.add(lo + (long) ((hi - (double) lo) * i / count));
+            }
+        } else if (min instanceof Number) {
+            BigDecimal lo = ODBCResultSet.toBigDecimal(min);
+            BigDecimal step = ODBCResultSet.toBigDecimal(max).subtract(lo)
+                    .divide(BigDecimal.valueOf(count), java.math.MathContext.DECIMAL64);
+            for (int i = 0; i < count; i++) {
+                points.add(lo.add(step.multiply(BigDecimal.valueOf(i))));
+            }
+        } else {
+            throw new IllegalArgumentException("La clave de partición debe ser numérica o de fecha: "
+                    + min.getClass().getName());
+        }
+        points.add(max);
+        return distinct(points);
+    }
+
+    private static boolean isIntegral(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return true;
+        }
+        return value instanceof BigDecimal && ((BigDecimal) value).scale() <= 0
+                && ((BigDecimal) value).abs().compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) <= 0;
+    }
+
+    private static Object sameDateType(Object sample, long millis) {
+        if (sample instanceof java.sql.Date) return new java.sql.Date(millis);
+        return new java.sql.Timestamp(millis);
+    }
+
+    // Quita límites repetidos (rangos más estrechos que el número de particiones)
+    private static Object[] distinct(List<Object> points) {
+        List<Object> result = new ArrayList<>(points.size());
+        for (Object point : points) {
+            if (result.isEmpty() || !result.get(result.size() - 1).equals(point)) {
+                result.add(point);
+            }
+        }
+        if (result.size() == 1) {
+            result.add(result.get(0));
+        }
+        return result.toArray();
+    }
+
+    private Partition[] createPartitions(Object[] points) {
+        String base = "SELECT " + columns + " FROM " + source + " WHERE ";
+        String extra = filter != null ? " AND (" + filter + ")" : "";
+        String order = ordered ? " ORDER BY " + keyColumn : "";
+        Object[] extraParams = filterParams != null ? filterParams : new Object[0];
+        List<Partition> parts = new ArrayList<>();
+        if (points != null) {
+            for (int i = 0; i + 1 < points.length; i++) {
+                boolean last = i + 2 == points.length;
+                String range = keyColumn + " >= ? AND " + keyColumn + (last ? " <= ?" : " < ?");
+                Object[] params = Arrays.copyOf(new Object[] { points[i], points[i + 1] }, 2 + extraParams.length);
+                System.arraycopy(extraParams, 0, params, 2, extraParams.length);
+                parts.add(new Partition(parts.size(), points[i], points[i + 1], base + range + extra + order, params));
+            }
+        }
+        if (includeNulls) {
+            parts.add(new Partition(parts.size(), null, null, base + keyColumn + " IS NULL" + extra,
+                    extraParams.length > 0 ? extraParams : null));
+        }
+        return parts.toArray(new Partition[0]);
+    }
+
+    // Bloque de filas de una partición; rows == null marca su final
+    private static final class Batch {
+        final Partition partition;
+        final List<Object[]> rows;
+
+        Batch(Partition partition, List<Object[]> rows) {
+            this.partition = partition;
+            this.rows = rows;
+        }
+    }
+
+    private static final class Partition {
+        final int index;
+        final Object lower;
+        final Object upper;
+        final String sql;
+        final Object[] params;
+        BlockingQueue<Batch> queue;
+
+        // Escritos por el hilo que lee la partición
+        volatile ODBCField[] fields;
+        volatile Map<String,Integer> indexMap;
+        volatile ODBCResultSet resultSet;
+        volatile long rows;
+        volatile long startNanos;
+        volatile long endNanos;
+        volatile boolean done;
+        volatile Exception error;
+
+        Partition(int index, Object lower, Object upper, String sql, Object[] params) {
+            this.index = index;
+            this.lower = lower;
+            this.upper = upper;
+            this.sql = sql;
+            this.params = params;
+        }
+
+        void cancel() {
+            ODBCResultSet rs = resultSet;
+            if (rs != null) rs.cancel();
+        }
+
+        ODBCScanProgress.Partition stats() {
+            long start = startNanos;
+            long end = endNanos;
+            long elapsed = start == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis((end != 0 ? end : System.nanoTime()) - start);
+            return new ODBCScanProgress.Partition(index, lower, upper, rows, elapsed, done);
+        }
+    }
+}
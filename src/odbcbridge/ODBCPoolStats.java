@@ -0,0 +1,58 @@
+package odbcbridge;
+
+/**
+ * Instantánea de las estadísticas de un {@link ODBCConnectionPool}.
+ */
+public class ODBCPoolStats {
+    /** Conexiones prestadas en este momento. */
+    public final int active;
+    /** Conexiones abiertas esperando a ser prestadas. */
+    public final int idle;
+    /** Conexiones físicas abiertas (activas + ociosas). */
+    public final int total;
+    /** Hilos esperando una conexión (aproximado). */
+    public final int waiters;
+    /** Préstamos atendidos desde que se creó el pool. */
+    public final long borrowCount;
+    /** Espera media por préstamo en milisegundos. */
+    public final double averageBorrowWaitMillis;
+    /** Préstamos que agotaron el borrow timeout. */
+    public final long timeoutCount;
+    /** Conexiones físicas creadas. */
+    public final long createdCount;
+    /** Conexiones físicas cerradas. */
+    public final long destroyedCount;
+    /** Veces que el mantenimiento no pudo reponer el mínimo de conexiones. */
+    public final long refillFailureCount;
+    /** Último error al reponer el mínimo, o null si no ha fallado nunca. */
+    public final Exception lastRefillError;
+
+    public ODBCPoolStats(int active, int idle, int total, int waiters, long borrowCount,
+            double averageBorrowWaitMillis, long timeoutCount, long createdCount, long destroyedCount) {
+        this(active, idle, total, waiters, borrowCount, averageBorrowWaitMillis, timeoutCount,
+                createdCount, destroyedCount, 0, null);
+    }
+
+    public ODBCPoolStats(int active, int idle, int total, int waiters, long borrowCount,
+            double averageBorrowWaitMillis, long timeoutCount, long createdCount, long destroyedCount,
+            long refillFailureCount, Exception lastRefillError) {
+        this.active = active;
+        this.idle = idle;
+        this.total = total;
+        this.waiters = waiters;
+        this.borrowCount = borrowCount;
+        this.averageBorrowWaitMillis = averageBorrowWaitMillis;
+        this.timeoutCount = timeoutCount;
+        this.createdCount = createdCount;
+        this.destroyedCount = destroyedCount;
+        this.refillFailureCount = refillFailureCount;
+        this.lastRefillError = lastRefillError;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d, idle=%d, total=%d, waiters=%d, borrows=%d, avgWait=%.3f ms, timeouts=%d, created=%d, destroyed=%d, refillFailures=%d",
+            active, idle, total, waiters, borrowCount, averageBorrowWaitMillis, timeoutCount, createdCount, destroyedCount,
+            refillFailureCount);
+    }
+}
@@ -0,0 +1,120 @@
+package odbcbridge;
+
+/**
+ * Sentencia preparada con {@code SQLPrepare}: el servidor la analiza y planifica
+ * una sola vez y se reejecuta con {@code SQLExecute} cambiando los parámetros.
+ *
+ * <pre>
+ * try (ODBCPreparedStatement stmt = conn.prepare("SELECT * FROM users WHERE id = ?")) {
+ *     for (String id : ids) {
+ *         try (ODBCResultSet rs = stmt.executeQuery(id)) {
+ *             ...
+ *         }
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>Solo puede tener un resultado abierto a la vez; hay que cerrar el
+ * {@link ODBCResultSet} antes de volver a ejecutarla.</p>
+ */
+public class ODBCPreparedStatement implements AutoCloseable {
+    private final ODBCBridge nativeBridge;
+    private final ODBCConnection connection;
+    private final String sql;
+    private long ptr;
+
+    ODBCPreparedStatement(ODBCBridge nativeBridge, ODBCConnection connection, String sql, long ptr) {
+        this.nativeBridge = nativeBridge;
+        this.connection = connection;
+        this.sql = sql;
+        this.ptr = ptr;
+    }
+
+    /** Devuelve el texto SQL de la sentencia. */
+    public String getSql() {
+        return sql;
+    }
+
+    /** Ejecuta la sentencia y devuelve sus filas. */
+    public ODBCResultSet executeQuery(Object... params) throws Exception {
+        connection.ensureOpen();
+        long queryPtr = -1;
+        long start = connection.startTimer();
+        Object event = ODBCEvents.beginExecute();
+        try {
+            queryPtr = nativeBridge.executeQuery(checkOpen(), params);
+            if (start != 0) connection.getMetrics().recordExecute(start, true);
+            ODBCEvents.commitExecute(event, connection.getDataSourceName(), sql, -1, true);
+            return connection.wrap(queryPtr, connection.getFetchSize(), sql);
+        } catch (Exception e) {
+            if (queryPtr != -1) {
+                nativeBridge.free(queryPtr);
+            } else {
+                if (start != 0) connection.getMetrics().recordExecute(start, false);
+                ODBCEvents.commitExecute(event, connection.getDataSourceName(), sql, -1, false);
+            }
+            throw e;
+        }
+    }
+
+    /** Ejecuta la sentencia DML/DDL y devuelve el número de filas afectadas. */
+    public int executeUpdate(Object... params) throws Exception {
+        if (connection.getResultCache() == null) {
+            return update(params);
+        }
+        try {
+            return update(params);
+        } finally {
+            connection.invalidateResults(sql);
+        }
+    }
+
+    private int update(Object[] params) throws Exception {
+        connection.ensureOpen();
+        long start = connection.startTimer();
+        Object event = ODBCEvents.beginExecute();
+        if (start == 0 && event == null) {
+            return nativeBridge.executeUpdate(checkOpen(), params);
+        }
+        int rows = -1;
+        try {
+            return rows = nativeBridge.executeUpdate(checkOpen(), params);
+        } finally {
+            if (start != 0) connection.getMetrics().recordUpdate(start, rows != -1, rows);
+            ODBCEvents.commitExecute(event, connection.getDataSourceName(), sql, rows, rows != -1);
+        }
+    }
+
+    /**
+     * Establece el timeout de la sentencia en segundos; 0 la deja sin límite y
+     * -1 usa el de la conexión. Si se agota, la ejecución lanza
+     * {@link java.sql.SQLTimeoutException}.
+     */
+    public ODBCPreparedStatement setQueryTimeout(int seconds) {
+        nativeBridge.setStatementTimeout(checkOpen(), seconds);
+        return this;
+    }
+
+    /**
+     * Cancela con {@code SQLCancel} la ejecución o lectura en curso de esta
+     * sentencia desde otro hilo; la llamada cancelada lanza
+     * {@link java.sql.SQLTimeoutException}.
+     */
+    public synchronized boolean cancel() {
+        return ptr != 0 && nativeBridge.cancelStatement(ptr);
+    }
+
+    private long checkOpen() {
+        if (ptr == 0) throw new IllegalStateException("La sentencia está cerrada");
+        return ptr;
+    }
+
+    /** Libera la sentencia preparada. */
+    @Override
+    public synchronized void close() {
+        if (ptr != 0) {
+            nativeBridge.closeStatement(ptr);
+            ptr = 0;
+        }
+    }
+}
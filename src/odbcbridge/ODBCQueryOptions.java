@@ -0,0 +1,151 @@
+package odbcbridge;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opciones de una sola consulta que sustituyen a las de la {@link ODBCConnection}.
+ *
+ * <pre>
+ * ODBCQueryOptions options = new ODBCQueryOptions().setQueryTimeout(2);
+ * try (ODBCResultSet rs = connection.query("SELECT ...", null, options)) {
+ *     ...
+ * }
+ * </pre>
+ */
+public class ODBCQueryOptions {
+    private int queryTimeout = -1;
+    private int fetchSize;
+    private long cacheTtlMillis = -1;
+    private int cursorType = -1;
+    private int concurrency = -1;
+    private long maxRows = -1;
+    private Boolean noScan;
+    private boolean detached;
+
+    /** Timeout en segundos, o -1 para usar el de la conexión. */
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    /**
+     * Establece el timeout de la consulta en segundos ({@code SQL_ATTR_QUERY_TIMEOUT});
+     * 0 la deja sin límite. Si se agota, la llamada lanza {@link java.sql.SQLTimeoutException}.
+     */
+    public ODBCQueryOptions setQueryTimeout(int seconds) {
+        if (seconds < 0) throw new IllegalArgumentException("queryTimeout no puede ser negativo: " + seconds);
+        this.queryTimeout = seconds;
+        return this;
+    }
+
+    /** Filas por bloque, o 0 para usar las de la conexión. */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /** Establece las filas leídas por cada {@code SQLFetch}. */
+    public ODBCQueryOptions setFetchSize(int fetchSize) {
+        if (fetchSize < 1) throw new IllegalArgumentException("fetchSize debe ser mayor que 0: " + fetchSize);
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /** Tipo de cursor ({@code ODBCConnection.CURSOR_*}), o -1 para usar el de la conexión. */
+    public int getCursorType() {
+        return cursorType;
+    }
+
+    /**
+     * Establece el tipo de cursor de la consulta ({@code SQL_ATTR_CURSOR_TYPE}).
+     *
+     * @see ODBCConnection#setCursorType(int)
+     */
+    public ODBCQueryOptions setCursorType(int cursorType) {
+        if (cursorType < ODBCConnection.CURSOR_FORWARD_ONLY || cursorType > ODBCConnection.CURSOR_STATIC) {
+            throw new IllegalArgumentException("cursorType no válido: " + cursorType);
+        }
+        this.cursorType = cursorType;
+        return this;
+    }
+
+    /** Concurrencia ({@code ODBCConnection.CONCUR_*}), o -1 para usar la de la conexión. */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Establece la concurrencia de la consulta ({@code SQL_ATTR_CONCURRENCY}).
+     *
+     * @see ODBCConnection#setConcurrency(int)
+     */
+    public ODBCQueryOptions setConcurrency(int concurrency) {
+        if (concurrency < ODBCConnection.CONCUR_READ_ONLY || concurrency > ODBCConnection.CONCUR_VALUES) {
+            throw new IllegalArgumentException("concurrency no válida: " + concurrency);
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /** Límite de filas, o -1 para usar el de la conexión. */
+    public long getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * Establece el número máximo de filas del resultado ({@code SQL_ATTR_MAX_ROWS});
+     * 0 lo deja sin límite. Con un límite la consulta no usa la caché de resultados.
+     */
+    public ODBCQueryOptions setMaxRows(long maxRows) {
+        if (maxRows < 0) throw new IllegalArgumentException("maxRows no puede ser negativo: " + maxRows);
+        this.maxRows = maxRows;
+        return this;
+    }
+
+    /** {@code SQL_ATTR_NOSCAN} de la consulta, o null para usar el de la conexión. */
+    public Boolean getNoScan() {
+        return noScan;
+    }
+
+    /**
+     * Con true el driver no procesa las secuencias de escape ODBC del texto SQL.
+     *
+     * @see ODBCConnection#setNoScan(boolean)
+     */
+    public ODBCQueryOptions setNoScan(boolean noScan) {
+        this.noScan = noScan;
+        return this;
+    }
+
+    /** Indica si el resultado se desacopla de su sentencia al ejecutarla. */
+    public boolean isDetached() {
+        return detached;
+    }
+
+    /**
+     * Con true la consulta lee todas sus filas al ejecutarse y libera la
+     * sentencia, para recorrerlas después sin ocupar un cursor del servidor
+     * ni la conexión.
+     *
+     * @see ODBCResultSet#detach(long)
+     * @see ODBCConnection#setDetachedMemoryBudget(long)
+     */
+    public ODBCQueryOptions setDetached(boolean detached) {
+        this.detached = detached;
+        return this;
+    }
+
+    /** Tiempo de vida en la caché de resultados (ms), o -1 para usar el de la caché. */
+    public long getCacheTtlMillis() {
+        return cacheTtlMillis;
+    }
+
+    /**
+     * Establece el tiempo de vida del resultado en el {@link ODBCResultCache}
+     * de la conexión. Con 0 la consulta no usa la caché: ni la busca en ella
+     * ni guarda su resultado.
+     */
+    public ODBCQueryOptions setCacheTtl(long ttl, TimeUnit unit) {
+        if (ttl < 0) throw new IllegalArgumentException("ttl no puede ser negativo: " + ttl);
+        this.cacheTtlMillis = unit.toMillis(ttl);
+        return this;
+    }
+}
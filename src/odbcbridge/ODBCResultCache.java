@@ -0,0 +1,541 @@
+package odbcbridge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché de resultados de consultas compartida por las conexiones de un
+ * {@link ODBCDataSource}. Es opcional: solo la usan las conexiones a las que
+ * se asigna.
+ *
+ * <p>La clave es el texto SQL (con los espacios compactados) más los
+ * parámetros, y el valor el resultado entero en el formato columnar de
+ * {@link ODBCResultSet}: arrays primitivos para las columnas numéricas, sin un
+ * objeto por fila. Al leer un resultado para guardarlo la sentencia del driver
+ * se libera en cuanto se ha leído.</p>
+ *
+ * <ul>
+ *   <li>Solo se guardan {@code SELECT} (o {@code WITH ... SELECT}) que leen de
+ *       alguna tabla, sin {@code INTO} ni {@code FOR UPDATE}, con parámetros de
+ *       tipos simples y sin columnas que se lean bajo demanda (LOBs).</li>
+ *   <li>La memoria total se limita a {@link #getMaxBytes()}: al superarla se
+ *       expulsan las entradas usadas hace más tiempo (LRU). Un resultado mayor
+ *       que {@link #getMaxEntryBytes()} no se guarda y se sigue leyendo del
+ *       driver.</li>
+ *   <li>Cada entrada caduca a los {@link #getTtlMillis()} milisegundos, o a los
+ *       indicados en {@link ODBCQueryOptions#setCacheTtl(long, TimeUnit)}.</li>
+ *   <li>{@code execute}, {@code executeBatch} y las sentencias preparadas de
+ *       las conexiones con esta caché descartan las entradas que leen de las
+ *       tablas que modifican ({@code INSERT}, {@code UPDATE}, {@code DELETE},
+ *       {@code MERGE}, {@code TRUNCATE}, {@code DROP}/{@code ALTER TABLE}...).
+ *       Si la sentencia no se reconoce (procedimientos, {@code COMMIT}...) se
+ *       descarta toda la caché.</li>
+ *   <li>Sin autocommit, la conexión deja de usar la caché desde que modifica
+ *       datos hasta que termina la transacción, y al confirmarla descarta otra
+ *       vez las tablas modificadas: la caché nunca guarda datos sin confirmar.</li>
+ * </ul>
+ *
+ * <p>Los cambios hechos por otros procesos, o a través de vistas y triggers,
+ * no se detectan: el tiempo de vida los acota, y {@link #invalidate(String)}
+ * los descarta a mano.</p>
+ */
+public class ODBCResultCache {
+    /** Memoria máxima por defecto: 64 MB. */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    // Palabras que terminan la lista de tablas de un FROM
+    private static final Set<String> FROM_END = new HashSet<>(Arrays.asList(
+        "WHERE", "GROUP", "ORDER", "HAVING", "UNION", "EXCEPT", "INTERSECT", "MINUS", "JOIN", "INNER",
+        "LEFT", "RIGHT", "FULL", "CROSS", "OUTER", "NATURAL", "ON", "USING", "LIMIT", "OFFSET", "FETCH",
+        "WINDOW", "FOR", "SET", "VALUES", "SELECT", ")", ";"));
+    // Modificadores entre la palabra inicial de una sentencia y su tabla
+    private static final Set<String> TARGET_SKIP = new HashSet<>(Arrays.asList(
+        "INTO", "FROM", "TABLE", "ONLY", "OR", "REPLACE", "IGNORE", "ABORT", "FAIL", "ROLLBACK",
+        "LOW_PRIORITY", "DELAYED", "HIGH_PRIORITY", "QUICK", "IF", "EXISTS", "NOT"));
+    // Tipos de parámetro que pueden formar parte de una clave
+    private static final Set<Class<?>> KEY_PARAMETER_TYPES = new HashSet<>(Arrays.<Class<?>>asList(
+        String.class, Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class,
+        Boolean.class, Character.class, java.math.BigDecimal.class, java.math.BigInteger.class,
+        java.sql.Timestamp.class, java.sql.Date.class, java.sql.Time.class, java.util.Date.class,
+        byte[].class));
+
+    private final long maxBytes;
+    private final long ttlMillis;
+    private volatile long maxEntryBytes;
+
+    // Orden de acceso: la primera entrada es la usada hace más tiempo
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    // Claves por tabla leída, para invalidar sin recorrer toda la caché
+    private final Map<String, Set<Key>> keysByTable = new HashMap<>();
+    // Reloj de invalidaciones: cuándo se invalidó cada tabla y toda la caché
+    private final Map<String, Long> invalidatedAt = new HashMap<>();
+    private long invalidatedAllAt;
+    private long clock;
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param maxBytes Memoria máxima (aproximada) de los resultados guardados
+     * @param ttl      Tiempo de vida de cada entrada (0 = hasta invalidarla o expulsarla)
+     * @param unit     Unidad de {@code ttl}
+     */
+    public ODBCResultCache(long maxBytes, long ttl, TimeUnit unit) {
+        if (maxBytes < 1) throw new IllegalArgumentException("maxBytes debe ser mayor que 0: " + maxBytes);
+        if (ttl < 0) throw new IllegalArgumentException("ttl no puede ser negativo: " + ttl);
+        this.maxBytes = maxBytes;
+        this.ttlMillis = unit.toMillis(ttl);
+        this.maxEntryBytes = Math.max(1, maxBytes / 4);
+    }
+
+    /** Memoria máxima de la caché en bytes. */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /** Tiempo de vida por defecto de cada entrada en milisegundos (0 = sin caducidad). */
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /** Memoria máxima de un solo resultado en bytes (por defecto la cuarta parte de la caché). */
+    public long getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    /**
+     * Cambia la memoria máxima de un solo resultado. Un resultado mayor no se
+     * guarda: se lee hasta ese tamaño en memoria y el resto sigue del driver.
+     */
+    public ODBCResultCache setMaxEntryBytes(long maxEntryBytes) {
+        if (maxEntryBytes < 1 || maxEntryBytes > maxBytes) {
+            throw new IllegalArgumentException("maxEntryBytes debe estar entre 1 y " + maxBytes + ": " + maxEntryBytes);
+        }
+        this.maxEntryBytes = maxEntryBytes;
+        return this;
+    }
+
+    // ==================== CONSULTA ====================
+
+    // Resultado vigente de la clave, o null (fallo)
+    ODBCCachedResult get(Key key) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.currentTimeMillis() < entry.expiresAt) {
+                    hits.increment();
+                    return entry.result;
+                }
+                remove(key);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    // Marca tomada antes de ejecutar una consulta: put() descarta el resultado
+    // si alguna de sus tablas se invalidó después
+    synchronized long mark() {
+        return clock;
+    }
+
+    // Guarda el resultado de una consulta ejecutada después de 'mark'; null si no se pudo materializar
+    void put(Key key, ODBCCachedResult result, long mark, long ttlMillis) {
+        if (result == null || result.bytes > maxEntryBytes) {
+            rejected.increment();
+            return;
+        }
+        long expiresAt = ttlMillis == 0 ? Long.MAX_VALUE : System.currentTimeMillis() + ttlMillis;
+        synchronized (this) {
+            if (isInvalidatedSince(key, mark)) {
+                rejected.increment();
+                return;
+            }
+            remove(key);
+            entries.put(key, new Entry(result, expiresAt));
+            for (String table : key.tables) {
+                keysByTable.computeIfAbsent(table, t -> new HashSet<>()).add(key);
+            }
+            bytes += result.bytes;
+            Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<Key, Entry> victim = eldest.next();
+                eldest.remove();
+                unindex(victim.getKey(), victim.getValue(), null);
+                evictions.increment();
+            }
+        }
+    }
+
+    private boolean isInvalidatedSince(Key key, long mark) {
+        if (invalidatedAllAt > mark) return true;
+        for (String table : key.tables) {
+            Long at = invalidatedAt.get(table);
+            if (at != null && at > mark) return true;
+        }
+        return false;
+    }
+
+    // Quita una entrada y sus referencias; ya con el monitor tomado
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            unindex(key, entry, null);
+        }
+    }
+
+    // Resta la memoria de una entrada ya quitada y la borra del índice de
+    // tablas, salvo de 'skipTable'. No usa entries.get(), que en orden de
+    // acceso reordena el mapa mientras se recorre.
+    private void unindex(Key key, Entry entry, String skipTable) {
+        bytes -= entry.result.bytes;
+        for (String table : key.tables) {
+            if (table.equals(skipTable)) continue;
+            Set<Key> keys = keysByTable.get(table);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByTable.remove(table);
+            }
+        }
+    }
+
+    // ==================== INVALIDACIÓN ====================
+
+    // Descarta lo que puede haber cambiado una sentencia ejecutada en una
+    // conexión con esta caché; devuelve las tablas descartadas (null = todas)
+    Set<String> invalidateStatement(String sql) {
+        Set<String> tables = modifiedTables(sql);
+        if (tables == null) {
+            invalidate();
+            return null;
+        }
+        for (String table : tables) {
+            invalidateTable(table);
+        }
+        return tables;
+    }
+
+    /** Descarta todas las entradas. */
+    public synchronized void invalidate() {
+        invalidatedAllAt = ++clock;
+        invalidatedAt.clear();
+        invalidations.add(entries.size());
+        entries.clear();
+        keysByTable.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Descarta los resultados que leen de {@code table}. Se compara solo el
+     * nombre sin esquema ni comillas, y sin distinguir mayúsculas.
+     */
+    public void invalidate(String table) {
+        invalidateTable(tableName(table));
+    }
+
+    // Descarta los resultados de una tabla con el nombre ya normalizado (tableName)
+    synchronized void invalidateTable(String table) {
+        invalidatedAt.put(table, ++clock);
+        Set<Key> keys = keysByTable.remove(table);
+        if (keys == null) {
+            return;
+        }
+        for (Key key : keys) {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                unindex(key, entry, table);
+                invalidations.increment();
+            }
+        }
+    }
+
+    /** Devuelve los contadores de la caché. */
+    public synchronized ODBCResultCacheStats getStats() {
+        return new ODBCResultCacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), bytes, maxBytes,
+            expirations.sum(), invalidations.sum(), rejected.sum());
+    }
+
+    @Override
+    public String toString() {
+        return "ODBCResultCache{ttl=" + ttlMillis + " ms, " + getStats() + '}';
+    }
+
+    // ==================== SQL ====================
+
+    /**
+     * Clave de una consulta que se puede guardar, o null si no: no es un
+     * {@code SELECT} que lea de alguna tabla o lleva parámetros que no son
+     * valores simples.
+     */
+    static Key key(String sql, Object[] params) {
+        Object[] values = params == null ? new Object[0] : params.clone();
+        for (Object value : values) {
+            if (value != null && !KEY_PARAMETER_TYPES.contains(value.getClass())) return null;
+        }
+        List<String> tokens = tokens(sql);
+        if (tokens.isEmpty()) return null;
+        String first = tokens.get(0).toUpperCase(Locale.ROOT);
+        if (!first.equals("SELECT") && !first.equals("WITH")) return null;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i).toUpperCase(Locale.ROOT);
+            switch (token) {
+                case "INTO": case "INSERT": case "UPDATE": case "DELETE": case "MERGE":
+                    return null;
+                case ";":
+                    // Solo se admite el ';' final, no varias sentencias
+                    if (i < tokens.size() - 1) return null;
+                    break;
+                default:
+                    break;
+            }
+        }
+        Set<String> tables = referencedTables(tokens);
+        if (tables.isEmpty()) return null;
+        return new Key(normalize(sql), values, tables);
+    }
+
+    // Tablas que aparecen tras FROM o JOIN (también en subconsultas)
+    static Set<String> referencedTables(List<String> tokens) {
+        Set<String> tables = new HashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (token.equalsIgnoreCase("JOIN")) {
+                addTable(tables, tokens, i + 1);
+            } else if (token.equalsIgnoreCase("FROM")) {
+                // FROM a x, b AS y, (subconsulta) z ...
+                int j = i + 1;
+                while (j < tokens.size()) {
+                    addTable(tables, tokens, j);
+                    int depth = 0;
+                    for (; j < tokens.size(); j++) {
+                        String t = tokens.get(j);
+                        if (t.equals("(")) depth++;
+                        else if (t.equals(")") && depth > 0) depth--;
+                        else if (depth == 0 && (t.equals(",") || FROM_END.contains(t.toUpperCase(Locale.ROOT)))) break;
+                    }
+                    if (j >= tokens.size() || !tokens.get(j).equals(",")) break;
+                    j++;
+                }
+            }
+        }
+        return tables;
+    }
+
+    private static void addTable(Set<String> tables, List<String> tokens, int index) {
+        if (index < tokens.size() && isIdentifier(tokens.get(index))) {
+            tables.add(tableName(tokens.get(index)));
+        }
+    }
+
+    /**
+     * Tablas que puede modificar una sentencia: vacío si solo lee (o crea
+     * índices) y null si no se reconoce, y entonces hay que invalidarlo todo.
+     */
+    static Set<String> modifiedTables(String sql) {
+        List<String> tokens = tokens(sql);
+        Set<String> tables = new HashSet<>();
+        int start = 0;
+        for (int i = 0; i <= tokens.size(); i++) {
+            if (i < tokens.size() && !tokens.get(i).equals(";")) continue;
+            if (i > start && !addModifiedTables(tables, tokens.subList(start, i))) return null;
+            start = i + 1;
+        }
+        return tables;
+    }
+
+    // Añade la tabla modificada por una sola sentencia; false si no se reconoce
+    private static boolean addModifiedTables(Set<String> tables, List<String> tokens) {
+        String first = tokens.get(0).toUpperCase(Locale.ROOT);
+        switch (first) {
+            case "SELECT":
+                return true;
+            case "WITH":
+                // WITH ... INSERT/UPDATE/DELETE/MERGE, o solo una consulta
+                for (int i = 1; i < tokens.size(); i++) {
+                    switch (tokens.get(i).toUpperCase(Locale.ROOT)) {
+                        case "INSERT": case "UPDATE": case "DELETE": case "MERGE":
+                            return addModifiedTables(tables, tokens.subList(i, tokens.size()));
+                        default:
+                            break;
+                    }
+                }
+                return true;
+            case "INSERT": case "REPLACE": case "UPSERT": case "MERGE":
+            case "UPDATE": case "DELETE": case "TRUNCATE":
+                return addTarget(tables, tokens, 1);
+            case "DROP": case "ALTER": case "CREATE":
+                // DROP/ALTER/CREATE [OR REPLACE] [TEMPORARY ...] TABLE|VIEW nombre
+                for (int i = 1; i < tokens.size() && i < 6; i++) {
+                    String token = tokens.get(i).toUpperCase(Locale.ROOT);
+                    if (token.equals("TABLE") || token.equals("VIEW")) return addTarget(tables, tokens, i + 1);
+                    if (token.equals("INDEX")) return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean addTarget(Set<String> tables, List<String> tokens, int index) {
+        while (index < tokens.size() && TARGET_SKIP.contains(tokens.get(index).toUpperCase(Locale.ROOT))) {
+            index++;
+        }
+        if (index >= tokens.size() || !isIdentifier(tokens.get(index))) return false;
+        tables.add(tableName(tokens.get(index)));
+        return true;
+    }
+
+    private static boolean isIdentifier(String token) {
+        char c = token.charAt(0);
+        return Character.isLetter(c) || c == '_' || c == '"' || c == '[' || c == '`' || c == '#' || c == '@';
+    }
+
+    // Nombre de tabla sin esquema, comillas ni mayúsculas
+    static String tableName(String identifier) {
+        String name = identifier.substring(identifier.lastIndexOf('.') + 1);
+        if (name.length() >= 2) {
+            char open = name.charAt(0);
+            if (open == '"' || open == '[' || open == '`') name = name.substring(1, name.length() - 1);
+        }
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Divide una sentencia en palabras (identificadores con su esquema y
+     * comillas, p. ej. {@code dbo."Orders"}) y los símbolos {@code ( ) , ;},
+     * sin literales de texto ni comentarios.
+     */
+    static List<String> tokens(String sql) {
+        List<String> tokens = new ArrayList<>();
+        int n = sql.length();
+        int i = 0;
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+            } else if (c == '-' && i + 1 < n && sql.charAt(i + 1) == '-') {
+                while (i < n && sql.charAt(i) != '\n') i++;
+            } else if (c == '/' && i + 1 < n && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+            } else if (c == '(' || c == ')' || c == ',' || c == ';') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (isWordStart(c)) {
+                int start = i;
+                i = skipPart(sql, i);
+                while (i + 1 < n && sql.charAt(i) == '.' && isWordStart(sql.charAt(i + 1))) {
+                    i = skipPart(sql, i + 1);
+                }
+                tokens.add(sql.substring(start, i));
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isWordStart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '"' || c == '[' || c == '`' || c == '#' || c == '@';
+    }
+
+    // Salta una parte de un identificador: palabra o nombre entre comillas
+    private static int skipPart(String sql, int i) {
+        char c = sql.charAt(i);
+        if (c == '"' || c == '`') return skipQuoted(sql, i, c);
+        if (c == '[') return skipQuoted(sql, i, ']');
+        while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || "_$#@".indexOf(sql.charAt(i)) >= 0)) i++;
+        return i;
+    }
+
+    // Posición tras el cierre de un texto entre comillas (la comilla doble es un escape)
+    private static int skipQuoted(String sql, int i, char close) {
+        int n = sql.length();
+        while (++i < n) {
+            if (sql.charAt(i) == close) {
+                if (i + 1 < n && sql.charAt(i + 1) == close) i++;
+                else return i + 1;
+            }
+        }
+        return n;
+    }
+
+    // Texto de la clave: espacios compactados fuera de literales y sin ';' final
+    static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int n = sql.length();
+        int i = 0;
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`' || c == '[') {
+                int end = skipQuoted(sql, i, c == '[' ? ']' : c);
+                out.append(sql, i, end);
+                i = end;
+            } else if (Character.isWhitespace(c)) {
+                if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') out.append(' ');
+                i++;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        int end = out.length();
+        while (end > 0 && (out.charAt(end - 1) == ' ' || out.charAt(end - 1) == ';')) end--;
+        out.setLength(end);
+        return out.toString();
+    }
+
+    /** Consulta guardada: SQL normalizado más parámetros; las tablas no forman parte de la igualdad. */
+    static final class Key {
+        final String sql;
+        final Object[] params;
+        final Set<String> tables;
+        private final int hash;
+
+        Key(String sql, Object[] params, Set<String> tables) {
+            this.sql = sql;
+            this.params = params;
+            this.tables = Collections.unmodifiableSet(tables);
+            this.hash = 31 * sql.hashCode() + Arrays.deepHashCode(params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return hash == other.hash && sql.equals(other.sql) && Arrays.deepEquals(params, other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        final ODBCCachedResult result;
+        final long expiresAt;
+
+        Entry(ODBCCachedResult result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package odbcbridge;
+
+/**
+ * Instantánea de los contadores de un {@link ODBCResultCache}. Además de los
+ * de cualquier caché, lleva la memoria ocupada y por qué se descartaron las
+ * entradas; {@link #evictions} son solo las expulsadas por falta de memoria.
+ */
+public class ODBCResultCacheStats extends ODBCCacheStats {
+    /** Memoria aproximada de los resultados guardados, en bytes. */
+    public final long bytes;
+    /** Memoria máxima de la caché, en bytes. */
+    public final long maxBytes;
+    /** Entradas descartadas porque su tiempo de vida había vencido. */
+    public final long expirations;
+    /** Entradas descartadas porque una sentencia modificó alguna de sus tablas. */
+    public final long invalidations;
+    /** Resultados no guardados por superar el máximo por entrada o por cambiar sus tablas mientras se leían. */
+    public final long rejected;
+
+    public ODBCResultCacheStats(long hits, long misses, long evictions, long size, long bytes, long maxBytes,
+            long expirations, long invalidations, long rejected) {
+        super(hits, misses, evictions, size, -1);
+        this.bytes = bytes;
+        this.maxBytes = maxBytes;
+        this.expirations = expirations;
+        this.invalidations = invalidations;
+        this.rejected = rejected;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, hitRatio=%.3f, evictions=%d, expirations=%d, invalidations=%d, "
+            + "rejected=%d, size=%d, bytes=%d/%d",
+            hits, misses, getHitRatio(), evictions, expirations, invalidations, rejected, size, bytes, maxBytes);
+    }
+}
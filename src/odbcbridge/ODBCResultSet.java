@@ -0,0 +1,1183 @@
+package odbcbridge;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Mini-ResultSet para iterar filas con try-with-resources.
+ *
+ * <p>Las filas se leen por bloques de {@link #getFetchSize()} filas con
+ * {@link ODBCBridge#fetchColumns} en formato columnar: las columnas enteras y
+ * reales se guardan en arrays primitivos, así {@link #getInt(int)},
+ * {@link #getLong(int)} o {@link #getDouble(int)} no crean ningún objeto.
+ * {@link #get(int)} y {@link #getValues()} crean el objeto al pedirlo.</p>
+ *
+ * <p>Las columnas de texto o binarias más grandes que {@link #getLobThreshold()}
+ * (o de tamaño desconocido) no se materializan al avanzar: la fila se lee sola y
+ * esas columnas, junto con las que las siguen, se leen al pedirlas. Con
+ * {@link #getBinaryStream(int)} y {@link #getCharacterStream(int)} se leen por
+ * trozos con {@code SQLGetData} sin cargar el valor entero en memoria. Muchos
+ * drivers solo permiten leer estas columnas en orden creciente.</p>
+ */
+public class ODBCResultSet implements AutoCloseable {
+    // Almacenamiento de cada columna (ODBCBridge#getColumnKinds)
+    private static final int COLUMN_INT = 0;
+    private static final int COLUMN_LONG = 1;
+    private static final int COLUMN_FLOAT = 2;
+    private static final int COLUMN_DOUBLE = 3;
+
+    // Tamaño de cada trozo leído por los streams de LOBs
+    private static final int LOB_CHUNK_SIZE = 32 * 1024;
+    // Marca de una columna ya consumida como stream
+    private static final Object STREAMED = new Object();
+
+    private final ODBCBridge nativeBridge;
+    private final long ptr;
+    private ODBCField[] fields;
+    private Map<String,Integer> indexMap;
+    private Object[] currentValues;
+    private boolean lastNull;
+
+    // Bloque columnar leído del driver y posición dentro de él
+    private int fetchSize;
+    private int[] kinds;
+    private Object[] columns;
+    private boolean[][] nulls;
+    private int blockRows;
+    private int blockIndex = -1;
+
+    // Columnas leídas bajo demanda (LOBs): primera columna diferida, -1 ninguna
+    private int lobThreshold = ODBCConnection.DEFAULT_LOB_THRESHOLD;
+    private int firstLob = -2;
+    private boolean[] loaded;
+    private long rowNumber;
+    private volatile boolean closed;
+
+    // Resultado leído entero en memoria (la sentencia ya se liberó), o null
+    private ODBCCachedResult memory;
+    // El bloque actual son las filas ya leídas por materialize(); al agotarse se sigue leyendo del driver
+    private boolean prefix;
+    // Contadores nativos guardados al liberar la sentencia antes del cierre
+    private long[] finalStats;
+    // Filas afectadas de los resultados sin columnas recorridos (SQLMoreResults)
+    private long[] updateCounts = new long[0];
+    // Copia local de un resultado desacoplado (la sentencia ya se liberó) y siguiente bloque a leer, o null
+    private ODBCRowStore store;
+    private int storeBlock;
+
+    // Métricas (null si la conexión no tiene) y contadores propios del resultado
+    private ODBCMetrics metrics;
+    private long rowsFetched;
+    private long fetchNanos;
+
+    // Origen para los eventos JFR y evento abierto hasta el cierre (null sin JFR)
+    private String dataSourceName;
+    private String sql;
+    private Object statementEvent;
+    // Evita cancelar sobre un resultado ya liberado
+    private final Object cancelLock = new Object();
+
+    /**
+     * Constructor: precarga metadata y mapea nombres a índices.
+     */
+    public ODBCResultSet(ODBCBridge nativeBridge, long ptr) throws Exception {
+        this(nativeBridge, ptr, ODBCConnection.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Constructor con tamaño de bloque.
+     *
+     * @param fetchSize Filas por bloque; 1 lee fila a fila con fetchArray
+     */
+    public ODBCResultSet(ODBCBridge nativeBridge, long ptr, int fetchSize) throws Exception {
+        this.nativeBridge = nativeBridge;
+        this.ptr = ptr;
+        this.fetchSize = Math.max(1, fetchSize);
+        this.fields = nativeBridge.fetchFields(ptr);
+        this.indexMap = indexFields(fields);
+        if (fields.length == 0) {
+            // El primer resultado es un recuento de filas (p. ej. un INSERT antes del SELECT de un procedimiento)
+            addUpdateCount(nativeBridge.getRowCount(ptr));
+        }
+    }
+
+    // Recorrido de un resultado ya en memoria (ODBCCachedResult#open)
+    ODBCResultSet(ODBCCachedResult result) {
+        this.nativeBridge = null;
+        this.ptr = 0;
+        this.fields = result.fields;
+        this.indexMap = indexFields(fields);
+        this.fetchSize = Math.max(1, result.rows);
+        this.finalStats = new long[2];
+        useMemory(result);
+    }
+
+    private static Map<String,Integer> indexFields(ODBCField[] fields) {
+        Map<String,Integer> indexMap = new HashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            indexMap.put(fields[i].name, i);
+        }
+        return indexMap;
+    }
+
+    // Recorre el resultado en memoria como un único bloque
+    private void useMemory(ODBCCachedResult result) {
+        memory = result;
+        firstLob = -1;
+        kinds = result.kinds;
+        columns = result.columns;
+        nulls = result.nulls;
+        blockRows = result.rows;
+        blockIndex = -1;
+    }
+
+    /**
+     * Avanza al siguiente registro, leyendo un nuevo bloque cuando se agota el actual.
+     * @return true si hay fila, false al acabar.
+     */
+    public boolean next() throws Exception {
+        ensureOpen();
+        rowNumber++;
+        if (fields.length == 0) {
+            return false;
+        }
+        if (firstLob == -2) {
+            firstLob = findFirstLob();
+        }
+        // La hora solo se toma cuando se llama al driver
+        ODBCMetrics m = metrics;
+        if (firstLob >= 0) {
+            long start = m == null ? 0 : m.start();
+            Object event = beginFetch();
+            currentValues = nativeBridge.fetchRow(ptr, firstLob);
+            fetched(m, start, event, currentValues == null ? 0 : 1);
+            if (currentValues == null) return false;
+            if (loaded == null) loaded = new boolean[fields.length];
+            Arrays.fill(loaded, firstLob, fields.length, false);
+            blockIndex = 0;
+            return true;
+        }
+        if (fetchSize == 1 && memory == null) {
+            long start = m == null ? 0 : m.start();
+            Object event = beginFetch();
+            currentValues = nativeBridge.fetchArray(ptr);
+            fetched(m, start, event, currentValues == null ? 0 : 1);
+            blockIndex = 0;
+            return currentValues != null;
+        }
+        currentValues = null;
+        if (columns == null) {
+            allocateColumns();
+        }
+        if (++blockIndex >= blockRows) {
+            if (memory != null) {
+                blockRows = 0;
+                blockIndex = -1;
+                return false;
+            }
+            if (store != null) {
+                if (storeBlock >= store.blockCount()) {
+                    blockRows = 0;
+                    blockIndex = -1;
+                    return false;
+                }
+                blockRows = store.read(storeBlock++, columns, nulls);
+                blockIndex = 0;
+                return true;
+            }
+            if (prefix) {
+                prefix = false;
+                allocateColumns();
+            }
+            long start = m == null ? 0 : m.start();
+            Object event = beginFetch();
+            blockRows = nativeBridge.fetchColumns(ptr, fetchSize, columns, nulls);
+            fetched(m, start, event, blockRows);
+            blockIndex = 0;
+            if (blockRows == 0) {
+                blockIndex = -1;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Bytes leídos antes del bloque en curso, para el evento ODBCFetchBlock
+    private long bytesBeforeFetch;
+
+    private Object beginFetch() {
+        Object event = ODBCEvents.beginFetch();
+        if (event != null) bytesBeforeFetch = nativeBridge.getFetchStats(ptr)[0];
+        return event;
+    }
+
+    // Cuenta las filas de una lectura y registra su tiempo si hay métricas o eventos activos
+    private void fetched(ODBCMetrics m, long start, Object event, int rows) {
+        rowsFetched += rows;
+        if (start != 0) {
+            fetchNanos += System.nanoTime() - start;
+            m.recordFetch(start, rows);
+        }
+        if (event != null) {
+            long bytes = nativeBridge.getFetchStats(ptr)[0] - bytesBeforeFetch;
+            ODBCEvents.commitFetch(event, dataSourceName, sql, rows, bytes);
+        }
+    }
+
+    // Índice de la primera columna que se lee bajo demanda, o -1 si todas se materializan
+    private int findFirstLob() {
+        for (int i = 0; i < fields.length; i++) {
+            if (isLob(fields[i])) return i;
+        }
+        return -1;
+    }
+
+    private boolean isLob(ODBCField field) {
+        switch (field.type) {
+            case -1: case -4: case -10:          // LONGVARCHAR, LONGVARBINARY, WLONGVARCHAR
+            case 1: case 12: case -8: case -9:   // CHAR, VARCHAR, WCHAR, WVARCHAR
+            case -2: case -3:                    // BINARY, VARBINARY
+                return field.size <= 0 || field.size > lobThreshold;
+            default:
+                return false;
+        }
+    }
+
+    // Arrays del bloque columnar, reutilizados en cada fetchColumns
+    private void allocateColumns() {
+        kinds = nativeBridge.getColumnKinds(ptr);
+        columns = new Object[fields.length];
+        nulls = new boolean[fields.length][];
+        for (int i = 0; i < fields.length; i++) {
+            columns[i] = newColumn(kinds[i], fetchSize);
+            nulls[i] = new boolean[fetchSize];
+        }
+    }
+
+    private static Object newColumn(int kind, int size) {
+        switch (kind) {
+            case COLUMN_INT:
+            case COLUMN_LONG:   return new long[size];
+            case COLUMN_FLOAT:
+            case COLUMN_DOUBLE: return new double[size];
+            default:            return new Object[size];
+        }
+    }
+
+    private static Object resizeColumn(Object column, int size) {
+        if (column instanceof long[]) return Arrays.copyOf((long[]) column, size);
+        if (column instanceof double[]) return Arrays.copyOf((double[]) column, size);
+        return Arrays.copyOf((Object[]) column, size);
+    }
+
+    /**
+     * Lee el resultado entero en memoria y libera la sentencia, para
+     * {@link ODBCResultCache}. Debe llamarse antes del primer {@link #next()};
+     * el recorrido sigue funcionando igual sobre las filas en memoria.
+     *
+     * @param maxBytes Memoria máxima (aproximada) del resultado
+     * @return Resultado en memoria, o null si tiene columnas que se leen bajo
+     *         demanda, si se lee fila a fila o si supera {@code maxBytes}. En
+     *         este último caso las filas ya leídas se recorren primero y el
+     *         resto se sigue leyendo del driver.
+     */
+    ODBCCachedResult materialize(long maxBytes) throws Exception {
+        if (firstLob == -2) {
+            firstLob = findFirstLob();
+        }
+        if (firstLob >= 0 || fetchSize == 1 || columns != null || currentValues != null || fields.length == 0) {
+            return null;
+        }
+        allocateColumns();
+        int columnCount = fields.length;
+        int capacity = fetchSize;
+        Object[] data = new Object[columnCount];
+        boolean[][] dataNulls = new boolean[columnCount][];
+        for (int i = 0; i < columnCount; i++) {
+            data[i] = newColumn(kinds[i], capacity);
+            dataNulls[i] = new boolean[capacity];
+        }
+        // Valor primitivo o referencia más el indicador de nulo de cada columna
+        long rowBytes = 9L * columnCount;
+        long bytes = 0;
+        int rows = 0;
+        ODBCMetrics m = metrics;
+        while (true) {
+            long start = m == null ? 0 : m.start();
+            Object event = beginFetch();
+            int count = nativeBridge.fetchColumns(ptr, fetchSize, columns, nulls);
+            fetched(m, start, event, count);
+            if (count == 0) break;
+            if (rows + count > capacity) {
+                capacity = Math.max(rows + count, capacity * 2);
+                for (int i = 0; i < columnCount; i++) {
+                    data[i] = resizeColumn(data[i], capacity);
+                    dataNulls[i] = Arrays.copyOf(dataNulls[i], capacity);
+                }
+            }
+            for (int i = 0; i < columnCount; i++) {
+                System.arraycopy(columns[i], 0, data[i], rows, count);
+                System.arraycopy(nulls[i], 0, dataNulls[i], rows, count);
+                if (kinds[i] > COLUMN_DOUBLE) {
+                    Object[] values = (Object[]) columns[i];
+                    for (int r = 0; r < count; r++) {
+                        bytes += ODBCCachedResult.sizeOf(values[r]);
+                    }
+                }
+            }
+            rows += count;
+            bytes += rowBytes * count;
+            if (bytes > maxBytes) {
+                columns = data;
+                nulls = dataNulls;
+                blockRows = rows;
+                blockIndex = -1;
+                prefix = true;
+                return null;
+            }
+        }
+        for (int i = 0; i < columnCount; i++) {
+            data[i] = resizeColumn(data[i], rows);
+            dataNulls[i] = Arrays.copyOf(dataNulls[i], rows);
+        }
+        ODBCCachedResult result = new ODBCCachedResult(fields, kinds, data, dataNulls, rows, bytes);
+        synchronized (cancelLock) {
+            if (closed) return null;
+            freeStatement(true);
+            useMemory(result);
+        }
+        return result;
+    }
+
+    /**
+     * Pasa al siguiente conjunto de filas de la sentencia ({@code SQLMoreResults}),
+     * p. ej. en un procedimiento que devuelve varios. Las filas pendientes del
+     * actual se descartan y los recuentos de filas intermedios (INSERT, UPDATE...)
+     * se acumulan en {@link #getUpdateCounts()}.
+     *
+     * <pre>
+     * try (ODBCResultSet rs = connection.query("EXEC informe_ventas ?", new Object[] { 2024 })) {
+     *     do {
+     *         while (rs.next()) { ... }
+     *     } while (rs.nextResultSet());
+     * }
+     * </pre>
+     *
+     * @return true si hay otro conjunto de filas, con sus propias columnas;
+     *         false si no quedan (la sentencia sigue abierta hasta {@link #close()})
+     */
+    public boolean nextResultSet() throws Exception {
+        ensureOpen();
+        if (memory != null || store != null) return false;
+        while (true) {
+            int columnCount = nativeBridge.nextResult(ptr);
+            if (columnCount < 0) {
+                resetResult(new ODBCField[0]);
+                return false;
+            }
+            if (columnCount > 0) {
+                resetResult(nativeBridge.fetchFields(ptr));
+                return true;
+            }
+            addUpdateCount(nativeBridge.getRowCount(ptr));
+        }
+    }
+
+    /**
+     * Filas afectadas por cada resultado sin columnas recorrido hasta ahora
+     * (en el primero o con {@link #nextResultSet()}), en orden; -1 si el
+     * driver no lo sabe.
+     */
+    public long[] getUpdateCounts() {
+        return updateCounts.clone();
+    }
+
+    private void addUpdateCount(long count) {
+        updateCounts = Arrays.copyOf(updateCounts, updateCounts.length + 1);
+        updateCounts[updateCounts.length - 1] = count;
+    }
+
+    // Empieza el recorrido de un nuevo resultado con sus columnas. rowNumber
+    // sigue creciendo para que los streams de LOBs abiertos detecten el cambio.
+    private void resetResult(ODBCField[] fields) {
+        this.fields = fields;
+        this.indexMap = indexFields(fields);
+        currentValues = null;
+        lastNull = false;
+        kinds = null;
+        columns = null;
+        nulls = null;
+        blockRows = 0;
+        blockIndex = -1;
+        firstLob = -2;
+        loaded = null;
+        prefix = false;
+    }
+
+    /** Devuelve el número de filas por bloque. */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Cambia el número de filas por bloque. Solo tiene efecto antes de la
+     * primera llamada a {@link #next()}, ya que los buffers nativos se
+     * dimensionan con el primer bloque.
+     */
+    public void setFetchSize(int fetchSize) {
+        if (columns == null && currentValues == null) {
+            this.fetchSize = Math.max(1, fetchSize);
+        }
+    }
+
+    /** Devuelve el tamaño (bytes o caracteres) a partir del cual una columna se lee bajo demanda. */
+    public int getLobThreshold() {
+        return lobThreshold;
+    }
+
+    /**
+     * Cambia el tamaño a partir del cual una columna de texto o binaria se lee
+     * bajo demanda en lugar de materializarse al avanzar. Solo tiene efecto
+     * antes de la primera llamada a {@link #next()}.
+     */
+    public void setLobThreshold(int lobThreshold) {
+        if (firstLob == -2) {
+            this.lobThreshold = Math.max(0, lobThreshold);
+        }
+    }
+
+    /** Devuelve todos los valores actuales. */
+    public Object[] getValues() throws SQLException {
+        ensureOpen();
+        if (firstLob >= 0 && currentValues != null) {
+            for (int i = firstLob; i < fields.length; i++) {
+                value(i);
+            }
+        }
+        if (currentValues == null && columns != null && blockIndex >= 0) {
+            Object[] values = new Object[fields.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = value(i);
+            }
+            currentValues = values;
+        }
+        return currentValues;
+    }
+
+    /** Devuelve metadata de columnas. */
+    public ODBCField[] getFields() {
+        return fields;
+    }
+
+    /**
+     * Devuelve la fila actual como un Map<nombreColumna, valor>.
+     * @throws IllegalStateException si no se ha llamado a next() o ya no hay fila.
+     */
+    public Map<String, Object> toMap() throws SQLException {
+       Object[] values = getValues();
+       if (values == null) {
+           throw new IllegalStateException("There is no current row. Did you forget to call next()?");
+       }
+       Map<String, Object> rowMap = new LinkedHashMap<>(fields.length);
+       for (int i = 0; i < fields.length; i++) {
+           rowMap.put(fields[i].name, values[i]);
+       }
+       return rowMap;
+    }
+
+    /** Devuelve el número de columnas en el ResultSet. */
+    public int getColumnCount() {
+        return fields.length;
+    }
+
+    /** Devuelve el índice 1-based de una columna por nombre. */
+    public int findColumn(String columnName) {
+        Integer idx = indexMap.get(columnName);
+        if (idx == null) throw new IllegalArgumentException("Columna no encontrada: " + columnName);
+        return idx + 1;
+    }
+
+    /** Obtiene valor por índice 1-based. */
+    public Object get(int columnIndex) throws SQLException {
+        Object value = value(columnIndex - 1);
+        lastNull = value == null;
+        return value;
+    }
+
+    /** Obtiene valor por nombre de columna. */
+    public Object get(String columnName) throws SQLException {
+        return get(findColumn(columnName));
+    }
+
+    /** Indica si el último valor leído con un getter era NULL. */
+    public boolean wasNull() {
+        return lastNull;
+    }
+
+    /** Lee la columna como {@code int} (0 si es NULL). */
+    public int getInt(int columnIndex) throws SQLException {
+        return (int) getLong(columnIndex);
+    }
+
+    /** Lee la columna como {@code long} (0 si es NULL). */
+    public long getLong(int columnIndex) throws SQLException {
+        int col = columnIndex - 1;
+        if (isPrimitive(col)) {
+            if (isNullAt(col)) return 0;
+            return isIntegral(col) ? longs(col) : (long) doubles(col);
+        }
+        return toLong(object(col));
+    }
+
+    /** Lee la columna como {@code double} (0 si es NULL). */
+    public double getDouble(int columnIndex) throws SQLException {
+        int col = columnIndex - 1;
+        if (isPrimitive(col)) {
+            if (isNullAt(col)) return 0;
+            return isIntegral(col) ? longs(col) : doubles(col);
+        }
+        return toDouble(object(col));
+    }
+
+    /** Lee la columna como {@code boolean} (false si es NULL); los números distintos de 0 son true. */
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        int col = columnIndex - 1;
+        if (isPrimitive(col)) {
+            if (isNullAt(col)) return false;
+            return isIntegral(col) ? longs(col) != 0 : doubles(col) != 0;
+        }
+        return toBoolean(object(col));
+    }
+
+    /** Lee la columna como texto (null si es NULL). */
+    public String getString(int columnIndex) throws SQLException {
+        int col = columnIndex - 1;
+        if (isPrimitive(col)) {
+            if (isNullAt(col)) return null;
+            switch (kinds[col]) {
+                case COLUMN_INT:   return Integer.toString((int) longs(col));
+                case COLUMN_LONG:  return Long.toString(longs(col));
+                case COLUMN_FLOAT: return Float.toString((float) doubles(col));
+                default:           return Double.toString(doubles(col));
+            }
+        }
+        return toText(object(col));
+    }
+
+    /** Lee la columna como {@link BigDecimal} (null si es NULL). */
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        int col = columnIndex - 1;
+        if (isPrimitive(col)) {
+            if (isNullAt(col)) return null;
+            return isIntegral(col) ? BigDecimal.valueOf(longs(col)) : BigDecimal.valueOf(doubles(col));
+        }
+        return toBigDecimal(object(col));
+    }
+
+    /** Lee la columna como {@link Timestamp} (null si es NULL). */
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        return toTimestamp(object(columnIndex - 1), fields[columnIndex - 1]);
+    }
+
+    /** Lee la columna como bytes (null si es NULL); el texto se codifica en UTF-8. */
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        Object value = object(columnIndex - 1);
+        if (value == null) return null;
+        if (value instanceof byte[]) return (byte[]) value;
+        return getString(columnIndex).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lee la columna como un stream de bytes (null si es NULL). Si la columna
+     * se lee bajo demanda, el valor se pide al driver por trozos conforme se
+     * consume y deja de poder leerse al avanzar de fila o al leerla de nuevo.
+     */
+    public InputStream getBinaryStream(int columnIndex) throws Exception {
+        int col = columnIndex - 1;
+        if (isDeferred(col)) {
+            LobInputStream in = new LobInputStream(col);
+            lastNull = in.nullValue;
+            return lastNull ? null : in;
+        }
+        byte[] bytes = getBytes(columnIndex);
+        return bytes == null ? null : new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * Lee la columna como un stream de caracteres (null si es NULL), con las
+     * mismas reglas que {@link #getBinaryStream(int)}. El texto se pide al
+     * driver en UTF-16 ({@code SQL_C_WCHAR}) y se copia sin transcodificar.
+     */
+    public Reader getCharacterStream(int columnIndex) throws Exception {
+        int col = columnIndex - 1;
+        if (isDeferred(col)) {
+            LobReader in = new LobReader(col);
+            lastNull = in.nullValue;
+            return lastNull ? null : in;
+        }
+        String text = getString(columnIndex);
+        return text == null ? null : new StringReader(text);
+    }
+
+    /** Lee la columna como un stream de bytes, por nombre. */
+    public InputStream getBinaryStream(String columnName) throws Exception {
+        return getBinaryStream(findColumn(columnName));
+    }
+
+    /** Lee la columna como un stream de caracteres, por nombre. */
+    public Reader getCharacterStream(String columnName) throws Exception {
+        return getCharacterStream(findColumn(columnName));
+    }
+
+    /** Lee la columna como {@code int}, por nombre. */
+    public int getInt(String columnName) throws SQLException {
+        return getInt(findColumn(columnName));
+    }
+
+    /** Lee la columna como {@code long}, por nombre. */
+    public long getLong(String columnName) throws SQLException {
+        return getLong(findColumn(columnName));
+    }
+
+    /** Lee la columna como {@code double}, por nombre. */
+    public double getDouble(String columnName) throws SQLException {
+        return getDouble(findColumn(columnName));
+    }
+
+    /** Lee la columna como {@code boolean}, por nombre. */
+    public boolean getBoolean(String columnName) throws SQLException {
+        return getBoolean(findColumn(columnName));
+    }
+
+    /** Lee la columna como texto, por nombre. */
+    public String getString(String columnName) throws SQLException {
+        return getString(findColumn(columnName));
+    }
+
+    /** Lee la columna como {@link BigDecimal}, por nombre. */
+    public BigDecimal getBigDecimal(String columnName) throws SQLException {
+        return getBigDecimal(findColumn(columnName));
+    }
+
+    /** Lee la columna como {@link Timestamp}, por nombre. */
+    public Timestamp getTimestamp(String columnName) throws SQLException {
+        return getTimestamp(findColumn(columnName));
+    }
+
+    /** Lee la columna como bytes, por nombre. */
+    public byte[] getBytes(String columnName) throws SQLException {
+        return getBytes(findColumn(columnName));
+    }
+
+    // Conversiones de los valores como objeto, compartidas con ODBCRow
+
+    static long toLong(Object value) {
+        if (value == null) return 0;
+        if (value instanceof Number) return ((Number) value).longValue();
+        if (value instanceof Boolean) return ((Boolean) value) ? 1 : 0;
+        return new BigDecimal(value.toString().trim()).longValue();
+    }
+
+    static double toDouble(Object value) {
+        if (value == null) return 0;
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        if (value instanceof Boolean) return ((Boolean) value) ? 1 : 0;
+        return Double.parseDouble(value.toString().trim());
+    }
+
+    static boolean toBoolean(Object value) {
+        if (value == null) return false;
+        if (value instanceof Boolean) return (Boolean) value;
+        if (value instanceof Number) return ((Number) value).doubleValue() != 0;
+        String text = value.toString().trim();
+        return text.equals("1") || text.equalsIgnoreCase("true") || text.equalsIgnoreCase("t")
+                || text.equalsIgnoreCase("y") || text.equalsIgnoreCase("yes");
+    }
+
+    static String toText(Object value) {
+        if (value == null) return null;
+        if (value instanceof byte[]) return new String((byte[]) value, StandardCharsets.UTF_8);
+        return value.toString();
+    }
+
+    static BigDecimal toBigDecimal(Object value) {
+        if (value == null) return null;
+        if (value instanceof BigDecimal) return (BigDecimal) value;
+        if (value instanceof Long || value instanceof Integer) return BigDecimal.valueOf(((Number) value).longValue());
+        if (value instanceof Number) return BigDecimal.valueOf(((Number) value).doubleValue());
+        return new BigDecimal(value.toString().trim());
+    }
+
+    static Timestamp toTimestamp(Object value, ODBCField field) {
+        if (value == null) return null;
+        if (value instanceof Timestamp) return (Timestamp) value;
+        if (value instanceof java.util.Date) return new Timestamp(((java.util.Date) value).getTime());
+        if (value instanceof String) return Timestamp.valueOf(((String) value).trim());
+        throw new IllegalArgumentException("La columna " + field.name + " no es una fecha");
+    }
+
+    // La columna está en un array primitivo del bloque actual
+    private boolean isPrimitive(int col) throws SQLException {
+        checkRow();
+        return currentValues == null && kinds[col] <= COLUMN_DOUBLE;
+    }
+
+    private boolean isIntegral(int col) {
+        return kinds[col] <= COLUMN_LONG;
+    }
+
+    private boolean isNullAt(int col) {
+        lastNull = nulls[col][blockIndex];
+        return lastNull;
+    }
+
+    private long longs(int col) {
+        return ((long[]) columns[col])[blockIndex];
+    }
+
+    private double doubles(int col) {
+        return ((double[]) columns[col])[blockIndex];
+    }
+
+    // Valor como objeto de una columna no primitiva (o de la fila leída con fetchArray)
+    private Object object(int col) throws SQLException {
+        Object value = value(col);
+        lastNull = value == null;
+        return value;
+    }
+
+    // Valor de la columna como objeto, con los mismos tipos que devuelve fetchArray
+    private Object value(int col) throws SQLException {
+        checkRow();
+        if (currentValues != null) {
+            if (isDeferred(col)) {
+                load(col);
+            }
+            if (currentValues[col] == STREAMED) {
+                throw new IllegalStateException("La columna " + fields[col].name + " ya se leyó como stream");
+            }
+            return currentValues[col];
+        }
+        if (nulls[col][blockIndex]) {
+            return null;
+        }
+        switch (kinds[col]) {
+            case COLUMN_INT:    return (int) longs(col);
+            case COLUMN_LONG:   return longs(col);
+            case COLUMN_FLOAT:  return (float) doubles(col);
+            case COLUMN_DOUBLE: return doubles(col);
+            default: {
+                Object value = ((Object[]) columns[col])[blockIndex];
+                // Las celdas de un resultado en memoria las comparten todas sus
+                // aperturas (ODBCResultCache): los valores mutables se copian
+                return memory != null ? copyOf(value) : value;
+            }
+        }
+    }
+
+    // Copia de un valor mutable (bytes, fechas); el resto se devuelve tal cual
+    private static Object copyOf(Object value) {
+        if (value instanceof byte[]) return ((byte[]) value).clone();
+        if (value instanceof Timestamp) {
+            Timestamp ts = (Timestamp) value;
+            Timestamp copy = new Timestamp(ts.getTime());
+            copy.setNanos(ts.getNanos());
+            return copy;
+        }
+        if (value instanceof java.sql.Date) return new java.sql.Date(((java.sql.Date) value).getTime());
+        if (value instanceof java.sql.Time) return new java.sql.Time(((java.sql.Time) value).getTime());
+        return value;
+    }
+
+    // La columna es un LOB (o va detrás de uno) y aún no se ha leído en la fila actual
+    private boolean isDeferred(int col) throws SQLException {
+        checkRow();
+        return firstLob >= 0 && col >= firstLob && !loaded[col];
+    }
+
+    // Lee completa una columna diferida de la fila actual
+    private void load(int col) {
+        try {
+            currentValues[col] = nativeBridge.getColumn(ptr, col + 1);
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo leer la columna " + fields[col].name, e);
+        }
+        loaded[col] = true;
+    }
+
+    // Tras close() la sentencia nativa ya no existe: ni next() ni los getters pueden tocarla
+    private void ensureOpen() throws SQLException {
+        if (closed) throw new SQLException("El resultado está cerrado");
+    }
+
+    private void checkRow() throws SQLException {
+        ensureOpen();
+        if (currentValues == null && (columns == null || blockIndex < 0)) {
+            throw new IllegalStateException("There is no current row. Did you forget to call next()?");
+        }
+    }
+
+    /**
+     * Filas del resultado según el driver ({@code SQLRowCount}); la mayoría
+     * solo lo conoce con cursores estáticos o resultados ya almacenados.
+     *
+     * @return Número de filas, o -1 si no se conoce
+     */
+    public long getRowCount() {
+        if (closed) return -1;
+        if (memory != null) return memory.rows;
+        return store != null ? store.rows() : nativeBridge.getRowCount(ptr);
+    }
+
+    // Filas exactas que quedan por recorrer, o -1 si no se conocen. Solo se
+    // saben en resultados en memoria o desacoplados aún sin leer: SQLRowCount
+    // no es fiable para un SELECT y muchos drivers devuelven -1 o una estimación.
+    long exactRowCount() {
+        if (closed || rowNumber != 0) return -1;
+        if (memory != null) return memory.rows;
+        return store != null ? store.rows() : -1;
+    }
+
+    /**
+     * Cursor, concurrencia, límite de filas, tamaño de paquete y filas por
+     * bloque con los que el driver está sirviendo este resultado, para
+     * comprobar que aplicó los pedidos.
+     *
+     * @return Atributos efectivos, o null si está cerrado o en memoria
+     */
+    public ODBCStatementSettings getStatementSettings() {
+        if (closed || memory != null || store != null) return null;
+        long[] settings = nativeBridge.getStatementSettings(ptr);
+        return new ODBCStatementSettings((int) settings[0], (int) settings[1], settings[2] == 1,
+                settings[3], (int) settings[4], fetchSize);
+    }
+
+    // Asigna las métricas de la conexión (ODBCConnection#wrap)
+    void setMetrics(ODBCMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // DSN y sentencia de origen para los eventos JFR; abre el evento ODBCStatementClose
+    void setSource(String dataSourceName, String sql) {
+        this.dataSourceName = dataSourceName;
+        this.sql = sql;
+        this.statementEvent = ODBCEvents.beginStatement();
+    }
+
+    /** Filas leídas del driver hasta ahora. */
+    public long getRowsFetched() {
+        return rowsFetched;
+    }
+
+    /**
+     * Tiempo total (nanosegundos) de las lecturas al driver, incluida la
+     * creación de los objetos Java; solo se mide con métricas activas.
+     */
+    public long getFetchNanos() {
+        return fetchNanos;
+    }
+
+    /** Bytes de datos leídos del driver hasta ahora (0 si está cerrado). */
+    public long getBytesFetched() {
+        return fetchStat(0);
+    }
+
+    /** Objetos Java creados en JNI para los valores leídos (0 si está cerrado). */
+    public long getObjectsCreated() {
+        return fetchStat(1);
+    }
+
+    private long fetchStat(int index) {
+        if (closed) return 0;
+        long[] stats = finalStats;
+        return stats != null ? stats[index] : nativeBridge.getFetchStats(ptr)[index];
+    }
+
+    /**
+     * Indica si el resultado está entero en memoria: viene de un
+     * {@link ODBCResultCache} o se leyó para guardarlo en él, y ya no ocupa
+     * una sentencia del driver.
+     */
+    public boolean isInMemory() {
+        return memory != null;
+    }
+
+    /**
+     * Lee todas las filas del resultado a velocidad de bloque y libera la
+     * sentencia, con la memoria por defecto de
+     * {@value ODBCConnection#DEFAULT_DETACHED_MEMORY_BUDGET} bytes.
+     *
+     * @see #detach(long)
+     */
+    public ODBCResultSet detach() throws Exception {
+        return detach(ODBCConnection.DEFAULT_DETACHED_MEMORY_BUDGET);
+    }
+
+    /**
+     * Desacopla el resultado de su sentencia: lee todas las filas por bloques
+     * en una copia binaria compacta y libera enseguida la sentencia (y el
+     * cursor del servidor). El recorrido sigue con la misma API sobre la
+     * copia, y la conexión puede cerrarse o devolverse al pool mientras tanto.
+     * Las columnas grandes se leen enteras, y los demás resultados de la
+     * sentencia ({@link #nextResultSet()}) se descartan.
+     *
+     * <p>La copia se queda en el heap hasta {@code memoryBudget} bytes; el
+     * resto va a un archivo temporal mapeado en memoria que se borra al
+     * cerrar el resultado.</p>
+     *
+     * @param memoryBudget Bytes de la copia que se guardan en el heap
+     * @return Este mismo resultado
+     * @throws IllegalStateException si ya se leyó alguna fila o está cerrado
+     */
+    public ODBCResultSet detach(long memoryBudget) throws Exception {
+        if (memoryBudget < 0) throw new IllegalArgumentException("memoryBudget no puede ser negativo: " + memoryBudget);
+        if (memory != null || store != null) return this;
+        if (closed) throw new IllegalStateException("El resultado está cerrado");
+        if (columns != null || currentValues != null) {
+            throw new IllegalStateException("detach() debe llamarse antes de leer filas");
+        }
+        // Sin lectura fila a fila ni columnas diferidas: todo se lee en bloques con fetchColumns
+        if (fetchSize == 1) fetchSize = ODBCConnection.DEFAULT_FETCH_SIZE;
+        firstLob = -1;
+        allocateColumns();
+        ODBCRowStore rowStore = new ODBCRowStore(kinds, memoryBudget);
+        ODBCMetrics m = metrics;
+        try {
+            while (fields.length > 0) {
+                long start = m == null ? 0 : m.start();
+                Object event = beginFetch();
+                int count = nativeBridge.fetchColumns(ptr, fetchSize, columns, nulls);
+                fetched(m, start, event, count);
+                if (count == 0) break;
+                rowStore.write(columns, nulls, count);
+            }
+        } catch (Exception e) {
+            rowStore.close();
+            throw e;
+        }
+        synchronized (cancelLock) {
+            if (closed) {
+                rowStore.close();
+                return this;
+            }
+            freeStatement(true);
+            store = rowStore;
+            blockRows = 0;
+            blockIndex = -1;
+        }
+        return this;
+    }
+
+    /** Indica si el resultado se desacopló de su sentencia con {@link #detach()}. */
+    public boolean isDetached() {
+        return store != null;
+    }
+
+    /** Bytes de la copia desacoplada que se escribieron en el archivo temporal (0 si cupo en memoria). */
+    public long getSpilledBytes() {
+        return store == null ? 0 : store.fileBytes();
+    }
+
+    /**
+     * Recorre las filas restantes como un {@link Stream} perezoso que cierra
+     * este resultado al agotarse o al cerrar el stream. Si la operación
+     * terminal corta antes del final ({@code findFirst}, {@code limit}...)
+     * el resultado sigue abierto hasta cerrar el stream o este resultado.
+     * En paralelo, solo un hilo lee del driver: los bloques ya leídos se
+     * reparten entre los hilos del fork-join, que aplican {@code mapper}
+     * sobre copias de las filas.
+     */
+    public <T> Stream<T> stream(RowMapper<T> mapper) {
+        ODBCRowSpliterator<T> spliterator = new ODBCRowSpliterator<>(this, indexMap, mapper);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    /**
+     * Cancela con {@code SQLCancel} la lectura en curso desde otro hilo: el
+     * {@link #next()} bloqueado lanza {@link java.sql.SQLTimeoutException}.
+     *
+     * @return true si el driver aceptó la cancelación
+     */
+    public boolean cancel() {
+        synchronized (cancelLock) {
+            return !closed && memory == null && store == null && nativeBridge.cancel(ptr);
+        }
+    }
+
+    /** Libera recursos de la consulta. */
+    @Override
+    public void close() throws Exception {
+        synchronized (cancelLock) {
+            if (closed) return;
+            closed = true;
+            columns = null;
+            nulls = null;
+            if (store != null) {
+                store.close();
+            } else if (memory == null) {
+                freeStatement(false);
+            }
+        }
+    }
+
+    // Libera la sentencia nativa registrando sus contadores; keepStats los
+    // guarda para getBytesFetched cuando el resultado sigue abierto en memoria
+    private void freeStatement(boolean keepStats) throws Exception {
+        ODBCMetrics m = metrics;
+        boolean record = m != null && m.isEnabled();
+        if (record || keepStats || statementEvent != null) {
+            long[] stats = nativeBridge.getFetchStats(ptr);
+            if (record) m.recordClose(stats[0], stats[1]);
+            nativeBridge.free(ptr);
+            ODBCEvents.commitStatement(statementEvent, dataSourceName, sql, rowsFetched, stats[0], stats[1]);
+            if (keepStats) finalStats = stats;
+            return;
+        }
+        nativeBridge.free(ptr);
+    }
+
+    /**
+     * Stream sobre una columna diferida de la fila actual: cada trozo se pide
+     * con {@link ODBCBridge#readChunk} cuando se agota el anterior.
+     */
+    private final class LobInputStream extends InputStream {
+        private final int column;
+        private final long row;
+        private final byte[] chunk = new byte[LOB_CHUNK_SIZE];
+        private int position;
+        private int limit;
+        private boolean eof;
+        final boolean nullValue;
+
+        LobInputStream(int column) throws Exception {
+            this.column = column;
+            this.row = streamColumn(column);
+            // El primer trozo se lee ya para saber si el valor es NULL
+            limit = nativeBridge.readChunk(ptr, column + 1, chunk, false);
+            nullValue = limit == -2;
+            if (limit < 0) {
+                limit = 0;
+                eof = true;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) return -1;
+            return chunk[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int count = Math.min(len, limit - position);
+            System.arraycopy(chunk, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return limit - position;
+        }
+
+        // Pide el siguiente trozo al driver si el actual se ha consumido
+        private boolean fill() throws IOException {
+            while (position >= limit) {
+                if (eof) return false;
+                checkStreamRow(column, row);
+                try {
+                    limit = nativeBridge.readChunk(ptr, column + 1, chunk, false);
+                } catch (Exception e) {
+                    throw new IOException("No se pudo leer la columna " + fields[column].name, e);
+                }
+                position = 0;
+                if (limit < 0) {
+                    limit = 0;
+                    eof = true;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reader sobre una columna de texto diferida de la fila actual: cada trozo
+     * se pide con {@link ODBCBridge#readChars} cuando se agota el anterior.
+     */
+    private final class LobReader extends Reader {
+        private final int column;
+        private final long row;
+        private final char[] chunk = new char[LOB_CHUNK_SIZE / 2];
+        private int position;
+        private int limit;
+        private boolean eof;
+        final boolean nullValue;
+
+        LobReader(int column) throws Exception {
+            this.column = column;
+            this.row = streamColumn(column);
+            limit = nativeBridge.readChars(ptr, column + 1, chunk);
+            nullValue = limit == -2;
+            if (limit < 0) {
+                limit = 0;
+                eof = true;
+            }
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            while (position >= limit) {
+                if (eof) return -1;
+                checkStreamRow(column, row);
+                try {
+                    limit = nativeBridge.readChars(ptr, column + 1, chunk);
+                } catch (Exception e) {
+                    throw new IOException("No se pudo leer la columna " + fields[column].name, e);
+                }
+                position = 0;
+                if (limit < 0) {
+                    limit = 0;
+                    eof = true;
+                }
+            }
+            int count = Math.min(len, limit - position);
+            System.arraycopy(chunk, position, cbuf, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            eof = true;
+        }
+    }
+
+    // Marca la columna como consumida por un stream y devuelve la fila actual
+    private long streamColumn(int column) {
+        loaded[column] = true;
+        currentValues[column] = STREAMED;
+        return rowNumber;
+    }
+
+    private void checkStreamRow(int column, long row) throws IOException {
+        if (closed || row != rowNumber) {
+            throw new IOException("La fila de la columna " + fields[column].name + " ya no es la actual");
+        }
+    }
+}
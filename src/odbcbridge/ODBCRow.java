@@ -0,0 +1,148 @@
+package odbcbridge;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Copia de una fila de un {@link ODBCResultSet}, independiente del driver:
+ * se puede leer desde cualquier hilo y después de avanzar el resultado. Los
+ * getters convierten los valores igual que los de {@link ODBCResultSet}.
+ */
+public class ODBCRow {
+    private final ODBCField[] fields;
+    private final Map<String,Integer> indexMap;
+    private final Object[] values;
+
+    ODBCRow(ODBCField[] fields, Map<String,Integer> indexMap, Object[] values) {
+        this.fields = fields;
+        this.indexMap = indexMap;
+        this.values = values;
+    }
+
+    /** Devuelve metadata de columnas. */
+    public ODBCField[] getFields() {
+        return fields;
+    }
+
+    /** Devuelve todos los valores de la fila. */
+    public Object[] getValues() {
+        return values;
+    }
+
+    /** Devuelve la fila como un Map<nombreColumna, valor>. */
+    public Map<String, Object> toMap() {
+        Map<String, Object> rowMap = new LinkedHashMap<>(fields.length);
+        for (int i = 0; i < fields.length; i++) {
+            rowMap.put(fields[i].name, values[i]);
+        }
+        return rowMap;
+    }
+
+    /** Devuelve el número de columnas. */
+    public int getColumnCount() {
+        return fields.length;
+    }
+
+    /** Devuelve el índice 1-based de una columna por nombre. */
+    public int findColumn(String columnName) {
+        Integer idx = indexMap.get(columnName);
+        if (idx == null) throw new IllegalArgumentException("Columna no encontrada: " + columnName);
+        return idx + 1;
+    }
+
+    /** Obtiene valor por índice 1-based. */
+    public Object get(int columnIndex) {
+        return values[columnIndex - 1];
+    }
+
+    /** Obtiene valor por nombre de columna. */
+    public Object get(String columnName) {
+        return get(findColumn(columnName));
+    }
+
+    /** Lee la columna como {@code int} (0 si es NULL). */
+    public int getInt(int columnIndex) {
+        return (int) getLong(columnIndex);
+    }
+
+    /** Lee la columna como {@code long} (0 si es NULL). */
+    public long getLong(int columnIndex) {
+        return ODBCResultSet.toLong(get(columnIndex));
+    }
+
+    /** Lee la columna como {@code double} (0 si es NULL). */
+    public double getDouble(int columnIndex) {
+        return ODBCResultSet.toDouble(get(columnIndex));
+    }
+
+    /** Lee la columna como {@code boolean} (false si es NULL). */
+    public boolean getBoolean(int columnIndex) {
+        return ODBCResultSet.toBoolean(get(columnIndex));
+    }
+
+    /** Lee la columna como texto (null si es NULL). */
+    public String getString(int columnIndex) {
+        return ODBCResultSet.toText(get(columnIndex));
+    }
+
+    /** Lee la columna como {@link BigDecimal} (null si es NULL). */
+    public BigDecimal getBigDecimal(int columnIndex) {
+        return ODBCResultSet.toBigDecimal(get(columnIndex));
+    }
+
+    /** Lee la columna como {@link Timestamp} (null si es NULL). */
+    public Timestamp getTimestamp(int columnIndex) {
+        return ODBCResultSet.toTimestamp(get(columnIndex), fields[columnIndex - 1]);
+    }
+
+    /** Lee la columna como bytes (null si es NULL); el texto se codifica en UTF-8. */
+    public byte[] getBytes(int columnIndex) {
+        Object value = get(columnIndex);
+        if (value == null) return null;
+        if (value instanceof byte[]) return (byte[]) value;
+        return value.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Lee la columna como {@code int}, por nombre. */
+    public int getInt(String columnName) {
+        return getInt(findColumn(columnName));
+    }
+
+    /** Lee la columna como {@code long}, por nombre. */
+    public long getLong(String columnName) {
+        return getLong(findColumn(columnName));
+    }
+
+    /** Lee la columna como {@code double}, por nombre. */
+    public double getDouble(String columnName) {
+        return getDouble(findColumn(columnName));
+    }
+
+    /** Lee la columna como {@code boolean}, por nombre. */
+    public boolean getBoolean(String columnName) {
+        return getBoolean(findColumn(columnName));
+    }
+
+    /** Lee la columna como texto, por nombre. */
+    public String getString(String columnName) {
+        return getString(findColumn(columnName));
+    }
+
+    /** Lee la columna como {@link BigDecimal}, por nombre. */
+    public BigDecimal getBigDecimal(String columnName) {
+        return getBigDecimal(findColumn(columnName));
+    }
+
+    /** Lee la columna como {@link Timestamp}, por nombre. */
+    public Timestamp getTimestamp(String columnName) {
+        return getTimestamp(findColumn(columnName));
+    }
+
+    /** Lee la columna como bytes, por nombre. */
+    public byte[] getBytes(String columnName) {
+        return getBytes(findColumn(columnName));
+    }
+}
@@ -0,0 +1,171 @@
+package odbcbridge;
+
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator de {@link ODBCResultSet#stream}: lee las filas del driver bajo
+ * demanda y las entrega convertidas con un {@link RowMapper}.
+ *
+ * <p>{@link #trySplit()} copia la siguiente tanda de filas (un bloque de
+ * fetchSize, creciendo en cada división) y la entrega como un spliterator
+ * independiente del driver. Así, en un stream paralelo, solo el hilo que
+ * tiene este spliterator toca el handle ODBC y los demás aplican el mapper
+ * sobre filas ya leídas.</p>
+ *
+ * <p>Solo es {@code SIZED} cuando el número de filas es exacto (resultado en
+ * memoria o desacoplado, sin filas leídas); con el driver no se usa
+ * {@code SQLRowCount} y el tamaño se estima en {@code Long.MAX_VALUE}.</p>
+ */
+final class ODBCRowSpliterator<T> implements Spliterator<T> {
+    // Tope de filas copiadas en una división
+    private static final int MAX_BATCH = 1 << 16;
+
+    private final ODBCResultSet resultSet;
+    private final ODBCField[] fields;
+    private final Map<String,Integer> indexMap;
+    private final RowMapper<T> mapper;
+    private final boolean sized;
+    private long remaining;
+    private int batch;
+    private boolean done;
+
+    ODBCRowSpliterator(ODBCResultSet resultSet, Map<String,Integer> indexMap, RowMapper<T> mapper) {
+        this.resultSet = resultSet;
+        this.fields = resultSet.getFields();
+        this.indexMap = indexMap;
+        this.mapper = mapper;
+        long rowCount = resultSet.exactRowCount();
+        this.sized = rowCount >= 0;
+        this.remaining = sized ? rowCount : Long.MAX_VALUE;
+        this.batch = resultSet.getFetchSize();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        Object[] values = nextValues();
+        if (values == null) return false;
+        action.accept(map(values));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        Object[] values;
+        while ((values = nextValues()) != null) {
+            action.accept(map(values));
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (done || (sized && remaining <= 1)) return null;
+        int size = sized ? (int) Math.min(batch, remaining) : batch;
+        Object[][] rows = new Object[size][];
+        int count = 0;
+        while (count < size) {
+            Object[] values = nextValues();
+            if (values == null) break;
+            rows[count++] = values;
+        }
+        if (count == 0) return null;
+        batch = Math.min(MAX_BATCH, batch * 2);
+        return new RowsSpliterator(rows, 0, count);
+    }
+
+    @Override
+    public long estimateSize() {
+        return remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        return sized ? ORDERED | SIZED | SUBSIZED : ORDERED;
+    }
+
+    // Avanza el resultado y copia la fila; cierra el resultado al acabar o si falla
+    private Object[] nextValues() {
+        if (done) return null;
+        try {
+            if (resultSet.next()) {
+                Object[] values = resultSet.getValues();
+                // Con tamaño exacto, la última fila libera ya el resultado: un
+                // limit() o findFirst() que no vuelve a pedir filas no lo deja abierto
+                if (sized && remaining > 0 && --remaining == 0) close();
+                return values;
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        } catch (Exception e) {
+            close();
+            throw new IllegalStateException("No se pudo leer la siguiente fila", e);
+        }
+        remaining = 0;
+        close();
+        return null;
+    }
+
+    private T map(Object[] values) {
+        try {
+            return mapper.mapRow(new ODBCRow(fields, indexMap, values));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo convertir la fila", e);
+        }
+    }
+
+    /** Libera el resultado; lo llama el stream al cerrarse. */
+    void close() {
+        if (done) return;
+        done = true;
+        try {
+            resultSet.close();
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo cerrar el resultado", e);
+        }
+    }
+
+    // Tanda de filas ya leídas, divisible por mitades entre los hilos del fork-join
+    private final class RowsSpliterator implements Spliterator<T> {
+        private final Object[][] rows;
+        private int index;
+        private final int end;
+
+        RowsSpliterator(Object[][] rows, int index, int end) {
+            this.rows = rows;
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (index >= end) return false;
+            Object[] values = rows[index];
+            rows[index++] = null;
+            action.accept(map(values));
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = (index + end) >>> 1;
+            if (mid <= index) return null;
+            RowsSpliterator prefix = new RowsSpliterator(rows, index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
+}
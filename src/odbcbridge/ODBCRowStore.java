@@ -0,0 +1,391 @@
+package odbcbridge;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copia binaria de las filas de un resultado desacoplado de su sentencia
+ * ({@link ODBCResultSet#detach()}). Cada bloque leído del driver se guarda
+ * codificado por columnas: un mapa de bits de nulos y, para las filas no
+ * nulas, los valores numéricos en binario (4 u 8 bytes) y los objetos con una
+ * etiqueta de tipo (texto en UTF-8).
+ *
+ * <p>Los bloques quedan en el heap hasta {@code memoryBudget} bytes; los
+ * siguientes se escriben en un archivo temporal mapeado en memoria por
+ * regiones, que se borra al cerrar el almacén. Al leer, cada bloque se
+ * decodifica en los mismos arrays columnares que usa ODBCResultSet.</p>
+ */
+final class ODBCRowStore implements AutoCloseable {
+    // Almacenamiento de cada columna (ODBCBridge#getColumnKinds)
+    private static final int COLUMN_INT = 0;
+    private static final int COLUMN_LONG = 1;
+    private static final int COLUMN_FLOAT = 2;
+    private static final int COLUMN_DOUBLE = 3;
+
+    // Etiquetas de los valores de las columnas de objetos
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_BYTES = 2;
+    private static final byte TAG_DECIMAL = 3;
+    private static final byte TAG_INTEGER = 4;
+    private static final byte TAG_LONG = 5;
+    private static final byte TAG_FLOAT = 6;
+    private static final byte TAG_DOUBLE = 7;
+    private static final byte TAG_BOOLEAN = 8;
+    private static final byte TAG_DATE = 9;
+    private static final byte TAG_TIME = 10;
+    private static final byte TAG_TIMESTAMP = 11;
+    private static final byte TAG_SERIALIZED = 12;
+
+    // Tamaño mínimo de cada región mapeada del archivo temporal
+    private static final int REGION_SIZE = 16 * 1024 * 1024;
+
+    private final int[] kinds;
+    private final long memoryBudget;
+    private final List<ByteBuffer> blocks = new ArrayList<>();
+    private ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+    private int maxBlockRows;
+    private long rows;
+    private long memoryBytes;
+
+    // Archivo temporal (null hasta superar memoryBudget) y región en la que se escribe
+    private FileChannel channel;
+    private MappedByteBuffer region;
+    private long fileSize;
+    private long fileBytes;
+
+    ODBCRowStore(int[] kinds, long memoryBudget) {
+        this.kinds = kinds;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /** Filas guardadas. */
+    long rows() {
+        return rows;
+    }
+
+    /** Número de bloques guardados. */
+    int blockCount() {
+        return blocks.size();
+    }
+
+    /** Filas del bloque más grande, para dimensionar los arrays de lectura. */
+    int maxBlockRows() {
+        return maxBlockRows;
+    }
+
+    /** Bytes de los bloques guardados en el heap. */
+    long memoryBytes() {
+        return memoryBytes;
+    }
+
+    /** Bytes de los bloques escritos en el archivo temporal (0 si no se usó). */
+    long fileBytes() {
+        return fileBytes;
+    }
+
+    // ===== ESCRITURA =====
+
+    /** Codifica las primeras {@code count} filas de un bloque columnar. */
+    void write(Object[] columns, boolean[][] nulls, int count) throws IOException {
+        ByteBuffer out = scratch;
+        out.clear();
+        out = reserve(out, 4);
+        out.putInt(count);
+        for (int c = 0; c < kinds.length; c++) {
+            boolean[] isNull = nulls[c];
+            out = reserve(out, (count + 7) / 8);
+            for (int r = 0; r < count; r += 8) {
+                int bits = 0;
+                for (int b = 0; b < 8 && r + b < count; b++) {
+                    if (isNull[r + b]) bits |= 1 << b;
+                }
+                out.put((byte) bits);
+            }
+            switch (kinds[c]) {
+                case COLUMN_INT: {
+                    long[] values = (long[]) columns[c];
+                    out = reserve(out, 4 * count);
+                    for (int r = 0; r < count; r++) {
+                        if (!isNull[r]) out.putInt((int) values[r]);
+                    }
+                    break;
+                }
+                case COLUMN_LONG: {
+                    long[] values = (long[]) columns[c];
+                    out = reserve(out, 8 * count);
+                    for (int r = 0; r < count; r++) {
+                        if (!isNull[r]) out.putLong(values[r]);
+                    }
+                    break;
+                }
+                case COLUMN_FLOAT: {
+                    double[] values = (double[]) columns[c];
+                    out = reserve(out, 4 * count);
+                    for (int r = 0; r < count; r++) {
+                        if (!isNull[r]) out.putFloat((float) values[r]);
+                    }
+                    break;
+                }
+                case COLUMN_DOUBLE: {
+                    double[] values = (double[]) columns[c];
+                    out = reserve(out, 8 * count);
+                    for (int r = 0; r < count; r++) {
+                        if (!isNull[r]) out.putDouble(values[r]);
+                    }
+                    break;
+                }
+                default: {
+                    Object[] values = (Object[]) columns[c];
+                    for (int r = 0; r < count; r++) {
+                        if (!isNull[r]) out = writeValue(out, values[r]);
+                    }
+                    break;
+                }
+            }
+        }
+        out.flip();
+        scratch = out;
+        store(out);
+        rows += count;
+        maxBlockRows = Math.max(maxBlockRows, count);
+    }
+
+    // Asegura 'size' bytes libres en el buffer de codificación, agrandándolo si hace falta
+    private static ByteBuffer reserve(ByteBuffer out, int size) {
+        if (out.remaining() >= size) return out;
+        int capacity = Math.max(out.capacity() * 2, out.position() + size);
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        out.flip();
+        grown.put(out);
+        return grown;
+    }
+
+    private static ByteBuffer writeValue(ByteBuffer out, Object value) throws IOException {
+        if (value instanceof String) {
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            out = reserve(out, 5 + bytes.length);
+            out.put(TAG_STRING).putInt(bytes.length).put(bytes);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out = reserve(out, 5 + bytes.length);
+            out.put(TAG_BYTES).putInt(bytes.length).put(bytes);
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            byte[] unscaled = decimal.unscaledValue().toByteArray();
+            out = reserve(out, 9 + unscaled.length);
+            out.put(TAG_DECIMAL).putInt(decimal.scale()).putInt(unscaled.length).put(unscaled);
+        } else if (value instanceof Integer) {
+            out = reserve(out, 5);
+            out.put(TAG_INTEGER).putInt((Integer) value);
+        } else if (value instanceof Long) {
+            out = reserve(out, 9);
+            out.put(TAG_LONG).putLong((Long) value);
+        } else if (value instanceof Float) {
+            out = reserve(out, 5);
+            out.put(TAG_FLOAT).putFloat((Float) value);
+        } else if (value instanceof Double) {
+            out = reserve(out, 9);
+            out.put(TAG_DOUBLE).putDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out = reserve(out, 2);
+            out.put(TAG_BOOLEAN).put((byte) ((Boolean) value ? 1 : 0));
+        } else if (value instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) value;
+            out = reserve(out, 13);
+            out.put(TAG_TIMESTAMP).putLong(timestamp.getTime()).putInt(timestamp.getNanos());
+        } else if (value instanceof Time) {
+            out = reserve(out, 9);
+            out.put(TAG_TIME).putLong(((Time) value).getTime());
+        } else if (value instanceof Date) {
+            out = reserve(out, 9);
+            out.put(TAG_DATE).putLong(((Date) value).getTime());
+        } else {
+            // Tipos que el puente no produce hoy: serialización Java
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+                stream.writeObject(value);
+            }
+            out = reserve(out, 5 + bytes.size());
+            out.put(TAG_SERIALIZED).putInt(bytes.size()).put(bytes.toByteArray());
+        }
+        return out;
+    }
+
+    // Guarda un bloque codificado en el heap o, superado el presupuesto, en el archivo
+    private void store(ByteBuffer encoded) throws IOException {
+        int length = encoded.remaining();
+        if (channel == null && memoryBytes + length <= memoryBudget) {
+            ByteBuffer block = ByteBuffer.allocate(length);
+            block.put(encoded);
+            block.flip();
+            blocks.add(block);
+            memoryBytes += length;
+            return;
+        }
+        if (region == null || region.remaining() < length) {
+            mapRegion(length);
+        }
+        int start = region.position();
+        region.put(encoded);
+        ByteBuffer block = region.duplicate();
+        block.limit(start + length);
+        block.position(start);
+        blocks.add(block.slice());
+        fileBytes += length;
+    }
+
+    // Amplía el archivo temporal con una nueva región mapeada de al menos 'size' bytes
+    private void mapRegion(int size) throws IOException {
+        if (channel == null) {
+            Path path = Files.createTempFile("odbcbridge-", ".rows");
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        long regionSize = Math.max(REGION_SIZE, size);
+        region = channel.map(FileChannel.MapMode.READ_WRITE, fileSize, regionSize);
+        fileSize += regionSize;
+    }
+
+    // ===== LECTURA =====
+
+    /**
+     * Decodifica el bloque {@code index} en los arrays columnares (dimensionados
+     * con {@link #maxBlockRows()}) y devuelve su número de filas.
+     */
+    int read(int index, Object[] columns, boolean[][] nulls) throws IOException {
+        ByteBuffer in = blocks.get(index).duplicate();
+        int count = in.getInt();
+        for (int c = 0; c < kinds.length; c++) {
+            boolean[] isNull = nulls[c];
+            for (int r = 0; r < count; r += 8) {
+                int bits = in.get();
+                for (int b = 0; b < 8 && r + b < count; b++) {
+                    isNull[r + b] = (bits & (1 << b)) != 0;
+                }
+            }
+            switch (kinds[c]) {
+                case COLUMN_INT: {
+                    long[] values = (long[]) columns[c];
+                    for (int r = 0; r < count; r++) {
+                        values[r] = isNull[r] ? 0 : in.getInt();
+                    }
+                    break;
+                }
+                case COLUMN_LONG: {
+                    long[] values = (long[]) columns[c];
+                    for (int r = 0; r < count; r++) {
+                        values[r] = isNull[r] ? 0 : in.getLong();
+                    }
+                    break;
+                }
+                case COLUMN_FLOAT: {
+                    double[] values = (double[]) columns[c];
+                    for (int r = 0; r < count; r++) {
+                        values[r] = isNull[r] ? 0 : in.getFloat();
+                    }
+                    break;
+                }
+                case COLUMN_DOUBLE: {
+                    double[] values = (double[]) columns[c];
+                    for (int r = 0; r < count; r++) {
+                        values[r] = isNull[r] ? 0 : in.getDouble();
+                    }
+                    break;
+                }
+                default: {
+                    Object[] values = (Object[]) columns[c];
+                    for (int r = 0; r < count; r++) {
+                        values[r] = isNull[r] ? null : readValue(in);
+                    }
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static Object readValue(ByteBuffer in) throws IOException {
+        byte tag = in.get();
+        switch (tag) {
+            case TAG_STRING: {
+                int length = in.getInt();
+                String text;
+                if (in.hasArray()) {
+                    text = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+                    in.position(in.position() + length);
+                } else {
+                    text = new String(readBytes(in, length), StandardCharsets.UTF_8);
+                }
+                return text;
+            }
+            case TAG_BYTES:
+                return readBytes(in, in.getInt());
+            case TAG_DECIMAL: {
+                int scale = in.getInt();
+                return new BigDecimal(new BigInteger(readBytes(in, in.getInt())), scale);
+            }
+            case TAG_INTEGER:
+                return in.getInt();
+            case TAG_LONG:
+                return in.getLong();
+            case TAG_FLOAT:
+                return in.getFloat();
+            case TAG_DOUBLE:
+                return in.getDouble();
+            case TAG_BOOLEAN:
+                return in.get() != 0;
+            case TAG_DATE:
+                return new Date(in.getLong());
+            case TAG_TIME:
+                return new Time(in.getLong());
+            case TAG_TIMESTAMP: {
+                Timestamp timestamp = new Timestamp(in.getLong());
+                timestamp.setNanos(in.getInt());
+                return timestamp;
+            }
+            case TAG_SERIALIZED:
+                try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(readBytes(in, in.getInt())))) {
+                    return stream.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("No se pudo leer un valor guardado", e);
+                }
+            default:
+                throw new IOException("Etiqueta de valor desconocida: " + tag);
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer in, int length) {
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    /** Libera los bloques y borra el archivo temporal. */
+    @Override
+    public void close() throws IOException {
+        blocks.clear();
+        region = null;
+        if (channel != null) {
+            // DELETE_ON_CLOSE borra el archivo; las regiones mapeadas se liberan con el GC
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package odbcbridge;
+
+/**
+ * Punto de guardado dentro de una transacción, creado con
+ * {@link ODBCConnection#setSavepoint(String)}. Con
+ * {@link ODBCConnection#rollback(ODBCSavepoint)} se deshace lo ejecutado desde
+ * que se creó sin terminar la transacción.
+ */
+public final class ODBCSavepoint {
+    private final String name;
+
+    ODBCSavepoint(String name) {
+        this.name = name;
+    }
+
+    /** Nombre del savepoint en el DBMS. */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "ODBCSavepoint{" + name + '}';
+    }
+}
@@ -0,0 +1,73 @@
+package odbcbridge;
+
+/**
+ * Instantánea del avance de un {@link ODBCPartitionedScan}.
+ */
+public class ODBCScanProgress {
+    /** Particiones del recorrido (incluida la de claves NULL, si la hay). */
+    public final int partitions;
+    /** Particiones leídas por completo. */
+    public final int completedPartitions;
+    /** Filas leídas del driver en todas las particiones. */
+    public final long rows;
+    /** Tiempo transcurrido desde el inicio del recorrido, en milisegundos. */
+    public final long elapsedMillis;
+    /** Estadísticas de cada partición, en orden de clave. */
+    public final Partition[] partitionStats;
+
+    public ODBCScanProgress(int partitions, int completedPartitions, long rows, long elapsedMillis,
+            Partition[] partitionStats) {
+        this.partitions = partitions;
+        this.completedPartitions = completedPartitions;
+        this.rows = rows;
+        this.elapsedMillis = elapsedMillis;
+        this.partitionStats = partitionStats;
+    }
+
+    /** Filas por segundo del recorrido completo. */
+    public double getRowsPerSecond() {
+        return elapsedMillis > 0 ? rows * 1000.0 / elapsedMillis : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("partitions=%d/%d, rows=%d, elapsed=%d ms, %.0f rows/s",
+            completedPartitions, partitions, rows, elapsedMillis, getRowsPerSecond());
+    }
+
+    /** Avance de una partición. */
+    public static class Partition {
+        /** Posición de la partición (0-based). */
+        public final int index;
+        /** Límite inferior (incluido); null en la partición de claves NULL. */
+        public final Object lower;
+        /** Límite superior (excluido salvo en la última partición). */
+        public final Object upper;
+        /** Filas leídas. */
+        public final long rows;
+        /** Tiempo de lectura en milisegundos (0 si no ha empezado). */
+        public final long elapsedMillis;
+        /** La partición se ha leído por completo. */
+        public final boolean done;
+
+        public Partition(int index, Object lower, Object upper, long rows, long elapsedMillis, boolean done) {
+            this.index = index;
+            this.lower = lower;
+            this.upper = upper;
+            this.rows = rows;
+            this.elapsedMillis = elapsedMillis;
+            this.done = done;
+        }
+
+        /** Filas por segundo de esta partición. */
+        public double getRowsPerSecond() {
+            return elapsedMillis > 0 ? rows * 1000.0 / elapsedMillis : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("#%d [%s, %s] rows=%d, %d ms, %.0f rows/s%s",
+                index, lower, upper, rows, elapsedMillis, getRowsPerSecond(), done ? ", done" : "");
+        }
+    }
+}
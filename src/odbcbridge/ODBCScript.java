@@ -0,0 +1,76 @@
+package odbcbridge;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Divide un script SQL en los textos que {@link ODBCConnection#executeScript}
+ * envía al driver: lotes separados por líneas {@code GO} y, si el driver no
+ * admite lotes de sentencias, cada sentencia separada por {@code ;}. Los
+ * separadores dentro de literales, identificadores entre comillas o corchetes
+ * y comentarios no cuentan; los textos vacíos o solo con comentarios se omiten.
+ */
+final class ODBCScript {
+    private ODBCScript() {
+    }
+
+    /**
+     * @param script  Texto del script
+     * @param batches true si el driver ejecuta varias sentencias en un solo
+     *                {@code SQLExecDirect} (solo se corta en las líneas {@code GO})
+     */
+    static String[] split(String script, boolean batches) {
+        List<String> pieces = new ArrayList<>();
+        int n = script.length();
+        int start = 0;
+        boolean content = false;
+        int i = 0;
+        while (i < n) {
+            char c = script.charAt(i);
+            int end;
+            if (c == '\'' || c == '"' || c == '`' || c == '[') {
+                // Literal o identificador; '' y ]] escapados se leen como dos seguidos
+                end = script.indexOf(c == '[' ? ']' : c, i + 1);
+                i = end < 0 ? n : end + 1;
+                content = true;
+            } else if (c == '-' && i + 1 < n && script.charAt(i + 1) == '-') {
+                end = script.indexOf('\n', i);
+                i = end < 0 ? n : end;
+            } else if (c == '/' && i + 1 < n && script.charAt(i + 1) == '*') {
+                end = script.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+            } else if (c == ';' && !batches) {
+                add(pieces, script, start, i, content);
+                start = ++i;
+                content = false;
+            } else if ((c == 'G' || c == 'g') && (end = goLineEnd(script, i)) >= 0) {
+                add(pieces, script, start, i, content);
+                start = i = end;
+                content = false;
+            } else {
+                if (!Character.isWhitespace(c)) content = true;
+                i++;
+            }
+        }
+        add(pieces, script, start, n, content);
+        return pieces.toArray(new String[0]);
+    }
+
+    private static void add(List<String> pieces, String script, int start, int end, boolean content) {
+        if (content) pieces.add(script.substring(start, end).trim());
+    }
+
+    // Si en 'i' empieza una línea que solo contiene GO, devuelve dónde acaba; -1 si no
+    private static int goLineEnd(String script, int i) {
+        for (int j = i - 1; j >= 0 && script.charAt(j) != '\n'; j--) {
+            if (!Character.isWhitespace(script.charAt(j))) return -1;
+        }
+        if (i + 1 >= script.length() || Character.toUpperCase(script.charAt(i + 1)) != 'O') return -1;
+        int j = i + 2;
+        while (j < script.length() && script.charAt(j) != '\n') {
+            if (!Character.isWhitespace(script.charAt(j))) return -1;
+            j++;
+        }
+        return j;
+    }
+}
@@ -0,0 +1,66 @@
+package odbcbridge;
+
+/**
+ * Atributos efectivos de la sentencia de un {@link ODBCResultSet}, leídos del
+ * driver tras ejecutarla. Pueden diferir de los pedidos en
+ * {@link ODBCConnection} o {@link ODBCQueryOptions} si el driver no los
+ * admite y los sustituyó por los más parecidos (aviso {@code 01S02}).
+ *
+ * @see ODBCResultSet#getStatementSettings()
+ */
+public class ODBCStatementSettings {
+    /** Cursor ({@code SQL_ATTR_CURSOR_TYPE}), p. ej. {@link ODBCConnection#CURSOR_FORWARD_ONLY}; -1 si no se conoce. */
+    public final int cursorType;
+    /** Concurrencia ({@code SQL_ATTR_CONCURRENCY}), p. ej. {@link ODBCConnection#CONCUR_READ_ONLY}; -1 si no se conoce. */
+    public final int concurrency;
+    /** Si el driver no procesa las secuencias de escape ({@code SQL_ATTR_NOSCAN}). */
+    public final boolean noScan;
+    /** Filas máximas del resultado ({@code SQL_ATTR_MAX_ROWS}); 0 sin límite, -1 si no se conoce. */
+    public final long maxRows;
+    /** Tamaño del paquete de red de la conexión en bytes; 0 si no se conoce. */
+    public final int packetSize;
+    /** Filas leídas por cada {@code SQLFetch}. */
+    public final int fetchSize;
+
+    public ODBCStatementSettings(int cursorType, int concurrency, boolean noScan, long maxRows,
+            int packetSize, int fetchSize) {
+        this.cursorType = cursorType;
+        this.concurrency = concurrency;
+        this.noScan = noScan;
+        this.maxRows = maxRows;
+        this.packetSize = packetSize;
+        this.fetchSize = fetchSize;
+    }
+
+    /** Nombre del tipo de cursor ({@code FORWARD_ONLY}, {@code STATIC}...). */
+    public static String cursorTypeName(int cursorType) {
+        switch (cursorType) {
+            case ODBCConnection.CURSOR_FORWARD_ONLY: return "FORWARD_ONLY";
+            case ODBCConnection.CURSOR_KEYSET_DRIVEN: return "KEYSET_DRIVEN";
+            case ODBCConnection.CURSOR_DYNAMIC: return "DYNAMIC";
+            case ODBCConnection.CURSOR_STATIC: return "STATIC";
+            default: return String.valueOf(cursorType);
+        }
+    }
+
+    /** Nombre de la concurrencia ({@code READ_ONLY}, {@code LOCK}...). */
+    public static String concurrencyName(int concurrency) {
+        switch (concurrency) {
+            case ODBCConnection.CONCUR_READ_ONLY: return "READ_ONLY";
+            case ODBCConnection.CONCUR_LOCK: return "LOCK";
+            case ODBCConnection.CONCUR_ROWVER: return "ROWVER";
+            case ODBCConnection.CONCUR_VALUES: return "VALUES";
+            default: return String.valueOf(concurrency);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "cursorType=" + cursorTypeName(cursorType)
+            + ", concurrency=" + concurrencyName(concurrency)
+            + ", noScan=" + noScan
+            + ", maxRows=" + maxRows
+            + ", packetSize=" + packetSize
+            + ", fetchSize=" + fetchSize;
+    }
+}
@@ -0,0 +1,12 @@
+package odbcbridge;
+
+/**
+ * Convierte una fila en un objeto, para {@link ODBCConnection#stream} y
+ * {@link ODBCResultSet#stream}. En un stream paralelo se llama desde varios
+ * hilos a la vez, cada uno con su propia fila.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    T mapRow(ODBCRow row) throws Exception;
+}
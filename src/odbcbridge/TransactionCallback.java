@@ -0,0 +1,12 @@
+package odbcbridge;
+
+/**
+ * Trabajo ejecutado dentro de una transacción por
+ * {@link ODBCConnection#inTransaction(TransactionCallback)}. Si lanza una
+ * excepción la transacción se deshace.
+ */
+@FunctionalInterface
+public interface TransactionCallback<T> {
+
+    T doInTransaction(ODBCConnection connection) throws Exception;
+}
@@ -0,0 +1,38 @@
+
+import odbcbridge.ODBCConnection;
+import odbcbridge.ODBCDataSource;
+
+/**
+ * Mide ciclos connect/close por segundo con y sin pooling del Driver Manager.
+ *
+ * El pooling se fija a nivel de proceso, así que cada modo se ejecuta en una JVM distinta:
+ *   java ConnectBenchmark <DSN> off
+ *   java ConnectBenchmark <DSN> pooling
+ */
+public class ConnectBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final String dsn = args.length > 0 ? args[0] : "Postgre32";
+        final boolean pooling = args.length > 1 && "pooling".equalsIgnoreCase(args[1]);
+        final int cycles = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+        ODBCDataSource.setDriverManagerPooling(pooling);
+        final ODBCDataSource dataSource = new ODBCDataSource()
+                .setDsn(dsn);
+
+        // Calentamiento
+        for (int i = 0; i < 20; i++) {
+            dataSource.getConnection().close();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < cycles; i++) {
+            try (ODBCConnection connection = dataSource.getConnection()) {
+                // conectar y cerrar
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("pooling=%s cycles=%d %.3f s  %.1f connect/close per s%n",
+                pooling, cycles, seconds, cycles / seconds);
+    }
+}
@@ -0,0 +1,44 @@
+
+import odbcbridge.ODBCConnection;
+import odbcbridge.ODBCDataSource;
+import odbcbridge.ODBCResultSet;
+
+/**
+ * Compara filas/segundo leyendo fila a fila (fetchArray) y por bloques (fetchBlock).
+ *
+ * Uso: java FetchBenchmark <DSN> "<SELECT ...>"
+ */
+public class FetchBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final String dsn = args.length > 0 ? args[0] : "Postgre32";
+        final String sql = args.length > 1 ? args[1] : "SELECT * FROM \"Product\"";
+        final int[] fetchSizes = { 1, 64, 256, 1024 };
+
+        final ODBCDataSource dataSource = new ODBCDataSource()
+                .setDsn(dsn);
+
+        try (ODBCConnection connection = dataSource.getConnection()) {
+            // Calentamiento
+            scan(connection, sql, 256);
+
+            for (int fetchSize : fetchSizes) {
+                long start = System.nanoTime();
+                long rows = scan(connection, sql, fetchSize);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("fetchSize=%-5d rows=%-10d %.3f s  %.0f rows/s%n",
+                        fetchSize, rows, seconds, rows / seconds);
+            }
+        }
+    }
+
+    private static long scan(ODBCConnection connection, String sql, int fetchSize) throws Exception {
+        long rows = 0;
+        try (ODBCResultSet resultSet = connection.query(sql, null, fetchSize)) {
+            while (resultSet.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,63 @@
+
+import odbcbridge.ODBCConnection;
+import odbcbridge.ODBCDataSource;
+import odbcbridge.ODBCResultSet;
+
+/**
+ * Compara leer una columna numérica con get() y un cast (un objeto por valor)
+ * frente a los getters primitivos getLong()/getDouble(), que leen del bloque
+ * columnar sin crear objetos.
+ *
+ * Uso: java GetterBenchmark <DSN> "<SELECT columnaNumerica FROM ...>" <repeticiones>
+ */
+public class GetterBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final String dsn = args.length > 0 ? args[0] : "Postgre32";
+        final String sql = args.length > 1 ? args[1] : "SELECT \"id\" FROM \"Product\"";
+        final int repeat = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        final ODBCDataSource dataSource = new ODBCDataSource()
+                .setDsn(dsn);
+
+        try (ODBCConnection connection = dataSource.getConnection()) {
+            // Calentamiento
+            sumBoxed(connection, sql);
+            sumPrimitive(connection, sql);
+
+            for (int i = 0; i < repeat; i++) {
+                long start = System.nanoTime();
+                long total = sumBoxed(connection, sql);
+                double boxed = (System.nanoTime() - start) / 1e6;
+
+                start = System.nanoTime();
+                long check = sumPrimitive(connection, sql);
+                double primitive = (System.nanoTime() - start) / 1e6;
+
+                System.out.printf("get()+cast %.1f ms   getLong() %.1f ms   (sum=%d/%d)%n",
+                        boxed, primitive, total, check);
+            }
+        }
+    }
+
+    private static long sumBoxed(ODBCConnection connection, String sql) throws Exception {
+        long total = 0;
+        try (ODBCResultSet resultSet = connection.query(sql)) {
+            while (resultSet.next()) {
+                Number value = (Number) resultSet.get(1);
+                if (value != null) total += value.longValue();
+            }
+        }
+        return total;
+    }
+
+    private static long sumPrimitive(ODBCConnection connection, String sql) throws Exception {
+        long total = 0;
+        try (ODBCResultSet resultSet = connection.query(sql)) {
+            while (resultSet.next()) {
+                total += resultSet.getLong(1);
+            }
+        }
+        return total;
+    }
+}
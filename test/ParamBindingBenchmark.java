@@ -0,0 +1,63 @@
+
+import java.util.Arrays;
+import odbcbridge.ODBCConnection;
+import odbcbridge.ODBCDataSource;
+import odbcbridge.ODBCPreparedStatement;
+import odbcbridge.ODBCResultSet;
+
+/**
+ * Compara la latencia de búsquedas por clave indexada enlazando el parámetro
+ * con su tipo (Integer) o como texto (String), que obliga al servidor a convertirlo.
+ *
+ * Uso: java ParamBindingBenchmark <DSN> "<SELECT ... WHERE id = ?>" <idMaximo> <iteraciones>
+ */
+public class ParamBindingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final String dsn = args.length > 0 ? args[0] : "Postgre32";
+        final String sql = args.length > 1 ? args[1] : "SELECT * FROM \"Product\" WHERE \"id\" = ?";
+        final int maxId = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        final int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+
+        final ODBCDataSource dataSource = new ODBCDataSource()
+                .setDsn(dsn);
+
+        try (ODBCConnection connection = dataSource.getConnection();
+             ODBCPreparedStatement statement = connection.prepare(sql)) {
+            // Calentamiento
+            run(statement, maxId, iterations / 10, true);
+            run(statement, maxId, iterations / 10, false);
+
+            report("typed ", run(statement, maxId, iterations, true));
+            report("string", run(statement, maxId, iterations, false));
+        }
+    }
+
+    private static long[] run(ODBCPreparedStatement statement, int maxId, int iterations, boolean typed) throws Exception {
+        long[] latencies = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            int id = 1 + (i % maxId);
+            Object param = typed ? (Object) id : String.valueOf(id);
+            long start = System.nanoTime();
+            try (ODBCResultSet resultSet = statement.executeQuery(param)) {
+                while (resultSet.next()) {
+                    // solo se recorre
+                }
+            }
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    private static void report(String label, long[] latencies) {
+        Arrays.sort(latencies);
+        long total = 0;
+        for (long latency : latencies) {
+            total += latency;
+        }
+        System.out.printf("%s avg=%.1f us  p50=%.1f us  p99=%.1f us%n", label,
+                total / (double) latencies.length / 1e3,
+                latencies[latencies.length / 2] / 1e3,
+                latencies[(int) (latencies.length * 0.99)] / 1e3);
+    }
+}
@@ -0,0 +1,67 @@
+import java.util.concurrent.atomic.LongAdder;
+import odbcbridge.ODBCConnection;
+import odbcbridge.ODBCDataSource;
+import odbcbridge.ODBCPartitionedScan;
+import odbcbridge.ODBCResultSet;
+import odbcbridge.ODBCScanProgress;
+
+/**
+ * Compara la lectura completa de una tabla con una sola conexión frente a un
+ * {@link ODBCPartitionedScan} con N conexiones. Informa filas por segundo y el
+ * rendimiento de cada partición.
+ *
+ * Uso: java PartitionedScanBenchmark <DSN> <tabla> <columnaClave> <conexiones>
+ */
+public class PartitionedScanBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final String dsn = args.length > 0 ? args[0] : "SqlServer";
+        final String table = args.length > 1 ? args[1] : "orders";
+        final String key = args.length > 2 ? args[2] : "id";
+        final int connections = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+
+        final ODBCDataSource dataSource = new ODBCDataSource().setDsn(dsn);
+
+        // Una sola conexión
+        long start = System.nanoTime();
+        long rows = 0;
+        try (ODBCConnection connection = dataSource.getConnection();
+             ODBCResultSet rs = connection.query("SELECT * FROM " + table)) {
+            while (rs.next()) {
+                rs.getValues();
+                rows++;
+            }
+        }
+        report("1 conexión", rows, System.nanoTime() - start);
+
+        // Particionado, sin orden y en orden de clave
+        for (boolean ordered : new boolean[] { false, true }) {
+            ODBCPartitionedScan scan = ODBCPartitionedScan.table(dataSource, table, key)
+                    .setConnections(connections)
+                    .setOrdered(ordered);
+            LongAdder count = new LongAdder();
+            start = System.nanoTime();
+            scan.forEach(row -> count.increment());
+            report(connections + " conexiones" + (ordered ? " (ordenado)" : ""), count.sum(), System.nanoTime() - start);
+
+            ODBCScanProgress progress = scan.getProgress();
+            for (ODBCScanProgress.Partition partition : progress.partitionStats) {
+                System.out.println("    " + partition);
+            }
+        }
+
+        // Sin filas y sin la partición de NULL: no hay particiones y no debe leer nada
+        ODBCPartitionedScan empty = ODBCPartitionedScan.table(dataSource, table, key)
+                .setConnections(connections)
+                .setFilter("1 = 0", null)
+                .setIncludeNulls(false);
+        LongAdder count = new LongAdder();
+        empty.forEach(row -> count.increment());
+        if (count.sum() != 0) throw new IllegalStateException("El recorrido vacío devolvió " + count.sum() + " filas");
+        System.out.println("vacío: " + empty.getProgress());
+    }
+
+    private static void report(String label, long rows, long nanos) {
+        System.out.printf("%-28s %,d filas en %.1f ms (%,.0f filas/s)%n", label, rows, nanos / 1e6, rows * 1e9 / nanos);
+    }
+}
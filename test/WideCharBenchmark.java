@@ -0,0 +1,88 @@
+import java.util.ArrayList;
+import java.util.List;
+import odbcbridge.ODBCConnection;
+import odbcbridge.ODBCDataSource;
+import odbcbridge.ODBCResultSet;
+
+/**
+ * Compara la lectura de una tabla NVARCHAR con texto en varios alfabetos
+ * leyendo las columnas como SQL_C_CHAR (página de códigos + NewStringUTF) o
+ * como SQL_C_WCHAR (UTF-16 + NewString). Informa el tiempo por fila y cuántos
+ * valores no vuelven idénticos a los insertados.
+ *
+ * Uso: java WideCharBenchmark <DSN> <filas> <iteraciones>
+ */
+public class WideCharBenchmark {
+
+    private static final String[] SAMPLES = {
+        "Señalización ñandú",
+        "Ελληνικά κείμενα",
+        "Русский текст",
+        "中文字符测试",
+        "日本語のテキスト",
+        "한국어 텍스트",
+        "עברית ועוד",
+        "العربية نص",
+        "emoji 😀 🚀",
+    };
+
+    public static void main(String[] args) throws Exception {
+        final String dsn = args.length > 0 ? args[0] : "SqlServer";
+        final int rows = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        final int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        final ODBCDataSource dataSource = new ODBCDataSource()
+                .setDsn(dsn)
+                .setWideChars(true);
+
+        try (ODBCConnection connection = dataSource.getConnection()) {
+            // Los datos se insertan en UTF-16 para que la tabla sea la referencia
+            connection.execute("CREATE TABLE wide_bench (id INTEGER, name NVARCHAR(100), notes NVARCHAR(400))");
+            try {
+                List<Object[]> batch = new ArrayList<>(rows);
+                for (int i = 0; i < rows; i++) {
+                    String name = SAMPLES[i % SAMPLES.length];
+                    batch.add(new Object[] { i, name, name + " / " + SAMPLES[(i + 3) % SAMPLES.length] });
+                }
+                connection.executeBatch("INSERT INTO wide_bench (id, name, notes) VALUES (?, ?, ?)", batch);
+
+                // Calentamiento
+                run(connection, false, 1);
+                run(connection, true, 1);
+
+                report("SQL_C_CHAR ", run(connection, false, iterations), rows, iterations);
+                report("SQL_C_WCHAR", run(connection, true, iterations), rows, iterations);
+            } finally {
+                connection.setWideChars(true);
+                connection.execute("DROP TABLE wide_bench");
+            }
+        }
+    }
+
+    // Devuelve {nanosegundos, valores distintos del original}
+    private static long[] run(ODBCConnection connection, boolean wide, int iterations) throws Exception {
+        connection.setWideChars(wide);
+        long elapsed = 0;
+        long mismatches = 0;
+        for (int it = 0; it < iterations; it++) {
+            long start = System.nanoTime();
+            try (ODBCResultSet rs = connection.query("SELECT id, name, notes FROM wide_bench")) {
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    String name = rs.getString(2);
+                    rs.getString(3);
+                    if (!SAMPLES[id % SAMPLES.length].equals(name)) {
+                        mismatches++;
+                    }
+                }
+            }
+            elapsed += System.nanoTime() - start;
+        }
+        return new long[] { elapsed, mismatches / iterations };
+    }
+
+    private static void report(String label, long[] result, int rows, int iterations) {
+        System.out.printf("%s %.3f us/fila  valores alterados=%d de %d%n", label,
+                result[0] / 1e3 / ((double) rows * iterations), result[1], rows);
+    }
+}